@@ -16,6 +16,8 @@
 # (the one that contains the "dev-tools" subdirectory).
 # It reads LeafRegionEntry.cpp, preprocesses it and generates all the leaf
 # class source files that subclass AbstractRegionEntry.
+# The PrimitiveValue leaf classes, which store int, long and double values
+# inline, are only generated for heap entries that neither evict nor write to disk.
 # It executes cpp. It has been tested with gnu's cpp on linux.
 # After using it to generate new java files, make sure and
 # run './gradlew spotlessApply' to format these generated files.
@@ -29,16 +31,32 @@ for VERTYPE in VM Versioned
 do
   for RETYPE in Thin Stats ThinLRU StatsLRU ThinDisk StatsDisk ThinDiskLRU StatsDiskLRU
   do
-    for KEY_INFO in 'ObjectKey KEY_OBJECT' 'IntKey KEY_INT' 'LongKey KEY_LONG' 'UUIDKey KEY_UUID' 'StringKey1 KEY_STRING1' 'StringKey2 KEY_STRING2'
+    for KEY_INFO in 'ObjectKey KEY_OBJECT' 'IntKey KEY_INT' 'LongKey KEY_LONG' 'UUIDKey KEY_UUID' 'StringKey1 KEY_STRING1' 'StringKey2 KEY_STRING2' 'OffHeapKey KEY_OFFHEAP'
     do
       for MEMTYPE in Heap OffHeap
       do
+      for VALUE_TYPE in Object Primitive
+      do
       declare -a KEY_ARRAY=($KEY_INFO)
       KEY_CLASS=${KEY_ARRAY[0]}
       KEY_TYPE=${KEY_ARRAY[1]}
+      if [[ "$KEY_TYPE" = "KEY_OFFHEAP" && "$MEMTYPE" = "Heap" ]]; then
+        # keys can only be stored off heap by entries that store their values off heap
+        continue
+      fi
+      if [[ "$VALUE_TYPE" = "Primitive" && ( "$MEMTYPE" = "OffHeap" || "$RETYPE" = *Disk* || "$RETYPE" = *LRU* ) ]]; then
+        # values can only be stored inline by heap entries that neither evict nor write to disk
+        continue
+      fi
       BASE=${VERTYPE}${RETYPE}RegionEntry${MEMTYPE}
       OUT=${BASE}${KEY_CLASS}
+      if [ "$VALUE_TYPE" = "Primitive" ]; then
+        OUT=${OUT}PrimitiveValue
+      fi
       WP_ARGS=-Wp,-C,-P,-D${KEY_TYPE},-DPARENT_CLASS=$BASE,-DLEAF_CLASS=$OUT
+      if [ "$VALUE_TYPE" = "Primitive" ]; then
+        WP_ARGS=${WP_ARGS},-DPRIMITIVE_VALUE
+      fi
       if [ "$VERTYPE" = "Versioned" ]; then
         WP_ARGS=${WP_ARGS},-DVERSIONED
       fi
@@ -58,6 +76,7 @@ do
       cpp -E $WP_ARGS $SRCFILE >$SRCDIR/$OUT.java
       #echo VERTYPE=$VERTYPE RETYPE=$RETYPE $KEY_INFO KEY_CLASS=$KEY_CLASS KEY_TYPE=$KEY_TYPE args=$WP_ARGS 
       done
+      done
     done
   done
 done
@@ -21,6 +21,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
 import org.awaitility.Awaitility;
@@ -34,6 +35,8 @@ import org.apache.geode.cache.Cache;
 import org.apache.geode.cache.CacheFactory;
 import org.apache.geode.cache.DiskStore;
 import org.apache.geode.cache.DiskStoreFactory;
+import org.apache.geode.cache.EvictionAction;
+import org.apache.geode.cache.EvictionAttributes;
 import org.apache.geode.cache.Region;
 import org.apache.geode.cache.RegionFactory;
 import org.apache.geode.cache.RegionShortcut;
@@ -101,6 +104,129 @@ public class DiskStoreImplIntegrationTest {
     Awaitility.await().atMost(1, TimeUnit.MINUTES).until(() -> diskStoreStats.getQueueSize() == 0);
   }
 
+  @Test
+  public void valuesAreFaultedInThroughMemoryMappingOnceOplogIsDoneAppending() throws Exception {
+    File baseDir = temporaryDirectory.newFolder();
+    DiskStoreFactoryImpl diskStoreFactory =
+        (DiskStoreFactoryImpl) cache.createDiskStoreFactory().setDiskDirs(new File[] {baseDir});
+    DiskStore diskStore = diskStoreFactory.setMemoryMappedReads(true).create(DISK_STORE_NAME);
+    diskStoreStats = ((DiskStoreImpl) diskStore).getStats();
+    aRegion = cache.<Integer, String>createRegionFactory(RegionShortcut.LOCAL_PERSISTENT)
+        .setDiskStoreName(DISK_STORE_NAME).setDiskSynchronous(true)
+        .setEvictionAttributes(
+            EvictionAttributes.createLRUEntryAttributes(1, EvictionAction.OVERFLOW_TO_DISK))
+        .create(REGION_NAME);
+    for (int i = 0; i < 10; i++) {
+      aRegion.put(i, "value" + i);
+    }
+    diskStore.forceRoll();
+
+    for (int i = 0; i < 10; i++) {
+      assertThat(aRegion.get(i)).isEqualTo("value" + i);
+    }
+    assertThat(diskStoreStats.getMappedOplogReads()).isGreaterThan(0);
+  }
+
+  @Test
+  public void synchronousWritesFromConcurrentThreadsAreRecoveredWithGroupCommit()
+      throws Exception {
+    File baseDir = temporaryDirectory.newFolder();
+    createRegionWithGroupCommitDiskStore(baseDir);
+    Thread[] writers = new Thread[4];
+    for (int t = 0; t < writers.length; t++) {
+      final int base = t * 100;
+      writers[t] = new Thread(() -> {
+        for (int i = base; i < base + 100; i++) {
+          aRegion.put(i, "value" + i);
+        }
+        aRegion.remove(base);
+      });
+      writers[t].start();
+    }
+    for (Thread writer : writers) {
+      writer.join(TimeUnit.MINUTES.toMillis(1));
+    }
+    assertThat(diskStoreStats.getGroupCommits()).isGreaterThan(0);
+    assertThat(diskStoreStats.getGroupCommitWrites()).isEqualTo(404);
+
+    cache.close();
+    cache = createCache();
+    createRegionWithGroupCommitDiskStore(baseDir);
+
+    assertThat(aRegion.size()).isEqualTo(396);
+    assertThat(aRegion.get(1)).isEqualTo("value1");
+    assertThat(aRegion.containsKey(100)).isFalse();
+  }
+
+  @Test
+  public void throttledCompactionCopiesLiveValuesAndDrainsBacklog() throws Exception {
+    File baseDir = temporaryDirectory.newFolder();
+    DiskStoreFactoryImpl diskStoreFactory =
+        (DiskStoreFactoryImpl) cache.createDiskStoreFactory().setDiskDirs(new File[] {baseDir})
+            .setAutoCompact(false).setAllowForceCompaction(true).setCompactionThreshold(100);
+    diskStoreFactory.setCompactionMaxMBPerSecond(100);
+    diskStoreFactory.setCompactionPauseWriteLatencyMicros(1000);
+    DiskStore diskStore = diskStoreFactory.create(DISK_STORE_NAME);
+    diskStoreStats = ((DiskStoreImpl) diskStore).getStats();
+    aRegion = cache.<Integer, String>createRegionFactory(RegionShortcut.LOCAL_PERSISTENT)
+        .setDiskStoreName(DISK_STORE_NAME).setDiskSynchronous(true).create(REGION_NAME);
+    for (int i = 0; i < 100; i++) {
+      aRegion.put(i, "value" + i);
+    }
+    for (int i = 0; i < 50; i++) {
+      aRegion.put(i, "updated" + i);
+    }
+    diskStore.forceRoll();
+
+    assertThat(diskStore.forceCompaction()).isTrue();
+
+    assertThat(diskStoreStats.getCompactionBytes()).isGreaterThan(0);
+    assertThat(diskStoreStats.getCompactionBytesPerSecond()).isGreaterThan(0);
+    assertThat(diskStoreStats.getCompactionBacklogBytes()).isEqualTo(0);
+    assertThat(aRegion.get(1)).isEqualTo("updated1");
+    assertThat(aRegion.get(99)).isEqualTo("value99");
+  }
+
+  @Test
+  public void regionCloseDoesNotWaitForThrottledCompaction() throws Exception {
+    File baseDir = temporaryDirectory.newFolder();
+    DiskStoreFactoryImpl diskStoreFactory =
+        (DiskStoreFactoryImpl) cache.createDiskStoreFactory().setDiskDirs(new File[] {baseDir})
+            .setAutoCompact(false).setAllowForceCompaction(true).setCompactionThreshold(100);
+    diskStoreFactory.setCompactionMaxMBPerSecond(1);
+    DiskStore diskStore = diskStoreFactory.create(DISK_STORE_NAME);
+    diskStoreStats = ((DiskStoreImpl) diskStore).getStats();
+    aRegion = cache.<Integer, byte[]>createRegionFactory(RegionShortcut.LOCAL_PERSISTENT)
+        .setDiskStoreName(DISK_STORE_NAME).setDiskSynchronous(true).create(REGION_NAME);
+    // twenty seconds worth of live values at one megabyte per second
+    for (int i = 0; i < 200; i++) {
+      aRegion.put(i, new byte[100 * 1024]);
+    }
+    aRegion.put(0, new byte[1]);
+    diskStore.forceRoll();
+    CompletableFuture<Boolean> compaction =
+        CompletableFuture.supplyAsync(() -> diskStore.forceCompaction());
+    Awaitility.await().atMost(30, TimeUnit.SECONDS)
+        .until(() -> diskStoreStats.getCompactionThrottleTime() > 0);
+
+    long start = System.nanoTime();
+    aRegion.close();
+
+    assertThat(System.nanoTime() - start).isLessThan(TimeUnit.SECONDS.toNanos(5));
+    compaction.get(30, TimeUnit.SECONDS);
+  }
+
+  private void createRegionWithGroupCommitDiskStore(File baseDir) {
+    DiskStoreFactoryImpl diskStoreFactory =
+        (DiskStoreFactoryImpl) cache.createDiskStoreFactory().setDiskDirs(new File[] {baseDir});
+    diskStoreFactory.setGroupCommit(true);
+    diskStoreFactory.setGroupCommitMaxWaitMicros(100);
+    DiskStore diskStore = diskStoreFactory.create(DISK_STORE_NAME);
+    diskStoreStats = ((DiskStoreImpl) diskStore).getStats();
+    aRegion = cache.<Integer, String>createRegionFactory(RegionShortcut.LOCAL_PERSISTENT)
+        .setDiskStoreName(DISK_STORE_NAME).setDiskSynchronous(true).create(REGION_NAME);
+  }
+
   private void putEntries(int numToPut) {
     for (int i = 1; i <= numToPut; i++) {
       aRegion.put(i, i);
@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+import static org.apache.geode.distributed.ConfigurationProperties.LOCATORS;
+import static org.apache.geode.distributed.ConfigurationProperties.MCAST_PORT;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.awaitility.Awaitility;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.contrib.java.lang.system.RestoreSystemProperties;
+
+import org.apache.geode.cache.CacheFactory;
+import org.apache.geode.cache.CacheLoader;
+import org.apache.geode.cache.LoaderHelper;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.RegionShortcut;
+import org.apache.geode.cache.client.internal.ServerRegionProxy;
+
+public class GetCoalescingIntegrationTest {
+
+  private InternalCache cache;
+  private ExecutorService executor;
+
+  @Rule
+  public RestoreSystemProperties restoreSystemProperties = new RestoreSystemProperties();
+
+  @Before
+  public void setUp() {
+    cache = (InternalCache) new CacheFactory().set(LOCATORS, "").set(MCAST_PORT, "0").create();
+    executor = Executors.newFixedThreadPool(2);
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+    cache.close();
+  }
+
+  @Test
+  public void concurrentMissesShareOneLoad() throws Exception {
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger loads = new AtomicInteger();
+    Region<String, String> region = cache.<String, String>createRegionFactory(RegionShortcut.LOCAL)
+        .setCacheLoader(new CacheLoader<String, String>() {
+          @Override
+          public String load(LoaderHelper<String, String> helper) {
+            loads.incrementAndGet();
+            loading.countDown();
+            try {
+              release.await(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+            return "value";
+          }
+
+          @Override
+          public void close() {}
+        }).create("region");
+
+    Future<String> first = executor.submit(() -> region.get("key"));
+    assertThat(loading.await(30, TimeUnit.SECONDS)).isTrue();
+    Future<String> second = executor.submit(() -> region.get("key"));
+    Awaitility.await().atMost(30, TimeUnit.SECONDS)
+        .until(() -> cache.getCachePerfStats().getGetsCoalesced() == 1);
+    release.countDown();
+
+    assertThat(first.get(30, TimeUnit.SECONDS)).isEqualTo("value");
+    assertThat(second.get(30, TimeUnit.SECONDS)).isEqualTo("value");
+    assertThat(loads.get()).isEqualTo(1);
+    assertThat(cache.getCachePerfStats().getGetsCoalesced()).isEqualTo(1);
+  }
+
+  @Test
+  public void concurrentClientMissesEachGetFromServerWhenCoalescingIsDisabled() throws Exception {
+    System.setProperty(LocalRegion.DISABLE_CLIENT_GET_COALESCING_PROPERTY, "true");
+    LocalRegion region = spy((LocalRegion) cache.createRegionFactory(RegionShortcut.LOCAL)
+        .setConcurrencyChecksEnabled(false).create("region"));
+    ServerRegionProxy serverProxy = mock(ServerRegionProxy.class);
+    doReturn(true).when(region).hasServerProxy();
+    doReturn(serverProxy).when(region).getServerProxy();
+    // each server get waits for the other one, so both must be in flight at once
+    CountDownLatch bothGetting = new CountDownLatch(2);
+    when(serverProxy.get(eq("key"), any(), any())).thenAnswer(invocation -> {
+      bothGetting.countDown();
+      assertThat(bothGetting.await(30, TimeUnit.SECONDS)).isTrue();
+      return null;
+    });
+
+    Future<Object> first = executor.submit(() -> region.get("key"));
+    Future<Object> second = executor.submit(() -> region.get("key"));
+
+    assertThat(first.get(30, TimeUnit.SECONDS)).isNull();
+    assertThat(second.get(30, TimeUnit.SECONDS)).isNull();
+    verify(serverProxy, times(2)).get(eq("key"), any(), any());
+    assertThat(cache.getCachePerfStats().getGetsCoalesced()).isZero();
+  }
+}
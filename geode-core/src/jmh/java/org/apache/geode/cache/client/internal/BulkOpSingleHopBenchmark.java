@@ -0,0 +1,209 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.client.internal;
+
+import static org.apache.geode.distributed.ConfigurationProperties.LOCATORS;
+import static org.apache.geode.distributed.ConfigurationProperties.LOG_LEVEL;
+import static org.apache.geode.distributed.ConfigurationProperties.MCAST_PORT;
+import static org.apache.geode.distributed.ConfigurationProperties.START_LOCATOR;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.apache.geode.cache.Cache;
+import org.apache.geode.cache.CacheFactory;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.RegionShortcut;
+import org.apache.geode.cache.client.ClientCache;
+import org.apache.geode.cache.client.ClientCacheFactory;
+import org.apache.geode.cache.client.ClientRegionShortcut;
+import org.apache.geode.cache.server.CacheServer;
+
+/**
+ * This benchmark measures the latency of getAll and putAll from a client with single hop enabled
+ * on a partitioned region hosted by 16 cache servers, each of which runs in its own process.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+public class BulkOpSingleHopBenchmark {
+  private static final int SERVERS = 16;
+  private static final int ENTRIES = 100_000;
+  private static final String READY = "SERVER READY";
+
+  @Param({"100", "1000"})
+  int keysPerOp;
+
+  private final List<Process> servers = new ArrayList<>();
+  private ClientCache cache;
+  private Region<Integer, String> region;
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    int locatorPort;
+    try (ServerSocket socket = new ServerSocket(0)) {
+      locatorPort = socket.getLocalPort();
+    }
+    // the first server also starts the locator the others join
+    awaitReady(startServer(locatorPort, true));
+    for (int i = 1; i < SERVERS; i++) {
+      startServer(locatorPort, false);
+    }
+    for (Process server : servers.subList(1, SERVERS)) {
+      awaitReady(server);
+    }
+    cache = new ClientCacheFactory().set(LOG_LEVEL, "warn").addPoolLocator("localhost", locatorPort)
+        .setPoolPRSingleHopEnabled(true).setPoolMaxConnections(-1).create();
+    region = cache.<Integer, String>createClientRegionFactory(ClientRegionShortcut.PROXY)
+        .create("region");
+    Map<Integer, String> entries = new HashMap<>();
+    for (int i = 0; i < ENTRIES; i++) {
+      entries.put(i, "value" + i);
+      if (entries.size() == 1000) {
+        region.putAll(entries);
+        entries.clear();
+      }
+    }
+  }
+
+  private Process startServer(int locatorPort, boolean startLocator) throws IOException {
+    String java =
+        System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+    ProcessBuilder builder = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+        Server.class.getName(), String.valueOf(locatorPort), String.valueOf(startLocator));
+    builder.redirectErrorStream(true);
+    Process server = builder.start();
+    servers.add(server);
+    return server;
+  }
+
+  private static void awaitReady(Process server) throws IOException {
+    BufferedReader output = new BufferedReader(new InputStreamReader(server.getInputStream()));
+    String line;
+    while ((line = output.readLine()) != null) {
+      if (line.equals(READY)) {
+        // keep reading so the server never blocks writing its log
+        Thread drainer = new Thread(() -> {
+          try {
+            while (output.readLine() != null) {
+              // discard
+            }
+          } catch (IOException ignore) {
+            // the server is gone
+          }
+        });
+        drainer.setDaemon(true);
+        drainer.start();
+        return;
+      }
+    }
+    throw new IllegalStateException("A server exited before it was ready");
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    cache.close();
+    for (Process server : servers) {
+      // the server stops once its input is closed
+      server.getOutputStream().close();
+    }
+    for (Process server : servers) {
+      if (!server.waitFor(30, TimeUnit.SECONDS)) {
+        server.destroyForcibly();
+      }
+    }
+  }
+
+  private List<Integer> randomKeys() {
+    List<Integer> keys = new ArrayList<>(keysPerOp);
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    for (int i = 0; i < keysPerOp; i++) {
+      keys.add(random.nextInt(ENTRIES));
+    }
+    return keys;
+  }
+
+  @Benchmark
+  @Threads(8)
+  @Measurement(iterations = 10)
+  @Warmup(iterations = 3)
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public Object getAll() {
+    return region.getAll(randomKeys());
+  }
+
+  @Benchmark
+  @Threads(8)
+  @Measurement(iterations = 10)
+  @Warmup(iterations = 3)
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public void putAll() {
+    Map<Integer, String> entries = new HashMap<>();
+    for (Integer key : randomKeys()) {
+      entries.put(key, "updated" + key);
+    }
+    region.putAll(entries);
+  }
+
+  /**
+   * One of the servers of the benchmark.
+   */
+  public static class Server {
+    public static void main(String[] args) throws Exception {
+      String locator = "localhost[" + args[0] + "]";
+      CacheFactory factory =
+          new CacheFactory().set(LOG_LEVEL, "warn").set(MCAST_PORT, "0").set(LOCATORS, locator);
+      if (Boolean.parseBoolean(args[1])) {
+        factory.set(START_LOCATOR, locator);
+      }
+      Cache cache = factory.create();
+      cache.createRegionFactory(RegionShortcut.PARTITION).create("region");
+      CacheServer server = cache.addCacheServer();
+      server.setPort(0);
+      server.start();
+      System.out.println(READY);
+      System.out.flush();
+      while (System.in.read() != -1) {
+        // wait for the benchmark to close our input
+      }
+      cache.close();
+    }
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.client.internal;
+
+import static org.apache.geode.distributed.ConfigurationProperties.LOCATORS;
+import static org.apache.geode.distributed.ConfigurationProperties.LOG_LEVEL;
+import static org.apache.geode.distributed.ConfigurationProperties.MCAST_PORT;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.apache.geode.cache.Cache;
+import org.apache.geode.cache.CacheFactory;
+import org.apache.geode.cache.RegionShortcut;
+import org.apache.geode.cache.client.PoolManager;
+import org.apache.geode.cache.server.CacheServer;
+import org.apache.geode.internal.cache.LocalRegion;
+
+/**
+ * This benchmark measures the throughput of many threads doing gets on a cache server through a
+ * pool, with and without multiplexed connections.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+public class MultiplexedConnectionBenchmark {
+  private static final int ENTRIES = 10_000;
+
+  @Param({"false", "true"})
+  boolean multiplexed;
+
+  Cache cache;
+  LocalRegion region;
+  PoolImpl pool;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    cache = new CacheFactory().set(LOG_LEVEL, "warn").set(MCAST_PORT, "0").set(LOCATORS, "")
+        .create();
+    region = (LocalRegion) cache.createRegionFactory(RegionShortcut.REPLICATE).create("region");
+    for (int i = 0; i < ENTRIES; i++) {
+      region.put(i, "value" + i);
+    }
+    CacheServer server = cache.addCacheServer();
+    server.setPort(0);
+    server.start();
+    pool = (PoolImpl) PoolManager.createFactory().addServer("localhost", server.getPort())
+        .setMultiplexedConnections(multiplexed).setMaxConnections(256).create("pool");
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    pool.destroy();
+    cache.close();
+  }
+
+  @Benchmark
+  @Threads(64)
+  @Measurement(iterations = 10)
+  @Warmup(iterations = 3)
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public Object get() {
+    int key = ThreadLocalRandom.current().nextInt(ENTRIES);
+    return GetOp.execute(pool, region, key, null, false, null);
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.client.internal;
+
+import static org.apache.geode.distributed.ConfigurationProperties.LOCATORS;
+import static org.apache.geode.distributed.ConfigurationProperties.LOG_LEVEL;
+import static org.apache.geode.distributed.ConfigurationProperties.MCAST_PORT;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.apache.geode.cache.Cache;
+import org.apache.geode.cache.CacheFactory;
+import org.apache.geode.cache.RegionShortcut;
+import org.apache.geode.cache.client.PoolManager;
+import org.apache.geode.cache.server.CacheServer;
+import org.apache.geode.internal.cache.LocalRegion;
+import org.apache.geode.internal.util.concurrent.VirtualThreads;
+
+/**
+ * This benchmark measures the memory used by a cache server with many client connections, each
+ * with its own server connection thread, and the throughput of gets through those connections, with
+ * platform and with virtual server connection threads. The server is forced to use a thread per
+ * connection rather than its default selector threads.
+ *
+ * The resident memory, heap and live platform thread count of the JVM are printed once all the
+ * connections are open. Both the server and the client are in the forked JVM, which needs twice
+ * the connection count of file descriptors. Virtual threads need the JVM to be JDK 21 or later, see
+ * the jvm option of JMH.
+ */
+@State(Scope.Benchmark)
+public abstract class ServerConnectionThreadsBenchmark {
+  private static final int ENTRIES = 10_000;
+
+  @Param({"20000"})
+  int connections;
+
+  Cache cache;
+  LocalRegion region;
+  PoolImpl pool;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException, InterruptedException {
+    cache = new CacheFactory().set(LOG_LEVEL, "warn").set(MCAST_PORT, "0").set(LOCATORS, "")
+        .create();
+    region = (LocalRegion) cache.createRegionFactory(RegionShortcut.REPLICATE).create("region");
+    for (int i = 0; i < ENTRIES; i++) {
+      region.put(i, "value" + i);
+    }
+    CacheServer server = cache.addCacheServer();
+    server.setPort(0);
+    server.setMaxConnections(connections + 100);
+    server.setMaxThreads(0);
+    server.start();
+    pool = (PoolImpl) PoolManager.createFactory().addServer("localhost", server.getPort())
+        .setMinConnections(connections).setMaxConnections(connections).setIdleTimeout(-1)
+        .create("pool");
+    while (pool.getConnectionCount() < connections) {
+      Thread.sleep(100);
+    }
+    System.gc();
+    long heapUsed = Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
+    System.out.println();
+    System.out.println("virtual threads: " + VirtualThreads.ENABLED + ", connections: "
+        + pool.getConnectionCount() + ", platform threads: "
+        + ManagementFactory.getThreadMXBean().getThreadCount() + ", heap used: "
+        + (heapUsed >> 20) + " MB, " + getResidentMemory());
+  }
+
+  private static String getResidentMemory() throws IOException {
+    Path status = Paths.get("/proc/self/status");
+    if (Files.isReadable(status)) {
+      for (String line : Files.readAllLines(status)) {
+        if (line.startsWith("VmRSS:")) {
+          return "resident memory: " + line.substring("VmRSS:".length()).trim();
+        }
+      }
+    }
+    return "resident memory: unknown";
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    pool.destroy();
+    cache.close();
+  }
+
+  @Benchmark
+  @Threads(64)
+  @Measurement(iterations = 10)
+  @Warmup(iterations = 3)
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public Object get() {
+    int key = ThreadLocalRandom.current().nextInt(ENTRIES);
+    return GetOp.execute(pool, region, key, null, false, null);
+  }
+
+  @Fork(value = 1,
+      jvmArgsAppend = {"-Xss1m", "-Dgemfire.CacheServer.THREAD_PER_CONNECTION=true"})
+  public static class PlatformThreads extends ServerConnectionThreadsBenchmark {
+  }
+
+  @Fork(value = 1, jvmArgsAppend = {"-Xss1m", "-Dgemfire.CacheServer.THREAD_PER_CONNECTION=true",
+      "-Dgemfire.useVirtualThreads=true"})
+  public static class VirtualServerThreads extends ServerConnectionThreadsBenchmark {
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This benchmark compares the throughput of scheduling async disk writes through the
+ * {@link ForceableLinkedBlockingQueue} the async flusher used to drain with the
+ * {@link AsyncWriteRingBuffer} it drains now. Producer threads add items the way
+ * DiskStoreImpl.addAsyncItem does while a single thread drains them in batches like the flusher.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+public class AsyncWriteQueueBenchmark {
+
+  @Param({"0", "10000"})
+  int queueSize;
+
+  @Param({"linked", "ring"})
+  String queueType;
+
+  private Object lock;
+
+  private ForceableLinkedBlockingQueue<Object> linkedQueue;
+
+  private AsyncWriteRingBuffer<Object> ringQueue;
+
+  private Thread flusher;
+
+  private volatile boolean stopped;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    lock = new Object();
+    if (queueType.equals("linked")) {
+      linkedQueue = queueSize > 0 ? new ForceableLinkedBlockingQueue<>(queueSize)
+          : new ForceableLinkedBlockingQueue<>();
+    } else {
+      ringQueue = new AsyncWriteRingBuffer<>(queueSize);
+    }
+    flusher = new Thread(this::drain, "AsyncWriteQueueBenchmark flusher");
+    flusher.setDaemon(true);
+    flusher.start();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws InterruptedException {
+    stopped = true;
+    flusher.join();
+  }
+
+  private void drain() {
+    while (!stopped) {
+      ArrayList<Object> drainList;
+      if (linkedQueue != null) {
+        drainList = new ArrayList<>(linkedQueue.size());
+        linkedQueue.drainTo(drainList);
+      } else {
+        drainList = new ArrayList<>(ringQueue.size());
+        ringQueue.drainTo(drainList);
+      }
+      if (drainList.isEmpty()) {
+        Thread.yield();
+      }
+    }
+  }
+
+  @Benchmark
+  @Threads(8)
+  @Measurement(iterations = 10)
+  @Warmup(iterations = 5)
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public boolean scheduleAsyncWrite() {
+    if (linkedQueue != null) {
+      // the linked queue was always added to while holding the disk store lock
+      synchronized (lock) {
+        return linkedQueue.offer(lock);
+      }
+    }
+    return ringQueue.offer(lock);
+  }
+}
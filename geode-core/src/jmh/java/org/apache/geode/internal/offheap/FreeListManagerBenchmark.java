@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.offheap;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.apache.geode.OutOfOffHeapMemoryException;
+import org.apache.geode.distributed.internal.DistributionConfig;
+import org.apache.geode.internal.statistics.LocalStatisticsFactory;
+
+/**
+ * This benchmark measures the throughput of a mix of off-heap allocations and frees done by many
+ * threads, with and without the thread caches of the FreeListManager. Each thread keeps a window of
+ * live chunks and replaces a random one of them on every operation, mostly with small chunks like
+ * the ones used for region keys and small values.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+public class FreeListManagerBenchmark {
+  private static final long OFF_HEAP_MEMORY_SIZE = 512L * 1024 * 1024;
+  private static final int LIVE_CHUNKS_PER_THREAD = 1024;
+
+  @Param({"0", "32"})
+  public String threadCacheSize;
+
+  MemoryAllocatorImpl allocator;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    // each combination of params runs in its own fork so FreeListManager has not been loaded yet
+    System.setProperty(DistributionConfig.GEMFIRE_PREFIX + "OFF_HEAP_THREAD_CACHE_SIZE",
+        threadCacheSize);
+    allocator = (MemoryAllocatorImpl) OffHeapStorage.basicCreateOffHeapStorage(
+        new LocalStatisticsFactory(null), OFF_HEAP_MEMORY_SIZE, new OutOfOffHeapMemoryListener() {
+          @Override
+          public void outOfOffHeapMemory(OutOfOffHeapMemoryException cause) {}
+
+          @Override
+          public void close() {}
+        });
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    MemoryAllocatorImpl.freeOffHeapMemory();
+  }
+
+  @State(Scope.Thread)
+  public static class ThreadState {
+    final Random random = new Random();
+    // left allocated when the trial ends since all of the off-heap memory is freed then
+    final long[] liveChunks = new long[LIVE_CHUNKS_PER_THREAD];
+  }
+
+  @Benchmark
+  @Measurement(iterations = 10)
+  @Warmup(iterations = 5)
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  @Threads(64)
+  public long allocateAndFree(ThreadState state) {
+    int idx = state.random.nextInt(LIVE_CHUNKS_PER_THREAD);
+    long old = state.liveChunks[idx];
+    if (old != 0L) {
+      OffHeapStoredObject.release(old);
+    }
+    long addr = ((OffHeapStoredObject) allocator.allocate(nextSize(state.random))).getAddress();
+    state.liveChunks[idx] = addr;
+    return addr;
+  }
+
+  private static int nextSize(Random random) {
+    int r = random.nextInt(100);
+    if (r < 60) {
+      return 16 + random.nextInt(48);
+    } else if (r < 95) {
+      return 64 + random.nextInt(160);
+    } else {
+      return 1024 + random.nextInt(3072);
+    }
+  }
+}
@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.client;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.client.internal.AsyncRegionImpl;
+import org.apache.geode.cache.execute.Function;
+
+/**
+ * Asynchronous versions of the operations of a client region that are done on its servers. Each
+ * operation returns a future that is completed once the servers have responded, so that an
+ * application can have many operations in progress without a thread for each of them.
+ * <p>
+ * The operations go straight to the servers of the region's pool, like those of a
+ * {@link ClientRegionShortcut#PROXY PROXY} region. The region's local state, cache listeners and
+ * cache writers are not involved. When single hop is enabled on the pool each operation is sent to
+ * the server hosting its key.
+ * <p>
+ * Operations are only in progress without a thread waiting for them when the pool has
+ * {@link PoolFactory#setMultiplexedConnections(boolean) multiplexed connections}. Otherwise, and
+ * for servers that do not support multiplexing, each operation in progress uses one of a fixed
+ * number of threads owned by the pool. Operations done in a transaction, or by a multiuser
+ * authenticated view, are done before the operation returns.
+ * <p>
+ * Futures are usually completed by a thread of the pool, so dependent stages that may block
+ * should be given their own executor.
+ *
+ * @param <K> the type of the keys of the region
+ * @param <V> the type of the values of the region
+ * @since Geode 1.8
+ */
+public interface AsyncRegion<K, V> {
+
+  /**
+   * Returns the asynchronous operations of the given client region.
+   *
+   * @throws IllegalArgumentException if the region is not a client region with a pool
+   */
+  static <K, V> AsyncRegion<K, V> of(Region<K, V> region) {
+    return new AsyncRegionImpl<>(region);
+  }
+
+  /**
+   * Returns the region the operations are done on.
+   */
+  Region<K, V> getRegion();
+
+  /**
+   * Gets the value of the given key from a server, which may load it.
+   *
+   * @return a future for the value, which is null if the server has no value for the key
+   * @see Region#get(Object)
+   */
+  CompletableFuture<V> getAsync(K key);
+
+  /**
+   * Gets the value of the given key from a server, which may load it.
+   *
+   * @param callbackArgument passed to the server's cache loader, if any
+   * @return a future for the value, which is null if the server has no value for the key
+   * @see Region#get(Object, Object)
+   */
+  CompletableFuture<V> getAsync(K key, Object callbackArgument);
+
+  /**
+   * Puts the given value on a server.
+   *
+   * @return a future that is completed once the server has done the put
+   * @see Region#put(Object, Object)
+   */
+  CompletableFuture<Void> putAsync(K key, V value);
+
+  /**
+   * Puts the given value on a server.
+   *
+   * @param callbackArgument passed to the cache callbacks on the servers
+   * @return a future that is completed once the server has done the put
+   * @see Region#put(Object, Object, Object)
+   */
+  CompletableFuture<Void> putAsync(K key, V value, Object callbackArgument);
+
+  /**
+   * Gets the values of the given keys from the servers.
+   *
+   * @return a future for the values, which has a null value for keys the servers have no value
+   *         for
+   * @see Region#getAll(Collection)
+   */
+  CompletableFuture<Map<K, V>> getAllAsync(Collection<? extends K> keys);
+
+  /**
+   * Gets the values of the given keys from the servers.
+   *
+   * @param callbackArgument passed to the servers' cache loaders, if any
+   * @return a future for the values, which has a null value for keys the servers have no value
+   *         for
+   * @see Region#getAll(Collection, Object)
+   */
+  CompletableFuture<Map<K, V>> getAllAsync(Collection<? extends K> keys, Object callbackArgument);
+
+  /**
+   * Executes the given function on the region's data. The function is sent to a server, which
+   * executes it on the members hosting the data. A function sent to a server that then fails is
+   * not executed again, even if it is {@link Function#isHA() HA}.
+   *
+   * @param function a function that {@link Function#hasResult() has a result}
+   * @param arguments the arguments of the function, or null
+   * @return a future for the results of the function
+   * @throws IllegalArgumentException if the function has no result
+   * @see org.apache.geode.cache.execute.FunctionService#onRegion(Region)
+   */
+  CompletableFuture<List<Object>> executeAsync(Function function, Object arguments);
+
+  /**
+   * Executes the given function on the entries with the given keys. When single hop is enabled and
+   * one server hosts all of the keys the function is sent to that server.
+   *
+   * @param function a function that {@link Function#hasResult() has a result}
+   * @param arguments the arguments of the function, or null
+   * @param filter the keys of the entries the function is executed on
+   * @return a future for the results of the function
+   * @throws IllegalArgumentException if the function has no result
+   * @see org.apache.geode.cache.execute.Execution#withFilter(Set)
+   */
+  CompletableFuture<List<Object>> executeAsync(Function function, Object arguments,
+      Set<? extends K> filter);
+}
@@ -557,6 +557,19 @@ public class ClientCacheFactory {
     return this;
   }
 
+  /**
+   * If set to <code>true</code> then the pool carries its connections to each server over a few
+   * shared sockets instead of opening a socket for each of them.
+   *
+   * @param multiplexedConnections whether to multiplex connections
+   * @return a reference to <code>this</code>
+   * @see PoolFactory#setMultiplexedConnections(boolean)
+   */
+  public ClientCacheFactory setPoolMultiplexedConnections(boolean multiplexedConnections) {
+    getPoolFactory().setMultiplexedConnections(multiplexedConnections);
+    return this;
+  }
+
   /**
    * Sets the messageTrackingTimeout attribute which is the time-to-live period, in milliseconds,
    * for subscription events the client has received from the server. It's used to minimize
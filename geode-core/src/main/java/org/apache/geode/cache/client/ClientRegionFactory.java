@@ -276,6 +276,24 @@ public interface ClientRegionFactory<K, V> {
    */
   ClientRegionFactory<K, V> setCompressor(Compressor compressor);
 
+  /**
+   * Makes the region a near cache of the server region it is bound to. At most
+   * <code>maximumEntries</code> entries are kept locally, and the least recently used entries are
+   * locally destroyed to make room for new ones. When the region is created, interest in all of its
+   * keys is registered so that the servers invalidate the local entries that are changed by other
+   * clients. The servers only send the key and version of such changes, never the new value, so
+   * they do not need to queue values for the client.
+   * <p>
+   * The region must store data locally, and its pool must have subscriptions enabled.
+   *
+   * @param maximumEntries the maximum number of entries kept in the region
+   * @return a reference to this ClientRegionFactory object
+   * @throws IllegalArgumentException if <code>maximumEntries</code> is not positive
+   * @see Pool#getSubscriptionEnabled
+   * @since Geode 1.8
+   */
+  ClientRegionFactory<K, V> setNearCache(int maximumEntries);
+
   /**
    * Creates a region in the {@link ClientCache} using the configuration contained in this
    * ClientRegionFactory. Validation of the provided attributes may cause exceptions to be thrown if
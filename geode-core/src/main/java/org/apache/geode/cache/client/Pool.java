@@ -301,4 +301,13 @@ public interface Pool {
    * @return The timeout multiplier
    */
   int getSubscriptionTimeoutMultiplier();
+
+  /**
+   * Returns <code>true</code> if the connections of this pool are multiplexed over shared sockets.
+   *
+   * @see PoolFactory#setMultiplexedConnections(boolean)
+   */
+  default boolean getMultiplexedConnections() {
+    return PoolFactory.DEFAULT_MULTIPLEXED_CONNECTIONS;
+  }
 }
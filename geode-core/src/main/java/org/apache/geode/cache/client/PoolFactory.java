@@ -182,6 +182,13 @@ public interface PoolFactory {
    */
   public static final int DEFAULT_SUBSCRIPTION_TIMEOUT_MULTIPLIER = 0;
 
+  /**
+   * The default multiplexed connections setting.
+   * <p>
+   * Current value: <code>false</code>.
+   */
+  boolean DEFAULT_MULTIPLEXED_CONNECTIONS = false;
+
   /**
    * The default server group.
    * <p>
@@ -453,6 +460,28 @@ public interface PoolFactory {
    */
   public PoolFactory setSubscriptionTimeoutMultiplier(int multiplier);
 
+  /**
+   * If set to <code>true</code> then the pool carries its connections to each server over a few
+   * shared sockets instead of opening a socket for each of them. Every connection is still a
+   * separate stream, with its own handshake and a thread serving it on the server, but many of
+   * them can have an operation in progress at once without each one costing a socket. The server
+   * counts each stream against its max connections.
+   * <p>
+   * Connections used for subscriptions are never multiplexed. If a server does not support
+   * multiplexing, the pool opens a socket for each connection to it as usual.
+   *
+   * @param multiplexedConnections whether to multiplex connections
+   * @return a reference to <code>this</code>
+   * @throws UnsupportedOperationException if multiplexing is asked for and this factory does not
+   *         support it
+   */
+  default PoolFactory setMultiplexedConnections(boolean multiplexedConnections) {
+    if (multiplexedConnections) {
+      throw new UnsupportedOperationException("Multiplexed connections are not supported");
+    }
+    return this;
+  }
+
   /**
    * Sets the interval in milliseconds to wait before sending acknowledgements to the cache server
    * for events received from the server subscriptions.
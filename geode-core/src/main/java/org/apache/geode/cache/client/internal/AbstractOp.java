@@ -32,6 +32,7 @@ import org.apache.geode.internal.cache.tier.sockets.ChunkedMessage;
 import org.apache.geode.internal.cache.tier.sockets.Message;
 import org.apache.geode.internal.cache.tier.sockets.Part;
 import org.apache.geode.internal.cache.tier.sockets.ServerConnection;
+import org.apache.geode.internal.cache.tier.sockets.ServerQueueStatus;
 import org.apache.geode.internal.logging.LogService;
 import org.apache.geode.internal.logging.log4j.LogMarker;
 
@@ -87,6 +88,10 @@ public abstract class AbstractOp implements Op {
     }
     getMessage().setComms(cnx.getSocket(), cnx.getInputStream(), cnx.getOutputStream(),
         cnx.getCommBuffer(), cnx.getStats());
+    ServerQueueStatus status = cnx.getQueueStatus();
+    if (status != null) {
+      getMessage().setCompressionThreshold(status.getCompressionThreshold());
+    }
     try {
       sendMessage(cnx);
     } finally {
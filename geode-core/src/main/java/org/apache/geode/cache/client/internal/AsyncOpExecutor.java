@@ -0,0 +1,377 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.client.internal;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.Logger;
+
+import org.apache.geode.CancelCriterion;
+import org.apache.geode.cache.client.ServerConnectivityException;
+import org.apache.geode.cache.client.ServerOperationException;
+import org.apache.geode.cache.client.internal.pooling.ConnectionManager;
+import org.apache.geode.distributed.internal.DistributionConfig;
+import org.apache.geode.distributed.internal.ServerLocation;
+import org.apache.geode.internal.cache.TXManagerImpl;
+import org.apache.geode.internal.cache.tier.sockets.MultiplexedSocket;
+import org.apache.geode.internal.logging.LogService;
+
+/**
+ * Executes ops for the asynchronous client region operations without a thread waiting for each
+ * response.
+ * <p>
+ * When the pool has multiplexed connections the op is sent by the calling thread, and the reader
+ * thread of the shared socket hands the connection to a small pool of response threads once the
+ * reply has started to arrive. Otherwise, and for ops that depend on the state of the calling
+ * thread, the usual blocking execution is run on one of the response threads instead.
+ *
+ * @see org.apache.geode.cache.client.AsyncRegion
+ */
+public class AsyncOpExecutor {
+  private static final Logger logger = LogService.getLogger();
+
+  /**
+   * The number of threads that read and process responses.
+   */
+  static final int RESPONSE_THREADS = Integer.getInteger(
+      DistributionConfig.GEMFIRE_PREFIX + "ASYNC_OP_THREADS",
+      Math.max(2, Runtime.getRuntime().availableProcessors()));
+
+  /**
+   * The number of ops that may be waiting for a response on multiplexed connections. Each of them
+   * holds a connection, so further ops wait, without a thread, for one of them to complete.
+   */
+  static final int MAX_OPS_IN_PROGRESS = Math.max(1,
+      Integer.getInteger(DistributionConfig.GEMFIRE_PREFIX + "ASYNC_OP_MAX_IN_PROGRESS", 128));
+
+  private final ConnectionManager connectionManager;
+  private final ScheduledExecutorService timer;
+  private final CancelCriterion cancelCriterion;
+  private final long borrowTimeout;
+  private final boolean multiplexed;
+  private final ThreadPoolExecutor responseProcessor;
+  private final AtomicInteger opsInProgress = new AtomicInteger();
+  private final ConcurrentLinkedQueue<Runnable> waitingOps = new ConcurrentLinkedQueue<>();
+
+  public AsyncOpExecutor(String poolName, ConnectionManager connectionManager,
+      ScheduledExecutorService timer, CancelCriterion cancelCriterion, long borrowTimeout,
+      boolean multiplexed) {
+    this.connectionManager = connectionManager;
+    this.timer = timer;
+    this.cancelCriterion = cancelCriterion;
+    this.borrowTimeout = borrowTimeout;
+    this.multiplexed = multiplexed;
+    final String threadName = "poolAsyncOps-" + poolName + "-";
+    this.responseProcessor = new ThreadPoolExecutor(RESPONSE_THREADS, RESPONSE_THREADS, 60,
+        TimeUnit.SECONDS, new LinkedBlockingQueue<>(), new ThreadFactory() {
+          AtomicInteger threadNum = new AtomicInteger();
+
+          public Thread newThread(final Runnable r) {
+            Thread result = new Thread(r, threadName + threadNum.incrementAndGet());
+            result.setDaemon(true);
+            return result;
+          }
+        });
+    this.responseProcessor.allowCoreThreadTimeOut(true);
+  }
+
+  /**
+   * Executes the given op and returns a future for its result.
+   *
+   * @param server the server to send the op to, or null for any server
+   * @param timeout how long to wait for the response in milliseconds, or 0 to wait forever
+   * @param retryable whether the op may be executed again after it has been sent to a server that
+   *        then failed
+   * @param blockingExecution executes the op, with the usual failover, when it can not be sent
+   *        without blocking or has to be retried
+   */
+  public CompletableFuture<Object> execute(ServerLocation server, AbstractOp op, int timeout,
+      boolean retryable, Callable<Object> blockingExecution) {
+    this.cancelCriterion.checkCancelInProgress(null);
+    CompletableFuture<Object> result = new CompletableFuture<>();
+    if (TXManagerImpl.getCurrentTXUniqueId() != TXManagerImpl.NOTX
+        || UserAttributes.userAttributes.get() != null) {
+      // transactions and multiuser credentials belong to the calling thread
+      complete(result, blockingExecution);
+      return result;
+    }
+    if (!this.multiplexed) {
+      executeBlocking(result, blockingExecution);
+      return result;
+    }
+    this.waitingOps.add(() -> send(server, op, timeout, retryable, blockingExecution, result));
+    startWaitingOps();
+    return result;
+  }
+
+  /**
+   * Sends waiting ops until there are none left or too many are in progress.
+   */
+  private void startWaitingOps() {
+    while (true) {
+      int inProgress = this.opsInProgress.get();
+      if (inProgress >= MAX_OPS_IN_PROGRESS) {
+        return;
+      }
+      if (!this.opsInProgress.compareAndSet(inProgress, inProgress + 1)) {
+        continue;
+      }
+      Runnable op = this.waitingOps.poll();
+      if (op == null) {
+        this.opsInProgress.decrementAndGet();
+        // an op may have been added after the poll by a thread that saw no room for it
+        if (this.waitingOps.isEmpty()) {
+          return;
+        }
+      } else {
+        op.run();
+      }
+    }
+  }
+
+  int getOpsInProgress() {
+    return this.opsInProgress.get();
+  }
+
+  private void opCompleted() {
+    this.opsInProgress.decrementAndGet();
+    startWaitingOps();
+  }
+
+  private void send(ServerLocation server, AbstractOp op, int timeout, boolean retryable,
+      Callable<Object> blockingExecution, CompletableFuture<Object> result) {
+    Connection cnx;
+    try {
+      cnx = server == null ? this.connectionManager.borrowConnection(this.borrowTimeout)
+          : this.connectionManager.borrowConnection(server, this.borrowTimeout, false);
+    } catch (RuntimeException e) {
+      // let the blocking execution deal with the lack of a connection
+      this.opsInProgress.decrementAndGet();
+      executeBlocking(result, blockingExecution);
+      return;
+    }
+    if (!(cnx.getSocket() instanceof MultiplexedSocket)) {
+      // the server does not support multiplexing
+      this.connectionManager.returnConnection(cnx);
+      this.opsInProgress.decrementAndGet();
+      executeBlocking(result, blockingExecution);
+      return;
+    }
+    new Attempt(cnx, op, timeout, retryable, blockingExecution, result).send();
+  }
+
+  private void executeBlocking(CompletableFuture<Object> result,
+      Callable<Object> blockingExecution) {
+    try {
+      this.responseProcessor.execute(() -> complete(result, blockingExecution));
+    } catch (RejectedExecutionException e) {
+      result.completeExceptionally(cancelledException(e));
+    }
+  }
+
+  private static void complete(CompletableFuture<Object> result,
+      Callable<Object> blockingExecution) {
+    try {
+      result.complete(blockingExecution.call());
+    } catch (Throwable t) {
+      result.completeExceptionally(t);
+    }
+  }
+
+  private RuntimeException cancelledException(RuntimeException e) {
+    RuntimeException cancelled = this.cancelCriterion.generateCancelledException(e);
+    return cancelled != null ? cancelled : e;
+  }
+
+  /**
+   * Stops the response threads. Ops still waiting for a response fail once the pool's connections
+   * are closed.
+   */
+  public void close() {
+    this.responseProcessor.shutdown();
+    // the ops that were never sent fail to get a connection and then to be executed
+    Runnable op;
+    while ((op = this.waitingOps.poll()) != null) {
+      this.opsInProgress.incrementAndGet();
+      op.run();
+    }
+  }
+
+  /**
+   * One op sent over a multiplexed connection and waiting for its response.
+   */
+  private class Attempt implements Runnable {
+    private final Connection cnx;
+    private final AbstractOp op;
+    private final int timeout;
+    private final boolean retryable;
+    private final Callable<Object> blockingExecution;
+    private final CompletableFuture<Object> result;
+    private final AtomicBoolean responded = new AtomicBoolean();
+    private long start;
+    private ScheduledFuture<?> timeoutTask;
+
+    Attempt(Connection cnx, AbstractOp op, int timeout, boolean retryable,
+        Callable<Object> blockingExecution, CompletableFuture<Object> result) {
+      this.cnx = cnx;
+      this.op = op;
+      this.timeout = timeout;
+      this.retryable = retryable;
+      this.blockingExecution = blockingExecution;
+      this.result = result;
+    }
+
+    void send() {
+      ConnectionStats stats = this.cnx.getStats();
+      this.start = this.op.startAttempt(stats);
+      try {
+        try {
+          this.op.attemptSend(this.cnx);
+        } finally {
+          this.op.endSendAttempt(stats, this.start);
+        }
+      } catch (Exception e) {
+        this.op.endAttempt(stats, this.start);
+        // nothing reached the server so the op can always be tried again
+        failed(e, true);
+        return;
+      }
+      if (this.timeout > 0) {
+        try {
+          this.timeoutTask =
+              timer.schedule(this::timedOut, this.timeout, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+          // the pool is being destroyed and will close the connection
+        }
+      }
+      ((MultiplexedSocket) this.cnx.getSocket()).whenReadable(this::readable);
+    }
+
+    /**
+     * Called by the reader of the shared socket, which must not block on the response.
+     */
+    private void readable() {
+      try {
+        responseProcessor.execute(this);
+      } catch (RejectedExecutionException e) {
+        if (this.responded.compareAndSet(false, true)) {
+          this.op.endAttempt(this.cnx.getStats(), this.start);
+          discardConnection();
+          opsInProgress.decrementAndGet();
+          this.result.completeExceptionally(cancelledException(e));
+        }
+      }
+    }
+
+    private void timedOut() {
+      if (!this.responded.compareAndSet(false, true)) {
+        return;
+      }
+      this.op.endAttempt(this.cnx.getStats(), this.start);
+      try {
+        // also makes the socket readable, after which the response thread finds nothing to do
+        this.cnx.getSocket().close();
+      } catch (IOException ignore) {
+        // it is discarded anyway
+      }
+      failed(new ServerConnectivityException("Timed out after " + this.timeout
+          + " milliseconds waiting for a response from " + this.cnx.getServer()), false);
+    }
+
+    @Override
+    public void run() {
+      if (!this.responded.compareAndSet(false, true)) {
+        return;
+      }
+      if (this.timeoutTask != null) {
+        this.timeoutTask.cancel(false);
+      }
+      Object value;
+      try {
+        Socket socket = this.cnx.getSocket();
+        int earlierTimeout = socket.getSoTimeout();
+        // the rest of the response may still be on its way
+        socket.setSoTimeout(this.timeout);
+        try {
+          value = this.op.attemptReadResponse(this.cnx);
+        } finally {
+          socket.setSoTimeout(earlierTimeout);
+        }
+      } catch (Exception e) {
+        failed(e, false);
+        return;
+      } finally {
+        this.op.endAttempt(this.cnx.getStats(), this.start);
+      }
+      this.cnx.getEndpoint().updateLastExecute();
+      connectionManager.returnConnection(this.cnx);
+      // complete first, as opCompleted may go on to send waiting ops on this thread
+      this.result.complete(value);
+      opCompleted();
+    }
+
+    private void failed(Exception e, boolean beforeSend) {
+      discardConnection();
+      completeFailed(e, beforeSend);
+      if (beforeSend) {
+        // still sending the waiting ops, which will go on with the next one
+        opsInProgress.decrementAndGet();
+      } else {
+        opCompleted();
+      }
+    }
+
+    private void completeFailed(Exception e, boolean beforeSend) {
+      if (!isConnectivityFailure(e)) {
+        this.result.completeExceptionally(
+            e instanceof RuntimeException ? e : new ServerOperationException(e));
+      } else if (beforeSend || this.retryable) {
+        if (logger.isDebugEnabled()) {
+          logger.debug("Retrying {} after {} failed", this.op, this.cnx.getServer(), e);
+        }
+        executeBlocking(this.result, this.blockingExecution);
+      } else if (e instanceof ServerConnectivityException) {
+        this.result.completeExceptionally(e);
+      } else {
+        this.result.completeExceptionally(new ServerConnectivityException(
+            "Could not complete " + this.op.getShortClassName() + " on " + this.cnx.getServer(),
+            e));
+      }
+    }
+
+    private void discardConnection() {
+      this.cnx.destroy();
+      connectionManager.returnConnection(this.cnx);
+    }
+  }
+
+  private static boolean isConnectivityFailure(Exception e) {
+    return e instanceof IOException
+        || e instanceof ServerConnectivityException && !(e instanceof ServerOperationException);
+  }
+}
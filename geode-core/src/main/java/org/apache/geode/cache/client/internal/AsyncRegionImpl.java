@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.client.internal;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.client.AsyncRegion;
+import org.apache.geode.cache.execute.Execution;
+import org.apache.geode.cache.execute.Function;
+import org.apache.geode.cache.execute.FunctionService;
+import org.apache.geode.internal.cache.EventID;
+import org.apache.geode.internal.cache.EventIDHolder;
+import org.apache.geode.internal.cache.LocalRegion;
+import org.apache.geode.internal.cache.Token;
+import org.apache.geode.internal.cache.execute.DefaultResultCollector;
+import org.apache.geode.internal.cache.execute.ServerRegionFunctionExecutor;
+import org.apache.geode.internal.cache.tier.sockets.VersionedObjectList;
+
+/**
+ * Does the operations of an {@link AsyncRegion} with the {@link ServerRegionProxy} of a client
+ * region.
+ */
+public class AsyncRegionImpl<K, V> implements AsyncRegion<K, V> {
+
+  private final LocalRegion region;
+  private final ServerRegionProxy serverProxy;
+
+  public AsyncRegionImpl(Region<K, V> region) {
+    if (!(region instanceof LocalRegion) || ((LocalRegion) region).getServerProxy() == null) {
+      throw new IllegalArgumentException(
+          "Region " + region.getFullPath() + " is not a client region with a pool");
+    }
+    this.region = (LocalRegion) region;
+    this.serverProxy = this.region.getServerProxy();
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public Region<K, V> getRegion() {
+    return this.region;
+  }
+
+  @Override
+  public CompletableFuture<V> getAsync(K key) {
+    return getAsync(key, null);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public CompletableFuture<V> getAsync(K key, Object callbackArgument) {
+    validateKey(key);
+    return this.serverProxy.getAsync(key, callbackArgument).thenApply(value -> (V) toValue(value));
+  }
+
+  @Override
+  public CompletableFuture<Void> putAsync(K key, V value) {
+    return putAsync(key, value, null);
+  }
+
+  @Override
+  public CompletableFuture<Void> putAsync(K key, V value, Object callbackArgument) {
+    validateKey(key);
+    if (value == null) {
+      throw new NullPointerException("value must not be null");
+    }
+    EventIDHolder event = new EventIDHolder(new EventID(this.region.getSystem()));
+    return this.serverProxy.putAsync(key, value, event, callbackArgument)
+        .thenApply(oldValue -> null);
+  }
+
+  @Override
+  public CompletableFuture<Map<K, V>> getAllAsync(Collection<? extends K> keys) {
+    return getAllAsync(keys, null);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public CompletableFuture<Map<K, V>> getAllAsync(Collection<? extends K> keys,
+      Object callbackArgument) {
+    if (keys == null) {
+      throw new NullPointerException("keys must not be null");
+    }
+    this.region.checkReadiness();
+    if (keys.isEmpty()) {
+      return CompletableFuture.completedFuture(new HashMap<>());
+    }
+    return this.serverProxy.getAllAsync(new ArrayList(keys), callbackArgument).thenApply(list -> {
+      Map<K, V> result = new HashMap<>();
+      for (Iterator<VersionedObjectList.Entry> it = list.iterator(); it.hasNext();) {
+        VersionedObjectList.Entry entry = it.next();
+        if (entry.isKeyNotOnServer()) {
+          result.put((K) entry.getKey(), null);
+        } else if (!entry.isException()) {
+          result.put((K) entry.getKey(), (V) toValue(entry.getObject()));
+        }
+      }
+      return result;
+    });
+  }
+
+  @Override
+  public CompletableFuture<List<Object>> executeAsync(Function function, Object arguments) {
+    return execute(function, arguments, null);
+  }
+
+  @Override
+  public CompletableFuture<List<Object>> executeAsync(Function function, Object arguments,
+      Set<? extends K> filter) {
+    if (filter == null) {
+      throw new NullPointerException("filter must not be null");
+    }
+    return execute(function, arguments, filter);
+  }
+
+  @SuppressWarnings("unchecked")
+  private CompletableFuture<List<Object>> execute(Function function, Object arguments,
+      Set<? extends K> filter) {
+    if (function == null) {
+      throw new NullPointerException("function must not be null");
+    }
+    if (!function.hasResult()) {
+      throw new IllegalArgumentException(
+          "Function " + function.getId() + " has no result so can not be executed asynchronously");
+    }
+    this.region.checkReadiness();
+    Execution execution = FunctionService.onRegion(this.region);
+    if (arguments != null) {
+      execution = execution.setArguments(arguments);
+    }
+    if (filter != null) {
+      execution = execution.withFilter(filter);
+    }
+    return this.serverProxy
+        .executeFunctionAsync(function, (ServerRegionFunctionExecutor) execution,
+            new DefaultResultCollector(), (byte) 1)
+        .thenApply(results -> (List<Object>) results);
+  }
+
+  private void validateKey(K key) {
+    if (key == null) {
+      throw new NullPointerException("key must not be null");
+    }
+    this.region.checkReadiness();
+  }
+
+  private static Object toValue(Object value) {
+    return Token.isInvalidOrRemoved(value) ? null : value;
+  }
+}
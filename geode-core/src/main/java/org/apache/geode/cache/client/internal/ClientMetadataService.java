@@ -238,6 +238,64 @@ public class ClientMetadataService {
     return serverToKeysMap;
   }
 
+  /**
+   * Groups the keys of a getAll, putAll or removeAll by the server hosting the primary of their
+   * bucket, looking each bucket up only once. Unlike {@link #getServerToFilterMap} a bucket whose
+   * primary is not known, as happens after a server failed and until the metadata is refreshed,
+   * does not make the whole op give up single hop. Its keys are sent to another server hosting the
+   * bucket, or to any known server, which forwards them to the primary.
+   *
+   * @return the keys for each server in the order they were given, or null if no server is known
+   */
+  public Map<ServerLocation, HashSet> getServerToBulkOpKeys(final Collection keys,
+      final Region region) {
+    ClientPartitionAdvisor prAdvisor = this.getClientPartitionAdvisor(region.getFullPath());
+    if (prAdvisor == null) {
+      scheduleGetPRMetaData((InternalRegion) region, false);
+      return null;
+    }
+    int totalNumberOfBuckets = prAdvisor.getTotalNumBuckets();
+    ServerLocation[] bucketServers = new ServerLocation[totalNumberOfBuckets];
+    Map<ServerLocation, HashSet> serverToKeys = new HashMap<ServerLocation, HashSet>();
+    boolean metadataMissing = false;
+    for (Object key : keys) {
+      int bucketId = extractBucketID(region, prAdvisor, totalNumberOfBuckets, key);
+      if (bucketId < 0) {
+        return null;
+      }
+      ServerLocation server = bucketServers[bucketId];
+      if (server == null) {
+        server = prAdvisor.advisePrimaryServerLocation(bucketId);
+        if (server == null) {
+          metadataMissing = true;
+          server = prAdvisor.adviseServerLocation(bucketId);
+          if (server == null) {
+            server = prAdvisor.adviseRandomServerLocation();
+            if (server == null) {
+              scheduleGetPRMetaData((InternalRegion) region, false);
+              return null;
+            }
+          }
+        }
+        bucketServers[bucketId] = server;
+      }
+      HashSet serverKeys = serverToKeys.get(server);
+      if (serverKeys == null) {
+        // use LinkedHashSet to maintain the order of keys
+        serverKeys = new LinkedHashSet();
+        serverToKeys.put(server, serverKeys);
+      }
+      serverKeys.add(key);
+    }
+    if (metadataMissing) {
+      scheduleGetPRMetaData((InternalRegion) region, false);
+    }
+    if (logger.isDebugEnabled()) {
+      logger.debug("Returning server to bulk op keys map : {}", serverToKeys);
+    }
+    return serverToKeys;
+  }
+
   public HashMap<ServerLocation, HashSet<Integer>> groupByServerToAllBuckets(Region region,
       boolean primaryOnly) {
     final String regionFullPath = region.getFullPath();
@@ -21,9 +21,11 @@ import java.util.Objects;
 import org.apache.geode.cache.AttributesFactory;
 import org.apache.geode.cache.CacheListener;
 import org.apache.geode.cache.CustomExpiry;
+import org.apache.geode.cache.EvictionAction;
 import org.apache.geode.cache.EvictionAttributes;
 import org.apache.geode.cache.ExpirationAttributes;
 import org.apache.geode.cache.InterestPolicy;
+import org.apache.geode.cache.InterestResultPolicy;
 import org.apache.geode.cache.Region;
 import org.apache.geode.cache.RegionAttributes;
 import org.apache.geode.cache.RegionExistsException;
@@ -32,6 +34,7 @@ import org.apache.geode.cache.SubscriptionAttributes;
 import org.apache.geode.cache.client.ClientRegionFactory;
 import org.apache.geode.cache.client.ClientRegionShortcut;
 import org.apache.geode.cache.client.Pool;
+import org.apache.geode.cache.client.PoolManager;
 import org.apache.geode.compression.Compressor;
 import org.apache.geode.internal.cache.GemFireCacheImpl;
 import org.apache.geode.internal.cache.InternalRegion;
@@ -46,6 +49,7 @@ import org.apache.geode.internal.cache.UserSpecifiedRegionAttributes;
 public class ClientRegionFactoryImpl<K, V> implements ClientRegionFactory<K, V> {
   private final AttributesFactory<K, V> attrsFactory;
   private final InternalClientCache cache;
+  private boolean nearCache;
 
   /**
    * Constructs a ClientRegionFactory by creating a DistributedSystem and a Cache. If no
@@ -206,17 +210,60 @@ public class ClientRegionFactoryImpl<K, V> implements ClientRegionFactory<K, V>
     return this;
   }
 
+  @Override
+  public ClientRegionFactory<K, V> setNearCache(int maximumEntries) {
+    if (maximumEntries <= 0) {
+      throw new IllegalArgumentException(
+          "The maximum number of entries of a near cache must be positive but was "
+              + maximumEntries);
+    }
+    this.attrsFactory.setEvictionAttributes(
+        EvictionAttributes.createLRUEntryAttributes(maximumEntries, EvictionAction.LOCAL_DESTROY));
+    this.nearCache = true;
+    return this;
+  }
+
   @SuppressWarnings("unchecked")
   @Override
   public Region<K, V> create(String name) throws RegionExistsException {
-    return getCache().basicCreateRegion(name, createRegionAttributes());
+    RegionAttributes<K, V> ra = createRegionAttributes();
+    return initNearCache(getCache().basicCreateRegion(name, ra));
   }
 
   @SuppressWarnings("unchecked")
   @Override
   public Region<K, V> createSubregion(Region<?, ?> parent, String name)
       throws RegionExistsException {
-    return ((InternalRegion) parent).createSubregion(name, createRegionAttributes());
+    RegionAttributes<K, V> ra = createRegionAttributes();
+    return initNearCache(((InternalRegion) parent).createSubregion(name, ra));
+  }
+
+  /**
+   * Registers the interest that keeps the entries of a near cache from going stale. Only
+   * invalidations are asked for, so the servers never send values to the region.
+   */
+  private Region<K, V> initNearCache(Region<K, V> region) {
+    if (this.nearCache) {
+      try {
+        region.registerInterestForAllKeys(InterestResultPolicy.NONE, false, false);
+      } catch (RuntimeException e) {
+        region.localDestroyRegion();
+        throw e;
+      }
+    }
+    return region;
+  }
+
+  private void validateNearCache(RegionAttributes<K, V> ra) {
+    if (!ra.getDataPolicy().withStorage()) {
+      throw new IllegalStateException(
+          "A near cache must store data locally but its data policy is " + ra.getDataPolicy());
+    }
+    Pool pool = PoolManager.find(ra.getPoolName());
+    if (pool == null || !pool.getSubscriptionEnabled()) {
+      throw new IllegalStateException("A near cache requires a pool with subscriptions enabled but "
+          + ra.getPoolName() + " has none.");
+    }
   }
 
   @SuppressWarnings("deprecation")
@@ -235,6 +282,9 @@ public class ClientRegionFactoryImpl<K, V> implements ClientRegionFactory<K, V>
         }
       }
     }
+    if (this.nearCache) {
+      validateNearCache(ra);
+    }
     return ra;
   }
 }
@@ -199,6 +199,7 @@ public class ClientSideHandshakeImpl extends Handshake implements ClientSideHand
         throw new AuthenticationRequiredException(
             LocalizedStrings.HandShake_SERVER_EXPECTING_SSL_CONNECTION.toLocalizedString());
       }
+      boolean compressing = acceptanceCode == REPLY_OK_COMPRESSED;
       if (acceptanceCode == REPLY_SERVER_IS_LOCATOR) {
         throw new GemFireConfigException("Improperly configured client detected.  " + "Server at "
             + location + " is actually a locator.  Use addPoolLocator to configure locators.");
@@ -223,6 +224,9 @@ public class ClientSideHandshakeImpl extends Handshake implements ClientSideHand
       member = readServerMember(dis);
 
       serverQStatus = new ServerQueueStatus(endpointType, queueSize, member);
+      if (compressing) {
+        serverQStatus.setCompressionThreshold(CLIENT_COMPRESSION_THRESHOLD);
+      }
 
       // Read the message (if any)
       readMessage(dis, dos, acceptanceCode, member);
@@ -394,6 +398,9 @@ public class ClientSideHandshakeImpl extends Handshake implements ClientSideHand
 
       if (currentClientVersion.compareTo(Version.GFE_603) >= 0) {
         byte[] overrides = getOverrides();
+        if (requestsCompression(communicationMode, isCallbackConnection)) {
+          overrides = new byte[] {(byte) (overrides[0] | COMPRESSION_REQUESTED)};
+        }
         for (int bytes = 0; bytes < overrides.length; bytes++) {
           hdos.writeByte(overrides[bytes]);
         }
@@ -425,6 +432,16 @@ public class ClientSideHandshakeImpl extends Handshake implements ClientSideHand
     return acceptanceCode;
   }
 
+  /**
+   * Returns true if the server should be asked to compress the messages on the connection being
+   * established. Subscription and gateway connections are never compressed.
+   */
+  private boolean requestsCompression(CommunicationMode communicationMode,
+      boolean isCallbackConnection) {
+    return CLIENT_COMPRESSION_THRESHOLD > 0 && !isCallbackConnection
+        && !communicationMode.isWAN() && currentClientVersion.compareTo(Version.GEODE_180) >= 0;
+  }
+
   @Override
   protected byte writeCredential(DataOutputStream dos, DataInputStream dis, String authInit,
       boolean isNotification, DistributedMember member, HeapDataOutputStream heapdos)
@@ -41,6 +41,7 @@ public class ConnectionConnector {
   private InternalDistributedSystem ds;
   private EndpointManager endpointManager;
   private GatewaySender gatewaySender;
+  private ConnectionMultiplexer multiplexer;
 
   public ConnectionConnector(EndpointManager endpointManager, InternalDistributedSystem sys,
       int socketBufferSize, int handshakeTimeout, int readTimeout, CancelCriterion cancelCriterion,
@@ -72,6 +73,7 @@ public class ConnectionConnector {
     try {
       connection = getConnection(this.ds, this.cancelCriterion);
       ClientSideHandshake connHandShake = getClientSideHandshake(handshake);
+      connection.setMultiplexer(this.multiplexer);
       connection.connect(endpointManager, location, connHandShake, socketBufferSize,
           handshakeTimeout, readTimeout, getCommMode(forQueue), this.gatewaySender,
           this.socketCreator);
@@ -88,6 +90,26 @@ public class ConnectionConnector {
     }
   }
 
+  /**
+   * Have the client to server connections opened from now on multiplexed over shared sockets.
+   */
+  public void enableMultiplexing() {
+    if (this.multiplexer == null && !this.usedByGateway && this.gatewaySender == null) {
+      this.multiplexer =
+          new ConnectionMultiplexer(this.socketCreator, this.socketBufferSize,
+              this.handshakeTimeout);
+    }
+  }
+
+  /**
+   * Closes the shared sockets of multiplexed connections, if any.
+   */
+  public void close() {
+    if (this.multiplexer != null) {
+      this.multiplexer.close();
+    }
+  }
+
   void destroyConnection(ConnectionImpl connection) {
     connection.destroy();
   }
@@ -95,6 +95,17 @@ public class ConnectionFactoryImpl implements ConnectionFactory {
     blackList.start(background);
   }
 
+  /**
+   * Have the client to server connections created from now on multiplexed over shared sockets.
+   */
+  public void enableMultiplexing() {
+    connectionConnector.enableMultiplexing();
+  }
+
+  public void close() {
+    connectionConnector.close();
+  }
+
   public ServerBlackList getBlackList() {
     return blackList;
   }
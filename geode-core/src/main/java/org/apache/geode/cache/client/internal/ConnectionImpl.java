@@ -89,6 +89,8 @@ public class ConnectionImpl implements Connection {
 
   private ClientSideHandshake handshake;
 
+  private ConnectionMultiplexer multiplexer;
+
   public ConnectionImpl(InternalDistributedSystem ds, CancelCriterion cancelCriterion) {
     this.ds = ds;
   }
@@ -103,14 +105,22 @@ public class ConnectionImpl implements Connection {
       ClientSideHandshake handshake, int socketBufferSize, int handshakeTimeout, int readTimeout,
       CommunicationMode communicationMode, GatewaySender sender, SocketCreator sc)
       throws IOException {
-    theSocket = sc.connectForClient(location.getHostName(), location.getPort(), handshakeTimeout,
-        socketBufferSize);
-    theSocket.setTcpNoDelay(true);
-    theSocket.setSendBufferSize(socketBufferSize);
-
-    // Verify buffer sizes
-    verifySocketBufferSize(socketBufferSize, theSocket.getReceiveBufferSize(), "receive");
-    verifySocketBufferSize(socketBufferSize, theSocket.getSendBufferSize(), "send");
+    Socket stream = null;
+    if (multiplexer != null && communicationMode == CommunicationMode.ClientToServer) {
+      stream = multiplexer.openStream(location);
+    }
+    if (stream != null) {
+      theSocket = stream;
+    } else {
+      theSocket = sc.connectForClient(location.getHostName(), location.getPort(),
+          handshakeTimeout, socketBufferSize);
+      theSocket.setTcpNoDelay(true);
+      theSocket.setSendBufferSize(socketBufferSize);
+
+      // Verify buffer sizes
+      verifySocketBufferSize(socketBufferSize, theSocket.getReceiveBufferSize(), "receive");
+      verifySocketBufferSize(socketBufferSize, theSocket.getSendBufferSize(), "send");
+    }
 
     theSocket.setSoTimeout(handshakeTimeout);
     out = theSocket.getOutputStream();
@@ -127,6 +137,13 @@ public class ConnectionImpl implements Connection {
     return status;
   }
 
+  /**
+   * Sets the multiplexer to open this connection over, if it is a client to server connection.
+   */
+  void setMultiplexer(ConnectionMultiplexer multiplexer) {
+    this.multiplexer = multiplexer;
+  }
+
   public void close(boolean keepAlive) throws Exception {
 
     try {
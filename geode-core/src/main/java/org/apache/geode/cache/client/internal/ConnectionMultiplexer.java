@@ -0,0 +1,197 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.client.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.apache.logging.log4j.Logger;
+
+import org.apache.geode.distributed.internal.DistributionConfig;
+import org.apache.geode.distributed.internal.ServerLocation;
+import org.apache.geode.internal.cache.tier.CommunicationMode;
+import org.apache.geode.internal.cache.tier.sockets.MultiplexedSocket;
+import org.apache.geode.internal.cache.tier.sockets.SocketMultiplexer;
+import org.apache.geode.internal.logging.LogService;
+import org.apache.geode.internal.net.SocketCreator;
+
+/**
+ * Opens the client to server connections of a pool as streams over a few shared sockets to each
+ * server, when the pool has multiplexed connections enabled.
+ *
+ * @see org.apache.geode.cache.client.PoolFactory#setMultiplexedConnections(boolean)
+ */
+public class ConnectionMultiplexer {
+  private static final Logger logger = LogService.getLogger();
+
+  /**
+   * The number of sockets that the connections to a server are spread over.
+   */
+  static final int SOCKETS_PER_SERVER =
+      Math.max(1, Integer
+          .getInteger(DistributionConfig.GEMFIRE_PREFIX + "MULTIPLEXED_SOCKETS_PER_SERVER", 1));
+
+  /**
+   * How long a server that refused to multiplex is connected to with a socket per connection before
+   * it is asked again, in case it has been restarted with a version that supports multiplexing.
+   */
+  static final long REFUSED_RETRY_MILLIS = Long
+      .getLong(DistributionConfig.GEMFIRE_PREFIX + "MULTIPLEXED_REFUSED_RETRY_MILLIS", 60000);
+
+  private final SocketCreator socketCreator;
+  private final int socketBufferSize;
+  private final int handshakeTimeout;
+
+  private final ConcurrentHashMap<ServerLocation, SocketMultiplexer[]> multiplexers =
+      new ConcurrentHashMap<>();
+
+  /**
+   * Servers that refused to multiplex, which are connected to with a socket per connection, and
+   * when they refused. Failures to connect are not refusals, so they are not recorded here.
+   */
+  private final ConcurrentHashMap<ServerLocation, Long> refusingServers =
+      new ConcurrentHashMap<>();
+
+  private volatile boolean closed;
+
+  public ConnectionMultiplexer(SocketCreator socketCreator, int socketBufferSize,
+      int handshakeTimeout) {
+    this.socketCreator = socketCreator;
+    this.socketBufferSize = socketBufferSize;
+    this.handshakeTimeout = handshakeTimeout;
+  }
+
+  /**
+   * Opens a new stream to the given server, or returns null if the server does not support
+   * multiplexing.
+   */
+  public MultiplexedSocket openStream(ServerLocation location) throws IOException {
+    if (isRefusing(location)) {
+      return null;
+    }
+    SocketMultiplexer multiplexer = getMultiplexer(location);
+    if (multiplexer == null) {
+      return null;
+    }
+    return multiplexer.openStream();
+  }
+
+  private boolean isRefusing(ServerLocation location) {
+    Long refusedAt = this.refusingServers.get(location);
+    if (refusedAt == null) {
+      return false;
+    }
+    if (System.currentTimeMillis() - refusedAt < REFUSED_RETRY_MILLIS) {
+      return true;
+    }
+    this.refusingServers.remove(location, refusedAt);
+    return false;
+  }
+
+  private SocketMultiplexer getMultiplexer(ServerLocation location) throws IOException {
+    SocketMultiplexer[] slots =
+        this.multiplexers.computeIfAbsent(location, k -> new SocketMultiplexer[SOCKETS_PER_SERVER]);
+    int slot =
+        SOCKETS_PER_SERVER == 1 ? 0 : ThreadLocalRandom.current().nextInt(SOCKETS_PER_SERVER);
+    synchronized (slots) {
+      SocketMultiplexer multiplexer = slots[slot];
+      if (multiplexer == null || multiplexer.isClosed()) {
+        multiplexer = connect(location);
+        if (multiplexer == null) {
+          this.refusingServers.put(location, System.currentTimeMillis());
+          return null;
+        }
+        slots[slot] = multiplexer;
+        if (this.closed) {
+          multiplexer.close();
+        }
+      }
+      return multiplexer;
+    }
+  }
+
+  /**
+   * Connects to the server and asks it to multiplex. Returns null if the server refused, and throws
+   * if the socket could not be connected or failed before the server answered.
+   */
+  private SocketMultiplexer connect(ServerLocation location) throws IOException {
+    Socket socket = this.socketCreator.connectForClient(location.getHostName(),
+        location.getPort(), this.handshakeTimeout, this.socketBufferSize);
+    boolean connected = false;
+    try {
+      socket.setTcpNoDelay(true);
+      socket.setSendBufferSize(this.socketBufferSize);
+      socket.setSoTimeout(this.handshakeTimeout);
+      OutputStream out = socket.getOutputStream();
+      out.write(CommunicationMode.MultiplexedClientToServer.getModeNumber());
+      out.flush();
+      InputStream in = socket.getInputStream();
+      int reply = in.read();
+      if (reply != CommunicationMode.SuccessfulServerToClient.getModeNumber()) {
+        // servers that do not know about multiplexing close the socket when they see the mode
+        logger.info("Server {} does not support multiplexed connections", location);
+        return null;
+      }
+      socket.setSoTimeout(0);
+      SocketMultiplexer result = SocketMultiplexer.forClient(socket, this.socketBufferSize,
+          multiplexer -> removeMultiplexer(location, multiplexer));
+      connected = true;
+      return result;
+    } finally {
+      if (!connected) {
+        try {
+          socket.close();
+        } catch (IOException ignore) {
+          // nothing more to do
+        }
+      }
+    }
+  }
+
+  private void removeMultiplexer(ServerLocation location, SocketMultiplexer multiplexer) {
+    SocketMultiplexer[] slots = this.multiplexers.get(location);
+    if (slots == null) {
+      return;
+    }
+    synchronized (slots) {
+      for (int i = 0; i < slots.length; i++) {
+        if (slots[i] == multiplexer) {
+          slots[i] = null;
+        }
+      }
+    }
+  }
+
+  /**
+   * Closes every shared socket and so every connection opened over them.
+   */
+  public void close() {
+    this.closed = true;
+    for (SocketMultiplexer[] slots : this.multiplexers.values()) {
+      synchronized (slots) {
+        for (SocketMultiplexer multiplexer : slots) {
+          if (multiplexer != null) {
+            multiplexer.close();
+          }
+        }
+      }
+    }
+    this.multiplexers.clear();
+  }
+}
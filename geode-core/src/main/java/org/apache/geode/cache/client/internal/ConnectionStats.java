@@ -374,6 +374,10 @@ public class ConnectionStats implements MessageStats {
   private static final int messageBytesBeingReceivedId;
   private static final int receivedBytesId;
   private static final int sentBytesId;
+  private static final int sentUncompressedBytesId;
+  private static final int sentCompressedBytesId;
+  private static final int receivedUncompressedBytesId;
+  private static final int receivedCompressedBytesId;
 
   private static final int executeFunctionInProgressId;
   private static final int executeFunctionSendInProgressId;
@@ -819,6 +823,18 @@ public class ConnectionStats implements MessageStats {
               f.createLongCounter("sentBytes",
                   "Total number of bytes sent to server over a client-to-server connection.",
                   "bytes"),
+              f.createLongCounter("sentUncompressedBytes",
+                  "Total number of bytes of the message parts sent compressed to server, before they were compressed.",
+                  "bytes"),
+              f.createLongCounter("sentCompressedBytes",
+                  "Total number of bytes of the message parts sent compressed to server, after they were compressed.",
+                  "bytes"),
+              f.createLongCounter("receivedUncompressedBytes",
+                  "Total number of bytes of the message parts received compressed from server, after they were decompressed.",
+                  "bytes"),
+              f.createLongCounter("receivedCompressedBytes",
+                  "Total number of bytes of the message parts received compressed from server, before they were decompressed.",
+                  "bytes"),
               f.createIntGauge("messagesBeingReceived",
                   "Current number of message being received off the network or being processed after reception over a client-to-server connection.",
                   "messages"),
@@ -1620,6 +1636,10 @@ public class ConnectionStats implements MessageStats {
 
       receivedBytesId = type.nameToId("receivedBytes");
       sentBytesId = type.nameToId("sentBytes");
+      sentUncompressedBytesId = type.nameToId("sentUncompressedBytes");
+      sentCompressedBytesId = type.nameToId("sentCompressedBytes");
+      receivedUncompressedBytesId = type.nameToId("receivedUncompressedBytes");
+      receivedCompressedBytesId = type.nameToId("receivedCompressedBytes");
       messagesBeingReceivedId = type.nameToId("messagesBeingReceived");
       messageBytesBeingReceivedId = type.nameToId("messageBytesBeingReceived");
 
@@ -3210,6 +3230,16 @@ public class ConnectionStats implements MessageStats {
     this.stats.incLong(sentBytesId, v);
   }
 
+  public void incSentCompressedBytes(long uncompressedBytes, long compressedBytes) {
+    this.stats.incLong(sentUncompressedBytesId, uncompressedBytes);
+    this.stats.incLong(sentCompressedBytesId, compressedBytes);
+  }
+
+  public void incReceivedCompressedBytes(long uncompressedBytes, long compressedBytes) {
+    this.stats.incLong(receivedUncompressedBytesId, uncompressedBytes);
+    this.stats.incLong(receivedCompressedBytesId, compressedBytes);
+  }
+
   public void incMessagesBeingReceived(int bytes) {
     stats.incInt(messagesBeingReceivedId, 1);
     if (bytes > 0) {
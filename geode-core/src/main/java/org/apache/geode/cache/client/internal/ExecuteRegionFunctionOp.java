@@ -17,7 +17,9 @@ package org.apache.geode.cache.client.internal;
 
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import org.apache.logging.log4j.Logger;
 
@@ -31,7 +33,9 @@ import org.apache.geode.cache.execute.FunctionException;
 import org.apache.geode.cache.execute.FunctionInvocationTargetException;
 import org.apache.geode.cache.execute.ResultCollector;
 import org.apache.geode.distributed.DistributedMember;
+import org.apache.geode.distributed.internal.ServerLocation;
 import org.apache.geode.internal.Version;
+import org.apache.geode.internal.cache.LocalRegion;
 import org.apache.geode.internal.cache.execute.AbstractExecution;
 import org.apache.geode.internal.cache.execute.BucketMovedException;
 import org.apache.geode.internal.cache.execute.FunctionStats;
@@ -59,6 +63,42 @@ public class ExecuteRegionFunctionOp {
     // no instances allowed
   }
 
+  /**
+   * Does a execute Function on a server without a thread waiting for the results. When single hop
+   * is enabled and the filter keys are all hosted by one server the function is sent to that
+   * server.
+   * <p>
+   * Once the function has been sent it is not executed again if the server fails, even if the
+   * function is HA.
+   *
+   * @return a future for the results gathered by the result collector
+   * @see AsyncOpExecutor
+   */
+  public static CompletableFuture<Object> executeAsync(PoolImpl pool, LocalRegion region,
+      Function function, ServerRegionFunctionExecutor serverRegionExecutor,
+      ResultCollector resultCollector, byte hasResult) {
+    String regionName = region.getFullPath();
+    AbstractOp op = new ExecuteRegionFunctionOpImpl(regionName, function, serverRegionExecutor,
+        resultCollector, hasResult, new HashSet<String>());
+    ServerLocation server = null;
+    if (pool.getPRSingleHopEnabled() && !serverRegionExecutor.getFilter().isEmpty()) {
+      ClientMetadataService cms = region.getCache().getClientMetadataService();
+      Map<ServerLocation, HashSet> serverToFilterMap =
+          cms.getServerToFilterMap(serverRegionExecutor.getFilter(), region,
+              function.optimizeForWrite(), serverRegionExecutor.getExecuteOnBucketSetFlag());
+      if (serverToFilterMap != null && serverToFilterMap.size() == 1) {
+        server = serverToFilterMap.keySet().iterator().next();
+        server = new ServerLocation(server.getHostName(), server.getPort());
+      }
+    }
+    return pool.getAsyncOpExecutor()
+        .execute(server, op, ConnectionImpl.getClientFunctionTimeout(), false, () -> {
+          execute(pool, regionName, function, serverRegionExecutor, resultCollector, hasResult,
+              pool.getRetryAttempts());
+          return null;
+        }).thenApply(ignored -> resultCollector.getResult());
+  }
+
   /**
    * Does a execute Function on a server using connections from the given pool to communicate with
    * the server.
@@ -15,15 +15,16 @@
 package org.apache.geode.cache.client.internal;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import org.apache.logging.log4j.Logger;
 
 import org.apache.geode.cache.Region;
-import org.apache.geode.cache.client.ServerConnectivityException;
 import org.apache.geode.cache.client.ServerOperationException;
 import org.apache.geode.distributed.internal.ServerLocation;
 import org.apache.geode.internal.Version;
@@ -62,47 +63,49 @@ public class GetAllOp {
 
   public static VersionedObjectList execute(ExecutablePool pool, Region region, List keys,
       int retryAttempts, Object callback) {
-    AbstractOp op = new GetAllOpImpl(region.getFullPath(), keys, callback);
+    return execute(pool, region, keys, retryAttempts, callback, true);
+  }
+
+  /**
+   * Does a single hop getAll, sending each server the keys of the buckets it is the primary for.
+   *
+   * @param retrySingleHop whether the keys of the servers that could not be reached are tried again
+   *        with single hop, now that those servers were removed from the metadata, rather than on
+   *        any server
+   */
+  private static VersionedObjectList execute(ExecutablePool pool, Region region, List keys,
+      int retryAttempts, Object callback, boolean retrySingleHop) {
     ClientMetadataService cms = ((LocalRegion) region).getCache().getClientMetadataService();
 
-    Map<ServerLocation, HashSet> serverToFilterMap = cms.getServerToFilterMap(keys, region, true);
+    Map<ServerLocation, HashSet> serverToFilterMap = cms.getServerToBulkOpKeys(keys, region);
 
     if (serverToFilterMap == null || serverToFilterMap.isEmpty()) {
+      AbstractOp op = new GetAllOpImpl(region.getFullPath(), keys, callback);
       op.initMessagePart();
       return ((VersionedObjectList) pool.execute(op)).setKeys(keys);
     } else {
-      VersionedObjectList result = null;
-      ServerConnectivityException se = null;
-      List retryList = new ArrayList();
-      List callableTasks =
+      Map<ServerLocation, RuntimeException> failedServers =
+          new HashMap<ServerLocation, RuntimeException>();
+      List<SingleHopOperationCallable> callableTasks =
           constructGetAllTasks(region.getFullPath(), serverToFilterMap, (PoolImpl) pool, callback);
-      Map<ServerLocation, Object> results = SingleHopClientExecutor.submitGetAll(serverToFilterMap,
-          callableTasks, cms, (LocalRegion) region);
-      for (ServerLocation server : results.keySet()) {
-        Object serverResult = results.get(server);
-        if (serverResult instanceof ServerConnectivityException) {
-          se = (ServerConnectivityException) serverResult;
-          retryList.addAll(serverToFilterMap.get(server));
-        } else {
-          if (result == null) {
-            result = (VersionedObjectList) serverResult;
-          } else {
-            result.addAll((VersionedObjectList) serverResult);
-          }
-        }
-      }
+      VersionedObjectList result = SingleHopClientExecutor.submitGetAll(callableTasks, cms,
+          (LocalRegion) region, failedServers);
 
-      if (se != null) {
+      if (!failedServers.isEmpty()) {
         if (retryAttempts == 0) {
-          throw se;
+          throw failedServers.values().iterator().next();
+        }
+        List retryList = new ArrayList();
+        for (ServerLocation server : failedServers.keySet()) {
+          retryList.addAll(serverToFilterMap.get(server));
+        }
+        VersionedObjectList retryResult = retrySingleHop
+            ? execute(pool, region, retryList, retryAttempts, callback, false)
+            : GetAllOp.execute(pool, region.getFullPath(), retryList, callback);
+        if (result == null) {
+          result = retryResult;
         } else {
-          VersionedObjectList retryResult =
-              GetAllOp.execute(pool, region.getFullPath(), retryList, callback);
-          if (result == null) {
-            result = retryResult;
-          } else {
-            result.addAll(retryResult);
-          }
+          result.addAll(retryResult);
         }
       }
 
@@ -110,11 +113,60 @@ public class GetAllOp {
     }
   }
 
+  /**
+   * Does a region getAll on the servers without a thread waiting for the responses. When single
+   * hop is enabled the keys are split up by the server hosting them and each server is sent its
+   * own getAll.
+   *
+   * @return a future for the values found by the getAll
+   * @see AsyncOpExecutor
+   */
+  public static CompletableFuture<VersionedObjectList> executeAsync(PoolImpl pool,
+      LocalRegion region, List keys, Object callback) {
+    String regionName = region.getFullPath();
+    AsyncOpExecutor executor = pool.getAsyncOpExecutor();
+    Map<ServerLocation, HashSet> serverToFilterMap = null;
+    if (pool.getPRSingleHopEnabled()) {
+      ClientMetadataService cms = region.getCache().getClientMetadataService();
+      serverToFilterMap = cms.getServerToBulkOpKeys(keys, region);
+    }
+    if (serverToFilterMap == null || serverToFilterMap.isEmpty()) {
+      AbstractOp op = new GetAllOpImpl(regionName, keys, callback);
+      op.initMessagePart();
+      return executor
+          .execute(null, op, pool.getReadTimeout(), true,
+              () -> execute(pool, regionName, keys, callback))
+          .thenApply(result -> ((VersionedObjectList) result).setKeys(keys));
+    }
+    List<CompletableFuture<Object>> futures = new ArrayList<>(serverToFilterMap.size());
+    for (Map.Entry<ServerLocation, HashSet> entry : serverToFilterMap.entrySet()) {
+      ServerLocation server = entry.getKey();
+      List serverKeys = new ArrayList(entry.getValue());
+      AbstractOp op = new GetAllOpImpl(regionName, serverKeys, callback);
+      op.initMessagePart();
+      futures.add(executor.execute(new ServerLocation(server.getHostName(), server.getPort()), op,
+          pool.getReadTimeout(), true, () -> execute(pool, regionName, serverKeys, callback)));
+    }
+    return CompletableFuture.allOf(futures.toArray(new CompletableFuture[futures.size()]))
+        .thenApply(ignored -> {
+          VersionedObjectList result = null;
+          for (CompletableFuture<Object> future : futures) {
+            VersionedObjectList serverResult = (VersionedObjectList) future.join();
+            if (result == null) {
+              result = serverResult;
+            } else {
+              result.addAll(serverResult);
+            }
+          }
+          return result;
+        });
+  }
+
   private GetAllOp() {
     // no instances allowed
   }
 
-  static List constructGetAllTasks(String region,
+  static List<SingleHopOperationCallable> constructGetAllTasks(String region,
       final Map<ServerLocation, HashSet> serverToFilterMap, final PoolImpl pool,
       final Object callback) {
     final List<SingleHopOperationCallable> tasks = new ArrayList<SingleHopOperationCallable>();
@@ -14,6 +14,8 @@
  */
 package org.apache.geode.cache.client.internal;
 
+import java.util.concurrent.CompletableFuture;
+
 import org.apache.logging.log4j.Logger;
 
 import org.apache.geode.cache.CacheClosedException;
@@ -91,6 +93,29 @@ public class GetOp {
     return pool.execute(op);
   }
 
+  /**
+   * Does a region get on a server without a thread waiting for the response. The get is sent to
+   * the server hosting the key when single hop is enabled and the key's bucket is known.
+   *
+   * @return a future for the entry value found by the get if any
+   * @see AsyncOpExecutor
+   */
+  public static CompletableFuture<Object> executeAsync(PoolImpl pool, LocalRegion region,
+      Object key, Object callbackArg) {
+    boolean prSingleHopEnabled = pool.getPRSingleHopEnabled();
+    GetOpImpl op = new GetOpImpl(region, key, callbackArg, prSingleHopEnabled, null);
+    ServerLocation server = null;
+    if (prSingleHopEnabled) {
+      ClientMetadataService cms = region.getCache().getClientMetadataService();
+      server = cms.getBucketServerLocation(region, Operation.GET, key, null, callbackArg);
+      if (server != null) {
+        server = new ServerLocation(server.getHostName(), server.getPort());
+      }
+    }
+    return pool.getAsyncOpExecutor().execute(server, op, pool.getReadTimeout(), true,
+        () -> execute(pool, region, key, callbackArg, prSingleHopEnabled, null));
+  }
+
 
   private GetOp() {
     // no instances allowed
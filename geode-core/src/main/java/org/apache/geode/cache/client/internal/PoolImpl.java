@@ -122,6 +122,7 @@ public class PoolImpl implements InternalPool {
   private final long pingInterval;
   private final int statisticInterval;
   private final boolean multiuserSecureModeEnabled;
+  private final boolean multiplexedConnections;
 
   private final ConnectionSource source;
   private final ConnectionManager manager;
@@ -132,6 +133,8 @@ public class PoolImpl implements InternalPool {
   protected volatile boolean destroyed;
   private final PoolStats stats;
   private ScheduledExecutorService backgroundProcessor;
+
+  private AsyncOpExecutor asyncOpExecutor;
   private final OpExecutorImpl executor;
   private final RegisterInterestTracker riTracker = new RegisterInterestTracker();
   private final InternalDistributedSystem dsys;
@@ -213,6 +216,7 @@ public class PoolImpl implements InternalPool {
     }
     this.serverGroup = attributes.getServerGroup();
     this.multiuserSecureModeEnabled = attributes.getMultiuserAuthentication();
+    this.multiplexedConnections = attributes.getMultiplexedConnections();
     this.locatorAddresses = locAddresses;
     this.locators = attributes.getLocators();
     this.servers = attributes.getServers();
@@ -256,6 +260,9 @@ public class PoolImpl implements InternalPool {
     connectionFactory = new ConnectionFactoryImpl(source, endpointManager, this.dsys,
         socketBufferSize, socketConnectTimeout, readTimeout, proxyId, this.cancelCriterion,
         usedByGateway, gatewaySender, pingInterval, multiuserSecureModeEnabled, this);
+    if (multiplexedConnections) {
+      connectionFactory.enableMultiplexing();
+    }
     if (subscriptionEnabled) {
       queueManager = new QueueManagerImpl(this, endpointManager, source, connectionFactory,
           subscriptionRedundancyLevel, pingInterval, securityLogWriter, proxyId);
@@ -345,6 +352,8 @@ public class PoolImpl implements InternalPool {
     endpointManager.addListener(new LiveServerPinger(this));
 
     manager.start(backgroundProcessor);
+    asyncOpExecutor = new AsyncOpExecutor(getName(), manager, backgroundProcessor,
+        this.cancelCriterion, this.freeConnectionTimeout, this.multiplexedConnections);
     if (queueManager != null) {
       if (isDebugEnabled) {
         logger.debug("starting queueManager");
@@ -632,6 +641,16 @@ public class PoolImpl implements InternalPool {
             LocalizedStrings.PoolImpl_ERROR_ENCOUNTERED_WHILE_STOPPING_CONNECTION_MANAGER), e);
       }
 
+      try {
+        connectionFactory.close();
+      } catch (RuntimeException e) {
+        logger.error("Error encountered while closing multiplexed connections", e);
+      }
+
+      if (asyncOpExecutor != null) {
+        asyncOpExecutor.close();
+      }
+
       try {
         endpointManager.close();
       } catch (RuntimeException e) {
@@ -759,6 +778,10 @@ public class PoolImpl implements InternalPool {
       throw new RuntimeException(
           LocalizedStrings.PoolImpl_0_ARE_DIFFERENT.toLocalizedString("servers"));
     }
+    if (getMultiplexedConnections() != other.getMultiplexedConnections()) {
+      throw new RuntimeException(
+          LocalizedStrings.PoolImpl_0_IS_DIFFERENT.toLocalizedString("multiplexedConnections"));
+    }
     // ignore startDisabled
   }
 
@@ -879,6 +902,14 @@ public class PoolImpl implements InternalPool {
     return backgroundProcessor;
   }
 
+  /**
+   * Returns the executor of the asynchronous region operations, or null if this pool has not been
+   * started.
+   */
+  public AsyncOpExecutor getAsyncOpExecutor() {
+    return asyncOpExecutor;
+  }
+
   public RegisterInterestTracker getRITracker() {
     return this.riTracker;
   }
@@ -1621,4 +1652,9 @@ public class PoolImpl implements InternalPool {
   public int getSubscriptionTimeoutMultiplier() {
     return subscriptionTimeoutMultiplier;
   }
+
+  @Override
+  public boolean getMultiplexedConnections() {
+    return this.multiplexedConnections;
+  }
 }
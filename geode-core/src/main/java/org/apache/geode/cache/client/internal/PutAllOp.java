@@ -91,7 +91,7 @@ public class PutAllOp {
     ClientMetadataService cms = ((LocalRegion) region).getCache().getClientMetadataService();
 
     Map<ServerLocation, HashSet> serverToFilterMap =
-        cms.getServerToFilterMap(map.keySet(), region, true);
+        cms.getServerToBulkOpKeys(map.keySet(), region);
 
     if (serverToFilterMap == null || serverToFilterMap.isEmpty()) {
       AbstractOp op = new PutAllOpImpl(region, map, eventId,
@@ -100,8 +100,8 @@ public class PutAllOp {
       return (VersionedObjectList) pool.execute(op);
     }
 
-    List callableTasks = constructAndGetPutAllTasks(region, map, eventId, skipCallbacks,
-        serverToFilterMap, (PoolImpl) pool, callbackArg);
+    List<SingleHopOperationCallable> callableTasks = constructAndGetPutAllTasks(region, map,
+        eventId, skipCallbacks, serverToFilterMap, (PoolImpl) pool, callbackArg);
 
     final boolean isDebugEnabled = logger.isDebugEnabled();
     if (isDebugEnabled) {
@@ -220,9 +220,10 @@ public class PutAllOp {
   }
 
 
-  static List constructAndGetPutAllTasks(Region region, final Map map, final EventID eventId,
-      boolean skipCallbacks, final Map<ServerLocation, HashSet> serverToFilterMap,
-      final PoolImpl pool, Object callbackArg) {
+  static List<SingleHopOperationCallable> constructAndGetPutAllTasks(Region region, final Map map,
+      final EventID eventId, boolean skipCallbacks,
+      final Map<ServerLocation, HashSet> serverToFilterMap, final PoolImpl pool,
+      Object callbackArg) {
     final List<SingleHopOperationCallable> tasks = new ArrayList<SingleHopOperationCallable>();
     ArrayList<ServerLocation> servers = new ArrayList<ServerLocation>(serverToFilterMap.keySet());
 
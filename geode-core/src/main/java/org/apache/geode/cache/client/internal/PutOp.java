@@ -16,6 +16,7 @@ package org.apache.geode.cache.client.internal;
 
 import java.io.ByteArrayInputStream;
 import java.io.DataInputStream;
+import java.util.concurrent.CompletableFuture;
 
 import org.apache.logging.log4j.Logger;
 
@@ -89,6 +90,31 @@ public class PutOp {
     return pool.execute(op);
   }
 
+  /**
+   * Does a region put on a server without a thread waiting for the response. The put is sent to
+   * the server hosting the key when single hop is enabled and the key's bucket is known.
+   *
+   * @return a future for the old value returned by the server, if any
+   * @see AsyncOpExecutor
+   */
+  public static CompletableFuture<Object> executeAsync(PoolImpl pool, LocalRegion region,
+      Object key, Object value, EntryEventImpl event, Object callbackArg) {
+    boolean prSingleHopEnabled = pool.getPRSingleHopEnabled();
+    PutOpImpl op = new PutOpImpl(region, key, value, null, event, Operation.UPDATE, false, null,
+        callbackArg, false, prSingleHopEnabled);
+    ServerLocation server = null;
+    if (prSingleHopEnabled) {
+      ClientMetadataService cms = region.getCache().getClientMetadataService();
+      server = cms.getBucketServerLocation(region, Operation.UPDATE, key, value, callbackArg);
+      if (server != null) {
+        server = new ServerLocation(server.getHostName(), server.getPort());
+      }
+    }
+    return pool.getAsyncOpExecutor().execute(server, op, pool.getReadTimeout(), true,
+        () -> execute(pool, region, key, value, null, event, Operation.UPDATE, false, null,
+            callbackArg, prSingleHopEnabled));
+  }
+
   public static Object execute(ExecutablePool pool, String regionName, Object key, Object value,
       byte[] deltaBytes, EntryEventImpl event, Operation operation,
       boolean requireOldValue,
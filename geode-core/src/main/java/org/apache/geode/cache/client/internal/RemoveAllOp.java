@@ -89,7 +89,7 @@ public class RemoveAllOp {
     final boolean isDebugEnabled = logger.isDebugEnabled();
     ClientMetadataService cms = ((LocalRegion) region).getCache().getClientMetadataService();
 
-    Map<ServerLocation, HashSet> serverToFilterMap = cms.getServerToFilterMap(keys, region, true);
+    Map<ServerLocation, HashSet> serverToFilterMap = cms.getServerToBulkOpKeys(keys, region);
 
     if (serverToFilterMap == null || serverToFilterMap.isEmpty()) {
       AbstractOp op = new RemoveAllOpImpl(region, keys, eventId,
@@ -98,8 +98,8 @@ public class RemoveAllOp {
       return (VersionedObjectList) pool.execute(op);
     }
 
-    List callableTasks = constructAndGetRemoveAllTasks(region, eventId, serverToFilterMap,
-        (PoolImpl) pool, callbackArg);
+    List<SingleHopOperationCallable> callableTasks = constructAndGetRemoveAllTasks(region,
+        eventId, serverToFilterMap, (PoolImpl) pool, callbackArg);
 
     if (isDebugEnabled) {
       logger.debug("RemoveAllOp#execute : Number of removeAll tasks is :{}", callableTasks.size());
@@ -208,9 +208,9 @@ public class RemoveAllOp {
   }
 
 
-  static List constructAndGetRemoveAllTasks(Region region, final EventID eventId,
-      final Map<ServerLocation, HashSet> serverToFilterMap, final PoolImpl pool,
-      Object callbackArg) {
+  static List<SingleHopOperationCallable> constructAndGetRemoveAllTasks(Region region,
+      final EventID eventId, final Map<ServerLocation, HashSet> serverToFilterMap,
+      final PoolImpl pool, Object callbackArg) {
     final List<SingleHopOperationCallable> tasks = new ArrayList<SingleHopOperationCallable>();
     ArrayList<ServerLocation> servers = new ArrayList<ServerLocation>(serverToFilterMap.keySet());
 
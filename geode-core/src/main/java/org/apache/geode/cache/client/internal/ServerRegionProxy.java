@@ -20,6 +20,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import org.apache.logging.log4j.Logger;
 
@@ -114,6 +115,16 @@ public class ServerRegionProxy extends ServerProxy implements ServerRegionDataAc
         this.pool.getPRSingleHopEnabled(), clientEvent);
   }
 
+  /**
+   * Does a get on the server without a thread waiting for the response.
+   *
+   * @see GetOp#executeAsync(PoolImpl, LocalRegion, Object, Object)
+   */
+  public CompletableFuture<Object> getAsync(Object key, Object callbackArg) {
+    recordTXOperation(ServerRegionOperation.GET, key, callbackArg);
+    return GetOp.executeAsync((PoolImpl) this.pool, this.region, key, callbackArg);
+  }
+
 
 
   public int size() {
@@ -157,6 +168,18 @@ public class ServerRegionProxy extends ServerProxy implements ServerRegionDataAc
   }
 
 
+  /**
+   * Does a put on the server without a thread waiting for the response.
+   *
+   * @see PutOp#executeAsync(PoolImpl, LocalRegion, Object, Object, EntryEventImpl, Object)
+   */
+  public CompletableFuture<Object> putAsync(Object key, Object value, EntryEventImpl event,
+      Object callbackArg) {
+    recordTXOperation(ServerRegionOperation.PUT, key, value, null, event.getEventId(),
+        Operation.UPDATE, Boolean.FALSE, null, callbackArg, Boolean.FALSE);
+    return PutOp.executeAsync((PoolImpl) this.pool, this.region, key, value, event, callbackArg);
+  }
+
   /**
    * Does a region put on the server using the given connection.
    *
@@ -618,6 +641,17 @@ public class ServerRegionProxy extends ServerProxy implements ServerRegionDataAc
   }
 
 
+  /**
+   * Does a getAll on the servers without a thread waiting for the responses. Unlike
+   * {@link #getAll(List, Object)} the entries that failed on the server are left in the result.
+   *
+   * @see GetAllOp#executeAsync(PoolImpl, LocalRegion, List, Object)
+   */
+  public CompletableFuture<VersionedObjectList> getAllAsync(List keys, Object callback) {
+    recordTXOperation(ServerRegionOperation.GET_ALL, null, keys);
+    return GetAllOp.executeAsync((PoolImpl) this.pool, this.region, keys, callback);
+  }
+
   @Override
   public VersionedObjectList getAll(List keys, Object callback) {
     recordTXOperation(ServerRegionOperation.GET_ALL, null, keys);
@@ -714,6 +748,21 @@ public class ServerRegionProxy extends ServerProxy implements ServerRegionDataAc
   }
 
 
+  /**
+   * Executes a function on the server without a thread waiting for the results.
+   *
+   * @see ExecuteRegionFunctionOp#executeAsync(PoolImpl, LocalRegion, Function,
+   *      ServerRegionFunctionExecutor, ResultCollector, byte)
+   */
+  public CompletableFuture<Object> executeFunctionAsync(Function function,
+      ServerRegionFunctionExecutor serverRegionExecutor, ResultCollector resultCollector,
+      byte hasResult) {
+    recordTXOperation(ServerRegionOperation.EXECUTE_FUNCTION, null, Integer.valueOf(1), function,
+        serverRegionExecutor, resultCollector, Byte.valueOf(hasResult));
+    return ExecuteRegionFunctionOp.executeAsync((PoolImpl) this.pool, this.region, function,
+        serverRegionExecutor, resultCollector, hasResult);
+  }
+
   public void executeFunction(String rgnName, String functionId,
       ServerRegionFunctionExecutor serverRegionExecutor, ResultCollector resultCollector,
       byte hasResult, boolean isHA, boolean optimizeForWrite, boolean replaying) {
@@ -14,16 +14,18 @@
  */
 package org.apache.geode.cache.client.internal;
 
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -220,25 +222,21 @@ public class SingleHopClientExecutor {
    *
    * @return the per-server results
    */
-  static Map<ServerLocation, Object> submitBulkOp(List callableTasks, ClientMetadataService cms,
-      LocalRegion region, Map<ServerLocation, RuntimeException> failedServers) {
+  static Map<ServerLocation, Object> submitBulkOp(List<SingleHopOperationCallable> callableTasks,
+      ClientMetadataService cms, LocalRegion region,
+      Map<ServerLocation, RuntimeException> failedServers) {
     if (callableTasks != null && !callableTasks.isEmpty()) {
       Map<ServerLocation, Object> resultMap = new HashMap<ServerLocation, Object>();
       boolean anyPartialResults = false;
-      List futures = null;
-      try {
-        futures = execService.invokeAll(callableTasks);
-      } catch (InterruptedException e) {
-        throw new InternalGemFireException(e.getMessage());
-      }
+      List<Future<Object>> futures = invokeBulkOpTasks(callableTasks);
       if (futures != null) {
-        Iterator futureItr = futures.iterator();
-        Iterator taskItr = callableTasks.iterator();
+        Iterator<Future<Object>> futureItr = futures.iterator();
+        Iterator<SingleHopOperationCallable> taskItr = callableTasks.iterator();
         RuntimeException rte = null;
         final boolean isDebugEnabled = logger.isDebugEnabled();
         while (futureItr.hasNext() && !execService.isShutdown() && !execService.isTerminated()) {
-          Future fut = (Future) futureItr.next();
-          SingleHopOperationCallable task = (SingleHopOperationCallable) taskItr.next();
+          Future<Object> fut = futureItr.next();
+          SingleHopOperationCallable task = taskItr.next();
           ServerLocation server = task.getServer();
           try {
             VersionedObjectList versions = (VersionedObjectList) fut.get();
@@ -299,78 +297,96 @@ public class SingleHopClientExecutor {
     return null;
   }
 
-  static Map<ServerLocation, Object> submitGetAll(Map<ServerLocation, HashSet> serverToFilterMap,
-      List callableTasks, ClientMetadataService cms, LocalRegion region) {
-
-    if (callableTasks != null && !callableTasks.isEmpty()) {
-      Map<ServerLocation, Object> resultMap = new HashMap<ServerLocation, Object>();
-      List futures = null;
+  /**
+   * Executes the getAll tasks, one per server, and merges the values into one list as they are
+   * collected. The servers that could not be reached are removed from the metadata and added to
+   * the failed servers, so that only their keys need to be tried again.
+   *
+   * @return the values found, or null if no server returned any
+   */
+  static VersionedObjectList submitGetAll(List<SingleHopOperationCallable> callableTasks,
+      ClientMetadataService cms, LocalRegion region,
+      Map<ServerLocation, RuntimeException> failedServers) {
+    if (callableTasks == null || callableTasks.isEmpty()) {
+      return null;
+    }
+    VersionedObjectList result = null;
+    List<Future<Object>> futures = invokeBulkOpTasks(callableTasks);
+    Iterator<Future<Object>> futureItr = futures.iterator();
+    Iterator<SingleHopOperationCallable> taskItr = callableTasks.iterator();
+    while (futureItr.hasNext() && !execService.isShutdown() && !execService.isTerminated()) {
+      Future<Object> fut = futureItr.next();
+      SingleHopOperationCallable task = taskItr.next();
+      List keys = ((GetAllOpImpl) task.getOperation()).getKeyList();
+      ServerLocation server = task.getServer();
       try {
-        futures = execService.invokeAll(callableTasks);
-      } catch (InterruptedException e) {
-        throw new InternalGemFireException(e.getMessage());
-      }
-      if (futures != null) {
-        Iterator futureItr = futures.iterator();
-        Iterator taskItr = callableTasks.iterator();
-        while (futureItr.hasNext() && !execService.isShutdown() && !execService.isTerminated()) {
-          Future fut = (Future) futureItr.next();
-          SingleHopOperationCallable task = (SingleHopOperationCallable) taskItr.next();
-          List keys = ((GetAllOpImpl) task.getOperation()).getKeyList();
-          ServerLocation server = task.getServer();
-          try {
 
-            VersionedObjectList valuesFromServer = (VersionedObjectList) fut.get();
-            valuesFromServer.setKeys(keys);
+        VersionedObjectList valuesFromServer = (VersionedObjectList) fut.get();
+        valuesFromServer.setKeys(keys);
 
-            for (VersionedObjectList.Iterator it = valuesFromServer.iterator(); it.hasNext();) {
-              VersionedObjectList.Entry entry = it.next();
-              Object key = entry.getKey();
-              Object value = entry.getValue();
-              if (!entry.isKeyNotOnServer()) {
-                if (value instanceof Throwable) {
-                  logger.warn(LocalizedMessage.create(
-                      LocalizedStrings.GetAll_0_CAUGHT_THE_FOLLOWING_EXCEPTION_ATTEMPTING_TO_GET_VALUE_FOR_KEY_1,
-                      new Object[] {value, key}), (Throwable) value);
-                }
-              }
-            }
-            if (logger.isDebugEnabled()) {
-              logger.debug("GetAllOp#got result from {}: {}", server, valuesFromServer);
-            }
-            resultMap.put(server, valuesFromServer);
-          } catch (InterruptedException e) {
-            throw new InternalGemFireException(e.getMessage());
-          } catch (ExecutionException ee) {
-            if (ee.getCause() instanceof ServerOperationException) {
-              if (logger.isDebugEnabled()) {
-                logger.debug("GetAllOp#ExecutionException.ServerOperationException : Caused by :{}",
-                    ee.getCause());
-              }
-              throw (ServerOperationException) ee.getCause();
-            } else if (ee.getCause() instanceof ServerConnectivityException) {
-              if (logger.isDebugEnabled()) {
-                logger.debug(
-                    "GetAllOp#ExecutionException.ServerConnectivityException : Caused by :{} The failed server is: {}",
-                    ee.getCause(), server);
-              }
-              try {
-                cms = region.getCache().getClientMetadataService();
-              } catch (CacheClosedException e) {
-                return null;
-              }
-              cms.removeBucketServerLocation(server);
-              cms.scheduleGetPRMetaData((LocalRegion) region, false);
-              resultMap.put(server, ee.getCause());
-            } else {
-              throw executionThrowable(ee.getCause());
+        for (VersionedObjectList.Iterator it = valuesFromServer.iterator(); it.hasNext();) {
+          VersionedObjectList.Entry entry = it.next();
+          Object key = entry.getKey();
+          Object value = entry.getValue();
+          if (!entry.isKeyNotOnServer()) {
+            if (value instanceof Throwable) {
+              logger.warn(LocalizedMessage.create(
+                  LocalizedStrings.GetAll_0_CAUGHT_THE_FOLLOWING_EXCEPTION_ATTEMPTING_TO_GET_VALUE_FOR_KEY_1,
+                  new Object[] {value, key}), (Throwable) value);
             }
           }
         }
-        return resultMap;
+        if (logger.isDebugEnabled()) {
+          logger.debug("GetAllOp#got result from {}: {}", server, valuesFromServer);
+        }
+        if (result == null) {
+          result = valuesFromServer;
+        } else {
+          result.addAll(valuesFromServer);
+        }
+      } catch (InterruptedException e) {
+        throw new InternalGemFireException(e.getMessage());
+      } catch (ExecutionException ee) {
+        if (ee.getCause() instanceof ServerOperationException) {
+          if (logger.isDebugEnabled()) {
+            logger.debug("GetAllOp#ExecutionException.ServerOperationException : Caused by :{}",
+                ee.getCause());
+          }
+          throw (ServerOperationException) ee.getCause();
+        } else if (ee.getCause() instanceof ServerConnectivityException) {
+          if (logger.isDebugEnabled()) {
+            logger.debug(
+                "GetAllOp#ExecutionException.ServerConnectivityException : Caused by :{} The failed server is: {}",
+                ee.getCause(), server);
+          }
+          cms.removeBucketServerLocation(server);
+          cms.scheduleGetPRMetaData(region, false);
+          failedServers.put(server, (ServerConnectivityException) ee.getCause());
+        } else {
+          throw executionThrowable(ee.getCause());
+        }
       }
     }
-    return null;
+    return result;
+  }
+
+  /**
+   * Starts the tasks of a bulk op, one per server. The calling thread runs the first task itself
+   * rather than only waiting for the others, so an op whose keys are all on one server is never
+   * handed to another thread.
+   *
+   * @return the futures of the tasks, in the same order
+   */
+  private static List<Future<Object>> invokeBulkOpTasks(
+      List<? extends Callable<Object>> callableTasks) {
+    List<Future<Object>> futures = new ArrayList<>(callableTasks.size());
+    FutureTask<Object> first = new FutureTask<>(callableTasks.get(0));
+    futures.add(first);
+    for (int i = 1; i < callableTasks.size(); i++) {
+      futures.add(execService.submit(callableTasks.get(i)));
+    }
+    first.run();
+    return futures;
   }
 
   static void submitTask(Runnable task) {
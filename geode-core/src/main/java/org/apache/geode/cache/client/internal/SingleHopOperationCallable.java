@@ -21,7 +21,7 @@ import org.apache.geode.cache.client.internal.ExecuteRegionFunctionOp.ExecuteReg
 import org.apache.geode.cache.client.internal.ExecuteRegionFunctionSingleHopOp.ExecuteRegionFunctionSingleHopOpImpl;
 import org.apache.geode.distributed.internal.ServerLocation;
 
-public class SingleHopOperationCallable implements Callable {
+public class SingleHopOperationCallable implements Callable<Object> {
 
   private final ServerLocation server;
 
@@ -46,6 +46,8 @@ public class SingleHopOperationCallable implements Callable {
         ((pool.getMaxConnections() != -1 && pool.getConnectionCount() >= pool.getMaxConnections())
             ? true : false);
     op.setAllowDuplicateMetadataRefresh(!onlyUseExistingCnx);
+    // the task may be run by the thread that submitted it
+    UserAttributes callerAttributes = UserAttributes.userAttributes.get();
     try {
       UserAttributes.userAttributes.set(securityAttributes);
       result = this.pool.executeOn(server, op, true, onlyUseExistingCnx);
@@ -61,7 +63,7 @@ public class SingleHopOperationCallable implements Callable {
         result = this.pool.execute(this.op);
       }
     } finally {
-      UserAttributes.userAttributes.set(null);
+      UserAttributes.userAttributes.set(callerAttributes);
     }
     return result;
   }
@@ -88,6 +88,7 @@ import org.apache.geode.annotations.Experimental;
  *       &lt;attribute name="thread-local-connections" type="{http://www.w3.org/2001/XMLSchema}boolean" />
  *       &lt;attribute name="pr-single-hop-enabled" type="{http://www.w3.org/2001/XMLSchema}boolean" />
  *       &lt;attribute name="multiuser-authentication" type="{http://www.w3.org/2001/XMLSchema}boolean" />
+ *       &lt;attribute name="multiplexed-connections" type="{http://www.w3.org/2001/XMLSchema}boolean" />
  *     &lt;/restriction>
  *   &lt;/complexContent>
  * &lt;/complexType>
@@ -147,6 +148,8 @@ public class PoolType {
   protected Boolean prSingleHopEnabled;
   @XmlAttribute(name = "multiuser-authentication")
   protected Boolean multiuserAuthentication;
+  @XmlAttribute(name = "multiplexed-connections")
+  protected Boolean multiplexedConnections;
 
   /**
    * Gets the value of the locator property.
@@ -670,6 +673,28 @@ public class PoolType {
     this.multiuserAuthentication = value;
   }
 
+  /**
+   * Gets the value of the multiplexedConnections property.
+   *
+   * possible object is
+   * {@link Boolean }
+   *
+   */
+  public Boolean isMultiplexedConnections() {
+    return multiplexedConnections;
+  }
+
+  /**
+   * Sets the value of the multiplexedConnections property.
+   *
+   * allowed object is
+   * {@link Boolean }
+   *
+   */
+  public void setMultiplexedConnections(Boolean value) {
+    this.multiplexedConnections = value;
+  }
+
 
   /**
    * <p>
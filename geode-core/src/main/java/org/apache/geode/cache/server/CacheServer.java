@@ -52,9 +52,12 @@ public interface CacheServer {
    * The default limit to the maximum number of cache server threads that can be created to service
    * client requests. Once this number of threads exist then connections must share the same thread
    * to service their request. A selector is used to detect client connection requests and dispatch
-   * them to the thread pool. The default of <code>0</code> causes a thread to be bound to every
-   * connection and to be dedicated to detecting client requests on that connection. A selector is
-   * not used in this default mode. Current value: 0
+   * them to the thread pool. The default of <code>0</code> lets the cache server choose the number
+   * of threads, which it bounds by the number of processors. A cache server that uses SSL, or a
+   * gateway receiver, instead binds a thread to every connection and dedicates it to detecting
+   * client requests on that connection, as does a cache server started with the
+   * <code>gemfire.CacheServer.THREAD_PER_CONNECTION</code> system property set to true. Current
+   * value: 0
    *
    * @since GemFire 5.7
    */
@@ -313,17 +316,16 @@ public interface CacheServer {
 
   /**
    * Returns the maxium number of threads allowed in this cache server to service client requests.
-   * The default of <code>0</code> causes the cache server to dedicate a thread for every client
-   * connection.
+   * The default of <code>0</code> lets the cache server choose the number of threads.
    *
+   * @see #DEFAULT_MAX_THREADS
    * @since GemFire 5.1
    */
   int getMaxThreads();
 
   /**
    * Sets the maxium number of threads allowed in this cache server to service client requests. The
-   * default of <code>0</code> causes the cache server to dedicate a thread for every client
-   * connection.
+   * default of <code>0</code> lets the cache server choose the number of threads.
    *
    * @see #DEFAULT_MAX_THREADS
    * @since GemFire 5.1
@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.server.internal;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Properties;
+
+import org.apache.logging.log4j.Logger;
+
+import org.apache.geode.cache.server.ServerLoad;
+import org.apache.geode.cache.server.ServerMetrics;
+import org.apache.geode.internal.logging.LogService;
+
+/**
+ * A load probe which reports the load of {@link ConnectionCountProbe}, plus a penalty while the
+ * server is busy, so that locators stop sending new connections and subscription queues to it
+ * until it has recovered.
+ *
+ * The server becomes busy once any of the number of requests waiting for a thread, the time within
+ * which 99% of the recent operations completed, or the recent cpu usage of the machine, from 0 for
+ * idle to 1 for fully used, reaches its limit. It stays busy until all of them are below the
+ * recovery fraction of their limit, so that a server whose load hovers around a limit does not keep
+ * flipping between busy and not busy.
+ *
+ * The limits are set with the properties max-queue-depth, max-p99-latency-ms, max-cpu-load and
+ * recovery-fraction when the probe is declared in cache.xml.
+ *
+ * @since Geode 1.8
+ */
+public class BusyServerLoadProbe extends ConnectionCountProbe {
+  private static final Logger logger = LogService.getLogger();
+
+  private static final long serialVersionUID = 2471284620934722345L;
+
+  public static final String MAX_QUEUE_DEPTH = "max-queue-depth";
+  public static final String MAX_P99_LATENCY_MS = "max-p99-latency-ms";
+  public static final String MAX_CPU_LOAD = "max-cpu-load";
+  public static final String RECOVERY_FRACTION = "recovery-fraction";
+
+  public static final int DEFAULT_MAX_QUEUE_DEPTH = 100;
+  public static final long DEFAULT_MAX_P99_LATENCY_MS = 100;
+  public static final float DEFAULT_MAX_CPU_LOAD = 0.9f;
+  public static final float DEFAULT_RECOVERY_FRACTION = 0.7f;
+
+  private int maxQueueDepth = DEFAULT_MAX_QUEUE_DEPTH;
+  private long maxP99LatencyMs = DEFAULT_MAX_P99_LATENCY_MS;
+  private float maxCpuLoad = DEFAULT_MAX_CPU_LOAD;
+  private float recoveryFraction = DEFAULT_RECOVERY_FRACTION;
+
+  private transient boolean busy;
+
+  @Override
+  public synchronized ServerLoad getLoad(ServerMetrics metrics) {
+    ServerLoad load = super.getLoad(metrics);
+    if (!(metrics instanceof ServerMetricsImpl)) {
+      return load;
+    }
+    float busyness = getBusyness((ServerMetricsImpl) metrics);
+    if (busy ? busyness < recoveryFraction : busyness >= 1) {
+      busy = !busy;
+      logger.info("Cache server is {} (queue depth, p99 latency or cpu usage at {}% of the limit)",
+          busy ? "busy, locators will send new clients to other servers" : "no longer busy",
+          Math.round(busyness * 100));
+    }
+    if (busy) {
+      // as loaded as a server at its connection limit, and more than any server's queue count
+      load.setConnectionLoad(load.getConnectionLoad() + 1);
+      load.setSubscriptionConnectionLoad(
+          load.getSubscriptionConnectionLoad() + metrics.getMaxConnections());
+    }
+    return load;
+  }
+
+  /**
+   * Returns the largest of the request queue depth, p99 operation time and cpu usage as a fraction
+   * of its limit.
+   */
+  private float getBusyness(ServerMetricsImpl metrics) {
+    float busyness = metrics.getRequestQueueSize() / (float) maxQueueDepth;
+    long p99Micros = metrics.pollOperationTime(0.99);
+    busyness = Math.max(busyness, p99Micros / (maxP99LatencyMs * 1000f));
+    double cpuLoad = metrics.getCpuLoad();
+    if (cpuLoad >= 0) {
+      busyness = Math.max(busyness, (float) cpuLoad / maxCpuLoad);
+    }
+    return busyness;
+  }
+
+  synchronized boolean isBusy() {
+    return busy;
+  }
+
+  @Override
+  public Properties getConfig() {
+    Properties props = new Properties();
+    props.setProperty(MAX_QUEUE_DEPTH, String.valueOf(maxQueueDepth));
+    props.setProperty(MAX_P99_LATENCY_MS, String.valueOf(maxP99LatencyMs));
+    props.setProperty(MAX_CPU_LOAD, String.valueOf(maxCpuLoad));
+    props.setProperty(RECOVERY_FRACTION, String.valueOf(recoveryFraction));
+    return props;
+  }
+
+  @Override
+  public void init(Properties props) {
+    maxQueueDepth = Integer.parseInt(
+        props.getProperty(MAX_QUEUE_DEPTH, String.valueOf(DEFAULT_MAX_QUEUE_DEPTH)));
+    maxP99LatencyMs = Long.parseLong(
+        props.getProperty(MAX_P99_LATENCY_MS, String.valueOf(DEFAULT_MAX_P99_LATENCY_MS)));
+    maxCpuLoad =
+        Float.parseFloat(props.getProperty(MAX_CPU_LOAD, String.valueOf(DEFAULT_MAX_CPU_LOAD)));
+    recoveryFraction = Float.parseFloat(
+        props.getProperty(RECOVERY_FRACTION, String.valueOf(DEFAULT_RECOVERY_FRACTION)));
+    if (maxQueueDepth <= 0 || maxP99LatencyMs <= 0 || maxCpuLoad <= 0 || recoveryFraction <= 0
+        || recoveryFraction > 1) {
+      throw new IllegalArgumentException("Invalid configuration for " + this + ": " + props);
+    }
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (!super.equals(other)) {
+      return false;
+    }
+    BusyServerLoadProbe that = (BusyServerLoadProbe) other;
+    return maxQueueDepth == that.maxQueueDepth && maxP99LatencyMs == that.maxP99LatencyMs
+        && maxCpuLoad == that.maxCpuLoad && recoveryFraction == that.recoveryFraction;
+  }
+
+  @Override
+  public int hashCode() {
+    return maxQueueDepth * 31 + (int) maxP99LatencyMs;
+  }
+
+  @Override
+  public String toString() {
+    return "BusyServerLoadProbe";
+  }
+
+  @Override
+  public void fromData(DataInput in) throws IOException, ClassNotFoundException {
+    maxQueueDepth = in.readInt();
+    maxP99LatencyMs = in.readLong();
+    maxCpuLoad = in.readFloat();
+    recoveryFraction = in.readFloat();
+  }
+
+  @Override
+  public void toData(DataOutput out) throws IOException {
+    out.writeInt(maxQueueDepth);
+    out.writeLong(maxP99LatencyMs);
+    out.writeFloat(maxCpuLoad);
+    out.writeFloat(recoveryFraction);
+  }
+}
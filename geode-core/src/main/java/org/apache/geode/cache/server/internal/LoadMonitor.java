@@ -70,6 +70,7 @@ public class LoadMonitor implements ConnectionListener {
     this.location = location;
     this.pollingThread.start();
     this.stats = cacheServerStats;
+    this.metrics.setStats(cacheServerStats);
     this.stats.setLoad(lastLoad);
   }
 
@@ -129,6 +130,10 @@ public class LoadMonitor implements ConnectionListener {
     metrics.decQueueCount();
   }
 
+  public void operationCompleted(long elapsedNanos) {
+    metrics.recordOperationTime(elapsedNanos);
+  }
+
   protected ServerLoad getLoad() {
     ServerLoad load = this.probe.getLoad(metrics);
     if (load == null) {
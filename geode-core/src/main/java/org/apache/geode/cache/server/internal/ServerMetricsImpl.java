@@ -14,9 +14,15 @@
  */
 package org.apache.geode.cache.server.internal;
 
+import java.lang.management.ManagementFactory;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
 
 import org.apache.geode.cache.server.ServerMetrics;
+import org.apache.geode.internal.cache.tier.sockets.CacheServerStats;
 
 /**
  * Metrics describing the load on a bridge server.
@@ -29,9 +35,27 @@ public class ServerMetricsImpl implements ServerMetrics {
   private final AtomicInteger connectionCount = new AtomicInteger();
   private final AtomicInteger queueCount = new AtomicInteger();
   private final int maxConnections;
+  private volatile CacheServerStats stats;
+
+  /**
+   * Each power of two of the operation times in microseconds is split into this many buckets of
+   * equal width, so that a time read from the buckets is off by at most an eighth.
+   */
+  private static final int SUB_BUCKET_BITS = 3;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+  /**
+   * The number of operations processed since the last {@link #pollOperationTime(double)}, by their
+   * time in microseconds. Times below {@link #SUB_BUCKETS} have a bucket each, larger ones share a
+   * bucket with the times of the same power of two that have the same next highest bits.
+   */
+  private final LongAdder[] operationTimes = new LongAdder[(64 - SUB_BUCKET_BITS) * SUB_BUCKETS];
 
   public ServerMetricsImpl(int maxConnections) {
     this.maxConnections = maxConnections;
+    for (int i = 0; i < operationTimes.length; i++) {
+      operationTimes[i] = new LongAdder();
+    }
   }
 
   public int getClientCount() {
@@ -74,4 +98,96 @@ public class ServerMetricsImpl implements ServerMetrics {
     queueCount.decrementAndGet();
   }
 
+  public void setStats(CacheServerStats stats) {
+    this.stats = stats;
+  }
+
+  /**
+   * Get the number of client requests waiting for a thread to process them.
+   */
+  public int getRequestQueueSize() {
+    CacheServerStats stats = this.stats;
+    return stats == null ? 0 : stats.getThreadQueueSize();
+  }
+
+  /**
+   * Get the recent cpu usage of the whole machine, from 0 for idle to 1 for fully used, or a
+   * negative number if it is not known. The SystemCpuLoad attribute is read through the platform
+   * MBean server since it is only on com.sun.management.OperatingSystemMXBean.
+   */
+  public double getCpuLoad() {
+    try {
+      Object cpuLoad = ManagementFactory.getPlatformMBeanServer().getAttribute(
+          new ObjectName(ManagementFactory.OPERATING_SYSTEM_MXBEAN_NAME), "SystemCpuLoad");
+      return cpuLoad instanceof Double ? (Double) cpuLoad : -1;
+    } catch (JMException | RuntimeException e) {
+      return -1;
+    }
+  }
+
+  public void recordOperationTime(long nanos) {
+    long micros = Math.max(1, nanos / 1000);
+    operationTimes[getBucket(micros)].increment();
+  }
+
+  private static int getBucket(long micros) {
+    if (micros < SUB_BUCKETS) {
+      return (int) micros;
+    }
+    int shift = 63 - Long.numberOfLeadingZeros(micros) - SUB_BUCKET_BITS;
+    // the bucket of the power of two, plus the bits below the highest one
+    return (shift + 1) * SUB_BUCKETS + (int) ((micros >>> shift) & (SUB_BUCKETS - 1));
+  }
+
+  /**
+   * Returns the smallest time in microseconds of the given bucket.
+   */
+  private static double getBucketStart(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    int shift = bucket / SUB_BUCKETS - 1;
+    return Math.scalb((double) (SUB_BUCKETS + bucket % SUB_BUCKETS), shift);
+  }
+
+  private static double getBucketWidth(int bucket) {
+    return bucket < SUB_BUCKETS ? 1 : Math.scalb(1.0, bucket / SUB_BUCKETS - 1);
+  }
+
+  /**
+   * Get the time within which the given fraction of the operations processed since the last call
+   * completed, and start counting anew.
+   *
+   * The time is interpolated within the bucket the operation it falls on was counted in, as if
+   * the times in that bucket were evenly spread, so it is off by at most an eighth.
+   *
+   * @param fraction the fraction of the operations, such as 0.99
+   * @return the time in microseconds, or 0 if no operations were processed
+   */
+  public long pollOperationTime(double fraction) {
+    long[] counts = new long[operationTimes.length];
+    long total = 0;
+    for (int i = 0; i < counts.length; i++) {
+      counts[i] = operationTimes[i].sumThenReset();
+      total += counts[i];
+    }
+    if (total == 0) {
+      return 0;
+    }
+    long wanted = Math.max(1, (long) Math.ceil(total * fraction));
+    long seen = 0;
+    int i = 0;
+    for (; i < counts.length - 1; i++) {
+      if (seen + counts[i] >= wanted) {
+        break;
+      }
+      seen += counts[i];
+    }
+    double time = getBucketStart(i);
+    if (counts[i] > 0) {
+      time += getBucketWidth(i) * (wanted - seen) / counts[i];
+    }
+    return time >= Long.MAX_VALUE ? Long.MAX_VALUE : (long) Math.ceil(time);
+  }
+
 }
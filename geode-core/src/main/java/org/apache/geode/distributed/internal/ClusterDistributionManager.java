@@ -91,6 +91,7 @@ import org.apache.geode.internal.tcp.Connection;
 import org.apache.geode.internal.tcp.ConnectionTable;
 import org.apache.geode.internal.tcp.ReenteredConnectException;
 import org.apache.geode.internal.util.concurrent.StoppableReentrantLock;
+import org.apache.geode.internal.util.concurrent.VirtualThreads;
 
 /**
  * The <code>DistributionManager</code> uses a {@link MembershipManager} to distribute
@@ -196,6 +197,18 @@ public class ClusterDistributionManager implements DistributionManager {
   static final int MAX_SERIAL_QUEUE_THREAD =
       Integer.getInteger("DistributionManager.MAX_SERIAL_QUEUE_THREAD", 20).intValue();
 
+  /**
+   * Flag indicating whether serial messages are only kept in order per region and key, so that
+   * updates of different keys from one sender are processed by multiple threads.
+   */
+  private static final boolean ORDER_SERIAL_MESSAGES_PER_KEY =
+      Boolean.getBoolean("DistributionManager.orderSerialMessagesPerKey");
+
+  /** Max number of threads processing serial messages ordered per key */
+  private static final int MAX_KEY_ORDERED_SERIAL_THREADS =
+      Integer.getInteger("DistributionManager.MAX_KEY_ORDERED_SERIAL_THREADS",
+          Math.max(Runtime.getRuntime().availableProcessors() * 4, 16)).intValue();
+
 
 
   /** The DM type for regular distribution managers */
@@ -438,6 +451,13 @@ public class ClusterDistributionManager implements DistributionManager {
   /** Message processing executor for serial, ordered, messages. */
   private ThreadPoolExecutor serialThread;
 
+  /** Message processing pool for serial messages ordered per key, if they are */
+  private ThreadPoolExecutor keyOrderedSerialPool;
+
+  /** The executors keeping the serial messages of each sender in order per key */
+  private final ConcurrentMap<InternalDistributedMember, KeyOrderedSerialExecutor> keyOrderedSerialExecutors =
+      new ConcurrentHashMap<>();
+
   /**
    * Message processing executor for view messages
    *
@@ -755,6 +775,37 @@ public class ClusterDistributionManager implements DistributionManager {
         this.serialThread = new SerialQueuedExecutorWithDMStats(poolQueue,
             this.stats.getSerialProcessorHelper(), tf, threadMonitor);
       }
+      if (ORDER_SERIAL_MESSAGES_PER_KEY) {
+        BlockingQueue<Runnable> poolQueue =
+            new OverflowQueueWithDMStats<>(this.stats.getSerialQueueHelper());
+        ThreadFactory tf = new ThreadFactory() {
+          private int next = 0;
+
+          @Override
+          public Thread newThread(final Runnable command) {
+            ClusterDistributionManager.this.stats.incSerialPooledThreadStarts();
+            final Runnable r = new Runnable() {
+              @Override
+              public void run() {
+                ConnectionTable.threadWantsSharedResources();
+                Connection.makeReaderThread();
+                try {
+                  runUntilShutdown(command);
+                } finally {
+                  ConnectionTable.releaseThreadsSockets();
+                }
+              }
+            };
+            Thread thread = new Thread(group, r,
+                "Key Ordered Serial Message Processor " + (next++));
+            thread.setDaemon(true);
+            return thread;
+          }
+        };
+        this.keyOrderedSerialPool = new PooledExecutorWithDMStats(poolQueue,
+            MAX_KEY_ORDERED_SERIAL_THREADS, this.stats.getSerialPooledProcessorHelper(), tf,
+            threadMonitor);
+      }
       {
         BlockingQueue q = new LinkedBlockingQueue();
         ThreadFactory tf = new ThreadFactory() {
@@ -813,7 +864,7 @@ public class ClusterDistributionManager implements DistributionManager {
                 }
               }
             };
-            Thread thread = new Thread(group, r,
+            Thread thread = VirtualThreads.newThread(group, r,
                 LocalizedStrings.DistributionManager_POOLED_MESSAGE_PROCESSOR.toLocalizedString()
                     + (next++));
             thread.setDaemon(true);
@@ -886,7 +937,7 @@ public class ClusterDistributionManager implements DistributionManager {
                 }
               }
             };
-            Thread thread = new Thread(group, r,
+            Thread thread = VirtualThreads.newThread(group, r,
                 LocalizedStrings.DistributionManager_POOLED_WAITING_MESSAGE_PROCESSOR
                     .toLocalizedString() + (next++));
             thread.setDaemon(true);
@@ -966,7 +1017,8 @@ public class ClusterDistributionManager implements DistributionManager {
                 }
               }
             };
-            Thread thread = new Thread(group, r, "PartitionedRegion Message Processor" + (next++));
+            Thread thread = VirtualThreads.newThread(group, r,
+                "PartitionedRegion Message Processor" + (next++));
             thread.setDaemon(true);
             return thread;
           }
@@ -1010,7 +1062,8 @@ public class ClusterDistributionManager implements DistributionManager {
                 }
               }
             };
-            Thread thread = new Thread(group, r, "Function Execution Processor" + (next++));
+            Thread thread =
+                VirtualThreads.newThread(group, r, "Function Execution Processor" + (next++));
             thread.setDaemon(true);
             return thread;
           }
@@ -1824,6 +1877,10 @@ public class ClusterDistributionManager implements DistributionManager {
     if (this.serialQueuedExecutorPool != null) {
       this.serialQueuedExecutorPool.shutdown();
     }
+    es = this.keyOrderedSerialPool;
+    if (es != null) {
+      es.shutdown();
+    }
     es = this.functionExecutionThread;
     if (es != null) {
       es.shutdown();
@@ -1867,7 +1924,8 @@ public class ClusterDistributionManager implements DistributionManager {
     long remaining = timeInMillis;
 
     ExecutorService[] allExecutors = new ExecutorService[] {this.serialThread, this.viewThread,
-        this.functionExecutionThread, this.functionExecutionPool, this.partitionedRegionThread,
+        this.keyOrderedSerialPool, this.functionExecutionThread, this.functionExecutionPool,
+        this.partitionedRegionThread,
         this.partitionedRegionPool, this.highPriorityPool, this.waitingPool,
         this.prMetaDataCleanupThreadPool, this.threadPool};
     for (ExecutorService es : allExecutors) {
@@ -1970,6 +2028,10 @@ public class ClusterDistributionManager implements DistributionManager {
         stillAlive = true;
         culprits = culprits + " view thread;";
       }
+      if (executorAlive(this.keyOrderedSerialPool, "key ordered serial pool")) {
+        stillAlive = true;
+        culprits = culprits + " key ordered serial pool;";
+      }
       if (executorAlive(this.partitionedRegionThread, "partitioned region thread")) {
         stillAlive = true;
         culprits = culprits + " partitioned region thread;";
@@ -2025,6 +2087,9 @@ public class ClusterDistributionManager implements DistributionManager {
     if (this.viewThread != null) {
       this.viewThread.shutdownNow();
     }
+    if (this.keyOrderedSerialPool != null) {
+      this.keyOrderedSerialPool.shutdownNow();
+    }
     if (this.functionExecutionThread != null) {
       this.functionExecutionThread.shutdownNow();
     }
@@ -3016,6 +3081,7 @@ public class ClusterDistributionManager implements DistributionManager {
       if (this.serialQueuedExecutorPool != null) {
         serialQueuedExecutorPool.handleMemberDeparture(theId);
       }
+      this.keyOrderedSerialExecutors.remove(theId);
     }
   }
 
@@ -3507,6 +3573,10 @@ public class ClusterDistributionManager implements DistributionManager {
   }
 
   private Executor getSerialExecutor(InternalDistributedMember sender) {
+    if (this.keyOrderedSerialPool != null) {
+      return this.keyOrderedSerialExecutors.computeIfAbsent(sender,
+          k -> new KeyOrderedSerialExecutor(this.keyOrderedSerialPool, SERIAL_QUEUE_SIZE_LIMIT));
+    }
     if (MULTI_SERIAL_EXECUTORS) {
       return this.serialQueuedExecutorPool.getThrottledSerialExecutor(sender);
     } else {
@@ -3514,6 +3584,14 @@ public class ClusterDistributionManager implements DistributionManager {
     }
   }
 
+  /**
+   * Returns true if serial messages are only kept in order per {@link
+   * DistributionMessage#getSerialOrderingKey() ordering key}.
+   */
+  boolean isSerialOrderingPerKey() {
+    return this.keyOrderedSerialPool != null;
+  }
+
   /** returns the serialThread's queue if throttling is being used, null if not */
   public OverflowQueueWithDMStats<Runnable> getSerialQueue(InternalDistributedMember sender) {
     if (MULTI_SERIAL_EXECUTORS) {
@@ -3815,6 +3893,10 @@ public class ClusterDistributionManager implements DistributionManager {
       // UDP readers are throttled in the FC protocol, which queries
       // the queue to see if it should throttle
       if (stats.getSerialQueueBytes() > TOTAL_SERIAL_QUEUE_THROTTLE
+          && Connection.isSelectorReaderThread()) {
+        Connection.throttleSelectorReader(
+            () -> stats.getSerialQueueBytes() > TOTAL_SERIAL_QUEUE_THROTTLE);
+      } else if (stats.getSerialQueueBytes() > TOTAL_SERIAL_QUEUE_THROTTLE
           && !DistributionMessage.isPreciousThread()) {
         do {
           boolean interrupted = Thread.interrupted();
@@ -141,6 +141,12 @@ public interface DMStats {
 
   void incBatchFlushTime(long start);
 
+  /**
+   * Increments the number of message batches flushed by one, the number of batched messages by
+   * messages, and the time that batched messages waited for the flush by latency nanoseconds.
+   */
+  void incBatchesFlushed(int messages, long latency);
+
   /**
    * Increments the total number of nanoseconds spent scheduling messages to be processed.
    */
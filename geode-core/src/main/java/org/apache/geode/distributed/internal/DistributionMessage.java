@@ -328,6 +328,16 @@ public abstract class DistributionMessage implements DataSerializableFixedID, Cl
 
   public abstract int getProcessorType();
 
+  /**
+   * Returns the key that orders this serial message with the others from its sender, if serial
+   * messages are ordered per key. This message then only has to be processed after the earlier ones
+   * from its sender with an equal key, or without a key. Returns null, the default, if this message
+   * must be processed after all earlier serial messages from its sender.
+   */
+  public Object getSerialOrderingKey() {
+    return null;
+  }
+
   /**
    * Processes this message. This method is invoked by the receiver of the message.
    *
@@ -406,7 +416,8 @@ public abstract class DistributionMessage implements DataSerializableFixedID, Cl
    */
   protected void schedule(final ClusterDistributionManager dm) {
     boolean inlineProcess = INLINE_PROCESS
-        && getProcessorType() == ClusterDistributionManager.SERIAL_EXECUTOR && !isPreciousThread();
+        && getProcessorType() == ClusterDistributionManager.SERIAL_EXECUTOR && !isPreciousThread()
+        && !Connection.isSelectorReaderThread() && !dm.isSerialOrderingPerKey();
 
     boolean forceInline = this.acker != null || getInlineProcess() || Connection.isDominoThread();
 
@@ -430,7 +441,8 @@ public abstract class DistributionMessage implements DataSerializableFixedID, Cl
       }
     } else { // not inline
       try {
-        getExecutor(dm).execute(new SizeableRunnable(this.getBytesRead()) {
+        Executor executor = getExecutor(dm);
+        Runnable action = new SizeableRunnable(this.getBytesRead()) {
           public void run() {
             scheduleAction(dm);
           }
@@ -439,7 +451,12 @@ public abstract class DistributionMessage implements DataSerializableFixedID, Cl
           public String toString() {
             return "Processing {" + DistributionMessage.this.toString() + "}";
           }
-        });
+        };
+        if (executor instanceof KeyOrderedSerialExecutor) {
+          ((KeyOrderedSerialExecutor) executor).execute(getSerialOrderingKey(), action);
+        } else {
+          executor.execute(action);
+        }
       } catch (RejectedExecutionException ex) {
         if (!dm.shutdownInProgress()) { // fix for bug 32395
           logger.warn(LocalizedMessage.create(
@@ -145,6 +145,9 @@ public class DistributionStats implements DMStats {
   private static final int batchCopyTimeId;
   private static final int batchWaitTimeId;
   private static final int batchFlushTimeId;
+  private static final int batchesFlushedId;
+  private static final int batchedMessagesId;
+  private static final int batchLatencyId;
 
   private static final int threadOwnedReceiversId;
   private static final int threadOwnedReceiversId2;
@@ -595,6 +598,13 @@ public class DistributionStats implements DMStats {
         f.createLongCounter("batchFlushTime",
             "Total amount of time, in nanoseconds, spent flushing batched messages to the network",
             "nanoseconds"),
+        f.createLongCounter("batchesFlushed",
+            "Total number of message batches flushed to the network", "batches"),
+        f.createLongCounter("batchedMessages",
+            "Total number of messages, or chunks of large messages, sent in batches", "messages"),
+        f.createLongCounter("batchLatency",
+            "Total amount of time, in nanoseconds, that batched messages waited for their batch to be flushed",
+            "nanoseconds"),
 
         f.createIntGauge("asyncSocketWritesInProgress",
             "Current number of non-blocking socket write calls in progress.", "writes"),
@@ -840,6 +850,9 @@ public class DistributionStats implements DMStats {
     batchCopyTimeId = type.nameToId("batchCopyTime");
     batchWaitTimeId = type.nameToId("batchWaitTime");
     batchFlushTimeId = type.nameToId("batchFlushTime");
+    batchesFlushedId = type.nameToId("batchesFlushed");
+    batchedMessagesId = type.nameToId("batchedMessages");
+    batchLatencyId = type.nameToId("batchLatency");
 
     asyncSocketWritesInProgressId = type.nameToId("asyncSocketWritesInProgress");
     asyncSocketWritesId = type.nameToId("asyncSocketWrites");
@@ -2067,6 +2080,26 @@ public class DistributionStats implements DMStats {
     }
   }
 
+  public void incBatchesFlushed(int messages, long latency) {
+    stats.incLong(batchesFlushedId, 1);
+    stats.incLong(batchedMessagesId, messages);
+    if (enableClockStats) {
+      stats.incLong(batchLatencyId, latency);
+    }
+  }
+
+  public long getBatchesFlushed() {
+    return stats.getLong(batchesFlushedId);
+  }
+
+  public long getBatchedMessages() {
+    return stats.getLong(batchedMessagesId);
+  }
+
+  public long getBatchLatency() {
+    return stats.getLong(batchLatencyId);
+  }
+
   public void incUcastRetransmits() {
     stats.incInt(ucastRetransmitsId, 1);
   }
@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.distributed.internal;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import org.apache.geode.internal.tcp.Connection;
+
+/**
+ * Runs the serial messages of one sender on a shared pool of threads, keeping them in order per
+ * ordering key instead of all of them in order.
+ *
+ * A task with a key runs once the earlier tasks with an equal key, and the earlier tasks without a
+ * key, are done. A task without a key runs once all earlier tasks are done, and holds up all later
+ * tasks until it is done. So messages that do not name a key, such as region operations, are still
+ * processed in order with everything else from their sender.
+ *
+ * @see DistributionMessage#getSerialOrderingKey()
+ * @since Geode 1.8
+ */
+class KeyOrderedSerialExecutor implements Executor {
+  private final Executor pool;
+
+  /** The most tasks waiting or running before execute makes the caller wait */
+  private final int maxTasks;
+
+  /** The tasks waiting for an earlier task with the same key, by key, for keys that are running */
+  private final Map<Object, ArrayDeque<Runnable>> runningKeys = new HashMap<>();
+
+  /** The tasks, with their keys, that wait for a task without a key, in order */
+  private final ArrayDeque<Object[]> blocked = new ArrayDeque<>();
+
+  /** True while a task without a key is running */
+  private boolean barrierRunning;
+
+  private int tasks;
+
+  KeyOrderedSerialExecutor(Executor pool, int maxTasks) {
+    this.pool = pool;
+    this.maxTasks = maxTasks;
+  }
+
+  /**
+   * Runs the task once all earlier tasks are done.
+   */
+  @Override
+  public void execute(Runnable command) {
+    execute(null, command);
+  }
+
+  /**
+   * Runs the task once the earlier tasks with an equal key, and those without a key, are done. A
+   * null key orders the task with all other tasks.
+   */
+  public void execute(Object key, Runnable command) {
+    synchronized (this) {
+      if (this.tasks >= this.maxTasks && Connection.isSelectorReaderThread()) {
+        Connection.throttleSelectorReader(() -> getTaskCount() >= this.maxTasks);
+      }
+      // like a throttled serial queue, slow down the tcp reader but never a udp one
+      while (this.tasks >= this.maxTasks && !DistributionMessage.isPreciousThread()
+          && !Connection.isSelectorReaderThread()) {
+        boolean interrupted = Thread.interrupted();
+        try {
+          wait();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        } finally {
+          if (interrupted) {
+            Thread.currentThread().interrupt();
+            break;
+          }
+        }
+      }
+      this.tasks++;
+      if (this.barrierRunning || !this.blocked.isEmpty()) {
+        this.blocked.add(new Object[] {key, command});
+        return;
+      }
+      if (!submit(key, command)) {
+        return;
+      }
+    }
+    start(key, command);
+  }
+
+  /**
+   * Queues the task, or returns true if it can start now. Must only be called when no task without
+   * a key is running or waiting.
+   */
+  private boolean submit(Object key, Runnable command) {
+    if (key == null) {
+      if (!this.runningKeys.isEmpty()) {
+        this.blocked.add(new Object[] {null, command});
+        return false;
+      }
+      this.barrierRunning = true;
+      return true;
+    }
+    ArrayDeque<Runnable> waiting = this.runningKeys.get(key);
+    if (waiting != null) {
+      waiting.add(command);
+      return false;
+    }
+    this.runningKeys.put(key, new ArrayDeque<>());
+    return true;
+  }
+
+  private void start(Object key, Runnable command) {
+    this.pool.execute(() -> {
+      try {
+        command.run();
+      } finally {
+        done(key);
+      }
+    });
+  }
+
+  private void done(Object key) {
+    Runnable next = null;
+    ArrayDeque<Object[]> startable = null;
+    synchronized (this) {
+      this.tasks--;
+      notifyAll();
+      if (key == null) {
+        this.barrierRunning = false;
+      } else {
+        ArrayDeque<Runnable> waiting = this.runningKeys.get(key);
+        next = waiting.poll();
+        if (next == null) {
+          this.runningKeys.remove(key);
+        }
+      }
+      // release the tasks that waited for a task without a key, up to the next one without a key
+      while (!this.barrierRunning && !this.blocked.isEmpty()) {
+        Object[] task = this.blocked.peek();
+        if (task[0] == null && !this.runningKeys.isEmpty()) {
+          break;
+        }
+        this.blocked.poll();
+        if (submit(task[0], (Runnable) task[1])) {
+          if (startable == null) {
+            startable = new ArrayDeque<>();
+          }
+          startable.add(task);
+        }
+      }
+    }
+    if (next != null) {
+      start(key, next);
+    }
+    if (startable != null) {
+      for (Object[] task : startable) {
+        start(task[0], (Runnable) task[1]);
+      }
+    }
+  }
+
+  synchronized int getTaskCount() {
+    return this.tasks;
+  }
+}
@@ -585,6 +585,9 @@ public class LonerDistributionManager implements DistributionManager {
     @Override
     public void incBatchFlushTime(long start) {}
 
+    @Override
+    public void incBatchesFlushed(int messages, long latency) {}
+
     @Override
     public void incUcastWriteBytes(int bytesWritten) {}
 
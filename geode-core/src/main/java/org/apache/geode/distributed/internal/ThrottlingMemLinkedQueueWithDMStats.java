@@ -18,6 +18,8 @@ package org.apache.geode.distributed.internal;
 import java.util.Collection;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import org.apache.geode.internal.tcp.Connection;
+
 
 /**
  * An instance of ThrottlingMemLinkedQueue allows the instantiator to specify a maximum queue
@@ -87,6 +89,10 @@ public class ThrottlingMemLinkedQueueWithDMStats<E> extends OverflowQueueWithDMS
     return sleep;
   }
 
+  private boolean isThrottled() {
+    return calculateThrottleTime() > 0;
+  }
+
   @Override
   protected void preAdd(Object o) {
     try {
@@ -102,7 +108,11 @@ public class ThrottlingMemLinkedQueueWithDMStats<E> extends OverflowQueueWithDMS
       throw new InterruptedException();
     // only block threads reading from tcp stream sockets. blocking udp
     // will cause retransmission storms
-    if (!DistributionMessage.isPreciousThread()) {
+    if (Connection.isSelectorReaderThread()) {
+      if (isThrottled()) {
+        Connection.throttleSelectorReader(this::isThrottled);
+      }
+    } else if (!DistributionMessage.isPreciousThread()) {
       long startTime = DistributionStats.getStatTime();
       do {
         try {
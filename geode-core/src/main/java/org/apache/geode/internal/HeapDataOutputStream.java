@@ -505,12 +505,13 @@ public class HeapDataOutputStream extends OutputStream
     return result;
   }
 
+  /**
+   * Writes the contents of this stream to the channel, copying heap chunks through "out". Anything
+   * already put in "out" is sent ahead of this stream's contents, in the same write as the next
+   * direct chunk, and "out" is left cleared.
+   */
   public void sendTo(SocketChannel chan, ByteBuffer out) throws IOException {
     finishWriting();
-    if (size() == 0) {
-      return;
-    }
-    out.clear();
     if (this.chunks != null) {
       for (ByteBuffer bb : this.chunks) {
         sendChunkTo(bb, chan, out);
@@ -527,10 +528,14 @@ public class HeapDataOutputStream extends OutputStream
   private void sendChunkTo(ByteBuffer in, SocketChannel sc, ByteBuffer out) throws IOException {
     int bytesSent = in.remaining();
     if (in.isDirect()) {
-      flushBuffer(sc, out);
-      while (in.remaining() > 0) {
-        sc.write(in);
+      // gather what is in out with the chunk instead of copying the chunk. The chunk may be empty,
+      // so keep writing until out is sent too
+      out.flip();
+      ByteBuffer[] buffers = {out, in};
+      while (out.hasRemaining() || in.hasRemaining()) {
+        sc.write(buffers);
       }
+      out.clear();
     } else {
       // copy in to out. If out fills flush it
       int OUT_MAX = out.remaining();
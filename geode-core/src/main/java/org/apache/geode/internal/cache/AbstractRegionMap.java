@@ -122,11 +122,15 @@ public abstract class AbstractRegionMap
     boolean isDisk;
     boolean withVersioning;
     boolean offHeap;
+    boolean inlinePrimitiveValues = false;
     if (owner instanceof InternalRegion) {
       InternalRegion region = (InternalRegion) owner;
       isDisk = region.getDiskRegion() != null;
       withVersioning = region.getConcurrencyChecksEnabled();
       offHeap = region.getOffHeap();
+      // bucket regions size their values assuming they are never boxed primitives
+      inlinePrimitiveValues =
+          InlineValueHelper.INLINE_PRIMITIVE_VALUES && !(region instanceof BucketRegion);
     } else if (owner instanceof PlaceHolderDiskRegion) {
       offHeap = ((RegionEntryContext) owner).getOffHeap();
       isDisk = true;
@@ -137,7 +141,7 @@ public abstract class AbstractRegionMap
     }
 
     setEntryFactory(new RegionEntryFactoryBuilder().create(attr.statisticsEnabled, isLRU, isDisk,
-        withVersioning, offHeap));
+        withVersioning, offHeap, inlinePrimitiveValues));
   }
 
   private ConcurrentMapWithReusableEntries<Object, Object> createConcurrentMapWithReusableEntries(
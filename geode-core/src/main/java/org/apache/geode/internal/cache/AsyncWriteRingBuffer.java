@@ -0,0 +1,238 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The queue of pending asynchronous disk writes of a disk store. Many threads add to it and the
+ * single async flusher drains it in batches.
+ * <p>
+ * Items are stored in a preallocated ring of slots claimed with a compare-and-set on the tail
+ * sequence, so adding does not take a lock or allocate. When the ring is full, which can only
+ * happen for items added with {@link #forcePut(Object)} or when the disk store has no queue size
+ * limit, items spill into an unbounded overflow queue. While the overflow queue is not empty every
+ * new item goes to it too, and {@link #drainTo(Collection)} empties the ring before the overflow
+ * queue, so items are always drained in the order they were added. The flusher depends on this to
+ * know that everything added before a flush request has been written.
+ * <p>
+ * Only one thread may call {@link #drainTo(Collection)} at a time.
+ */
+class AsyncWriteRingBuffer<E> implements Iterable<E> {
+
+  /** The largest ring allocated no matter how large the configured capacity is */
+  static final int MAX_RING_SIZE = 1 << 16;
+
+  /** The ring allocated for disk stores without a queue size limit */
+  static final int DEFAULT_RING_SIZE = 1 << 13;
+
+  /** Put into the slot of an item that was removed before it was drained */
+  private static final Object REMOVED = new Object();
+
+  private final int capacity;
+
+  private final int mask;
+
+  private final AtomicReferenceArray<Object> items;
+
+  /**
+   * The sequence of each slot. A slot may be claimed for the item with sequence s when its sequence
+   * is s and may be drained when it is s + 1.
+   */
+  private final AtomicLongArray sequences;
+
+  private final AtomicLong tail = new AtomicLong();
+
+  /** The sequence of the next item to drain. Only written by the draining thread. */
+  private volatile long head;
+
+  private final ConcurrentLinkedQueue<E> overflow = new ConcurrentLinkedQueue<>();
+
+  private final AtomicInteger overflowCount = new AtomicInteger();
+
+  /**
+   * @param capacity the number of items after which {@link #offer(Object)} fails, or zero for no
+   *        limit
+   */
+  AsyncWriteRingBuffer(int capacity) {
+    this.capacity = capacity;
+    int ringSize = capacity > 0 ? Math.min(MAX_RING_SIZE, capacity) : DEFAULT_RING_SIZE;
+    ringSize = Integer.highestOneBit(ringSize - 1 | 1) << 1;
+    this.mask = ringSize - 1;
+    this.items = new AtomicReferenceArray<>(ringSize);
+    this.sequences = new AtomicLongArray(ringSize);
+    for (int i = 0; i < ringSize; i++) {
+      this.sequences.set(i, i);
+    }
+  }
+
+  /**
+   * Adds the item unless the queue already holds its capacity.
+   *
+   * @return false if the queue is full
+   */
+  boolean offer(E item) {
+    if (this.capacity > 0 && size() >= this.capacity) {
+      return false;
+    }
+    add(item);
+    return true;
+  }
+
+  /**
+   * Adds the item even if that takes the queue over its capacity.
+   */
+  void forcePut(E item) {
+    add(item);
+  }
+
+  private void add(E item) {
+    if (item == null) {
+      throw new NullPointerException();
+    }
+    if (this.overflowCount.get() == 0 && addToRing(item)) {
+      return;
+    }
+    this.overflowCount.incrementAndGet();
+    this.overflow.add(item);
+  }
+
+  private boolean addToRing(Object item) {
+    long seq = this.tail.get();
+    while (true) {
+      int index = (int) seq & this.mask;
+      long diff = this.sequences.get(index) - seq;
+      if (diff == 0) {
+        if (this.tail.compareAndSet(seq, seq + 1)) {
+          this.items.set(index, item);
+          this.sequences.set(index, seq + 1);
+          return true;
+        }
+        seq = this.tail.get();
+      } else if (diff < 0) {
+        // the slot still holds the item from the previous lap
+        return false;
+      } else {
+        seq = this.tail.get();
+      }
+    }
+  }
+
+  /**
+   * Moves the items in the queue to the given collection, in the order they were added. Items added
+   * to the ring while this method runs may be left for the next call.
+   *
+   * @return the number of items moved
+   */
+  int drainTo(Collection<? super E> c) {
+    int count = drainRing(c, this.tail.get());
+    if (this.overflowCount.get() > 0) {
+      // Items that claimed a ring slot before the first overflow item was added must be drained
+      // first. No new items go to the ring while the overflow queue is not empty so this ends.
+      long end;
+      while ((end = this.tail.get()) != this.head) {
+        count += drainRing(c, end);
+      }
+      E item;
+      while ((item = this.overflow.poll()) != null) {
+        this.overflowCount.decrementAndGet();
+        c.add(item);
+        count++;
+      }
+    }
+    return count;
+  }
+
+  @SuppressWarnings("unchecked")
+  private int drainRing(Collection<? super E> c, long end) {
+    int count = 0;
+    long seq = this.head;
+    while (seq != end) {
+      int index = (int) seq & this.mask;
+      // the slot was claimed; wait for its item to be published
+      while (this.sequences.get(index) != seq + 1) {
+        Thread.yield();
+      }
+      Object item = this.items.getAndSet(index, null);
+      this.sequences.set(index, seq + this.mask + 1);
+      seq++;
+      this.head = seq;
+      if (item != REMOVED) {
+        c.add((E) item);
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Removes the given item if it has not been drained yet.
+   *
+   * @return true if the item was removed
+   */
+  boolean remove(Object item) {
+    long end = this.tail.get();
+    for (long seq = this.head; seq < end; seq++) {
+      if (this.items.compareAndSet((int) seq & this.mask, item, REMOVED)) {
+        return true;
+      }
+    }
+    if (this.overflow.remove(item)) {
+      this.overflowCount.decrementAndGet();
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Returns the number of items added and not yet drained. Items that were removed are counted
+   * until the slot they were in is drained.
+   */
+  int size() {
+    long start = this.head;
+    long ringSize = this.tail.get() - start;
+    return (int) Math.min(Integer.MAX_VALUE, ringSize + this.overflowCount.get());
+  }
+
+  boolean isEmpty() {
+    return size() == 0;
+  }
+
+  /**
+   * Returns an iterator over a snapshot of the items currently in the queue.
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public Iterator<E> iterator() {
+    List<E> snapshot = new ArrayList<>();
+    long end = this.tail.get();
+    for (long seq = this.head; seq < end; seq++) {
+      Object item = this.items.get((int) seq & this.mask);
+      if (item != null && item != REMOVED) {
+        snapshot.add((E) item);
+      }
+    }
+    snapshot.addAll(this.overflow);
+    return snapshot.iterator();
+  }
+}
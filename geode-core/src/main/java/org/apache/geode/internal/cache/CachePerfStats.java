@@ -127,6 +127,9 @@ public class CachePerfStats {
   /** Id of the meta data refresh statistic */
   protected static final int metaDataRefreshCountId;
 
+  /** Id of the coalesced gets statistic */
+  protected static final int getsCoalescedId;
+
   protected static final int conflatedEventsId;
   protected static final int tombstoneCountId;
   protected static final int tombstoneGCCountId;
@@ -286,6 +289,8 @@ public class CachePerfStats {
         "Total number of times client request observed more than one hop during operation.";
     final String metaDataRefreshCountDesc =
         "Total number of times the meta data is refreshed due to hopping observed.";
+    final String getsCoalescedDesc =
+        "Total number of gets that missed and waited for the server get, search or load of the same key already being done by another thread.";
     final String conflatedEventsDesc =
         "Number of events not delivered due to conflation.  Typically this means that the event arrived after a later event was already applied to the cache.";
     final String tombstoneCountDesc =
@@ -477,6 +482,7 @@ public class CachePerfStats {
                 false),
             f.createLongCounter("metaDataRefreshCount", metaDataRefreshCountDesc,
                 "Total number of times the meta data is refreshed due to hopping.", false),
+            f.createLongCounter("getsCoalesced", getsCoalescedDesc, "operations"),
             f.createIntCounter("deltaUpdates", deltaUpdatesDesc, "operations"),
             f.createLongCounter("deltaUpdatesTime", deltaUpdatesTimeDesc, "nanoseconds", false),
             f.createIntCounter("deltaFailedUpdates", deltaFailedUpdatesDesc, "operations"),
@@ -600,6 +606,7 @@ public class CachePerfStats {
     evictWorkTimeId = type.nameToId("evictWorkTime");
 
     metaDataRefreshCountId = type.nameToId("metaDataRefreshCount");
+    getsCoalescedId = type.nameToId("getsCoalesced");
 
     conflatedEventsId = type.nameToId("conflatedEvents");
     tombstoneCountId = type.nameToId("tombstones");
@@ -1510,6 +1517,14 @@ public class CachePerfStats {
     return this.stats.getLong(metaDataRefreshCountId);
   }
 
+  public void incGetsCoalesced() {
+    this.stats.incLong(getsCoalescedId, 1);
+  }
+
+  public long getGetsCoalesced() {
+    return this.stats.getLong(getsCoalescedId);
+  }
+
   public long getImportedEntriesCount() {
     return stats.getLong(importedEntriesCountId);
   }
@@ -30,6 +30,11 @@ public interface CompactableOplog {
 
   int compact(OplogCompactor compactor);
 
+  /**
+   * Returns the number of bytes written to this oplog.
+   */
+  long getOplogSize();
+
   BytesAndBits getBytesAndBits(DiskRegionView dr, DiskId id, boolean faultIn, boolean bitOnly);
 
   BytesAndBits getNoBuffer(DiskRegion dr, DiskId id);
@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Slows down the compactor of a disk store so that copying live values forward does not compete
+ * with foreground writes.
+ * <p>
+ * The compactor calls {@link #copied(int)} after each value it copies and, when that asks for it,
+ * {@link #throttle(BooleanSupplier)} once it has released the entry and oplog locks. Two limits are
+ * applied:
+ * <ul>
+ * <li>If a rate is configured the compactor sleeps whenever it is ahead of that many bytes per
+ * second, measured from the start of the current oplog or the end of the last pause.
+ * <li>If a latency is configured the compactor pauses, for at most {@link #MAX_PAUSE_NANOS} at a
+ * time, while the moving average of recent synchronous foreground writes is above it. Writes older
+ * than {@link #LATENCY_WINDOW_NANOS} are not considered recent so an idle disk store never holds
+ * the compactor back.
+ * </ul>
+ */
+class CompactionThrottle {
+
+  static final long PAUSE_STEP_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+  static final long MAX_PAUSE_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  static final long LATENCY_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  /** Sleeps shorter than this are skipped and carried over to the next value */
+  private static final long MIN_SLEEP_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  private final long bytesPerSecond;
+
+  private final long pauseLatencyNanos;
+
+  private final DiskStoreStats stats;
+
+  /** Moving average of the latency of foreground writes, updated without synchronization */
+  private volatile long writeLatencyAverage;
+
+  private volatile long lastWriteTime;
+
+  // the following are only accessed by the compactor thread
+
+  private long windowStart;
+
+  private long windowBytes;
+
+  /**
+   * @param maxMBPerSecond the compaction rate limit or zero for no limit
+   * @param pauseWriteLatencyMicros the foreground write latency above which compaction pauses or
+   *        zero to never pause
+   */
+  CompactionThrottle(int maxMBPerSecond, long pauseWriteLatencyMicros, DiskStoreStats stats) {
+    this.bytesPerSecond = Math.max(0, maxMBPerSecond) * 1024L * 1024L;
+    this.pauseLatencyNanos = TimeUnit.MICROSECONDS.toNanos(Math.max(0, pauseWriteLatencyMicros));
+    this.stats = stats;
+    this.windowStart = System.nanoTime();
+  }
+
+  /**
+   * Records how long a synchronous foreground write took.
+   */
+  void recordForegroundWrite(long nanos) {
+    if (this.pauseLatencyNanos == 0) {
+      return;
+    }
+    long average = this.writeLatencyAverage;
+    this.writeLatencyAverage = average + (nanos - average) / 8;
+    this.lastWriteTime = System.nanoTime();
+  }
+
+  boolean isForegroundLatencyHigh() {
+    return this.pauseLatencyNanos > 0 && this.writeLatencyAverage > this.pauseLatencyNanos
+        && System.nanoTime() - this.lastWriteTime < LATENCY_WINDOW_NANOS;
+  }
+
+  /**
+   * Starts measuring the compaction rate over again. Called when the compactor starts an oplog.
+   */
+  void reset() {
+    this.windowStart = System.nanoTime();
+    this.windowBytes = 0;
+  }
+
+  /**
+   * Called by the compactor after it copied a value of the given size. Returns true if the
+   * compactor should release its locks and call {@link #throttle(BooleanSupplier)}, because it is
+   * ahead of the configured rate or foreground writes are slow.
+   */
+  boolean copied(int bytes) {
+    this.windowBytes += bytes;
+    return isForegroundLatencyHigh() || getAheadNanos() >= MIN_SLEEP_NANOS;
+  }
+
+  /**
+   * Sleeps as long as needed to honor the configured limits. Sleeps in steps of at most
+   * {@link #PAUSE_STEP_NANOS} and stops once {@code keepRunning} turns false.
+   */
+  void throttle(BooleanSupplier keepRunning) {
+    if (isForegroundLatencyHigh()) {
+      pause(keepRunning);
+      reset();
+    }
+    long aheadNanos;
+    while ((aheadNanos = getAheadNanos()) >= MIN_SLEEP_NANOS && keepRunning.getAsBoolean()) {
+      if (!sleep(Math.min(aheadNanos, PAUSE_STEP_NANOS))) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Returns how far the compactor is ahead of the configured rate.
+   */
+  private long getAheadNanos() {
+    if (this.bytesPerSecond == 0) {
+      return 0;
+    }
+    long expectedNanos =
+        (long) ((double) this.windowBytes * TimeUnit.SECONDS.toNanos(1) / this.bytesPerSecond);
+    return expectedNanos - (System.nanoTime() - this.windowStart);
+  }
+
+  private void pause(BooleanSupplier keepRunning) {
+    long start = System.nanoTime();
+    this.stats.incCompactionPauses();
+    while (isForegroundLatencyHigh() && keepRunning.getAsBoolean()
+        && System.nanoTime() - start < MAX_PAUSE_NANOS) {
+      if (!sleep(PAUSE_STEP_NANOS)) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * @return false if the sleep was interrupted
+   */
+  private boolean sleep(long nanos) {
+    long start = System.nanoTime();
+    try {
+      TimeUnit.NANOSECONDS.sleep(nanos);
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    } finally {
+      this.stats.incCompactionThrottleTime(System.nanoTime() - start);
+    }
+  }
+}
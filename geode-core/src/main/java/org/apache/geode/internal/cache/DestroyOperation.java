@@ -150,6 +150,11 @@ public class DestroyOperation extends DistributedCacheOperation {
       buff.append(" key=").append(this.key).append(" id=").append(this.eventId);
     }
 
+    @Override
+    public Object getSerialOrderingKey() {
+      return getEntryOrderingKey(this.key);
+    }
+
     public int getDSFID() {
       return DESTROY_MESSAGE;
     }
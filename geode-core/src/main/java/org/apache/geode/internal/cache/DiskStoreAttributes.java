@@ -50,6 +50,34 @@ public class DiskStoreAttributes implements Serializable, DiskStore {
   private volatile float diskUsageWarningPct;
   private volatile float diskUsageCriticalPct;
 
+  /**
+   * If true, values are faulted in from oplogs that are no longer being written through a
+   * read-only memory mapping of their crf instead of a locked RandomAccessFile read.
+   */
+  public boolean memoryMappedReads;
+
+  /**
+   * If true, concurrent synchronous writes share a single flush of the oplogs instead of each
+   * flushing their own record.
+   */
+  public boolean groupCommit;
+
+  /**
+   * How long, in microseconds, a group commit waits for more writers before flushing.
+   */
+  public long groupCommitMaxWaitMicros;
+
+  /**
+   * The rate, in megabytes per second, the compactor is limited to. Zero means no limit.
+   */
+  public int compactionMaxMBPerSecond;
+
+  /**
+   * The average synchronous write latency, in microseconds, above which the compactor pauses. Zero
+   * means the compactor never pauses.
+   */
+  public long compactionPauseWriteLatencyMicros;
+
   public DiskStoreAttributes() {
     // set all to defaults
     this.autoCompact = DiskStoreFactory.DEFAULT_AUTO_COMPACT;
@@ -63,6 +91,12 @@ public class DiskStoreAttributes implements Serializable, DiskStore {
     this.diskDirSizes = DiskStoreFactory.DEFAULT_DISK_DIR_SIZES;
     this.diskUsageWarningPct = DiskStoreFactory.DEFAULT_DISK_USAGE_WARNING_PERCENTAGE;
     this.diskUsageCriticalPct = DiskStoreFactory.DEFAULT_DISK_USAGE_CRITICAL_PERCENTAGE;
+    this.memoryMappedReads = DiskStoreImpl.DEFAULT_MEMORY_MAPPED_READS;
+    this.groupCommit = DiskStoreImpl.DEFAULT_GROUP_COMMIT;
+    this.groupCommitMaxWaitMicros = DiskStoreImpl.DEFAULT_GROUP_COMMIT_MAX_WAIT_MICROS;
+    this.compactionMaxMBPerSecond = DiskStoreImpl.DEFAULT_COMPACTION_MAX_MB_PER_SECOND;
+    this.compactionPauseWriteLatencyMicros =
+        DiskStoreImpl.DEFAULT_COMPACTION_PAUSE_WRITE_LATENCY_MICROS;
   }
 
   public UUID getDiskStoreUUID() {
@@ -171,6 +205,26 @@ public class DiskStoreAttributes implements Serializable, DiskStore {
     return this.writeBufferSize;
   }
 
+  public boolean getMemoryMappedReads() {
+    return this.memoryMappedReads;
+  }
+
+  public boolean getGroupCommit() {
+    return this.groupCommit;
+  }
+
+  public long getGroupCommitMaxWaitMicros() {
+    return this.groupCommitMaxWaitMicros;
+  }
+
+  public int getCompactionMaxMBPerSecond() {
+    return this.compactionMaxMBPerSecond;
+  }
+
+  public long getCompactionPauseWriteLatencyMicros() {
+    return this.compactionPauseWriteLatencyMicros;
+  }
+
   public void flush() {
     // nothing needed
   }
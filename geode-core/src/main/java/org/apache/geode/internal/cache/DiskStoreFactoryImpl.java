@@ -55,6 +55,11 @@ public class DiskStoreFactoryImpl implements DiskStoreFactory {
     setDiskDirsAndSizes(cloneArray(attrs.getDiskDirs()), cloneArray(attrs.getDiskDirSizes()));
     setDiskUsageWarningPercentage(attrs.getDiskUsageWarningPercentage());
     setDiskUsageCriticalPercentage(attrs.getDiskUsageCriticalPercentage());
+    setMemoryMappedReads(attrs.getMemoryMappedReads());
+    setGroupCommit(attrs.getGroupCommit());
+    setGroupCommitMaxWaitMicros(attrs.getGroupCommitMaxWaitMicros());
+    setCompactionMaxMBPerSecond(attrs.getCompactionMaxMBPerSecond());
+    setCompactionPauseWriteLatencyMicros(attrs.getCompactionPauseWriteLatencyMicros());
     this.cache = cache;
   }
 
@@ -298,6 +303,75 @@ public class DiskStoreFactoryImpl implements DiskStoreFactory {
     return this;
   }
 
+  /**
+   * Sets whether values should be read from oplogs that are no longer being written through a
+   * memory mapping of their crf. Defaults to the gemfire.disk.memoryMappedReads system property.
+   * <p>
+   * This is deliberately not on {@link DiskStoreFactory}, in cache.xml or in gfsh: it is a tuning
+   * knob for the whole member rather than a disk store attribute users should have to choose, and
+   * it stays internal until it has proven itself.
+   */
+  public DiskStoreFactory setMemoryMappedReads(boolean memoryMappedReads) {
+    this.attrs.memoryMappedReads = memoryMappedReads;
+    return this;
+  }
+
+  /**
+   * Sets whether concurrent synchronous writes should share a single flush of the oplogs. Defaults
+   * to the gemfire.disk.groupCommit system property.
+   * <p>
+   * Like {@link #setMemoryMappedReads(boolean)}, this is deliberately not on
+   * {@link DiskStoreFactory}, in cache.xml or in gfsh.
+   */
+  public DiskStoreFactory setGroupCommit(boolean groupCommit) {
+    this.attrs.groupCommit = groupCommit;
+    return this;
+  }
+
+  /**
+   * Sets how many microseconds a group commit waits for more writers to join before flushing.
+   * Defaults to the gemfire.disk.groupCommitMaxWaitMicros system property.
+   * <p>
+   * A writer that leads a commit while holding the lock of the entry it wrote does not wait at
+   * all, so that other writers of that entry are not held up; it flushes whatever has joined.
+   * Like {@link #setGroupCommit(boolean)}, this is deliberately not on {@link DiskStoreFactory}.
+   */
+  public DiskStoreFactory setGroupCommitMaxWaitMicros(long maxWaitMicros) {
+    if (maxWaitMicros < 0) {
+      throw new IllegalArgumentException(
+          "Group commit max wait must be zero or more microseconds but was " + maxWaitMicros);
+    }
+    this.attrs.groupCommitMaxWaitMicros = maxWaitMicros;
+    return this;
+  }
+
+  /**
+   * Sets how many megabytes per second the compactor may copy forward, or zero for no limit.
+   * Defaults to the gemfire.disk.compactionMaxMBPerSecond system property.
+   */
+  public DiskStoreFactory setCompactionMaxMBPerSecond(int maxMBPerSecond) {
+    if (maxMBPerSecond < 0) {
+      throw new IllegalArgumentException(
+          "Compaction rate must be zero or more megabytes per second but was " + maxMBPerSecond);
+    }
+    this.attrs.compactionMaxMBPerSecond = maxMBPerSecond;
+    return this;
+  }
+
+  /**
+   * Sets the average synchronous write latency, in microseconds, above which the compactor pauses,
+   * or zero to never pause. Defaults to the gemfire.disk.compactionPauseWriteLatencyMicros system
+   * property.
+   */
+  public DiskStoreFactory setCompactionPauseWriteLatencyMicros(long latencyMicros) {
+    if (latencyMicros < 0) {
+      throw new IllegalArgumentException(
+          "Compaction pause latency must be zero or more microseconds but was " + latencyMicros);
+    }
+    this.attrs.compactionPauseWriteLatencyMicros = latencyMicros;
+    return this;
+  }
+
   // used by hyda
   public DiskStoreAttributes getDiskStoreAttributes() {
     return this.attrs;
@@ -192,6 +192,69 @@ public class DiskStoreImpl implements DiskStore {
   final boolean RECOVER_LRU_VALUES =
       getBoolean(DiskStoreImpl.RECOVER_LRU_VALUES_PROPERTY_NAME, false);
 
+  /**
+   * The number of threads used to read oplog files ahead of the recovery thread. Values greater
+   * than one enable the parallel recovery mode in which the drf, krf and crf files of independent
+   * oplogs are read concurrently while their records are still applied to the regions newest oplog
+   * first. Defaults to 1 which recovers one oplog at a time.
+   */
+  public static final String RECOVERY_THREADS_PROPERTY_NAME =
+      DistributionConfig.GEMFIRE_PREFIX + "disk.recoveryThreads";
+
+  final int RECOVERY_THREADS = Integer.getInteger(RECOVERY_THREADS_PROPERTY_NAME, 1);
+
+  /**
+   * Oplog files larger than this many megabytes are not read ahead during parallel recovery.
+   */
+  final long RECOVERY_PREFETCH_MAX_FILE_SIZE = Long
+      .getLong(DistributionConfig.GEMFIRE_PREFIX + "disk.recoveryPrefetchMaxFileSizeMB", 256L)
+      * 1024 * 1024;
+
+  /**
+   * The most megabytes of oplog files read ahead during parallel recovery that are held in memory
+   * at once, not counting the file being recovered if it was read directly from disk.
+   */
+  final long RECOVERY_PREFETCH_MAX_BYTES = Long
+      .getLong(DistributionConfig.GEMFIRE_PREFIX + "disk.recoveryPrefetchMaxMB", 256L) * 1024
+      * 1024;
+
+  /**
+   * Default for whether disk stores read values from oplogs that are no longer being written
+   * through a memory mapping of the crf. Can be overridden per disk store with
+   * {@link DiskStoreFactoryImpl#setMemoryMappedReads(boolean)}.
+   */
+  public static final boolean DEFAULT_MEMORY_MAPPED_READS =
+      getBoolean(DistributionConfig.GEMFIRE_PREFIX + "disk.memoryMappedReads", false);
+
+  /**
+   * Default for whether synchronous writes to a disk store share flushes through an
+   * {@link OplogGroupCommitter}. Can be overridden per disk store with
+   * {@link DiskStoreFactoryImpl#setGroupCommit(boolean)}.
+   */
+  public static final boolean DEFAULT_GROUP_COMMIT =
+      getBoolean(DistributionConfig.GEMFIRE_PREFIX + "disk.groupCommit", false);
+
+  /**
+   * Default for how many microseconds the thread performing a group commit waits for other writers
+   * to join its batch before flushing.
+   */
+  public static final long DEFAULT_GROUP_COMMIT_MAX_WAIT_MICROS =
+      Long.getLong(DistributionConfig.GEMFIRE_PREFIX + "disk.groupCommitMaxWaitMicros", 0L);
+
+  /**
+   * Default limit, in megabytes per second, on how fast the compactor copies live values forward.
+   * Zero means no limit.
+   */
+  public static final int DEFAULT_COMPACTION_MAX_MB_PER_SECOND =
+      Integer.getInteger(DistributionConfig.GEMFIRE_PREFIX + "disk.compactionMaxMBPerSecond", 0);
+
+  /**
+   * Default average synchronous write latency, in microseconds, above which the compactor pauses.
+   * Zero means the compactor never pauses.
+   */
+  public static final long DEFAULT_COMPACTION_PAUSE_WRITE_LATENCY_MICROS = Long
+      .getLong(DistributionConfig.GEMFIRE_PREFIX + "disk.compactionPauseWriteLatencyMicros", 0L);
+
   public static boolean getBoolean(String sysProp, boolean def) {
     return Boolean.valueOf(System.getProperty(sysProp, Boolean.valueOf(def).toString()));
   }
@@ -313,6 +376,8 @@ public class DiskStoreImpl implements DiskStore {
 
   private final ReadLock compactorReadLock = compactorLock.readLock();
 
+  private volatile long compactorWriteLockCount;
+
   /**
    * Set if we have encountered a disk exception causing us to shutdown this disk store. This is
    * currently used only to prevent trying to shutdown the disk store from multiple threads, but I
@@ -416,10 +481,18 @@ public class DiskStoreImpl implements DiskStore {
     this.diskDirSizes = props.getDiskDirSizes();
     this.warningPercent = props.getDiskUsageWarningPercentage();
     this.criticalPercent = props.getDiskUsageCriticalPercentage();
+    this.memoryMappedReads = props.getMemoryMappedReads();
 
     this.cache = cache;
     StatisticsFactory factory = cache.getDistributedSystem();
     this.stats = new DiskStoreStats(factory, getName());
+    this.groupCommitter = props.getGroupCommit()
+        ? new OplogGroupCommitter(props.getGroupCommitMaxWaitMicros(), this.stats) : null;
+    this.compactionThrottle = props.getCompactionMaxMBPerSecond() > 0
+        || props.getCompactionPauseWriteLatencyMicros() > 0
+            ? new CompactionThrottle(props.getCompactionMaxMBPerSecond(),
+                props.getCompactionPauseWriteLatencyMicros(), this.stats)
+            : null;
 
     // start simple init
 
@@ -437,12 +510,7 @@ public class DiskStoreImpl implements DiskStore {
     // this.asyncQueue = new
     // ArrayBlockingQueue<Object>(this.maxAsyncItems/*+13*/);
     // } else {
-    if (this.maxAsyncItems > 0) {
-      this.asyncQueue = new ForceableLinkedBlockingQueue<Object>(this.maxAsyncItems); // fix for bug
-                                                                                      // 41310
-    } else {
-      this.asyncQueue = new ForceableLinkedBlockingQueue<Object>();
-    }
+    this.asyncQueue = new AsyncWriteRingBuffer<Object>(Math.max(0, this.maxAsyncItems));
     if (!isValidating() && !isOfflineCompacting()) {
       startAsyncFlusher();
     }
@@ -701,6 +769,7 @@ public class DiskStoreImpl implements DiskStore {
     if (!async) {
       dr.getStats().startWrite();
     }
+    long throttleStart = async || this.compactionThrottle == null ? 0 : System.nanoTime();
     try {
       if (!async) {
         acquireReadLock(dr);
@@ -757,6 +826,9 @@ public class DiskStoreImpl implements DiskStore {
       } else {
         dr.getStats().endWrite(start, getStats().endWrite(start));
         dr.getStats().incWrittenBytes(id.getValueLength());
+        if (throttleStart != 0) {
+          this.compactionThrottle.recordForegroundWrite(System.nanoTime() - throttleStart);
+        }
       }
     }
   }
@@ -1268,7 +1340,9 @@ public class DiskStoreImpl implements DiskStore {
   }
 
   private void addAsyncItem(Object item, boolean forceAsync) throws InterruptedException {
-    synchronized (this.lock) { // fix for bug 41390
+    // fix for bug 41390; clear and close hold the write lock while they run
+    this.asyncQueueLock.readLock().lock();
+    try {
       // 43312: since this thread has gained dsi.lock, dsi.clear() should have
       // finished. We check if clear() has happened after ARM.putEntryIfAbsent()
       if (item instanceof AsyncDiskEntry) {
@@ -1293,6 +1367,8 @@ public class DiskStoreImpl implements DiskStore {
         }
       }
       getStats().incQueueSize(1);
+    } finally {
+      this.asyncQueueLock.readLock().unlock();
     }
     if (this.maxAsyncItems > 0) {
       if (checkAsyncItemLimit()) {
@@ -1372,13 +1448,13 @@ public class DiskStoreImpl implements DiskStore {
   /**
    * This queue can continue DiskEntry of FlushNotifier.
    */
-  private final ForceableLinkedBlockingQueue<Object> asyncQueue;
+  private final AsyncWriteRingBuffer<Object> asyncQueue;
   private final Object drainSync = new Object();
   private ArrayList drainList = null;
 
   int fillDrainList() {
     synchronized (getDrainSync()) {
-      ForceableLinkedBlockingQueue<Object> queue = getAsyncQueue();
+      AsyncWriteRingBuffer<Object> queue = getAsyncQueue();
       this.drainList = new ArrayList(queue.size());
       return queue.drainTo(this.drainList);
     }
@@ -1589,7 +1665,7 @@ public class DiskStoreImpl implements DiskStore {
     return drainSync;
   }
 
-  ForceableLinkedBlockingQueue<Object> getAsyncQueue() {
+  AsyncWriteRingBuffer<Object> getAsyncQueue() {
     return asyncQueue;
   }
 
@@ -2200,10 +2276,16 @@ public class DiskStoreImpl implements DiskStore {
   }
 
   /**
-   * Obtained and held by clear/destroyRegion/close. Also obtained when adding to async queue.
+   * Obtained and held by clear/destroyRegion/close.
    */
   private final Object lock = new Object();
 
+  /**
+   * Shared by threads adding to the async queue. Obtained exclusively, while holding
+   * {@link #lock}, by clear/destroyRegion/close so that no item is added while they run.
+   */
+  private final ReentrantReadWriteLock asyncQueueLock = new ReentrantReadWriteLock();
+
   /**
    * It invokes appropriate methods of super & current class to clear the Oplogs.
    *
@@ -2217,31 +2299,36 @@ public class DiskStoreImpl implements DiskStore {
       Object regionLock = region == null ? new Object() : region.getSizeGuard();
       synchronized (regionLock) {
         synchronized (this.lock) {
-          // if (this.oplogCompactor != null) {
-          // this.oplogCompactor.stopCompactor();
-          // }
-          acquireWriteLock(dr);
+          this.asyncQueueLock.writeLock().lock();
           try {
-            if (dr.isRegionClosed()) {
-              throw new RegionDestroyedException(
-                  LocalizedStrings.DiskRegion_THE_DISKREGION_HAS_BEEN_CLOSED_OR_DESTROYED
-                      .toLocalizedString(),
-                  dr.getName());
-            }
-            basicClear(region, dr, rvv);
-            if (rvv == null && region != null) {
-              // If we have no RVV, clear the region under lock
-              region.txClearRegion();
-              region.clearEntries(null);
-              dr.incClearCount();
+            // if (this.oplogCompactor != null) {
+            // this.oplogCompactor.stopCompactor();
+            // }
+            acquireWriteLock(dr);
+            try {
+              if (dr.isRegionClosed()) {
+                throw new RegionDestroyedException(
+                    LocalizedStrings.DiskRegion_THE_DISKREGION_HAS_BEEN_CLOSED_OR_DESTROYED
+                        .toLocalizedString(),
+                    dr.getName());
+              }
+              basicClear(region, dr, rvv);
+              if (rvv == null && region != null) {
+                // If we have no RVV, clear the region under lock
+                region.txClearRegion();
+                region.clearEntries(null);
+                dr.incClearCount();
+              }
+            } finally {
+              releaseWriteLock(dr);
             }
+            // if (this.oplogCompactor != null) {
+            // this.oplogCompactor.startCompactor();
+            // scheduleCompaction();
+            // }
           } finally {
-            releaseWriteLock(dr);
+            this.asyncQueueLock.writeLock().unlock();
           }
-          // if (this.oplogCompactor != null) {
-          // this.oplogCompactor.startCompactor();
-          // scheduleCompaction();
-          // }
         }
       }
     } finally {
@@ -2263,6 +2350,16 @@ public class DiskStoreImpl implements DiskStore {
 
   private void acquireCompactorWriteLock() {
     compactorWriteLock.lock();
+    this.compactorWriteLockCount++;
+  }
+
+  /**
+   * Returns how many times the compactor write lock has been acquired. Lets a compactor that let go
+   * of the compactor read lock while it was throttled find out whether the disk regions may have
+   * changed in the meantime.
+   */
+  long getCompactorWriteLockCount() {
+    return this.compactorWriteLockCount;
   }
 
   public void releaseCompactorReadLock() {
@@ -2480,66 +2577,76 @@ public class DiskStoreImpl implements DiskStore {
       Object regionLock = region == null ? new Object() : region.getSizeGuard();
       synchronized (regionLock) {
         synchronized (this.lock) {
-          // Fix 45104, wait here for addAsyncItem to finish adding into queue
-          // prepareForClose() should be out of synchronized (this.lock) to avoid deadlock
-          if (dr.isRegionClosed()) {
-            return;
+          this.asyncQueueLock.writeLock().lock();
+          try {
+            // Fix 45104, wait here for addAsyncItem to finish adding into queue
+            // prepareForClose() should be out of synchronized (this.lock) to avoid deadlock
+            if (dr.isRegionClosed()) {
+              return;
+            }
+          } finally {
+            this.asyncQueueLock.writeLock().unlock();
           }
         }
         prepareForClose(region, dr);
         synchronized (this.lock) {
-          boolean gotLock = false;
+          this.asyncQueueLock.writeLock().lock();
           try {
-            acquireWriteLock(dr);
-            if (!closeDataOnly) {
-              dr.setRegionClosed(true);
-            }
-            gotLock = true;
-          } catch (CancelException ignore) {
-            synchronized (this.closeRegionGuard) {
-              if (!dr.isRegionClosed()) {
-                if (!closeDataOnly) {
-                  dr.setRegionClosed(true);
-                }
-                // I am quite sure that it should also be Ok if instead
-                // while it is a If Check below. Because if acquireReadLock
-                // thread
-                // has acquired the lock, it is bound to see the isRegionClose as
-                // true
-                // and so will release the lock causing decrement to zero , before
-                // releasing the closeRegionGuard. But still...not to take any
-                // chance
-
-                while (this.entryOpsCount.get() > 0) {
-                  try {
-                    // TODO: calling wait while holding two locks
-                    this.closeRegionGuard.wait(20000);
-                  } catch (InterruptedException ignored) {
-                    // Exit without closing the region, do not know what else
-                    // can be done
-                    Thread.currentThread().interrupt();
-                    dr.setRegionClosed(false);
-                    return;
+            boolean gotLock = false;
+            try {
+              acquireWriteLock(dr);
+              if (!closeDataOnly) {
+                dr.setRegionClosed(true);
+              }
+              gotLock = true;
+            } catch (CancelException ignore) {
+              synchronized (this.closeRegionGuard) {
+                if (!dr.isRegionClosed()) {
+                  if (!closeDataOnly) {
+                    dr.setRegionClosed(true);
+                  }
+                  // I am quite sure that it should also be Ok if instead
+                  // while it is a If Check below. Because if acquireReadLock
+                  // thread
+                  // has acquired the lock, it is bound to see the isRegionClose as
+                  // true
+                  // and so will release the lock causing decrement to zero , before
+                  // releasing the closeRegionGuard. But still...not to take any
+                  // chance
+
+                  while (this.entryOpsCount.get() > 0) {
+                    try {
+                      // TODO: calling wait while holding two locks
+                      this.closeRegionGuard.wait(20000);
+                    } catch (InterruptedException ignored) {
+                      // Exit without closing the region, do not know what else
+                      // can be done
+                      Thread.currentThread().interrupt();
+                      dr.setRegionClosed(false);
+                      return;
+                    }
                   }
-                }
 
-              } else {
-                return;
+                } else {
+                  return;
+                }
               }
-            }
 
-          }
+            }
 
-          try {
-            if (logger.isDebugEnabled()) {
-              logger.debug("DiskRegion::close:Before invoking basic Close. Region name ={}",
-                  dr.getName());
+            try {
+              if (logger.isDebugEnabled()) {
+                logger.debug("DiskRegion::close:Before invoking basic Close. Region name ={}",
+                    dr.getName());
+              }
+              basicClose(region, dr, closeDataOnly);
+            } finally {
+              if (gotLock) {
+                releaseWriteLock(dr);
+              }
             }
-            basicClose(region, dr, closeDataOnly);
           } finally {
-            if (gotLock) {
-              releaseWriteLock(dr);
-            }
+            this.asyncQueueLock.writeLock().unlock();
           }
         }
       }
@@ -2777,6 +2884,10 @@ public class DiskStoreImpl implements DiskStore {
     private volatile boolean compactorEnabled;
     private volatile boolean scheduled;
     private CompactableOplog[] scheduledOplogs;
+    /** The sizes of the scheduled oplogs that have not been compacted yet */
+    private long[] scheduledBacklog;
+    /** Value bytes copied forward from the oplog being compacted */
+    private long bytesCopied;
     /**
      * used to keep track of the Thread currently invoking run on this compactor
      */
@@ -2835,11 +2946,15 @@ public class DiskStoreImpl implements DiskStore {
       if (!this.compactorEnabled)
         return false;
       if (opLogs != null) {
-        for (final CompactableOplog opLog : opLogs) {
-          opLog.prepareForCompact();
+        long[] backlog = new long[opLogs.length];
+        for (int i = 0; i < opLogs.length; i++) {
+          opLogs[i].prepareForCompact();
+          backlog[i] = opLogs[i].getOplogSize();
+          getStats().incCompactionBacklogBytes(backlog[i]);
         }
         this.scheduled = true;
         this.scheduledOplogs = opLogs;
+        this.scheduledBacklog = backlog;
         boolean result = executeDiskStoreTask(this);
         if (!result) {
           reschedule(false);
@@ -2863,10 +2978,26 @@ public class DiskStoreImpl implements DiskStore {
       long compactionStart = getStats().startCompaction();
       long start = System.nanoTime();
       try {
+        CompactionThrottle throttle = getCompactionThrottle();
         for (int i = 0; i < oplogs.length && keepCompactorRunning() /*
                                                                      * @todo && !owner. isDestroyed
                                                                      */; i++) {
-          totalCount += oplogs[i].compact(this);
+          if (throttle != null) {
+            throttle.reset();
+          }
+          this.bytesCopied = 0;
+          long oplogStart = System.nanoTime();
+          try {
+            totalCount += oplogs[i].compact(this);
+          } finally {
+            long elapsed = System.nanoTime() - oplogStart;
+            if (this.bytesCopied > 0 && elapsed > 0) {
+              getStats().setCompactionBytesPerSecond(
+                  (long) (this.bytesCopied * (double) TimeUnit.SECONDS.toNanos(1) / elapsed));
+            }
+            getStats().incCompactionBacklogBytes(-this.scheduledBacklog[i]);
+            this.scheduledBacklog[i] = 0;
+          }
         }
 
         // TODO:Asif : DiskRegion: How do we tackle
@@ -2969,8 +3100,15 @@ public class DiskStoreImpl implements DiskStore {
     }
 
     private synchronized void reschedule(boolean success) {
+      if (this.scheduledBacklog != null) {
+        // oplogs that were scheduled but not compacted are no longer part of the backlog
+        for (long size : this.scheduledBacklog) {
+          getStats().incCompactionBacklogBytes(-size);
+        }
+      }
       this.scheduled = false;
       this.scheduledOplogs = null;
+      this.scheduledBacklog = null;
       notifyAll();
       if (!success)
         return;
@@ -2991,6 +3129,26 @@ public class DiskStoreImpl implements DiskStore {
     boolean keepCompactorRunning() {
       return this.compactorEnabled || this.compactionCompletionRequired;
     }
+
+    /**
+     * Called by the oplog being compacted each time it has copied a live value forward. Returns
+     * true if compaction should be slowed down, in which case the oplog releases its compactor lock
+     * and the locks of the entry and then calls {@link #throttle()}.
+     */
+    boolean copiedForward(int bytes) {
+      this.bytesCopied += bytes;
+      getStats().incCompactionBytes(bytes);
+      CompactionThrottle throttle = getCompactionThrottle();
+      return throttle != null && throttle.copied(bytes);
+    }
+
+    /**
+     * Sleeps to throttle compaction. Must not be called while holding the compactor locks or the
+     * locks of an entry.
+     */
+    void throttle() {
+      getCompactionThrottle().throttle(this::keepCompactorRunning);
+    }
   }
 
   /**
@@ -3060,57 +3218,38 @@ public class DiskStoreImpl implements DiskStore {
     Object regionLock = region == null ? new Object() : region.getSizeGuard();
     synchronized (regionLock) {
       synchronized (this.lock) {
-        if (dr.isRegionClosed()) {
-          return;
-        }
-
-        boolean gotLock = false;
+        this.asyncQueueLock.writeLock().lock();
         try {
-          try {
-            acquireWriteLock(dr);
-            gotLock = true;
-          } catch (CancelException ignore) {
-            // see workaround below.
+          if (dr.isRegionClosed()) {
+            return;
           }
 
-          if (!gotLock) { // workaround for bug39380
-            // Allow only one thread to proceed
-            synchronized (this.closeRegionGuard) {
-              if (dr.isRegionClosed()) {
-                return;
-              }
+          boolean gotLock = false;
+          try {
+            try {
+              acquireWriteLock(dr);
+              gotLock = true;
+            } catch (CancelException ignore) {
+              // see workaround below.
+            }
 
-              dr.setRegionClosed(true);
-              // Asif: I am quite sure that it should also be Ok if instead
-              // while it is a If Check below. Because if acquireReadLock thread
-              // has acquired the lock, it is bound to see the isRegionClose as
-              // true
-              // and so will release the lock causing decrement to zeo , before
-              // releasing the closeRegionGuard. But still...not to take any
-              // chance
-              final int loopCount = 10;
-              for (int i = 0; i < loopCount; i++) {
-                if (this.entryOpsCount.get() == 0) {
-                  break;
+            if (!gotLock) { // workaround for bug39380
+              // Allow only one thread to proceed
+              synchronized (this.closeRegionGuard) {
+                if (dr.isRegionClosed()) {
+                  return;
                 }
-                boolean interrupted = Thread.interrupted();
-                try {
-                  // TODO: calling wait while holding two locks
-                  this.closeRegionGuard.wait(1000);
-                } catch (InterruptedException ignore) {
-                  interrupted = true;
-                } finally {
-                  if (interrupted) {
-                    Thread.currentThread().interrupt();
-                  }
-                }
-              } // for
-              if (this.entryOpsCount.get() > 0) {
-                logger.warn(LocalizedMessage.create(
-                    LocalizedStrings.DisKRegion_OUTSTANDING_OPS_REMAIN_AFTER_0_SECONDS_FOR_DISK_REGION_1,
-                    new Object[] {loopCount, dr.getName()}));
 
-                for (;;) {
+                dr.setRegionClosed(true);
+                // Asif: I am quite sure that it should also be Ok if instead
+                // while it is a If Check below. Because if acquireReadLock thread
+                // has acquired the lock, it is bound to see the isRegionClose as
+                // true
+                // and so will release the lock causing decrement to zeo , before
+                // releasing the closeRegionGuard. But still...not to take any
+                // chance
+                final int loopCount = 10;
+                for (int i = 0; i < loopCount; i++) {
                   if (this.entryOpsCount.get() == 0) {
                     break;
                   }
@@ -3126,19 +3265,43 @@ public class DiskStoreImpl implements DiskStore {
                     }
                   }
                 } // for
-                logger.info(LocalizedMessage.create(
-                    LocalizedStrings.DisKRegion_OUTSTANDING_OPS_CLEARED_FOR_DISK_REGION_0,
-                    dr.getName()));
-              }
-            } // synchronized
-          }
+                if (this.entryOpsCount.get() > 0) {
+                  logger.warn(LocalizedMessage.create(
+                      LocalizedStrings.DisKRegion_OUTSTANDING_OPS_REMAIN_AFTER_0_SECONDS_FOR_DISK_REGION_1,
+                      new Object[] {loopCount, dr.getName()}));
+
+                  for (;;) {
+                    if (this.entryOpsCount.get() == 0) {
+                      break;
+                    }
+                    boolean interrupted = Thread.interrupted();
+                    try {
+                      // TODO: calling wait while holding two locks
+                      this.closeRegionGuard.wait(1000);
+                    } catch (InterruptedException ignore) {
+                      interrupted = true;
+                    } finally {
+                      if (interrupted) {
+                        Thread.currentThread().interrupt();
+                      }
+                    }
+                  } // for
+                  logger.info(LocalizedMessage.create(
+                      LocalizedStrings.DisKRegion_OUTSTANDING_OPS_CLEARED_FOR_DISK_REGION_0,
+                      dr.getName()));
+                }
+              } // synchronized
+            }
 
-          dr.setRegionClosed(true);
-          basicDestroy(region, dr);
-        } finally {
-          if (gotLock) {
-            releaseWriteLock(dr);
+            dr.setRegionClosed(true);
+            basicDestroy(region, dr);
+          } finally {
+            if (gotLock) {
+              releaseWriteLock(dr);
+            }
           }
+        } finally {
+          this.asyncQueueLock.writeLock().unlock();
         }
       }
     }
@@ -3376,6 +3539,9 @@ public class DiskStoreImpl implements DiskStore {
   private final int[] diskDirSizes;
   private volatile float warningPercent;
   private volatile float criticalPercent;
+  private final boolean memoryMappedReads;
+  private final OplogGroupCommitter groupCommitter;
+  private final CompactionThrottle compactionThrottle;
 
   // DiskStore interface methods
   public String getName() {
@@ -3410,6 +3576,25 @@ public class DiskStoreImpl implements DiskStore {
     return this.writeBufferSize;
   }
 
+  public boolean getMemoryMappedReads() {
+    return this.memoryMappedReads;
+  }
+
+  /**
+   * Returns the committer shared by the synchronous writers of this disk store or null if group
+   * commit is disabled.
+   */
+  OplogGroupCommitter getGroupCommitter() {
+    return this.groupCommitter;
+  }
+
+  /**
+   * Returns the throttle applied to the compactor or null if compaction is not throttled.
+   */
+  CompactionThrottle getCompactionThrottle() {
+    return this.compactionThrottle;
+  }
+
   public File[] getDiskDirs() {
     return this.diskDirs;
   }
@@ -14,6 +14,8 @@
  */
 package org.apache.geode.internal.cache;
 
+import java.util.concurrent.TimeUnit;
+
 import org.apache.geode.StatisticDescriptor;
 import org.apache.geode.Statistics;
 import org.apache.geode.StatisticsFactory;
@@ -50,6 +52,12 @@ public class DiskStoreStats {
   private static final int recoveredEntryDestroysId;
   private static final int recoveredValuesSkippedDueToLRUId;
   private static final int recoveryRecordsSkippedId;
+  private static final int recoveryDrfTimeId;
+  private static final int recoveryCrfTimeId;
+  private static final int recoveryRegionInitTimeId;
+  private static final int recoveryPrefetchesId;
+  private static final int recoveryPrefetchTimeId;
+  private static final int recoveryPrefetchedBytesId;
   private static final int compactsInProgressId;
   private static final int writesInProgressId;
   private static final int flushesInProgressId;
@@ -76,6 +84,31 @@ public class DiskStoreStats {
 
   private static final int oplogReadsId;
   private static final int oplogSeeksId;
+  private static final int mappedOplogReadsId;
+  private static final int mappedOplogsId;
+
+  private static final int compactionBytesId;
+  private static final int compactionBytesPerSecondId;
+  private static final int compactionBacklogBytesId;
+  private static final int compactionPausesId;
+  private static final int compactionThrottleTimeId;
+
+  private static final int groupCommitsId;
+  private static final int groupCommitWritesId;
+  private static final int groupCommitTimeId;
+  private static final int groupCommitWaitsId;
+  private static final int groupCommitWaitTimeId;
+  private static final int lastGroupCommitWritesId;
+  private static final int[] groupCommitSizeIds;
+  private static final int[] groupCommitTimeIds;
+
+  /** Upper bounds of the buckets of the group commit size histogram; the last has no bound */
+  private static final long[] GROUP_COMMIT_SIZE_BOUNDS = {1, 3, 7, 15, 31, 63};
+
+  /** Upper bounds, in nanoseconds, of the buckets of the group commit time histogram */
+  private static final long[] GROUP_COMMIT_TIME_BOUNDS = {TimeUnit.MICROSECONDS.toNanos(100),
+      TimeUnit.MILLISECONDS.toNanos(1), TimeUnit.MILLISECONDS.toNanos(10),
+      TimeUnit.MILLISECONDS.toNanos(100)};
 
   private static final int uncreatedRecoveredRegionsId;
   private static final int backupsInProgress;
@@ -145,6 +178,24 @@ public class DiskStoreStats {
 
             f.createLongCounter("recoveryRecordsSkipped",
                 "The total number of oplog records skipped during recovery.", "ops"),
+            f.createLongCounter("recoveryDrfTime",
+                "The total amount of time spent recovering destroyed entries from drf files",
+                "nanoseconds"),
+            f.createLongCounter("recoveryCrfTime",
+                "The total amount of time spent recovering live entries from krf and crf files",
+                "nanoseconds"),
+            f.createLongCounter("recoveryRegionInitTime",
+                "The total amount of time spent initializing regions after their oplogs were recovered",
+                "nanoseconds"),
+            f.createLongCounter("recoveryPrefetches",
+                "The total number of oplog files read ahead of the recovery thread by the recovery prefetcher",
+                "files"),
+            f.createLongCounter("recoveryPrefetchTime",
+                "The total amount of time spent by recovery prefetcher threads reading oplog files",
+                "nanoseconds"),
+            f.createLongCounter("recoveryPrefetchedBytes",
+                "The total number of bytes read ahead of the recovery thread by the recovery prefetcher",
+                "bytes"),
 
             f.createIntCounter("oplogRecoveries", oplogRecoveriesDesc, "ops"),
             f.createLongCounter("oplogRecoveryTime", oplogRecoveryTimeDesc, "nanoseconds"),
@@ -185,6 +236,70 @@ public class DiskStoreStats {
                 "oplogs"),
             f.createLongCounter("oplogReads", "Total number of oplog reads", "reads"),
             f.createLongCounter("oplogSeeks", "Total number of oplog seeks", "seeks"),
+            f.createLongCounter("mappedOplogReads",
+                "Total number of values read from a memory mapped oplog without seeking the oplog file",
+                "reads"),
+            f.createIntGauge("mappedOplogs",
+                "Current number of oplogs whose crf is memory mapped for reads", "oplogs"),
+            f.createLongCounter("compactionBytes",
+                "Total number of value bytes copied forward by compaction", "bytes"),
+            f.createLongGauge("compactionBytesPerSecond",
+                "The rate at which the most recently compacted oplog was copied forward, including time the compactor was throttled",
+                "bytes/sec"),
+            f.createLongGauge("compactionBacklogBytes",
+                "Current size of the oplogs scheduled for compaction that have not been compacted yet",
+                "bytes"),
+            f.createLongCounter("compactionPauses",
+                "Total number of times compaction paused because foreground writes were slow",
+                "pauses"),
+            f.createLongCounter("compactionThrottleTime",
+                "Total amount of time compaction slept to stay within its rate limit or because foreground writes were slow",
+                "nanoseconds"),
+            f.createLongCounter("groupCommits",
+                "Total number of flushes done on behalf of a batch of synchronous writes",
+                "commits"),
+            f.createLongCounter("groupCommitWrites",
+                "Total number of synchronous writes made durable by group commits. Divide by groupCommits for the average batch size.",
+                "ops"),
+            f.createLongCounter("groupCommitTime",
+                "Total amount of time spent flushing group commits. Divide by groupCommits for the average commit latency.",
+                "nanoseconds"),
+            f.createLongCounter("groupCommitWaits",
+                "Total number of synchronous writes that waited for a group commit", "ops"),
+            f.createLongCounter("groupCommitWaitTime",
+                "Total amount of time synchronous writes spent waiting for their group commit, including the time spent gathering the batch",
+                "nanoseconds"),
+            f.createIntGauge("lastGroupCommitWrites",
+                "Number of synchronous writes made durable by the most recent group commit", "ops"),
+            f.createLongCounter("groupCommitsOf1Write",
+                "Total number of group commits that flushed a single write", "commits"),
+            f.createLongCounter("groupCommitsOf2To3Writes",
+                "Total number of group commits that flushed 2 to 3 writes", "commits"),
+            f.createLongCounter("groupCommitsOf4To7Writes",
+                "Total number of group commits that flushed 4 to 7 writes", "commits"),
+            f.createLongCounter("groupCommitsOf8To15Writes",
+                "Total number of group commits that flushed 8 to 15 writes", "commits"),
+            f.createLongCounter("groupCommitsOf16To31Writes",
+                "Total number of group commits that flushed 16 to 31 writes", "commits"),
+            f.createLongCounter("groupCommitsOf32To63Writes",
+                "Total number of group commits that flushed 32 to 63 writes", "commits"),
+            f.createLongCounter("groupCommitsOf64OrMoreWrites",
+                "Total number of group commits that flushed 64 or more writes", "commits"),
+            f.createLongCounter("groupCommitsUnder100Micros",
+                "Total number of group commits whose flush took less than 100 microseconds",
+                "commits"),
+            f.createLongCounter("groupCommitsUnder1Milli",
+                "Total number of group commits whose flush took from 100 microseconds to 1 millisecond",
+                "commits"),
+            f.createLongCounter("groupCommitsUnder10Millis",
+                "Total number of group commits whose flush took from 1 to 10 milliseconds",
+                "commits"),
+            f.createLongCounter("groupCommitsUnder100Millis",
+                "Total number of group commits whose flush took from 10 to 100 milliseconds",
+                "commits"),
+            f.createLongCounter("groupCommits100MillisOrMore",
+                "Total number of group commits whose flush took 100 milliseconds or more",
+                "commits"),
             f.createIntGauge("uncreatedRecoveredRegions",
                 "The current number of regions that have been recovered but have not yet been created.",
                 "regions"),
@@ -209,6 +324,12 @@ public class DiskStoreStats {
     recoveredEntryDestroysId = type.nameToId("recoveredEntryDestroys");
     recoveredValuesSkippedDueToLRUId = type.nameToId("recoveredValuesSkippedDueToLRU");
     recoveryRecordsSkippedId = type.nameToId("recoveryRecordsSkipped");
+    recoveryDrfTimeId = type.nameToId("recoveryDrfTime");
+    recoveryCrfTimeId = type.nameToId("recoveryCrfTime");
+    recoveryRegionInitTimeId = type.nameToId("recoveryRegionInitTime");
+    recoveryPrefetchesId = type.nameToId("recoveryPrefetches");
+    recoveryPrefetchTimeId = type.nameToId("recoveryPrefetchTime");
+    recoveryPrefetchedBytesId = type.nameToId("recoveryPrefetchedBytes");
 
     compactsInProgressId = type.nameToId("compactsInProgress");
     writesInProgressId = type.nameToId("writesInProgress");
@@ -230,6 +351,26 @@ public class DiskStoreStats {
     compactUpdateTimeId = type.nameToId("compactUpdateTime");
     oplogReadsId = type.nameToId("oplogReads");
     oplogSeeksId = type.nameToId("oplogSeeks");
+    mappedOplogReadsId = type.nameToId("mappedOplogReads");
+    mappedOplogsId = type.nameToId("mappedOplogs");
+    compactionBytesId = type.nameToId("compactionBytes");
+    compactionBytesPerSecondId = type.nameToId("compactionBytesPerSecond");
+    compactionBacklogBytesId = type.nameToId("compactionBacklogBytes");
+    compactionPausesId = type.nameToId("compactionPauses");
+    compactionThrottleTimeId = type.nameToId("compactionThrottleTime");
+    groupCommitsId = type.nameToId("groupCommits");
+    groupCommitWritesId = type.nameToId("groupCommitWrites");
+    groupCommitTimeId = type.nameToId("groupCommitTime");
+    groupCommitWaitsId = type.nameToId("groupCommitWaits");
+    groupCommitWaitTimeId = type.nameToId("groupCommitWaitTime");
+    lastGroupCommitWritesId = type.nameToId("lastGroupCommitWrites");
+    groupCommitSizeIds = new int[] {type.nameToId("groupCommitsOf1Write"),
+        type.nameToId("groupCommitsOf2To3Writes"), type.nameToId("groupCommitsOf4To7Writes"),
+        type.nameToId("groupCommitsOf8To15Writes"), type.nameToId("groupCommitsOf16To31Writes"),
+        type.nameToId("groupCommitsOf32To63Writes"), type.nameToId("groupCommitsOf64OrMoreWrites")};
+    groupCommitTimeIds = new int[] {type.nameToId("groupCommitsUnder100Micros"),
+        type.nameToId("groupCommitsUnder1Milli"), type.nameToId("groupCommitsUnder10Millis"),
+        type.nameToId("groupCommitsUnder100Millis"), type.nameToId("groupCommits100MillisOrMore")};
 
     openOplogsId = type.nameToId("openOplogs");
     inactiveOplogsId = type.nameToId("inactiveOplogs");
@@ -467,6 +608,32 @@ public class DiskStoreStats {
     this.stats.incLong(recoveryRecordsSkippedId, 1);
   }
 
+  public void endRecoveryDrf(long start) {
+    this.stats.incLong(recoveryDrfTimeId, getStatTime() - start);
+  }
+
+  public void endRecoveryCrf(long start) {
+    this.stats.incLong(recoveryCrfTimeId, getStatTime() - start);
+  }
+
+  public void endRecoveryRegionInit(long start) {
+    this.stats.incLong(recoveryRegionInitTimeId, getStatTime() - start);
+  }
+
+  public long startRecoveryPrefetch() {
+    return DistributionStats.getStatTime();
+  }
+
+  public void endRecoveryPrefetch(long start, long bytesRead) {
+    this.stats.incLong(recoveryPrefetchesId, 1);
+    this.stats.incLong(recoveryPrefetchTimeId, getStatTime() - start);
+    this.stats.incLong(recoveryPrefetchedBytesId, bytesRead);
+  }
+
+  public long getRecoveryPrefetchedBytes() {
+    return this.stats.getLong(recoveryPrefetchedBytesId);
+  }
+
   public void incRecoveredValuesSkippedDueToLRU() {
     this.stats.incLong(recoveredValuesSkippedDueToLRUId, 1);
   }
@@ -502,6 +669,100 @@ public class DiskStoreStats {
     this.stats.incLong(oplogSeeksId, 1);
   }
 
+  public void incMappedOplogReads() {
+    this.stats.incLong(mappedOplogReadsId, 1);
+  }
+
+  public long getMappedOplogReads() {
+    return this.stats.getLong(mappedOplogReadsId);
+  }
+
+  public void incMappedOplogs(int delta) {
+    this.stats.incInt(mappedOplogsId, delta);
+  }
+
+  public void incCompactionBytes(long bytes) {
+    this.stats.incLong(compactionBytesId, bytes);
+  }
+
+  public long getCompactionBytes() {
+    return this.stats.getLong(compactionBytesId);
+  }
+
+  public void setCompactionBytesPerSecond(long rate) {
+    this.stats.setLong(compactionBytesPerSecondId, rate);
+  }
+
+  public long getCompactionBytesPerSecond() {
+    return this.stats.getLong(compactionBytesPerSecondId);
+  }
+
+  public void incCompactionBacklogBytes(long delta) {
+    this.stats.incLong(compactionBacklogBytesId, delta);
+  }
+
+  public long getCompactionBacklogBytes() {
+    return this.stats.getLong(compactionBacklogBytesId);
+  }
+
+  public void incCompactionPauses() {
+    this.stats.incLong(compactionPausesId, 1);
+  }
+
+  public void incCompactionThrottleTime(long nanos) {
+    this.stats.incLong(compactionThrottleTimeId, nanos);
+  }
+
+  public long getCompactionThrottleTime() {
+    return this.stats.getLong(compactionThrottleTimeId);
+  }
+
+  /**
+   * Records a group commit that made the given number of writes durable with a flush that took
+   * the given number of nanoseconds.
+   */
+  public void endGroupCommit(long commitNanos, long writes) {
+    this.stats.incLong(groupCommitsId, 1);
+    this.stats.incLong(groupCommitWritesId, writes);
+    this.stats.incLong(groupCommitTimeId, commitNanos);
+    this.stats.setInt(lastGroupCommitWritesId, (int) Math.min(writes, Integer.MAX_VALUE));
+    this.stats.incLong(groupCommitSizeIds[bucket(GROUP_COMMIT_SIZE_BOUNDS, writes)], 1);
+    this.stats.incLong(groupCommitTimeIds[bucket(GROUP_COMMIT_TIME_BOUNDS, commitNanos)], 1);
+  }
+
+  /**
+   * Returns the index of the first bucket whose upper bound is at least the value, or the number
+   * of bounds if there is none.
+   */
+  private static int bucket(long[] bounds, long value) {
+    int i = 0;
+    while (i < bounds.length && value > bounds[i]) {
+      i++;
+    }
+    return i;
+  }
+
+  long getGroupCommitsOfSize(int bucket) {
+    return this.stats.getLong(groupCommitSizeIds[bucket]);
+  }
+
+  long getGroupCommitsOfTime(int bucket) {
+    return this.stats.getLong(groupCommitTimeIds[bucket]);
+  }
+
+  public void endGroupCommitWait(long start) {
+    this.stats.incLong(groupCommitWaitsId, 1);
+    this.stats.incLong(groupCommitWaitTimeId, getStatTime() - start);
+  }
+
+  public long getGroupCommits() {
+    return this.stats.getLong(groupCommitsId);
+  }
+
+  public long getGroupCommitWrites() {
+    return this.stats.getLong(groupCommitWritesId);
+  }
+
   public void incInactiveOplogs(int delta) {
     this.stats.incInt(inactiveOplogsId, delta);
   }
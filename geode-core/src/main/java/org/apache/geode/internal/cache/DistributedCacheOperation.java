@@ -18,6 +18,7 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
@@ -985,6 +986,13 @@ public abstract class DistributedCacheOperation {
       return this.regionPath;
     }
 
+    /**
+     * Returns the serial ordering key for an operation on the given key of this message's region.
+     */
+    protected Object getEntryOrderingKey(Object key) {
+      return key == null ? null : Arrays.asList(this.regionPath, key);
+    }
+
     /**
      * process a reply
      *
@@ -305,6 +305,14 @@ public class DummyCachePerfStats extends CachePerfStats {
   @Override
   public void endGet(long start, boolean miss) {}
 
+  @Override
+  public void incGetsCoalesced() {}
+
+  @Override
+  public long getGetsCoalesced() {
+    return 0;
+  }
+
   @Override
   public long endPut(long start, boolean isUpdate) {
     return 0;
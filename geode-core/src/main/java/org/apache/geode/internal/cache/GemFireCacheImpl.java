@@ -90,6 +90,7 @@ import org.apache.geode.GemFireConfigException;
 import org.apache.geode.InternalGemFireError;
 import org.apache.geode.LogWriter;
 import org.apache.geode.SerializationException;
+import org.apache.geode.Statistics;
 import org.apache.geode.SystemFailure;
 import org.apache.geode.admin.internal.SystemMemberCacheEventProcessor;
 import org.apache.geode.cache.AttributesFactory;
@@ -199,6 +200,7 @@ import org.apache.geode.internal.cache.tier.sockets.CacheClientNotifier;
 import org.apache.geode.internal.cache.tier.sockets.CacheClientProxy;
 import org.apache.geode.internal.cache.tier.sockets.ClientHealthMonitor;
 import org.apache.geode.internal.cache.tier.sockets.ClientProxyMembershipID;
+import org.apache.geode.internal.cache.tier.sockets.MessageBufferPool;
 import org.apache.geode.internal.cache.tier.sockets.ServerConnection;
 import org.apache.geode.internal.cache.wan.AbstractGatewaySender;
 import org.apache.geode.internal.cache.wan.GatewaySenderAdvisor;
@@ -368,6 +370,8 @@ public class GemFireCacheImpl implements InternalCache, InternalClientCache, Has
 
   private final CachePerfStats cachePerfStats;
 
+  private final Statistics messageBufferPoolStats;
+
   /** Date on which this instances was created */
   private final Date creationDate;
 
@@ -894,6 +898,7 @@ public class GemFireCacheImpl implements InternalCache, InternalClientCache, Has
       // Create the CacheStatistics
       this.cachePerfStats = new CachePerfStats(system);
       CachePerfStats.enableClockStats = this.system.getConfig().getEnableTimeStatistics();
+      this.messageBufferPoolStats = MessageBufferPool.createStats(system);
 
       this.transactionManager = new TXManagerImpl(this.cachePerfStats, this);
       this.dm.addMembershipListener(this.transactionManager);
@@ -2386,6 +2391,7 @@ public class GemFireCacheImpl implements InternalCache, InternalClientCache, Has
         }
 
         this.cachePerfStats.close();
+        this.messageBufferPoolStats.close();
         TXLockService.destroyServices();
         getEventTrackerTask().cancel();
 
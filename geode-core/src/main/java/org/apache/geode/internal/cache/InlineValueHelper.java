@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+import org.apache.geode.distributed.internal.DistributionConfig;
+import org.apache.geode.internal.DSCODE;
+
+/**
+ * No instances of this class. Just some static methods having to do with storing int, long and
+ * double values inline in a region entry instead of as a boxed object.
+ * <p>
+ * An entry that stores its value inline keeps the bits of the value in a long field and stores
+ * {@link #INLINED} in its value field. The type of the value is kept in the flag bits of the entry.
+ * It is set by the first value the entry stores inline and never changes after that, so a reader
+ * always decodes the bits it reads as the type they were written as; a later value of another
+ * type is stored boxed. Values that arrive as a {@link CachedDeserializable} whose serialized form
+ * is an int, long or double are stored inline too, and are read back in their deserialized form.
+ * <p>
+ * The value is boxed when it is read out of the entry, so this saves the memory of the box and of
+ * any serialized form for regions whose values are written more often than they are read, such as
+ * counters, at the cost of eight bytes in each entry. Checks for tokens do not box the value.
+ */
+public class InlineValueHelper {
+  /**
+   * Set to true to have heap regions that are not partitioned, do not overflow or persist, and do
+   * not evict store int, long and double values inline in their entries.
+   */
+  public static final boolean INLINE_PRIMITIVE_VALUES =
+      Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "INLINE_PRIMITIVE_VALUES");
+
+  /**
+   * Stored in the value field of an entry whose value is inline.
+   */
+  public static final Object INLINED = new Object() {
+    @Override
+    public String toString() {
+      return "INLINED";
+    }
+  };
+
+  /*
+   * The types a value can be stored inline as. They must fit in two bits.
+   */
+  public static final int NOT_INLINED = 0;
+  public static final int INT = 1;
+  public static final int LONG = 2;
+  public static final int DOUBLE = 3;
+
+  private InlineValueHelper() {
+    // no instances allowed
+  }
+
+  /**
+   * Return the type the given value can be stored inline as, or {@link #NOT_INLINED} if it can not
+   * be. Only instances of exactly Integer, Long and Double can be, or a
+   * {@link CachedDeserializable} holding one of them.
+   */
+  public static int getType(Object value) {
+    if (value instanceof CachedDeserializable) {
+      value = ((CachedDeserializable) value).getValue();
+      if (value instanceof byte[]) {
+        return getSerializedType((byte[]) value);
+      }
+    }
+    if (value == null) {
+      return NOT_INLINED;
+    }
+    Class<?> valueClass = value.getClass();
+    if (valueClass == Integer.class) {
+      return INT;
+    } else if (valueClass == Long.class) {
+      return LONG;
+    } else if (valueClass == Double.class) {
+      return DOUBLE;
+    }
+    return NOT_INLINED;
+  }
+
+  private static int getSerializedType(byte[] bytes) {
+    if (bytes.length == 5 && bytes[0] == DSCODE.INTEGER.toByte()) {
+      return INT;
+    } else if (bytes.length == 9 && bytes[0] == DSCODE.LONG.toByte()) {
+      return LONG;
+    } else if (bytes.length == 9 && bytes[0] == DSCODE.DOUBLE.toByte()) {
+      return DOUBLE;
+    }
+    return NOT_INLINED;
+  }
+
+  /**
+   * Return the bits to store inline for a value that {@link #getType(Object)} returned a type for.
+   */
+  public static long toBits(Object value) {
+    if (value instanceof CachedDeserializable) {
+      value = ((CachedDeserializable) value).getValue();
+      if (value instanceof byte[]) {
+        // the value is written big-endian after its one byte DSCODE
+        byte[] bytes = (byte[]) value;
+        long bits = 0;
+        for (int i = 1; i < bytes.length; i++) {
+          bits = (bits << 8) | (bytes[i] & 0xff);
+        }
+        return bytes.length == 5 ? (int) bits : bits;
+      }
+    }
+    if (value instanceof Integer) {
+      return (Integer) value;
+    } else if (value instanceof Long) {
+      return (Long) value;
+    }
+    return Double.doubleToRawLongBits((Double) value);
+  }
+
+  /**
+   * Return the boxed value for bits that were stored inline as the given type.
+   */
+  public static Object decode(int type, long bits) {
+    switch (type) {
+      case INT:
+        return Integer.valueOf((int) bits);
+      case LONG:
+        return Long.valueOf(bits);
+      case DOUBLE:
+        return Double.valueOf(Double.longBitsToDouble(bits));
+      default:
+        throw new IllegalArgumentException("Not an inlined value type: " + type);
+    }
+  }
+}
@@ -120,6 +120,11 @@ public class InvalidateOperation extends DistributedCacheOperation {
       buff.append(this.key);
     }
 
+    @Override
+    public Object getSerialOrderingKey() {
+      return getEntryOrderingKey(this.key);
+    }
+
     public int getDSFID() {
       return INVALIDATE_MESSAGE;
     }
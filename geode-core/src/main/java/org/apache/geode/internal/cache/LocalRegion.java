@@ -372,6 +372,13 @@ public class LocalRegion extends AbstractRegion implements LoaderHelperFactory,
   public static final String EXPIRY_MS_PROPERTY =
       DistributionConfig.GEMFIRE_PREFIX + "EXPIRY_UNITS_MS";
 
+  /**
+   * Set this system property to have every client get that misses send its own request to the
+   * server, instead of waiting for the result of a get of the same key sent by another thread.
+   */
+  public static final String DISABLE_CLIENT_GET_COALESCING_PROPERTY =
+      DistributionConfig.GEMFIRE_PREFIX + "LocalRegion.DISABLE_CLIENT_GET_COALESCING";
+
   /**
    * Used by unit tests to set expiry to milliseconds instead of the default seconds. Used in
    * ExpiryTask.
@@ -425,6 +432,13 @@ public class LocalRegion extends AbstractRegion implements LoaderHelperFactory,
    */
   private final ConcurrentMap getFutures = new ConcurrentHashMap();
 
+  /**
+   * True if gets that miss on a region with a server proxy do not use {@link #getFutures}. Read
+   * when the region is created, see {@link #DISABLE_CLIENT_GET_COALESCING_PROPERTY}.
+   */
+  private final boolean disableClientGetCoalescing =
+      Boolean.getBoolean(DISABLE_CLIENT_GET_COALESCING_PROPERTY);
+
   /**
    * TODO: This boolean needs to be made true if the test needs to receive a synchronous callback
    * just after clear on map is done. Its visibility is default so that only tests present in
@@ -1457,7 +1471,8 @@ public class LocalRegion extends AbstractRegion implements LoaderHelperFactory,
   }
 
   /**
-   * optimized to only allow one thread to do a search/load, other threads wait on a future
+   * optimized to only allow one thread to do a search/load, or a get from the server on a client,
+   * other threads wait on a future
    *
    * @param isCreate true if call found no entry; false if updating an existing entry
    * @param localValue the value retrieved from the region for this object.
@@ -1475,9 +1490,12 @@ public class LocalRegion extends AbstractRegion implements LoaderHelperFactory,
     @Retained
     Object result = null;
     FutureResult thisFuture = new FutureResult(this.stopper);
-    Future otherFuture = (Future) this.getFutures.putIfAbsent(keyInfo.getKey(), thisFuture);
+    boolean shareResult = !this.disableClientGetCoalescing || getServerProxy() == null;
+    Future otherFuture =
+        shareResult ? (Future) this.getFutures.putIfAbsent(keyInfo.getKey(), thisFuture) : null;
     // only one thread can get their future into the map for this key at a time
     if (otherFuture != null) {
+      getCachePerfStats().incGetsCoalesced();
       try {
         Object[] valueAndVersion = (Object[]) otherFuture.get();
         if (valueAndVersion != null) {
@@ -1549,13 +1567,15 @@ public class LocalRegion extends AbstractRegion implements LoaderHelperFactory,
       }
       // findObjectInSystem does not call conditionalCopy
     } finally {
-      if (result != null) {
-        VersionTag tag = clientEvent == null ? null : clientEvent.getVersionTag();
-        thisFuture.set(new Object[] {result, tag});
-      } else {
-        thisFuture.set(null);
+      if (shareResult) {
+        if (result != null) {
+          VersionTag tag = clientEvent == null ? null : clientEvent.getVersionTag();
+          thisFuture.set(new Object[] {result, tag});
+        } else {
+          thisFuture.set(null);
+        }
+        this.getFutures.remove(keyInfo.getKey());
       }
-      this.getFutures.remove(keyInfo.getKey());
     }
     if (!disableCopyOnRead) {
       result = conditionalCopy(result);
@@ -11478,6 +11498,12 @@ public class LocalRegion extends AbstractRegion implements LoaderHelperFactory,
       this.cachePerfStats.incMetaDataRefreshCount();
     }
 
+    @Override
+    public void incGetsCoalesced() {
+      this.stats.incLong(getsCoalescedId, 1);
+      this.cachePerfStats.incGetsCoalesced();
+    }
+
     @Override
     public void endImport(long entryCount, long start) {
       this.stats.incLong(importedEntriesCountId, entryCount);
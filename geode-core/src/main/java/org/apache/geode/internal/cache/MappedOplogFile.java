@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.Logger;
+
+import org.apache.geode.internal.logging.LogService;
+
+/**
+ * A read-only memory mapping of the crf of an oplog that is no longer being written to. Reads do
+ * not seek a shared file pointer so they need no lock and concurrent faults from the same oplog do
+ * not serialize.
+ * <p>
+ * Readers register themselves in {@link #readers} before touching the mapping so that
+ * {@link #close()} can wait for them before the mapping is released; accessing an unmapped buffer
+ * would crash the JVM.
+ */
+class MappedOplogFile {
+  private static final Logger logger = LogService.getLogger();
+
+  private final MappedByteBuffer buffer;
+
+  private final int length;
+
+  private final AtomicInteger readers = new AtomicInteger();
+
+  private volatile boolean closed;
+
+  MappedOplogFile(MappedByteBuffer buffer) {
+    this.buffer = buffer;
+    this.length = buffer.capacity();
+  }
+
+  /**
+   * Maps the first {@code length} bytes of the given file. The file must be no larger than
+   * {@link Integer#MAX_VALUE} bytes.
+   */
+  static MappedOplogFile map(File f, long length) throws IOException {
+    try (FileChannel channel = FileChannel.open(f.toPath(), StandardOpenOption.READ)) {
+      return new MappedOplogFile(channel.map(MapMode.READ_ONLY, 0, length));
+    }
+  }
+
+  int getLength() {
+    return this.length;
+  }
+
+  /**
+   * Returns a copy of {@code valueLength} bytes starting at {@code offset} or null if that range is
+   * not covered by this mapping or the mapping has been closed, in which case the caller must read
+   * the value from the file.
+   */
+  byte[] read(long offset, int valueLength) {
+    if (offset < 0 || offset + valueLength > this.length) {
+      return null;
+    }
+    this.readers.incrementAndGet();
+    try {
+      if (this.closed) {
+        return null;
+      }
+      ByteBuffer slice = this.buffer.duplicate();
+      slice.position((int) offset);
+      byte[] bytes = new byte[valueLength];
+      slice.get(bytes);
+      return bytes;
+    } finally {
+      this.readers.decrementAndGet();
+    }
+  }
+
+  boolean isClosed() {
+    return this.closed;
+  }
+
+  /**
+   * Stops new reads, waits for the reads in progress and then releases the mapping.
+   */
+  void close() {
+    if (this.closed) {
+      return;
+    }
+    this.closed = true;
+    while (this.readers.get() != 0) {
+      Thread.yield();
+    }
+    unmap(this.buffer);
+  }
+
+  /**
+   * Releases the mapping now rather than when the buffer is garbage collected, so that the file
+   * can be deleted on platforms that do not allow deleting mapped files. If the JDK does not allow
+   * it the mapping is left for the garbage collector.
+   */
+  private static void unmap(MappedByteBuffer buffer) {
+    try {
+      Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+      Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+      Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+      theUnsafe.setAccessible(true);
+      invokeCleaner.invoke(theUnsafe.get(null), buffer);
+      return;
+    } catch (NoSuchMethodException ignore) {
+      // JDK 8; use the cleaner of the buffer below
+    } catch (Exception e) {
+      logger.debug("Could not unmap oplog buffer", e);
+      return;
+    }
+    try {
+      Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+      cleanerMethod.setAccessible(true);
+      Object cleaner = cleanerMethod.invoke(buffer);
+      if (cleaner != null) {
+        Method clean = cleaner.getClass().getMethod("clean");
+        clean.setAccessible(true);
+        clean.invoke(cleaner);
+      }
+    } catch (Exception e) {
+      logger.debug("Could not unmap oplog buffer", e);
+    }
+  }
+}
@@ -26,6 +26,7 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InterruptedIOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.ClosedChannelException;
@@ -1466,9 +1467,9 @@ public class Oplog implements CompactableOplog, Flushable {
       try {
         int recordCount = 0;
         boolean foundDiskStoreRecord = false;
-        FileInputStream fis = null;
+        InputStream fis = null;
         try {
-          fis = new FileInputStream(drfFile);
+          fis = openForRecovery(drfFile);
           dis = new CountingDataInputStream(new BufferedInputStream(fis, 32 * 1024),
               drfFile.length());
           boolean endOfLog = false;
@@ -1631,9 +1632,9 @@ public class Oplog implements CompactableOplog, Flushable {
       return false;
     }
 
-    FileInputStream fis;
+    InputStream fis;
     try {
-      fis = new FileInputStream(f);
+      fis = openForRecovery(f);
     } catch (FileNotFoundException ignore) {
       return false;
     }
@@ -1812,6 +1813,40 @@ public class Oplog implements CompactableOplog, Flushable {
     return true;
   }
 
+  /**
+   * Opens one of this oplog's files for recovery, using the copy read ahead by the recovery
+   * prefetcher if there is one.
+   */
+  private InputStream openForRecovery(File f) throws FileNotFoundException {
+    OplogRecoveryPrefetcher prefetcher = getOplogSet().getRecoveryPrefetcher();
+    if (prefetcher != null) {
+      InputStream prefetched = prefetcher.open(f);
+      if (prefetched != null) {
+        return prefetched;
+      }
+    }
+    return new FileInputStream(f);
+  }
+
+  /**
+   * Returns the file recoverCrf will read the live entries of this oplog from: the krf if it has a
+   * usable one, otherwise the crf. Returns null if this oplog has no crf.
+   */
+  File getFileToRecoverEntriesFrom(boolean recoverValuesSync) {
+    if (this.crf.f == null || this.drf.f == null) {
+      return this.crf.f;
+    }
+    if (!recoverValuesSync && (!getParent().isOffline() || getParent().FORCE_KRF_RECOVERY)
+        && getParent().getDiskInitFile().hasKrf(this.oplogId)) {
+      File krf = new File(this.drf.f.getParentFile(), oplogSet.getPrefix() + getParent().getName()
+          + "_" + this.oplogId + KRF_FILE_EXT);
+      if (krf.exists()) {
+        return krf;
+      }
+    }
+    return this.crf.f;
+  }
+
   private void validateOpcode(DataInputStream dis, byte expect) throws IOException {
     byte opCode = dis.readByte();
     if (opCode != expect) {
@@ -1838,9 +1873,9 @@ public class Oplog implements CompactableOplog, Flushable {
       final HeapDataOutputStream hdos = new HeapDataOutputStream(Version.CURRENT);
       int recordCount = 0;
       boolean foundDiskStoreRecord = false;
-      FileInputStream fis = null;
+      InputStream fis = null;
       try {
-        fis = new FileInputStream(this.crf.f);
+        fis = openForRecovery(this.crf.f);
         dis = new CountingDataInputStream(new BufferedInputStream(fis, 1024 * 1024),
             this.crf.f.length());
         boolean endOfLog = false;
@@ -3216,6 +3251,7 @@ public class Oplog implements CompactableOplog, Flushable {
     // No need to get the backup lock prior to synchronizing (correct lock order) since the
     // synchronized block does not attempt to get the backup lock (incorrect lock order)
     synchronized (this.lock/* crf */) {
+      closeMappedCrf();
       unpreblow(this.crf, getMaxCrfSize());
       if (!this.crf.RAFClosed) {
         try {
@@ -3432,6 +3468,7 @@ public class Oplog implements CompactableOplog, Flushable {
           userBits = EntryBits.setWithVersions(userBits, true);
         }
         basicCreate(region.getDiskRegion(), entry, value, userBits, async);
+        awaitGroupCommit(entry);
       } catch (IOException ex) {
         exceptionOccurred = true;
         region.getCancelCriterion().checkCancelInProgress(ex);
@@ -3544,7 +3581,7 @@ public class Oplog implements CompactableOplog, Flushable {
           id.setOplogId(getOplogId());
           // do the io while holding lock so that switch can set doneAppending
           // Write the data to the opLog for the synch mode
-          startPosForSynchOp = writeOpLogBytes(this.crf, async, true);
+          startPosForSynchOp = writeSyncableOpLogBytes(this.crf, async);
           // if (this.crf.currSize != startPosForSynchOp) {
           // assert false;
           // }
@@ -4258,6 +4295,7 @@ public class Oplog implements CompactableOplog, Flushable {
           entry.getDiskId().setPendingAsync(false);
           try {
             getOplogSet().getChild().basicRemove(dr, entry, false, false);
+            awaitGroupCommit(entry);
           } catch (IOException ex) {
             getParent().getCancelCriterion().checkCancelInProgress(ex);
             throw new DiskAccessException(LocalizedStrings.Oplog_FAILED_WRITING_KEY_TO_0
@@ -4319,6 +4357,7 @@ public class Oplog implements CompactableOplog, Flushable {
           userBits = EntryBits.setWithVersions(userBits, true);
         }
         basicModify(region.getDiskRegion(), entry, value, userBits, async, false);
+        awaitGroupCommit(entry);
       } catch (IOException ex) {
         exceptionOccurred = true;
         region.getCancelCriterion().checkCancelInProgress(ex);
@@ -4364,6 +4403,7 @@ public class Oplog implements CompactableOplog, Flushable {
         userBits = EntryBits.setWithVersions(userBits, true);
       }
       basicModify(drv, entry, vw, userBits, false, false);
+      awaitGroupCommit(entry);
     } catch (IOException ex) {
       throw new DiskAccessException(
           LocalizedStrings.Oplog_FAILED_WRITING_KEY_TO_0.toLocalizedString(this.diskFile.getPath()),
@@ -4383,6 +4423,7 @@ public class Oplog implements CompactableOplog, Flushable {
     } else {
       try {
         basicSaveConflictVersionTag(region.getDiskRegion(), tag, async);
+        awaitGroupCommit(null);
       } catch (IOException ex) {
         region.getCancelCriterion().checkCancelInProgress(ex);
         throw new DiskAccessException(LocalizedStrings.Oplog_FAILED_CONFLICT_VERSION_TAG_0
@@ -4506,7 +4547,7 @@ public class Oplog implements CompactableOplog, Flushable {
             long oldOplogId;
             // do the io while holding lock so that switch can set doneAppending
             // Write the data to the opLog for the synch mode
-            startPosForSynchOp = writeOpLogBytes(this.crf, async, true);
+            startPosForSynchOp = writeSyncableOpLogBytes(this.crf, async);
             this.crf.currSize = temp;
             startPosForSynchOp += getOpStateValueOffset();
             if (logger.isTraceEnabled(LogMarker.PERSIST_WRITES_VERBOSE)) {
@@ -4631,7 +4672,7 @@ public class Oplog implements CompactableOplog, Flushable {
               throw cce;
             }
             this.firstRecord = false;
-            writeOpLogBytes(this.crf, async, true);
+            writeSyncableOpLogBytes(this.crf, async);
             this.crf.currSize = temp;
             if (logger.isTraceEnabled(LogMarker.PERSIST_WRITES_VERBOSE)) {
               logger.trace(LogMarker.PERSIST_WRITES_VERBOSE,
@@ -4794,6 +4835,7 @@ public class Oplog implements CompactableOplog, Flushable {
       int len = did.getValueLength();
       try {
         basicRemove(dr, entry, async, isClear);
+        awaitGroupCommit(entry);
       } catch (IOException ex) {
         exceptionOccurred = true;
         getParent().getCancelCriterion().checkCancelInProgress(ex);
@@ -4976,7 +5018,7 @@ public class Oplog implements CompactableOplog, Flushable {
             // before we flush the crf.
             // However we can't have removes by async if we are doing a sync write
             // because we might be killed right after we do this write.
-            startPosForSynchOp = writeOpLogBytes(this.drf, async, true);
+            startPosForSynchOp = writeSyncableOpLogBytes(this.drf, async);
             setHasDeletes(true);
             if (logger.isDebugEnabled(LogMarker.PERSIST_WRITES_VERBOSE)) {
               logger.debug("basicRemove: id=<{}> key=<{}> drId={} oplog#{}", abs(id.getKeyId()),
@@ -5172,6 +5214,35 @@ public class Oplog implements CompactableOplog, Flushable {
     }
   }
 
+  /**
+   * Writes an entry record that a synchronous operation must have on disk before it returns. If the
+   * disk store uses group commit the record is only appended to the write buffer here; the caller
+   * must call {@link #awaitGroupCommit(DiskEntry)} once it no longer holds any oplog locks.
+   */
+  private long writeSyncableOpLogBytes(OplogFile olf, boolean async) throws IOException {
+    OplogGroupCommitter committer = getParent().getGroupCommitter();
+    if (async || committer == null) {
+      return writeOpLogBytes(olf, async, true);
+    }
+    // the caller holds this.lock so the commit sequence follows the order of the write buffer
+    long startPos = writeOpLogBytes(olf, false, false);
+    committer.appended(this);
+    return startPos;
+  }
+
+  /**
+   * Waits for the records written by this thread with {@link #writeSyncableOpLogBytes} to be
+   * flushed. Does not wait for other writers to join the commit if the thread holds the lock of
+   * the entry written, or if there is no such entry.
+   */
+  private void awaitGroupCommit(DiskEntry entry) {
+    OplogGroupCommitter committer = getParent().getGroupCommitter();
+    if (committer != null) {
+      committer.awaitCommit(entry != null && !Thread.holdsLock(entry)
+          && !Thread.holdsLock(entry.getDiskId()));
+    }
+  }
+
   /**
    * Since the ByteBuffer being writen to can have additional bytes which are used for extending the
    * size of the file, it is necessary that the ByteBuffer provided should have limit which is set
@@ -5282,8 +5353,93 @@ public class Oplog implements CompactableOplog, Flushable {
     }
   }
 
+  /**
+   * Read-only mapping of the crf used to fault values in once this oplog is done appending and its
+   * disk store has memory mapped reads enabled. Created on the first read and released when the crf
+   * is closed or deleted.
+   */
+  private volatile MappedOplogFile mappedCrf;
+
+  /** Set once the crf can not or must no longer be mapped */
+  private volatile boolean mappedCrfDisabled;
+
+  private MappedOplogFile getMappedCrf() {
+    MappedOplogFile result = this.mappedCrf;
+    if (result != null || this.mappedCrfDisabled) {
+      return result;
+    }
+    // No need to get the backup lock prior to synchronizing (correct lock order) since the
+    // synchronized block does not attempt to get the backup lock (incorrect lock order)
+    synchronized (this.lock/* crf */) {
+      result = this.mappedCrf;
+      if (result != null || this.mappedCrfDisabled) {
+        return result;
+      }
+      long length = this.crf.bytesFlushed;
+      if (this.closed || !this.doneAppending || this.crf.f == null || length <= 0
+          || length > Integer.MAX_VALUE) {
+        this.mappedCrfDisabled = true;
+        return null;
+      }
+      try {
+        result = MappedOplogFile.map(this.crf.f, length);
+      } catch (IOException e) {
+        if (logger.isDebugEnabled()) {
+          logger.debug("Could not map {} for reading; using file reads", this.crf.f, e);
+        }
+        this.mappedCrfDisabled = true;
+        return null;
+      }
+      this.mappedCrf = result;
+      this.stats.incMappedOplogs(1);
+      return result;
+    }
+  }
+
+  /**
+   * Must be called while holding the crf lock.
+   */
+  private void closeMappedCrf() {
+    this.mappedCrfDisabled = true;
+    MappedOplogFile mapped = this.mappedCrf;
+    if (mapped != null) {
+      this.mappedCrf = null;
+      mapped.close();
+      this.stats.incMappedOplogs(-1);
+    }
+  }
+
+  /**
+   * Reads a value from the memory mapped crf without taking the oplog lock. Returns null if the
+   * value has to be read from the file instead.
+   */
+  private BytesAndBits attemptMappedGet(long offsetInOplog, int valueLength, byte userBits) {
+    MappedOplogFile mapped = getMappedCrf();
+    if (mapped == null) {
+      return null;
+    }
+    byte[] valueBytes = mapped.read(offsetInOplog, valueLength);
+    if (valueBytes == null) {
+      return null;
+    }
+    this.stats.incMappedOplogReads();
+    BytesAndBits bb = new BytesAndBits(valueBytes, userBits);
+    // also set the product version for an older product
+    final Version version = getProductVersionIfOld();
+    if (version != null) {
+      bb.setVersion(version);
+    }
+    return bb;
+  }
+
   private BytesAndBits attemptGet(DiskRegionView dr, long offsetInOplog, boolean bitOnly,
       int valueLength, byte userBits) throws IOException {
+    if (this.doneAppending && getParent().getMemoryMappedReads()) {
+      BytesAndBits bb = attemptMappedGet(offsetInOplog, valueLength, userBits);
+      if (bb != null) {
+        return bb;
+      }
+    }
     boolean didReopen = false;
     boolean accessedInactive = false;
     try {
@@ -5620,6 +5776,9 @@ public class Oplog implements CompactableOplog, Flushable {
     // No need to get the backup lock prior to synchronizing (correct lock order) since the
     // synchronized block does not attempt to get the backup lock (incorrect lock order)
     synchronized (this.lock) {
+      if (olf == this.crf) {
+        closeMappedCrf();
+      }
       if (olf.currSize != 0) {
         this.dirHolder.decrementTotalOplogSize(olf.currSize);
         olf.currSize = 0;
@@ -5680,7 +5839,8 @@ public class Oplog implements CompactableOplog, Flushable {
    *
    * @return long value indicating the current size of the oplog.
    */
-  long getOplogSize() {
+  @Override
+  public long getOplogSize() {
     return this.crf.currSize + this.drf.currSize;
   }
 
@@ -5905,6 +6065,27 @@ public class Oplog implements CompactableOplog, Flushable {
     this.compactorLock.unlock();
   }
 
+  /**
+   * Sleeps to throttle compaction after a value was copied forward. The sleep is done without this
+   * oplog's compactor lock and the disk store's compactor read lock so that closing or destroying
+   * this oplog, and clearing or closing a region, do not wait for it.
+   *
+   * @return false if compaction of this oplog must stop because this oplog was closed or the
+   *         compactor write lock was taken in the meantime. It is compacted again later.
+   */
+  private boolean throttleCompaction(OplogCompactor compactor) {
+    long writeLockCount = getParent().getCompactorWriteLockCount();
+    unlockCompactor();
+    getParent().releaseCompactorReadLock();
+    try {
+      compactor.throttle();
+    } finally {
+      getParent().acquireCompactorReadLock();
+      lockCompactor();
+    }
+    return !this.closed && writeLockCount == getParent().getCompactorWriteLockCount();
+  }
+
   /**
    * Copy any live entries last stored in this oplog to the current oplog. No need to copy deletes
    * in the drf. Backup only needs them until all the older crfs are empty.
@@ -5937,6 +6118,7 @@ public class Oplog implements CompactableOplog, Flushable {
 
         DiskEntry de;
         DiskEntry lastDe = null;
+        int copiedBytes = 0;
         boolean compactFailed = /*
                                  * getParent().getOwner().isDestroyed ||
                                  */!compactor.keepCompactorRunning();
@@ -5985,12 +6167,17 @@ public class Oplog implements CompactableOplog, Flushable {
                   getOplogSet().getChild().copyForwardModifyForCompact(dr, de, wrapper);
                   // the did's oplogId will now be set to the current active oplog
                   didCompact = true;
+                  copiedBytes = wrapper.getValidLength();
                 }
               } // did
             } // de
             if (didCompact) {
               totalCount++;
               getStats().endCompactionUpdate(opStart);
+              if (compactor.copiedForward(copiedBytes) && !throttleCompaction(compactor)) {
+                compactFailed = true;
+                break;
+              }
               opStart = getStats().getStatTime();
               // Check if the value byte array happens to be any of the
               // constant
@@ -6004,6 +6191,9 @@ public class Oplog implements CompactableOplog, Flushable {
               }
             }
           }
+          if (compactFailed) {
+            break;
+          }
         }
 
         cleanupAfterCompaction(compactFailed);
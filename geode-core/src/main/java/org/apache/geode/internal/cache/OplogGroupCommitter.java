@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.geode.InternalGemFireException;
+
+/**
+ * Lets concurrent synchronous writers of a disk store share a single flush of the oplog write
+ * buffers instead of each flushing its own record.
+ * <p>
+ * A writer appends its record to the oplog buffer while holding the oplog lock and calls
+ * {@link #appended(Oplog)}, which adds it to the open batch. Once it has released the oplog lock it
+ * calls {@link #awaitCommit(boolean)}. The first waiter that finds no flush in progress becomes the
+ * leader: it closes the open batch, flushes every oplog written since the last commit and wakes up
+ * all the writers of that batch with its outcome. Writers that arrive while the leader is flushing
+ * form the next batch. If the leader may linger it first waits up to {@code maxWaitNanos} for more
+ * writers to join; a leader that still holds entry locks does not, since that would hold up every
+ * other operation on those entries.
+ */
+class OplogGroupCommitter {
+
+  /**
+   * The writes appended between two commits, and the outcome of the commit that flushed them.
+   */
+  private static class Batch {
+    /** Number of records in the batch. Guarded by the committer. */
+    private long size;
+    /** True once the commit of this batch has finished. Guarded by the committer. */
+    private boolean done;
+    /** Why the commit of this batch failed, if it did. Guarded by the committer. */
+    private RuntimeException failure;
+  }
+
+  /** The batch of the records of a thread that it has not waited for yet */
+  private final ThreadLocal<Batch> pendingCommit = new ThreadLocal<>();
+
+  private final long maxWaitNanos;
+
+  private final DiskStoreStats stats;
+
+  /** Oplogs that have records appended since the last commit was started. Guarded by this. */
+  private final Set<Oplog> dirtyOplogs = new LinkedHashSet<>();
+
+  /** The batch that records are currently appended to. Guarded by this. */
+  private Batch openBatch = new Batch();
+
+  /** True while a leader is flushing. Guarded by this. */
+  private boolean committing;
+
+  OplogGroupCommitter(long maxWaitMicros, DiskStoreStats stats) {
+    this.maxWaitNanos = TimeUnit.MICROSECONDS.toNanos(Math.max(0, maxWaitMicros));
+    this.stats = stats;
+  }
+
+  /**
+   * Records that the calling thread appended a record to the write buffer of the given oplog that
+   * must be flushed before its operation completes. Must be called while holding the oplog lock
+   * that was used to append the record so that the batches follow the buffer order.
+   */
+  void appended(Oplog oplog) {
+    Batch batch;
+    synchronized (this) {
+      batch = this.openBatch;
+      batch.size++;
+      this.dirtyOplogs.add(oplog);
+    }
+    this.pendingCommit.set(batch);
+  }
+
+  /**
+   * Waits until the records the calling thread appended have been flushed, flushing them itself if
+   * no other thread is doing so. Does nothing if the thread has no pending records.
+   *
+   * @param mayLinger false if the caller holds locks that other operations may need, so that it
+   *        must not wait for more writers to join its batch
+   * @throws RuntimeException the exception that made the flush of the records fail
+   */
+  void awaitCommit(boolean mayLinger) {
+    Batch batch = this.pendingCommit.get();
+    if (batch == null) {
+      return;
+    }
+    this.pendingCommit.set(null);
+    long start = this.stats.getStatTime();
+    boolean interrupted = false;
+    try {
+      while (true) {
+        synchronized (this) {
+          if (batch.done) {
+            if (batch.failure != null) {
+              throw batch.failure;
+            }
+            return;
+          }
+          if (this.committing) {
+            try {
+              wait();
+            } catch (InterruptedException e) {
+              interrupted = true;
+            }
+            continue;
+          }
+          this.committing = true;
+        }
+        // the batch of a thread that finds no commit in progress is still open, so this commits it
+        commit(mayLinger);
+      }
+    } finally {
+      this.stats.endGroupCommitWait(start);
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private void commit(boolean mayLinger) {
+    if (mayLinger && this.maxWaitNanos > 0) {
+      LockSupport.parkNanos(this.maxWaitNanos);
+    }
+    long start = System.nanoTime();
+    Batch batch;
+    List<Oplog> oplogs;
+    synchronized (this) {
+      batch = this.openBatch;
+      this.openBatch = new Batch();
+      oplogs = new ArrayList<>(this.dirtyOplogs);
+      this.dirtyOplogs.clear();
+    }
+    RuntimeException failure = null;
+    try {
+      for (Oplog oplog : oplogs) {
+        oplog.flushAll(false, true);
+      }
+    } catch (RuntimeException e) {
+      failure = e;
+    } catch (Error e) {
+      // the writers of the batch must not think their records were flushed
+      failure = new InternalGemFireException(e);
+      throw e;
+    } finally {
+      synchronized (this) {
+        batch.done = true;
+        batch.failure = failure;
+        this.committing = false;
+        notifyAll();
+      }
+    }
+    if (failure == null) {
+      this.stats.endGroupCommit(System.nanoTime() - start, batch.size);
+    }
+  }
+}
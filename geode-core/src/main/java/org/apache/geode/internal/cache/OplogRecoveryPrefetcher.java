@@ -0,0 +1,244 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.Logger;
+
+import org.apache.geode.internal.logging.LogService;
+import org.apache.geode.internal.logging.LoggingThreadGroup;
+
+/**
+ * Reads the drf, krf and crf files of the oplogs being recovered ahead of the recovery thread,
+ * using several threads, so that the I/O of independent oplogs overlaps.
+ * <p>
+ * The records of the oplogs are still applied to the region maps by the recovery thread one oplog
+ * at a time, newest oplog first, because entries that moved between oplogs are resolved by that
+ * order. This class only makes sure that, by the time an oplog is parsed, its file is already in
+ * memory. At most {@code window} files are read ahead at once, the files read ahead and not yet
+ * done with never take more than {@code maxBytes} of memory, and files larger than
+ * {@code maxFileSize} are never prefetched; those are read directly from disk as before.
+ */
+class OplogRecoveryPrefetcher {
+  private static final Logger logger = LogService.getLogger();
+
+  private final ExecutorService executor;
+
+  private final int window;
+
+  private final long maxFileSize;
+
+  private final long maxBytes;
+
+  private final DiskStoreStats stats;
+
+  /** Files that still need to be submitted, in the order they will be consumed */
+  private final Deque<File> pending = new ArrayDeque<>();
+
+  /** Files that have been submitted but not yet consumed by the recovery thread */
+  private final Map<File, Future<byte[]>> inFlight = new HashMap<>();
+
+  /** The memory reserved for each prefetched file until the recovery thread is done with it */
+  private final Map<File, Long> reservedBytes = new HashMap<>();
+
+  private long totalReservedBytes;
+
+  private boolean closed;
+
+  OplogRecoveryPrefetcher(String diskStoreName, int threads, long maxFileSize, long maxBytes,
+      DiskStoreStats stats) {
+    this(createExecutor(diskStoreName, threads), threads * 2, maxFileSize, maxBytes, stats);
+  }
+
+  OplogRecoveryPrefetcher(ExecutorService executor, int window, long maxFileSize, long maxBytes,
+      DiskStoreStats stats) {
+    this.executor = executor;
+    this.window = Math.max(1, window);
+    this.maxBytes = maxBytes;
+    this.maxFileSize = Math.min(Math.min(maxFileSize, maxBytes), Integer.MAX_VALUE - 8);
+    this.stats = stats;
+  }
+
+  private static ExecutorService createExecutor(String diskStoreName, int threads) {
+    final ThreadGroup group = LoggingThreadGroup
+        .createThreadGroup("Oplog Recovery Prefetcher Thread Group for " + diskStoreName, logger);
+    ThreadPoolExecutor executor =
+        new ThreadPoolExecutor(threads, threads, 10, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+            GemfireCacheHelper.CreateThreadFactory(group, "Oplog Recovery Prefetcher"));
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+
+  /**
+   * Schedules the given files to be read, in the order the recovery thread will ask for them.
+   * Null entries (oplogs that do not have that kind of file) are ignored.
+   */
+  synchronized void prefetch(List<File> files) {
+    for (File f : files) {
+      if (f != null) {
+        this.pending.add(f);
+      }
+    }
+    fillWindow();
+  }
+
+  /**
+   * Returns a stream over the prefetched contents of the given file or null if the file was not
+   * prefetched, in which case the caller should read it from disk.
+   */
+  InputStream open(File f) {
+    Future<byte[]> future;
+    synchronized (this) {
+      future = this.inFlight.remove(f);
+      fillWindow();
+    }
+    if (future == null) {
+      return null;
+    }
+    boolean interrupted = false;
+    try {
+      while (true) {
+        try {
+          byte[] bytes = future.get();
+          return bytes == null ? null : new ByteArrayInputStream(bytes);
+        } catch (InterruptedException e) {
+          interrupted = true;
+        } catch (ExecutionException | CancellationException e) {
+          if (logger.isDebugEnabled()) {
+            logger.debug("Prefetch of {} failed; reading it from disk", f, e);
+          }
+          return null;
+        }
+      }
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * Tells the prefetcher that the recovery thread is done with the given file, whether or not it
+   * was opened through {@link #open(File)}, so that its slot in the window and the memory it was
+   * read into can be reused.
+   */
+  void done(File f) {
+    if (f == null) {
+      return;
+    }
+    synchronized (this) {
+      Long reserved = this.reservedBytes.remove(f);
+      if (reserved != null) {
+        this.totalReservedBytes -= reserved;
+      }
+      if (!this.pending.remove(f)) {
+        Future<byte[]> future = this.inFlight.remove(f);
+        if (future != null) {
+          future.cancel(false);
+        }
+      }
+      fillWindow();
+    }
+  }
+
+  synchronized void close() {
+    this.closed = true;
+    this.pending.clear();
+    for (Future<byte[]> future : this.inFlight.values()) {
+      future.cancel(false);
+    }
+    this.inFlight.clear();
+    this.reservedBytes.clear();
+    this.totalReservedBytes = 0;
+    this.executor.shutdownNow();
+  }
+
+  synchronized int getInFlightCount() {
+    return this.inFlight.size();
+  }
+
+  synchronized long getReservedBytes() {
+    return this.totalReservedBytes;
+  }
+
+  /**
+   * Submits pending files, in order, while there is a free slot in the window and enough unreserved
+   * memory for the next one.
+   */
+  private void fillWindow() {
+    if (this.closed) {
+      return;
+    }
+    while (this.inFlight.size() < this.window && !this.pending.isEmpty()) {
+      final File f = this.pending.peek();
+      if (this.inFlight.containsKey(f) || this.reservedBytes.containsKey(f)) {
+        this.pending.poll();
+        continue;
+      }
+      long length = f.length();
+      // files that will not be prefetched still take a slot, so that the order is kept, but no
+      // memory
+      final long size = length > 0 && length <= this.maxFileSize ? length : 0;
+      if (this.totalReservedBytes + size > this.maxBytes) {
+        return;
+      }
+      this.pending.poll();
+      this.reservedBytes.put(f, size);
+      this.totalReservedBytes += size;
+      this.inFlight.put(f, this.executor.submit(new Callable<byte[]>() {
+        @Override
+        public byte[] call() throws IOException {
+          return readFile(f, size);
+        }
+      }));
+    }
+  }
+
+  /**
+   * Reads the given file if it still has the size memory was reserved for, otherwise returns null.
+   */
+  private byte[] readFile(File f, long size) throws IOException {
+    long length = f.length();
+    if (length <= 0 || length != size) {
+      return null;
+    }
+    long start = this.stats.startRecoveryPrefetch();
+    byte[] bytes = new byte[(int) length];
+    try (DataInputStream in = new DataInputStream(new FileInputStream(f))) {
+      in.readFully(bytes);
+    }
+    this.stats.endRecoveryPrefetch(start, length);
+    return bytes;
+  }
+}
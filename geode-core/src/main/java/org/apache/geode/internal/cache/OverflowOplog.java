@@ -963,7 +963,8 @@ class OverflowOplog implements CompactableOplog, Flushable {
    *
    * @return long value indicating the current size of the oplog.
    */
-  long getOplogSize() {
+  @Override
+  public long getOplogSize() {
     return this.crf.currSize;
   }
 
@@ -1217,6 +1218,27 @@ class OverflowOplog implements CompactableOplog, Flushable {
     this.compactorLock.unlock();
   }
 
+  /**
+   * Sleeps to throttle compaction after a value was copied forward. The sleep is done without this
+   * oplog's compactor lock and the disk store's compactor read lock so that closing or destroying
+   * this oplog, and clearing or closing a region, do not wait for it.
+   *
+   * @return false if compaction of this oplog must stop because this oplog was closed or the
+   *         compactor write lock was taken in the meantime. It is compacted again later.
+   */
+  private boolean throttleCompaction(OplogCompactor compactor) {
+    long writeLockCount = getParent().getCompactorWriteLockCount();
+    unlockCompactor();
+    getParent().releaseCompactorReadLock();
+    try {
+      compactor.throttle();
+    } finally {
+      getParent().acquireCompactorReadLock();
+      lockCompactor();
+    }
+    return !this.closed && writeLockCount == getParent().getCompactorWriteLockCount();
+  }
+
   public int compact(OplogCompactor compactor) {
     if (!needsCompaction()) {
       return 0;
@@ -1240,6 +1262,7 @@ class OverflowOplog implements CompactableOplog, Flushable {
         DiskEntry lastDe = null;
         boolean compactFailed = !compactor.keepCompactorRunning();
         int totalCount = 0;
+        int copiedBytes = 0;
         boolean didCompact = false;
         while ((de = getNextLiveEntry()) != null) {
           if (!compactor.keepCompactorRunning()) {
@@ -1295,12 +1318,17 @@ class OverflowOplog implements CompactableOplog, Flushable {
                 getOplogSet().copyForwardForOverflowCompact(de, valueBytes, length, userBits);
                 // the did's oplogId will now be set to the current active oplog
                 didCompact = true;
+                copiedBytes = length;
               }
             } // did
           } // de
           if (didCompact) {
             totalCount++;
             getStats().endCompactionUpdate(opStart);
+            if (compactor.copiedForward(copiedBytes) && !throttleCompaction(compactor)) {
+              compactFailed = true;
+              break;
+            }
             opStart = getStats().getStatTime();
             // Check if the value byte array happens to be any of the constant
             // static byte arrays or references the value byte array of underlying RegionEntry.
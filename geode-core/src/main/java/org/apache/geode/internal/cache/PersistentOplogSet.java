@@ -85,6 +85,12 @@ public class PersistentOplogSet implements OplogSet {
    */
   private volatile long maxRecoveredOplogId = 0;
 
+  /**
+   * Reads oplog files ahead of the recovery thread while recoverOplogs is running in parallel
+   * recovery mode; null otherwise.
+   */
+  private volatile OplogRecoveryPrefetcher recoveryPrefetcher;
+
 
   public PersistentOplogSet(DiskStoreImpl parent) {
     this.parent = parent;
@@ -439,35 +445,53 @@ public class PersistentOplogSet implements OplogSet {
     }
     if (oplogSet.size() > 0) {
       long startOpLogRecovery = System.currentTimeMillis();
-      // first figure out all entries that have been destroyed
-      boolean latestOplog = true;
-      for (Oplog oplog : oplogSet) {
-        byteCount += oplog.recoverDrf(deletedIds, this.alreadyRecoveredOnce.get(), latestOplog);
-        latestOplog = false;
-        if (!this.alreadyRecoveredOnce.get()) {
-          updateOplogEntryId(oplog.getMaxRecoveredOplogEntryId());
-        }
-      }
-      parent.incDeadRecordCount(deletedIds.size());
-      // now figure out live entries
-      latestOplog = true;
-      for (Oplog oplog : oplogSet) {
-        long startOpLogRead = parent.getStats().startOplogRead();
-        long bytesRead = oplog.recoverCrf(deletedIds,
-            // @todo make recoverValues per region
-            recoverValues(), recoverValuesSync(), this.alreadyRecoveredOnce.get(),
-            oplogsNeedingValueRecovery, latestOplog);
-        latestOplog = false;
-        if (!this.alreadyRecoveredOnce.get()) {
-          updateOplogEntryId(oplog.getMaxRecoveredOplogEntryId());
+      final OplogRecoveryPrefetcher prefetcher = startRecoveryPrefetcher(oplogSet);
+      try {
+        // first figure out all entries that have been destroyed
+        long startDrfRecovery = parent.getStats().getStatTime();
+        boolean latestOplog = true;
+        for (Oplog oplog : oplogSet) {
+          byteCount += oplog.recoverDrf(deletedIds, this.alreadyRecoveredOnce.get(), latestOplog);
+          latestOplog = false;
+          if (!this.alreadyRecoveredOnce.get()) {
+            updateOplogEntryId(oplog.getMaxRecoveredOplogEntryId());
+          }
+          if (prefetcher != null) {
+            prefetcher.done(oplog.getDrfFile());
+          }
         }
-        byteCount += bytesRead;
-        parent.getStats().endOplogRead(startOpLogRead, bytesRead);
+        parent.getStats().endRecoveryDrf(startDrfRecovery);
+        parent.incDeadRecordCount(deletedIds.size());
+        // now figure out live entries
+        long startCrfRecovery = parent.getStats().getStatTime();
+        latestOplog = true;
+        for (Oplog oplog : oplogSet) {
+          long startOpLogRead = parent.getStats().startOplogRead();
+          long bytesRead = oplog.recoverCrf(deletedIds,
+              // @todo make recoverValues per region
+              recoverValues(), recoverValuesSync(), this.alreadyRecoveredOnce.get(),
+              oplogsNeedingValueRecovery, latestOplog);
+          latestOplog = false;
+          if (!this.alreadyRecoveredOnce.get()) {
+            updateOplogEntryId(oplog.getMaxRecoveredOplogEntryId());
+          }
+          byteCount += bytesRead;
+          parent.getStats().endOplogRead(startOpLogRead, bytesRead);
+          if (prefetcher != null) {
+            prefetcher.done(oplog.getFileToRecoverEntriesFrom(recoverValuesSync()));
+          }
 
-        // Callback to the disk regions to indicate the oplog is recovered
-        // Used for offline export
-        for (DiskRecoveryStore drs : this.currentRecoveryMap.values()) {
-          drs.getDiskRegionView().oplogRecovered(oplog.oplogId);
+          // Callback to the disk regions to indicate the oplog is recovered
+          // Used for offline export
+          for (DiskRecoveryStore drs : this.currentRecoveryMap.values()) {
+            drs.getDiskRegionView().oplogRecovered(oplog.oplogId);
+          }
+        }
+        parent.getStats().endRecoveryCrf(startCrfRecovery);
+      } finally {
+        if (prefetcher != null) {
+          this.recoveryPrefetcher = null;
+          prefetcher.close();
         }
       }
       long endOpLogRecovery = System.currentTimeMillis();
@@ -476,6 +500,7 @@ public class PersistentOplogSet implements OplogSet {
     }
     if (!parent.isOfflineCompacting()) {
       long startRegionInit = System.currentTimeMillis();
+      long startRegionInitStat = parent.getStats().getStatTime();
       // create the oplogs now so that loadRegionData can have them available
       // Create an array of Oplogs so that we are able to add it in a single shot
       // to the map
@@ -516,10 +541,43 @@ public class PersistentOplogSet implements OplogSet {
         logger.info(LocalizedMessage.create(LocalizedStrings.DiskRegion_REGION_INIT_TIME,
             endRegionInit - startRegionInit));
       }
+      parent.getStats().endRecoveryRegionInit(startRegionInitStat);
     }
     return byteCount;
   }
 
+  /**
+   * Starts reading the files of the given oplogs ahead of the recovery thread if the disk store is
+   * configured with more than one recovery thread. Returns null if recovery should read each oplog
+   * as it gets to it.
+   */
+  private OplogRecoveryPrefetcher startRecoveryPrefetcher(TreeSet<Oplog> oplogSet) {
+    int threads = parent.RECOVERY_THREADS;
+    if (threads <= 1 || oplogSet.size() <= 1) {
+      return null;
+    }
+    List<File> files = new ArrayList<File>(oplogSet.size() * 2);
+    for (Oplog oplog : oplogSet) {
+      files.add(oplog.getDrfFile());
+    }
+    for (Oplog oplog : oplogSet) {
+      files.add(oplog.getFileToRecoverEntriesFrom(recoverValuesSync()));
+    }
+    OplogRecoveryPrefetcher prefetcher = new OplogRecoveryPrefetcher(parent.getName(), threads,
+        parent.RECOVERY_PREFETCH_MAX_FILE_SIZE, parent.RECOVERY_PREFETCH_MAX_BYTES,
+        parent.getStats());
+    prefetcher.prefetch(files);
+    this.recoveryPrefetcher = prefetcher;
+    return prefetcher;
+  }
+
+  /**
+   * Returns the prefetcher of the recovery in progress, or null if oplogs are being read on demand.
+   */
+  OplogRecoveryPrefetcher getRecoveryPrefetcher() {
+    return this.recoveryPrefetcher;
+  }
+
   protected boolean recoverValuesSync() {
     return parent.RECOVER_VALUES_SYNC;
   }
@@ -39,6 +39,8 @@ import org.apache.geode.cache.query.QueryService;
 import org.apache.geode.cache.wan.GatewaySender;
 import org.apache.geode.distributed.internal.InternalDistributedSystem;
 import org.apache.geode.distributed.internal.membership.gms.membership.HostAddress;
+import org.apache.geode.internal.InternalDataSerializer;
+import org.apache.geode.internal.Version;
 import org.apache.geode.internal.i18n.LocalizedStrings;
 import org.apache.geode.internal.logging.LogService;
 import org.apache.geode.internal.logging.log4j.LocalizedMessage;
@@ -228,6 +230,12 @@ public class PoolFactoryImpl implements PoolFactory {
     return this;
   }
 
+  @Override
+  public PoolFactory setMultiplexedConnections(boolean multiplexedConnections) {
+    this.attributes.multiplexedConnections = multiplexedConnections;
+    return this;
+  }
+
   private InetSocketAddress getInetSocketAddress(String host, int port) {
     if (port == 0) {
       throw new IllegalArgumentException("port must be greater than 0 but was " + port);
@@ -309,6 +317,7 @@ public class PoolFactoryImpl implements PoolFactory {
     setSubscriptionAckInterval(cp.getSubscriptionAckInterval());
     setServerGroup(cp.getServerGroup());
     setMultiuserAuthentication(cp.getMultiuserAuthentication());
+    setMultiplexedConnections(cp.getMultiplexedConnections());
     for (InetSocketAddress inetSocketAddress : cp.getLocators()) {
       addLocator(inetSocketAddress.getHostName(), inetSocketAddress.getPort());
     }
@@ -395,6 +404,7 @@ public class PoolFactoryImpl implements PoolFactory {
     public int queueMessageTrackingTimeout = DEFAULT_SUBSCRIPTION_MESSAGE_TRACKING_TIMEOUT;
     public int queueAckInterval = DEFAULT_SUBSCRIPTION_ACK_INTERVAL;
     public int subscriptionTimeoutMultipler = DEFAULT_SUBSCRIPTION_TIMEOUT_MULTIPLIER;
+    public boolean multiplexedConnections = DEFAULT_MULTIPLEXED_CONNECTIONS;
     public String serverGroup = DEFAULT_SERVER_GROUP;
     public boolean multiuserSecureModeEnabled = DEFAULT_MULTIUSER_AUTHENTICATION;
     public ArrayList/* <InetSocketAddress> */ locators = new ArrayList();
@@ -527,6 +537,11 @@ public class PoolFactoryImpl implements PoolFactory {
       return this.subscriptionTimeoutMultipler;
     }
 
+    @Override
+    public boolean getMultiplexedConnections() {
+      return this.multiplexedConnections;
+    }
+
     public List/* <InetSocketAddress> */ getLocators() {
       if (this.locators.size() == 0 && this.servers.size() == 0) {
         throw new IllegalStateException(
@@ -600,6 +615,9 @@ public class PoolFactoryImpl implements PoolFactory {
       DataSerializer.writePrimitiveInt(this.statisticInterval, out);
       DataSerializer.writePrimitiveBoolean(this.multiuserSecureModeEnabled, out);
       DataSerializer.writePrimitiveInt(this.socketConnectTimeout, out);
+      if (InternalDataSerializer.getVersionForDataStream(out).compareTo(Version.GEODE_180) >= 0) {
+        DataSerializer.writePrimitiveBoolean(this.multiplexedConnections, out);
+      }
     }
 
     @Override
@@ -623,6 +641,9 @@ public class PoolFactoryImpl implements PoolFactory {
       this.statisticInterval = DataSerializer.readPrimitiveInt(in);
       this.multiuserSecureModeEnabled = DataSerializer.readPrimitiveBoolean(in);
       this.socketConnectTimeout = DataSerializer.readPrimitiveInt(in);
+      if (InternalDataSerializer.getVersionForDataStream(in).compareTo(Version.GEODE_180) >= 0) {
+        this.multiplexedConnections = DataSerializer.readPrimitiveBoolean(in);
+      }
     }
 
     @Override
@@ -649,6 +670,7 @@ public class PoolFactoryImpl implements PoolFactory {
           && queueAckInterval == that.queueAckInterval
           && multiuserSecureModeEnabled == that.multiuserSecureModeEnabled
           && startDisabled == that.startDisabled && gateway == that.gateway
+          && multiplexedConnections == that.multiplexedConnections
           && Objects.equals(serverGroup, that.serverGroup)
           && Objects.equals(new HashSet(locators), new HashSet(that.locators))
           && Objects.equals(new HashSet(servers), new HashSet(that.servers))
@@ -79,6 +79,11 @@ public class UpdateEntryVersionOperation extends DistributedCacheOperation {
       this.event = (EntryEventImpl) ev;
     }
 
+    @Override
+    public Object getSerialOrderingKey() {
+      return getEntryOrderingKey(this.key);
+    }
+
     @Override
     public int getDSFID() {
       return UPDATE_ENTRY_VERSION_MESSAGE;
@@ -339,6 +339,11 @@ public class UpdateOperation extends AbstractUpdateOperation {
       buff.append(deserializationPolicyToString(this.deserializationPolicy));
     }
 
+    @Override
+    public Object getSerialOrderingKey() {
+      return getEntryOrderingKey(this.key);
+    }
+
     public int getDSFID() {
       return UPDATE_MESSAGE;
     }
@@ -52,6 +52,7 @@ import org.apache.geode.internal.cache.EntryEventImpl;
 import org.apache.geode.internal.cache.FilterProfile;
 import org.apache.geode.internal.cache.ImageState;
 import org.apache.geode.internal.cache.InitialImageOperation.Entry;
+import org.apache.geode.internal.cache.InlineValueHelper;
 import org.apache.geode.internal.cache.InternalCache;
 import org.apache.geode.internal.cache.InternalCacheEvent;
 import org.apache.geode.internal.cache.InternalRegion;
@@ -135,6 +136,14 @@ public abstract class AbstractRegionEntry implements HashRegionEntry<Object, Obj
    */
   private static final long IN_USE_BY_TX = 0x40L << 56;
 
+  /**
+   * The two bits of the type, as defined by {@link InlineValueHelper}, of the values an entry that
+   * supports it stores inline.
+   */
+  private static final long INLINED_TYPE_LOW_BIT = 0x04L << 56;
+
+  private static final long INLINED_TYPE_HIGH_BIT = 0x80L << 56;
+
   protected AbstractRegionEntry(RegionEntryContext context,
       @Retained(ABSTRACT_REGION_ENTRY_PREPARE_VALUE_FOR_CACHE) Object value) {
 
@@ -1311,6 +1320,37 @@ public abstract class AbstractRegionEntry implements HashRegionEntry<Object, Obj
     } while (!done);
   }
 
+  /**
+   * Return the type, as defined by {@link InlineValueHelper}, of the values this entry stores
+   * inline, or {@link InlineValueHelper#NOT_INLINED} if it has not stored one yet.
+   */
+  protected int getInlinedValueType() {
+    long bits = getLastModifiedField();
+    return ((bits & INLINED_TYPE_LOW_BIT) != 0L ? 1 : 0)
+        | ((bits & INLINED_TYPE_HIGH_BIT) != 0L ? 2 : 0);
+  }
+
+  /**
+   * Make the given type the type of the values this entry stores inline if it does not have one
+   * yet. The type never changes once it is set.
+   *
+   * @return true if the given type is the type of the values this entry stores inline
+   */
+  protected boolean setInlinedValueType(int type) {
+    long typeBits = ((type & 1) != 0 ? INLINED_TYPE_LOW_BIT : 0L)
+        | ((type & 2) != 0 ? INLINED_TYPE_HIGH_BIT : 0L);
+    boolean done;
+    do {
+      long bits = getLastModifiedField();
+      long storedTypeBits = bits & (INLINED_TYPE_LOW_BIT | INLINED_TYPE_HIGH_BIT);
+      if (storedTypeBits != 0L) {
+        return storedTypeBits == typeBits;
+      }
+      done = compareAndSetLastModifiedField(bits, bits | typeBits);
+    } while (!done);
+    return true;
+  }
+
   @Override
   @Retained(ABSTRACT_REGION_ENTRY_PREPARE_VALUE_FOR_CACHE)
   public Object prepareValueForCache(RegionEntryContext r,
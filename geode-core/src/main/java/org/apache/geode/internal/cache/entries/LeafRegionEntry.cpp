@@ -23,7 +23,7 @@ package org.apache.geode.internal.cache.entries;
 #define KEY_TYPE long
 #elif defined(KEY_UUID)
 #define KEY_TYPE UUID
-#elif defined(KEY_STRING1) || defined(KEY_STRING2)
+#elif defined(KEY_STRING1) || defined(KEY_STRING2) || defined(KEY_OFFHEAP)
 #define KEY_TYPE String
 #else
 #error the KEY_TYPE macro must be defined    
@@ -36,11 +36,20 @@ import java.util.UUID;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 #endif
 import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+#ifdef KEY_OFFHEAP
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+#endif
 #if defined(VERSIONED)
 import org.apache.geode.cache.EntryEvent;
 import org.apache.geode.internal.cache.InternalRegion;
 #endif
+#ifdef PRIMITIVE_VALUE
+import org.apache.geode.internal.cache.InlineValueHelper;
+#endif
 import org.apache.geode.internal.cache.RegionEntryContext;
+#ifdef PRIMITIVE_VALUE
+import org.apache.geode.internal.cache.Token;
+#endif
 #if defined(DISK) || defined(LRU)
 import org.apache.geode.internal.cache.eviction.EvictionController;
 import org.apache.geode.internal.cache.persistence.DiskRecoveryStore;
@@ -71,6 +80,9 @@ import org.apache.geode.internal.offheap.annotations.Released;
 import org.apache.geode.internal.offheap.annotations.Retained;
 import org.apache.geode.internal.offheap.annotations.Unretained;
 #endif
+#ifdef KEY_OFFHEAP
+import org.apache.geode.internal.offheap.OffHeapKeyHelper;
+#endif
 import org.apache.geode.internal.util.concurrent.CustomEntryConcurrentHashMap.HashEntry;
 
 /*
@@ -90,13 +102,18 @@ import org.apache.geode.internal.util.concurrent.CustomEntryConcurrentHashMap.Ha
  * key uuid: KEY_UUID
  * key string1: KEY_STRING1
  * key string2: KEY_STRING2
+ * key offheap: KEY_OFFHEAP
  */
 
 /**
  * Do not modify this class. It was generated. Instead modify LeafRegionEntry.cpp and then run
  * ./dev-tools/generateRegionEntryClasses.sh (it must be run from the top level directory).
  */
+#ifdef KEY_OFFHEAP
+public class LEAF_CLASS extends PARENT_CLASS implements OffHeapKeyRegionEntry {
+#else
 public class LEAF_CLASS extends PARENT_CLASS {
+#endif
 
   // --------------------------------------- common fields ----------------------------------------
 
@@ -113,6 +130,14 @@ public class LEAF_CLASS extends PARENT_CLASS {
 #ifdef OFFHEAP
 #else
   private volatile Object value;
+#ifdef PRIMITIVE_VALUE
+
+  /**
+   * The bits of the value when {@link #value} is {@link InlineValueHelper#INLINED}. Their type is
+   * {@link #getInlinedValueType()}.
+   */
+  private volatile long inlinedValue;
+#endif
 #endif
 #ifdef OFFHEAP
   // --------------------------------------- offheap fields ---------------------------------------
@@ -199,6 +224,24 @@ public class LEAF_CLASS extends PARENT_CLASS {
    * bits2 encodes character data
    */
   private final long bits2;
+#elif defined(KEY_OFFHEAP)
+  /**
+   * The key while it is on heap. Null while it is stored off heap.
+   */
+  private volatile Object key;
+
+  /**
+   * All access done using OFF_HEAP_KEY_ADDRESS_UPDATER so it is used even though the compiler can
+   * not tell it is.
+   */
+  @SuppressWarnings("unused")
+  @Retained @Released private volatile long offHeapKeyAddress;
+
+  private static final AtomicLongFieldUpdater<LEAF_CLASS> OFF_HEAP_KEY_ADDRESS_UPDATER =
+      AtomicLongFieldUpdater.newUpdater(LEAF_CLASS.class, "offHeapKeyAddress");
+
+  private static final AtomicReferenceFieldUpdater<LEAF_CLASS, Object> KEY_UPDATER =
+      AtomicReferenceFieldUpdater.newUpdater(LEAF_CLASS.class, Object.class, "key");
 #endif
 
   public LEAF_CLASS (final RegionEntryContext context, final KEY_TYPE key,
@@ -280,6 +323,10 @@ public class LEAF_CLASS extends PARENT_CLASS {
     tempBits1 |= key.length();
     this.bits1 = tempBits1;
     this.bits2 = tempBits2;
+#elif defined(KEY_OFFHEAP)
+    this.key = key;
+    // the value was set before the key so the key could not be moved off heap with it
+    OffHeapKeyHelper.valueAddressChanged(this, getAddress());
 #endif
   }
 
@@ -323,7 +370,15 @@ public class LEAF_CLASS extends PARENT_CLASS {
 
   @Override
   public boolean setAddress(final long expectedAddress, long newAddress) {
+#ifdef KEY_OFFHEAP
+    if (OFF_HEAP_ADDRESS_UPDATER.compareAndSet(this, expectedAddress, newAddress)) {
+      OffHeapKeyHelper.valueAddressChanged(this, newAddress);
+      return true;
+    }
+    return false;
+#else
     return OFF_HEAP_ADDRESS_UPDATER.compareAndSet(this, expectedAddress, newAddress);
+#endif
   }
 
   @Override
@@ -341,11 +396,42 @@ public class LEAF_CLASS extends PARENT_CLASS {
 #else
   @Override
   protected Object getValueField() {
+#ifdef PRIMITIVE_VALUE
+    final Object v = this.value;
+    if (v == InlineValueHelper.INLINED) {
+      return InlineValueHelper.decode(getInlinedValueType(), this.inlinedValue);
+    }
+    return v;
+#else
     return this.value;
+#endif
+  }
+#ifdef PRIMITIVE_VALUE
+
+  @Override
+  public Token getValueAsToken() {
+    // an inlined value is never a token, so there is no need to box it
+    final Object v = this.value;
+    if (v == null || v instanceof Token) {
+      return (Token) v;
+    }
+    return Token.NOT_A_TOKEN;
   }
+#endif
 
   @Override
   protected void setValueField(final Object value) {
+#ifdef PRIMITIVE_VALUE
+    final int inlinedValueType = InlineValueHelper.getType(value);
+    if (inlinedValueType != InlineValueHelper.NOT_INLINED
+        && setInlinedValueType(inlinedValueType)) {
+      // the type of the inlined values of an entry never changes, so a reader that sees the marker
+      // decodes whatever bits it reads as the type they were written as
+      this.inlinedValue = InlineValueHelper.toBits(value);
+      this.value = InlineValueHelper.INLINED;
+      return;
+    }
+#endif
     this.value = value;
   }
 #endif
@@ -548,6 +634,9 @@ public class LEAF_CLASS extends PARENT_CLASS {
 #ifdef KEY_OBJECT
     // default implementation.
     return getKey();
+#elif defined(KEY_OFFHEAP)
+    // off heap keys report null for sizing since they do not use heap memory
+    return null;
 #else
     // inline keys always report null for sizing since the size comes from the entry size
     return null;
@@ -942,6 +1031,41 @@ public class LEAF_CLASS extends PARENT_CLASS {
     }
     return false;
   }
+#elif defined(KEY_OFFHEAP)
+  @Override
+  public Object getKey() {
+    return OffHeapKeyHelper.getKey(this);
+  }
+
+  @Override
+  public boolean isKeyEqual(final Object key) {
+    return OffHeapKeyHelper.isKeyEqual(this, key);
+  }
+
+  @Override
+  public long getKeyAddress() {
+    return OFF_HEAP_KEY_ADDRESS_UPDATER.get(this);
+  }
+
+  @Override
+  public boolean setKeyAddress(final long expectedAddress, final long newAddress) {
+    return OFF_HEAP_KEY_ADDRESS_UPDATER.compareAndSet(this, expectedAddress, newAddress);
+  }
+
+  @Override
+  public Object getKeyField() {
+    return this.key;
+  }
+
+  @Override
+  public void setKeyField(final Object key) {
+    this.key = key;
+  }
+
+  @Override
+  public boolean compareAndSetKeyField(final Object expectedKey, final Object newKey) {
+    return KEY_UPDATER.compareAndSet(this, expectedKey, newKey);
+  }
 #endif
 
   // DO NOT modify this class. It was generated from LeafRegionEntry.cpp
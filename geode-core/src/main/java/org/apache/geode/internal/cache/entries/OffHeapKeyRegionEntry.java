@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache.entries;
+
+/**
+ * An OffHeapRegionEntry that also stores its key off heap once it holds a value.
+ *
+ * @see org.apache.geode.internal.offheap.OffHeapKeyHelper
+ */
+public interface OffHeapKeyRegionEntry extends OffHeapRegionEntry {
+  /**
+   * OFF_HEAP_KEY_FIELD_READER
+   */
+  long getKeyAddress();
+
+  /**
+   * OFF_HEAP_KEY_FIELD_WRITER
+   */
+  boolean setKeyAddress(long expectedAddr, long newAddr);
+
+  /**
+   * Returns the key while it is stored on heap or null once it has been moved off heap.
+   */
+  Object getKeyField();
+
+  void setKeyField(Object key);
+
+  boolean compareAndSetKeyField(Object expectedKey, Object newKey);
+}
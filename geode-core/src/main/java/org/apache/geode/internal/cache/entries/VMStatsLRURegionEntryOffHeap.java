@@ -20,6 +20,7 @@ import org.apache.geode.internal.cache.InlineKeyHelper;
 import org.apache.geode.internal.cache.RegionEntry;
 import org.apache.geode.internal.cache.RegionEntryContext;
 import org.apache.geode.internal.cache.RegionEntryFactory;
+import org.apache.geode.internal.offheap.OffHeapKeyHelper;
 
 public abstract class VMStatsLRURegionEntryOffHeap extends VMStatsLRURegionEntry
     implements OffHeapRegionEntry {
@@ -58,6 +59,9 @@ public abstract class VMStatsLRURegionEntryOffHeap extends VMStatsLRURegionEntry
           return new VMStatsLRURegionEntryOffHeapUUIDKey(context, (UUID) key, value);
         }
       }
+      if (OffHeapKeyHelper.canStoreKeyOffHeap(key)) {
+        return new VMStatsLRURegionEntryOffHeapOffHeapKey(context, (String) key, value);
+      }
       return new VMStatsLRURegionEntryOffHeapObjectKey(context, key, value);
     }
 
@@ -33,6 +33,16 @@ public abstract class VMStatsRegionEntryHeap extends VMStatsRegionEntry {
     return factory;
   }
 
+  private static final VMStatsRegionEntryHeapPrimitiveValueFactory primitiveValueFactory =
+      new VMStatsRegionEntryHeapPrimitiveValueFactory();
+
+  /**
+   * Returns a factory whose entries store int, long and double values inline instead of boxed.
+   */
+  public static RegionEntryFactory getPrimitiveValueEntryFactory() {
+    return primitiveValueFactory;
+  }
+
   private static class VMStatsRegionEntryHeapFactory implements RegionEntryFactory {
     public RegionEntry createEntry(RegionEntryContext context, Object key, Object value) {
       if (InlineKeyHelper.INLINE_REGION_KEYS) {
@@ -74,4 +84,49 @@ public abstract class VMStatsRegionEntryHeap extends VMStatsRegionEntry {
       return this;
     }
   }
+
+  private static class VMStatsRegionEntryHeapPrimitiveValueFactory implements RegionEntryFactory {
+    public RegionEntry createEntry(RegionEntryContext context, Object key, Object value) {
+      if (InlineKeyHelper.INLINE_REGION_KEYS) {
+        Class<?> keyClass = key.getClass();
+        if (keyClass == Integer.class) {
+          return new VMStatsRegionEntryHeapIntKeyPrimitiveValue(context, (Integer) key, value);
+        } else if (keyClass == Long.class) {
+          return new VMStatsRegionEntryHeapLongKeyPrimitiveValue(context, (Long) key, value);
+        } else if (keyClass == String.class) {
+          final String skey = (String) key;
+          final Boolean info = InlineKeyHelper.canStringBeInlineEncoded(skey);
+          if (info != null) {
+            final boolean byteEncoded = info;
+            if (skey.length() <= InlineKeyHelper.getMaxInlineStringKey(1, byteEncoded)) {
+              return new VMStatsRegionEntryHeapStringKey1PrimitiveValue(context, skey, value,
+                  byteEncoded);
+            } else {
+              return new VMStatsRegionEntryHeapStringKey2PrimitiveValue(context, skey, value,
+                  byteEncoded);
+            }
+          }
+        } else if (keyClass == UUID.class) {
+          return new VMStatsRegionEntryHeapUUIDKeyPrimitiveValue(context, (UUID) key, value);
+        }
+      }
+      return new VMStatsRegionEntryHeapObjectKeyPrimitiveValue(context, key, value);
+    }
+
+    public Class getEntryClass() {
+      // The class returned from this method is used to estimate the memory size.
+      // This estimate will not take into account the memory saved by inlining the keys
+      // or the values.
+      return VMStatsRegionEntryHeapObjectKeyPrimitiveValue.class;
+    }
+
+    public RegionEntryFactory makeVersioned() {
+      return VersionedStatsRegionEntryHeap.getPrimitiveValueEntryFactory();
+    }
+
+    @Override
+    public RegionEntryFactory makeOnHeap() {
+      return this;
+    }
+  }
 }
@@ -20,6 +20,7 @@ import org.apache.geode.internal.cache.InlineKeyHelper;
 import org.apache.geode.internal.cache.RegionEntry;
 import org.apache.geode.internal.cache.RegionEntryContext;
 import org.apache.geode.internal.cache.RegionEntryFactory;
+import org.apache.geode.internal.offheap.OffHeapKeyHelper;
 
 public abstract class VMThinDiskLRURegionEntryOffHeap extends VMThinDiskLRURegionEntry
     implements OffHeapRegionEntry {
@@ -60,6 +61,9 @@ public abstract class VMThinDiskLRURegionEntryOffHeap extends VMThinDiskLRURegio
           return new VMThinDiskLRURegionEntryOffHeapUUIDKey(context, (UUID) key, value);
         }
       }
+      if (OffHeapKeyHelper.canStoreKeyOffHeap(key)) {
+        return new VMThinDiskLRURegionEntryOffHeapOffHeapKey(context, (String) key, value);
+      }
       return new VMThinDiskLRURegionEntryOffHeapObjectKey(context, key, value);
     }
 
@@ -33,6 +33,16 @@ public abstract class VMThinRegionEntryHeap extends VMThinRegionEntry {
     return factory;
   }
 
+  private static final VMThinRegionEntryHeapPrimitiveValueFactory primitiveValueFactory =
+      new VMThinRegionEntryHeapPrimitiveValueFactory();
+
+  /**
+   * Returns a factory whose entries store int, long and double values inline instead of boxed.
+   */
+  public static RegionEntryFactory getPrimitiveValueEntryFactory() {
+    return primitiveValueFactory;
+  }
+
   private static class VMThinRegionEntryHeapFactory implements RegionEntryFactory {
     public RegionEntry createEntry(RegionEntryContext context, Object key, Object value) {
       if (InlineKeyHelper.INLINE_REGION_KEYS) {
@@ -74,4 +84,49 @@ public abstract class VMThinRegionEntryHeap extends VMThinRegionEntry {
       return this;
     }
   }
+
+  private static class VMThinRegionEntryHeapPrimitiveValueFactory implements RegionEntryFactory {
+    public RegionEntry createEntry(RegionEntryContext context, Object key, Object value) {
+      if (InlineKeyHelper.INLINE_REGION_KEYS) {
+        Class<?> keyClass = key.getClass();
+        if (keyClass == Integer.class) {
+          return new VMThinRegionEntryHeapIntKeyPrimitiveValue(context, (Integer) key, value);
+        } else if (keyClass == Long.class) {
+          return new VMThinRegionEntryHeapLongKeyPrimitiveValue(context, (Long) key, value);
+        } else if (keyClass == String.class) {
+          final String skey = (String) key;
+          final Boolean info = InlineKeyHelper.canStringBeInlineEncoded(skey);
+          if (info != null) {
+            final boolean byteEncoded = info;
+            if (skey.length() <= InlineKeyHelper.getMaxInlineStringKey(1, byteEncoded)) {
+              return new VMThinRegionEntryHeapStringKey1PrimitiveValue(context, skey, value,
+                  byteEncoded);
+            } else {
+              return new VMThinRegionEntryHeapStringKey2PrimitiveValue(context, skey, value,
+                  byteEncoded);
+            }
+          }
+        } else if (keyClass == UUID.class) {
+          return new VMThinRegionEntryHeapUUIDKeyPrimitiveValue(context, (UUID) key, value);
+        }
+      }
+      return new VMThinRegionEntryHeapObjectKeyPrimitiveValue(context, key, value);
+    }
+
+    public Class getEntryClass() {
+      // The class returned from this method is used to estimate the memory size.
+      // This estimate will not take into account the memory saved by inlining the keys
+      // or the values.
+      return VMThinRegionEntryHeapObjectKeyPrimitiveValue.class;
+    }
+
+    public RegionEntryFactory makeVersioned() {
+      return VersionedThinRegionEntryHeap.getPrimitiveValueEntryFactory();
+    }
+
+    @Override
+    public RegionEntryFactory makeOnHeap() {
+      return this;
+    }
+  }
 }
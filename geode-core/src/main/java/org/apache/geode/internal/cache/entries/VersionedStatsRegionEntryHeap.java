@@ -34,6 +34,16 @@ public abstract class VersionedStatsRegionEntryHeap extends VersionedStatsRegion
     return factory;
   }
 
+  private static final VersionedStatsRegionEntryHeapPrimitiveValueFactory primitiveValueFactory =
+      new VersionedStatsRegionEntryHeapPrimitiveValueFactory();
+
+  /**
+   * Returns a factory whose entries store int, long and double values inline instead of boxed.
+   */
+  public static RegionEntryFactory getPrimitiveValueEntryFactory() {
+    return primitiveValueFactory;
+  }
+
   private static class VersionedStatsRegionEntryHeapFactory implements RegionEntryFactory {
     public RegionEntry createEntry(RegionEntryContext context, Object key, Object value) {
       if (InlineKeyHelper.INLINE_REGION_KEYS) {
@@ -75,4 +85,51 @@ public abstract class VersionedStatsRegionEntryHeap extends VersionedStatsRegion
       return this;
     }
   }
+
+  private static class VersionedStatsRegionEntryHeapPrimitiveValueFactory
+      implements RegionEntryFactory {
+    public RegionEntry createEntry(RegionEntryContext context, Object key, Object value) {
+      if (InlineKeyHelper.INLINE_REGION_KEYS) {
+        Class<?> keyClass = key.getClass();
+        if (keyClass == Integer.class) {
+          return new VersionedStatsRegionEntryHeapIntKeyPrimitiveValue(context, (Integer) key,
+              value);
+        } else if (keyClass == Long.class) {
+          return new VersionedStatsRegionEntryHeapLongKeyPrimitiveValue(context, (Long) key, value);
+        } else if (keyClass == String.class) {
+          final String skey = (String) key;
+          final Boolean info = InlineKeyHelper.canStringBeInlineEncoded(skey);
+          if (info != null) {
+            final boolean byteEncoded = info;
+            if (skey.length() <= InlineKeyHelper.getMaxInlineStringKey(1, byteEncoded)) {
+              return new VersionedStatsRegionEntryHeapStringKey1PrimitiveValue(context, skey, value,
+                  byteEncoded);
+            } else {
+              return new VersionedStatsRegionEntryHeapStringKey2PrimitiveValue(context, skey, value,
+                  byteEncoded);
+            }
+          }
+        } else if (keyClass == UUID.class) {
+          return new VersionedStatsRegionEntryHeapUUIDKeyPrimitiveValue(context, (UUID) key, value);
+        }
+      }
+      return new VersionedStatsRegionEntryHeapObjectKeyPrimitiveValue(context, key, value);
+    }
+
+    public Class getEntryClass() {
+      // The class returned from this method is used to estimate the memory size.
+      // This estimate will not take into account the memory saved by inlining the keys
+      // or the values.
+      return VersionedStatsRegionEntryHeapObjectKeyPrimitiveValue.class;
+    }
+
+    public RegionEntryFactory makeVersioned() {
+      return this;
+    }
+
+    @Override
+    public RegionEntryFactory makeOnHeap() {
+      return this;
+    }
+  }
 }
@@ -20,6 +20,7 @@ import org.apache.geode.internal.cache.InlineKeyHelper;
 import org.apache.geode.internal.cache.RegionEntry;
 import org.apache.geode.internal.cache.RegionEntryContext;
 import org.apache.geode.internal.cache.RegionEntryFactory;
+import org.apache.geode.internal.offheap.OffHeapKeyHelper;
 
 public abstract class VersionedStatsRegionEntryOffHeap extends VersionedStatsRegionEntry
     implements OffHeapRegionEntry {
@@ -60,6 +61,9 @@ public abstract class VersionedStatsRegionEntryOffHeap extends VersionedStatsReg
           return new VersionedStatsRegionEntryOffHeapUUIDKey(context, (UUID) key, value);
         }
       }
+      if (OffHeapKeyHelper.canStoreKeyOffHeap(key)) {
+        return new VersionedStatsRegionEntryOffHeapOffHeapKey(context, (String) key, value);
+      }
       return new VersionedStatsRegionEntryOffHeapObjectKey(context, key, value);
     }
 
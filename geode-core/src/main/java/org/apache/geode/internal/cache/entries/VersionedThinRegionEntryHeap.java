@@ -34,6 +34,16 @@ public abstract class VersionedThinRegionEntryHeap extends VersionedThinRegionEn
     return factory;
   }
 
+  private static final VersionedThinRegionEntryHeapPrimitiveValueFactory primitiveValueFactory =
+      new VersionedThinRegionEntryHeapPrimitiveValueFactory();
+
+  /**
+   * Returns a factory whose entries store int, long and double values inline instead of boxed.
+   */
+  public static RegionEntryFactory getPrimitiveValueEntryFactory() {
+    return primitiveValueFactory;
+  }
+
   private static class VersionedThinRegionEntryHeapFactory implements RegionEntryFactory {
     public RegionEntry createEntry(RegionEntryContext context, Object key, Object value) {
       if (InlineKeyHelper.INLINE_REGION_KEYS) {
@@ -75,4 +85,51 @@ public abstract class VersionedThinRegionEntryHeap extends VersionedThinRegionEn
       return this;
     }
   }
+
+  private static class VersionedThinRegionEntryHeapPrimitiveValueFactory
+      implements RegionEntryFactory {
+    public RegionEntry createEntry(RegionEntryContext context, Object key, Object value) {
+      if (InlineKeyHelper.INLINE_REGION_KEYS) {
+        Class<?> keyClass = key.getClass();
+        if (keyClass == Integer.class) {
+          return new VersionedThinRegionEntryHeapIntKeyPrimitiveValue(context, (Integer) key,
+              value);
+        } else if (keyClass == Long.class) {
+          return new VersionedThinRegionEntryHeapLongKeyPrimitiveValue(context, (Long) key, value);
+        } else if (keyClass == String.class) {
+          final String skey = (String) key;
+          final Boolean info = InlineKeyHelper.canStringBeInlineEncoded(skey);
+          if (info != null) {
+            final boolean byteEncoded = info;
+            if (skey.length() <= InlineKeyHelper.getMaxInlineStringKey(1, byteEncoded)) {
+              return new VersionedThinRegionEntryHeapStringKey1PrimitiveValue(context, skey, value,
+                  byteEncoded);
+            } else {
+              return new VersionedThinRegionEntryHeapStringKey2PrimitiveValue(context, skey, value,
+                  byteEncoded);
+            }
+          }
+        } else if (keyClass == UUID.class) {
+          return new VersionedThinRegionEntryHeapUUIDKeyPrimitiveValue(context, (UUID) key, value);
+        }
+      }
+      return new VersionedThinRegionEntryHeapObjectKeyPrimitiveValue(context, key, value);
+    }
+
+    public Class getEntryClass() {
+      // The class returned from this method is used to estimate the memory size.
+      // This estimate will not take into account the memory saved by inlining the keys
+      // or the values.
+      return VersionedThinRegionEntryHeapObjectKeyPrimitiveValue.class;
+    }
+
+    public RegionEntryFactory makeVersioned() {
+      return this;
+    }
+
+    @Override
+    public RegionEntryFactory makeOnHeap() {
+      return this;
+    }
+  }
 }
@@ -3518,6 +3518,7 @@ public class HARegionQueue implements RegionQueue {
     ClientUpdateMessageImpl clientMsg =
         (ClientUpdateMessageImpl) haEventWrapper.getClientUpdateMessage();
     if (clientMsg != null) {
+      msg.restoreDroppedValue(clientMsg);
       if (clientMsg.isClientInterestedInUpdates(proxyID)) {
         msg.addClientInterestList(proxyID, true);
       } else if (clientMsg.isClientInterestedInInvalidates(proxyID)) {
@@ -51,6 +51,24 @@ import org.apache.geode.internal.cache.entries.VersionedThinRegionEntryOffHeap;
 public class RegionEntryFactoryBuilder {
   public RegionEntryFactory create(boolean statsEnabled, boolean isLRU, boolean isDisk,
       boolean withVersioning, boolean offHeap) {
+    return create(statsEnabled, isLRU, isDisk, withVersioning, offHeap, false);
+  }
+
+  /**
+   * @param inlinePrimitiveValues true if the entries should store int, long and double values
+   *        inline. It is ignored for entries that evict, write to disk or store values off heap.
+   */
+  public RegionEntryFactory create(boolean statsEnabled, boolean isLRU, boolean isDisk,
+      boolean withVersioning, boolean offHeap, boolean inlinePrimitiveValues) {
+    if (inlinePrimitiveValues && !isLRU && !isDisk && !offHeap) {
+      if (withVersioning) {
+        return statsEnabled ? VersionedStatsRegionEntryHeap.getPrimitiveValueEntryFactory()
+            : VersionedThinRegionEntryHeap.getPrimitiveValueEntryFactory();
+      }
+      return statsEnabled ? VMStatsRegionEntryHeap.getPrimitiveValueEntryFactory()
+          : VMThinRegionEntryHeap.getPrimitiveValueEntryFactory();
+    }
+
     int bitRepresentation = 0;
     bitRepresentation |= statsEnabled ? 1 : 0;
     bitRepresentation |= isLRU ? 2 : 0;
@@ -69,7 +69,12 @@ public enum CommunicationMode {
    * Byte meaning that the Socket is being used for 'client to server' messages related to a client
    * queue (register interest, create cq, etc.).
    */
-  ClientToServerForQueue((byte) 107, "clientToServerForQueue");
+  ClientToServerForQueue((byte) 107, "clientToServerForQueue"),
+  /**
+   * Byte meaning that the Socket carries many 'client to server' connections, each of which starts
+   * with its own communication mode byte and handshake.
+   */
+  MultiplexedClientToServer((byte) 108, "multiplexed client");
 
   /**
    * is this a client-initiated operations connection?
@@ -137,7 +142,7 @@ public enum CommunicationMode {
    * check the given mode to see if it is assigned to one of the enumeration's instances
    */
   public static boolean isValidMode(int mode) {
-    return (100 <= mode && mode <= 107) || mode == 10;
+    return (100 <= mode && mode <= 108) || mode == 10;
   }
 
   public static CommunicationMode fromModeNumber(byte modeNumber) {
@@ -160,6 +165,8 @@ public enum CommunicationMode {
         return UnsuccessfulServerToClient;
       case 107:
         return ClientToServerForQueue;
+      case 108:
+        return MultiplexedClientToServer;
       default:
         throw new IllegalArgumentException("unknown communications mode: " + modeNumber);
     }
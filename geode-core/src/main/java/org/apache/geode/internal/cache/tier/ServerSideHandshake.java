@@ -38,6 +38,14 @@ public interface ServerSideHandshake {
 
   Version getVersion();
 
+  /**
+   * Returns the length at or above which parts of the messages sent to the client are compressed,
+   * or zero if they are not.
+   *
+   * @since Geode 1.8
+   */
+  int getCompressionThreshold();
+
   Object verifyCredentials() throws AuthenticationRequiredException, AuthenticationFailedException;
 
   void setClientReadTimeout(int clientReadTimeout);
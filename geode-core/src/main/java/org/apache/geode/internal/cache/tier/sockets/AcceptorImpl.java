@@ -32,14 +32,8 @@ import java.net.SocketException;
 import java.net.SocketTimeoutException;
 import java.net.UnknownHostException;
 import java.nio.ByteBuffer;
-import java.nio.channels.CancelledKeyException;
-import java.nio.channels.ClosedChannelException;
-import java.nio.channels.ClosedSelectorException;
-import java.nio.channels.SelectionKey;
-import java.nio.channels.Selector;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -48,6 +42,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.RejectedExecutionHandler;
@@ -98,6 +93,7 @@ import org.apache.geode.internal.security.SecurableCommunicationChannel;
 import org.apache.geode.internal.security.SecurityService;
 import org.apache.geode.internal.tcp.ConnectionTable;
 import org.apache.geode.internal.util.ArrayUtils;
+import org.apache.geode.internal.util.concurrent.VirtualThreads;
 
 /**
  * Implements the acceptor thread on the bridge server. Accepts connections from the edge and starts
@@ -154,26 +150,17 @@ public class AcceptorImpl implements Acceptor, Runnable, CommBufferPool {
   private final Object syncLock = new Object();
 
   /**
-   * THE selector for the bridge server; null if no selector.
+   * The selector threads of the bridge server; null if no selector.
    */
-  private final Selector selector;
-  // private final Selector tmpSel;
+  private final ServerConnectionSelector[] selectors;
   /**
-   * Used for managing direct byte buffer for client comms; null if no selector.
+   * Used to spread connections over the {@link #selectors}.
    */
-  private final LinkedBlockingQueue commBufferQueue;
+  private final AtomicInteger nextSelector = new AtomicInteger();
   /**
    * Used to timeout accepted sockets that we are waiting for the handshake packet
    */
   private final SystemTimer hsTimer;
-  /**
-   * A queue used to feed register requests to the selector; null if no selector.
-   */
-  private final LinkedBlockingQueue selectorQueue;
-  /**
-   * All the objects currently registered with selector.
-   */
-  private final HashSet selectorRegistrations;
   /**
    * tcpNoDelay setting for outgoing sockets
    */
@@ -253,11 +240,6 @@ public class AcceptorImpl implements Acceptor, Runnable, CommBufferPool {
    */
   private Thread thread = null;
 
-  /**
-   * The thread that runs the selector loop if any
-   */
-  private Thread selectorThread = null;
-
   /**
    * Controls updates to {@link #allSCs}
    */
@@ -279,6 +261,11 @@ public class AcceptorImpl implements Acceptor, Runnable, CommBufferPool {
    */
   private volatile ServerConnection allSCList[] = new ServerConnection[0];
 
+  /**
+   * The sockets clients have asked to multiplex their connections over.
+   */
+  private final Set<SocketMultiplexer> multiplexers = ConcurrentHashMap.newKeySet();
+
   /**
    * The ip address or host name this acceptor is to bind to; <code>null</code> or "" indicates it
    * will listen on all local addresses.
@@ -356,12 +343,23 @@ public class AcceptorImpl implements Acceptor, Runnable, CommBufferPool {
       }
       this.maxConnections = tmp_maxConnections;
     }
+    if (!isGatewayReceiver) {
+      // If configured use SSL properties for cache-server
+      this.socketCreator =
+          SocketCreatorFactory.getSocketCreatorForComponent(SecurableCommunicationChannel.SERVER);
+    } else {
+      this.socketCreator =
+          SocketCreatorFactory.getSocketCreatorForComponent(SecurableCommunicationChannel.GATEWAY);
+    }
     {
       int tmp_maxThreads = maxThreads;
       if (maxThreads == CacheServer.DEFAULT_MAX_THREADS) {
         // consult system properties for 5.0.2 backwards compatibility
         if (DEPRECATED_SELECTOR) {
           tmp_maxThreads = DEPRECATED_SELECTOR_POOL_SIZE;
+        } else if (!isGatewayReceiver && !this.socketCreator.useSSL()
+            && !THREAD_PER_CONNECTION) {
+          tmp_maxThreads = DEFAULT_SELECTOR_POOL_SIZE;
         }
       }
       if (tmp_maxThreads < 0) {
@@ -393,39 +391,15 @@ public class AcceptorImpl implements Acceptor, Runnable, CommBufferPool {
       this.maxThreads = tmp_maxThreads;
     }
     {
-      Selector tmp_s = null;
-      // Selector tmp2_s = null;
-      LinkedBlockingQueue tmp_q = null;
-      LinkedBlockingQueue tmp_commQ = null;
-      HashSet tmp_hs = null;
       SystemTimer tmp_timer = null;
       if (isSelector()) {
-        tmp_s = Selector.open(); // no longer catch ex to fix bug 36907
-        // tmp2_s = Selector.open(); // workaround for bug 39624
-        tmp_q = new LinkedBlockingQueue();
-        tmp_commQ = new LinkedBlockingQueue();
-        tmp_hs = new HashSet(512);
         tmp_timer = new SystemTimer(internalCache.getDistributedSystem(), true);
       }
-      this.selector = tmp_s;
-      // this.tmpSel = tmp2_s;
-      this.selectorQueue = tmp_q;
-      this.commBufferQueue = tmp_commQ;
-      this.selectorRegistrations = tmp_hs;
       this.hsTimer = tmp_timer;
       this.tcpNoDelay = tcpNoDelay;
     }
 
     {
-      if (!isGatewayReceiver) {
-        // If configured use SSL properties for cache-server
-        this.socketCreator =
-            SocketCreatorFactory.getSocketCreatorForComponent(SecurableCommunicationChannel.SERVER);
-      } else {
-        this.socketCreator = SocketCreatorFactory
-            .getSocketCreatorForComponent(SecurableCommunicationChannel.GATEWAY);
-      }
-
       final InternalCache gc;
       if (getCachedRegionHelper() != null) {
         gc = getCachedRegionHelper().getCache();
@@ -538,6 +512,7 @@ public class AcceptorImpl implements Acceptor, Runnable, CommBufferPool {
 
     this.cache = internalCache;
     this.crHelper = new CachedRegionHelper(this.cache);
+    this.selectors = initializeSelectors();
 
     this.clientNotifier = CacheClientNotifier.getInstance(cache, this.stats, maximumMessageCount,
         messageTimeToLive, connectionListener, overflowAttributesList, isGatewayReceiver);
@@ -560,6 +535,30 @@ public class AcceptorImpl implements Acceptor, Runnable, CommBufferPool {
         (postAuthzFactoryName != null && postAuthzFactoryName.length() > 0) ? true : false;
   }
 
+  private ServerConnectionSelector[] initializeSelectors() throws IOException {
+    if (!isSelector()) {
+      return null;
+    }
+    int count = Math.max(1, Math.min(SELECTOR_THREADS, this.maxThreads));
+    ServerConnectionSelector[] result = new ServerConnectionSelector[count];
+    try {
+      for (int i = 0; i < count; i++) {
+        result[i] = new ServerConnectionSelector(this, this.cache,
+            this.stats.createSelectorStats(getServerName() + " selector " + i));
+      }
+    } catch (IOException e) {
+      for (ServerConnectionSelector selector : result) {
+        if (selector != null) {
+          selector.close();
+        }
+      }
+      this.stats.close();
+      this.serverSock.close();
+      throw e;
+    }
+    return result;
+  }
+
   private ThreadPoolExecutor initializeHandshakerThreadPool() throws IOException {
     String gName = "Handshaker " + serverSock.getInetAddress() + ":" + this.localPort;
     final ThreadGroup socketThreadGroup = LoggingThreadGroup.createThreadGroup(gName, logger);
@@ -650,7 +649,7 @@ public class AcceptorImpl implements Acceptor, Runnable, CommBufferPool {
             }
           }
         };
-        return new Thread(socketThreadGroup, r, tName);
+        return VirtualThreads.newThread(socketThreadGroup, r, tName);
       }
     };
     try {
@@ -711,6 +710,27 @@ public class AcceptorImpl implements Acceptor, Runnable, CommBufferPool {
   @Deprecated
   private final int DEPRECATED_SELECTOR_POOL_SIZE =
       Integer.getInteger("BridgeServer.SELECTOR_POOL_SIZE", 16).intValue();
+
+  /**
+   * If true, a cache server with the default max-threads dedicates a thread to every client
+   * connection instead of using a selector.
+   */
+  private static final boolean THREAD_PER_CONNECTION =
+      Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "CacheServer.THREAD_PER_CONNECTION");
+
+  /**
+   * The number of threads that process client requests when max-threads is the default.
+   */
+  private static final int DEFAULT_SELECTOR_POOL_SIZE =
+      Integer.getInteger(DistributionConfig.GEMFIRE_PREFIX + "CacheServer.SELECTOR_POOL_SIZE",
+          Math.max(MINIMUM_MAX_CONNECTIONS, 4 * Runtime.getRuntime().availableProcessors()));
+
+  /**
+   * The number of selector threads that wait for requests on idle client connections.
+   */
+  private static final int SELECTOR_THREADS =
+      Integer.getInteger(DistributionConfig.GEMFIRE_PREFIX + "CacheServer.SELECTOR_THREADS",
+          Math.max(1, Runtime.getRuntime().availableProcessors() / 4));
   private final int HANDSHAKE_POOL_SIZE = Integer
       .getInteger("BridgeServer.HANDSHAKE_POOL_SIZE", HANDSHAKER_DEFAULT_POOL_SIZE).intValue();
 
@@ -728,15 +748,14 @@ public class AcceptorImpl implements Acceptor, Runnable, CommBufferPool {
     thread.start();
 
     if (isSelector()) {
-      Runnable r = new Runnable() {
-        public void run() {
-          AcceptorImpl.this.runSelectorLoop();
+      for (int i = 0; i < this.selectors.length; i++) {
+        String name = "Cache Server Selector " + this.serverSock.getInetAddress() + ":"
+            + this.localPort + " local port: " + this.serverSock.getLocalPort();
+        if (this.selectors.length > 1) {
+          name += " " + i;
         }
-      };
-      this.selectorThread =
-          new Thread(tg, r, "Cache Server Selector " + this.serverSock.getInetAddress() + ":"
-              + this.localPort + " local port: " + this.serverSock.getLocalPort());
-      this.selectorThread.start();
+        this.selectors[i].start(tg, name);
+      }
     }
     Set<PartitionedRegion> prs = this.cache.getPartitionedRegions();
     for (PartitionedRegion pr : prs) {
@@ -770,18 +789,13 @@ public class AcceptorImpl implements Acceptor, Runnable, CommBufferPool {
         return;
       }
     }
-    getSelectorQueue().offer(sc);
-    wakeupSelector();
-  }
-
-  /**
-   * wake up the selector thread
-   */
-  private void wakeupSelector() {
-    Selector s = getSelector();
-    if (s != null && s.isOpen()) {
-      this.selector.wakeup();
+    ServerConnectionSelector selector = sc.getConnectionSelector();
+    if (selector == null) {
+      selector = this.selectors[Math.floorMod(this.nextSelector.getAndIncrement(),
+          this.selectors.length)];
+      sc.setConnectionSelector(selector);
     }
+    selector.register(sc);
   }
 
   public void unregisterSC(ServerConnection sc) {
@@ -799,7 +813,10 @@ public class AcceptorImpl implements Acceptor, Runnable, CommBufferPool {
       return;
     }
     // just need to wake the selector up so it will notice our socket was closed
-    wakeupSelector();
+    ServerConnectionSelector selector = sc.getConnectionSelector();
+    if (selector != null) {
+      selector.wakeup();
+    }
   }
 
   private void finishCon(ServerConnection sc) {
@@ -808,34 +825,6 @@ public class AcceptorImpl implements Acceptor, Runnable, CommBufferPool {
     }
   }
 
-  private void drainSelectorQueue() {
-    ServerConnection sc = (ServerConnection) this.selectorQueue.poll();
-    CancelException cce = null;
-    while (sc != null) {
-      try {
-        finishCon(sc);
-      } catch (CancelException e) {
-        if (cce == null) {
-          cce = e;
-        }
-      }
-      sc = (ServerConnection) this.selectorQueue.poll();
-    }
-    Iterator it = selectorRegistrations.iterator();
-    while (it.hasNext()) {
-      try {
-        finishCon((ServerConnection) it.next());
-      } catch (CancelException e) {
-        if (cce == null) {
-          cce = e;
-        }
-      }
-    } // while
-    if (cce != null) {
-      throw cce;
-    }
-  }
-
   /**
    * break any potential circularity in {@link #loadEmergencyClasses()}
    */
@@ -880,309 +869,6 @@ public class AcceptorImpl implements Acceptor, Runnable, CommBufferPool {
     }
   }
 
-  private boolean isRegisteredObjectClosed(ServerConnection sc) {
-    return sc.isClosed();
-  }
-
-  private int checkRegisteredKeys(int count) {
-    int result = count;
-    CancelException cce = null;
-    if (count > 0) {
-      Iterator it = this.selectorRegistrations.iterator();
-      while (it.hasNext()) {
-        ServerConnection sc = (ServerConnection) it.next();
-        if (isRegisteredObjectClosed(sc)) {
-          result--;
-          it.remove();
-          try {
-            finishCon(sc);
-          } catch (CancelException e) {
-            if (cce == null) {
-              cce = e;
-            }
-          }
-        }
-      } // while
-    }
-    if (cce != null) {
-      throw cce;
-    }
-    return result;
-  }
-
-  private static final boolean WORKAROUND_SELECTOR_BUG =
-      Boolean.getBoolean("CacheServer.NIO_SELECTOR_WORKAROUND");
-
-  private Selector tmpSel;
-
-  private void checkForStuckKeys() {
-    if (!WORKAROUND_SELECTOR_BUG) {
-      return;
-    }
-    if (tmpSel == null) {
-      try {
-        tmpSel = Selector.open();
-      } catch (IOException ignore) {
-        logger.warn(LocalizedMessage
-            .create(LocalizedStrings.AcceptorImpl_COULD_NOT_CHECK_FOR_STUCK_KEYS, ignore));
-        return;
-      }
-
-    }
-    // logger.info("DEBUG: checking for stuck keys");
-    Iterator it = (new ArrayList(this.selector.keys())).iterator();
-    while (it.hasNext()) {
-      SelectionKey sk = (SelectionKey) it.next();
-      ServerConnection sc = (ServerConnection) sk.attachment();
-      if (sc == null) {
-        continue;
-      }
-      try {
-        sk.cancel();
-        this.selector.selectNow(); // clear the cancelled key
-        SelectionKey tmpsk = sc.getSelectableChannel().register(this.tmpSel,
-            SelectionKey.OP_WRITE | SelectionKey.OP_READ);
-        try {
-          // it should always be writable
-          int events = this.tmpSel.selectNow();
-          if (events == 0) {
-            logger.info(LocalizedMessage
-                .create(LocalizedStrings.AcceptorImpl_STUCK_SELECTION_KEY_DETECTED_ON_0, sc));
-            tmpsk.cancel();
-            tmpSel.selectNow(); // clear canceled key
-            sc.registerWithSelector2(this.selector);
-          } else {
-            if (tmpsk.isValid() && tmpsk.isReadable()) {
-              // logger.info("DEBUG detected read event on " + sc);
-              try {
-                tmpsk.cancel();
-                this.tmpSel.selectNow(); // clear canceled key
-                this.selectorRegistrations.remove(sc);
-                registeredKeys--;
-                sc.makeBlocking();
-                // we need to say we are processing a message
-                // so that that client health monitor will not
-                // kill us while we wait for a thread in the thread pool.
-                // This is also be used to determine how long we are
-                // in the thread pool queue and to cancel operations that
-                // have waited too long in the queue.
-                sc.setProcessingMessage();
-              } catch (ClosedChannelException ignore) {
-                finishCon(sc);
-                continue;
-              } catch (IOException ex) {
-                finishCon(sc);
-                if (isRunning()) {
-                  logger.warn(LocalizedMessage
-                      .create(LocalizedStrings.AcceptorImpl_UNEXPECTED_EXCEPTION, ex));
-                }
-                continue;
-              }
-              try {
-                AcceptorImpl.this.stats.incThreadQueueSize();
-                AcceptorImpl.this.pool.execute(sc);
-              } catch (RejectedExecutionException rejected) {
-                finishCon(sc);
-                AcceptorImpl.this.stats.decThreadQueueSize();
-                if (!isRunning()) {
-                  break;
-                }
-                logger.warn(LocalizedMessage
-                    .create(LocalizedStrings.AcceptorImpl_UNEXPECTED_EXCEPTION, rejected));
-              }
-            } else if (tmpsk.isValid() && tmpsk.isWritable()) {
-              // this is expected
-              tmpsk.cancel();
-              this.tmpSel.selectNow(); // clear canceled key
-              sc.registerWithSelector2(this.selector);
-            } else if (!tmpsk.isValid()) {
-              tmpsk.cancel();
-              this.tmpSel.selectNow(); // clear canceled key
-              sc.registerWithSelector2(this.selector);
-            }
-          }
-        } catch (IOException ex) {
-          if (isRunning() && this.selector.isOpen() && this.tmpSel.isOpen()) {
-            logger.warn(
-                LocalizedMessage.create(LocalizedStrings.AcceptorImpl_UNEXPECTED_EXCEPTION, ex));
-            try {
-              tmpsk.cancel();
-              tmpSel.selectNow(); // clear canceled key
-            } catch (IOException ex2) {
-              if (isRunning() && this.selector.isOpen() && this.tmpSel.isOpen()) {
-                logger.warn(LocalizedMessage
-                    .create(LocalizedStrings.AcceptorImpl_UNEXPECTED_EXCEPTION, ex2));
-              }
-            }
-          }
-        }
-      } catch (ClosedChannelException ignore) { // fix for bug 39650
-        // just ignore this channel and try the next one
-        finishCon(sc);
-        continue;
-      } catch (IOException ex) {
-        if (isRunning() && this.selector.isOpen() && this.tmpSel.isOpen()) {
-          logger.warn(
-              LocalizedMessage.create(LocalizedStrings.AcceptorImpl_UNEXPECTED_EXCEPTION, ex));
-        }
-      } catch (NullPointerException npe) { // fix bug 39644
-        if (isRunning() && this.selector.isOpen() && this.tmpSel.isOpen()) {
-          logger.warn(
-              LocalizedMessage.create(LocalizedStrings.AcceptorImpl_UNEXPECTED_EXCEPTION, npe));
-        }
-      }
-    }
-  }
-
-  private int registeredKeys = 0;
-
-  public void runSelectorLoop() {
-    // int zeroEventsCount = 0;
-    try {
-      logger.info(LocalizedMessage.create(LocalizedStrings.AcceptorImpl_SELECTOR_ENABLED));
-      while (this.selector.isOpen() && !Thread.currentThread().isInterrupted()) {
-        {
-          SystemFailure.checkFailure();
-          // this.cache.getDistributedSystem().getCancelCriterion().checkCancelInProgress(null);
-          if (this.cache.isClosed()) { // bug 38834
-            break; // TODO should just ask cache's CancelCriterion
-          }
-          if (this.cache.getCancelCriterion().isCancelInProgress()) {
-            break;
-          }
-          ServerConnection sc;
-          registeredKeys = checkRegisteredKeys(registeredKeys);
-          if (registeredKeys == 0) {
-            // do blocking wait on queue until we get some guys registered
-            // with the selector
-            sc = (ServerConnection) this.selectorQueue.take();
-          } else {
-            // we already have some guys registered so just do a poll on queue
-            sc = (ServerConnection) this.selectorQueue.poll();
-          }
-          while (sc != null) {
-            try {
-              sc.registerWithSelector2(this.selector);
-              registeredKeys++;
-              this.selectorRegistrations.add(sc);
-            } catch (ClosedChannelException cce) {
-              // for bug bug 38474
-              finishCon(sc);
-            } catch (IOException ex) {
-
-              finishCon(sc);
-              logger.warn(LocalizedMessage.create(LocalizedStrings.AcceptorImpl_IGNORING, ex));
-            } catch (RuntimeException ex) {
-              finishCon(sc);
-              logger.warn(LocalizedMessage.create(LocalizedStrings.AcceptorImpl_IGNORING, ex));
-            }
-            sc = (ServerConnection) this.selectorQueue.poll();
-          }
-        }
-        if (registeredKeys == 0) {
-          continue;
-        }
-        int events = this.selector.select();
-        // select() could have returned due to wakeup() during close of cache
-        if (this.cache.getCancelCriterion().isCancelInProgress()) {
-          break;
-        }
-        if (events == 0) {
-          checkForStuckKeys();
-        }
-        while (events > 0) {
-          int cancelCount = 0;
-          Set sk = this.selector.selectedKeys();
-          if (sk == null) {
-            // something really bad has happened I'm not even sure this is possible
-            // but lhughes so an NPE during close one time so perhaps it can happen
-            // during selector close.
-            events = 0;
-            break;
-          }
-          Iterator keysIterator = sk.iterator();
-          while (keysIterator.hasNext()) {
-            SelectionKey key = (SelectionKey) keysIterator.next();
-            // Remove the key from the selector's selectedKeys
-            keysIterator.remove();
-            final ServerConnection sc = (ServerConnection) key.attachment();
-            try {
-              if (key.isValid() && key.isReadable()) {
-                // this is the only event we currently register for
-                try {
-                  key.cancel();
-                  this.selectorRegistrations.remove(sc);
-                  registeredKeys--;
-                  cancelCount++;
-                  sc.makeBlocking();
-                  // we need to say we are processing a message
-                  // so that that client health monitor will not
-                  // kill us while we wait for a thread in the thread pool.
-                  // This is also be used to determine how long we are
-                  // in the thread pool queue and to cancel operations that
-                  // have waited too long in the queue.
-                  sc.setProcessingMessage();
-                } catch (ClosedChannelException ignore) {
-                  finishCon(sc);
-                  continue;
-                } catch (IOException ex) {
-                  finishCon(sc);
-                  if (isRunning()) {
-                    logger.warn(
-                        LocalizedMessage.create(LocalizedStrings.AcceptorImpl_UNEXPECTED, ex));
-                  }
-                  continue;
-                }
-                try {
-                  AcceptorImpl.this.stats.incThreadQueueSize();
-                  AcceptorImpl.this.pool.execute(sc);
-                } catch (RejectedExecutionException rejected) {
-                  finishCon(sc);
-                  AcceptorImpl.this.stats.decThreadQueueSize();
-                  if (!isRunning()) {
-                    break;
-                  }
-                  logger.warn(
-                      LocalizedMessage.create(LocalizedStrings.AcceptorImpl_UNEXPECTED, rejected));
-                }
-              } else {
-                finishCon(sc);
-                if (key.isValid()) {
-                  logger.warn(LocalizedMessage.create(
-                      LocalizedStrings.AcceptorImpl_IGNORING_EVENT_ON_SELECTOR_KEY__0, key));
-                }
-              }
-            } catch (CancelledKeyException ex) { // fix for bug 37739
-              finishCon(sc);
-            }
-          }
-          if (cancelCount > 0 && this.selector.isOpen()) {
-            // we need to do a select to cause the cancel to be unregisters.
-            events = this.selector.selectNow();
-          } else {
-            events = 0;
-          }
-        }
-      }
-    } catch (InterruptedException ex) {
-      // allow this thread to die
-      Thread.currentThread().interrupt();
-    } catch (ClosedSelectorException ex) {
-      // allow this thread to exit
-    } catch (IOException ex) {
-      logger.warn(LocalizedMessage.create(LocalizedStrings.AcceptorImpl_UNEXPECTED, ex));
-    } finally {
-      try {
-        drainSelectorQueue();
-      } finally {
-        // note that if this method was called by close then the
-        // following call is a noop since the first thing it does
-        // is call isRunning.
-        close(); // make sure this is called to fix bug 37749
-      }
-    }
-  }
-
   @Override
   public int getPort() {
     return localPort;
@@ -1226,14 +912,6 @@ public class AcceptorImpl implements Acceptor, Runnable, CommBufferPool {
     }
   }
 
-  public Selector getSelector() {
-    return this.selector;
-  }
-
-  public BlockingQueue getSelectorQueue() {
-    return this.selectorQueue;
-  }
-
   protected boolean loggedAcceptError = false;
 
   protected static void closeSocket(Socket s) {
@@ -1386,21 +1064,12 @@ public class AcceptorImpl implements Acceptor, Runnable, CommBufferPool {
     }
   }
 
-  private ByteBuffer takeCommBuffer() {
-    ByteBuffer result = (ByteBuffer) this.commBufferQueue.poll();
-    if (result == null) {
-      result = ByteBuffer.allocateDirect(this.socketBufferSize);
-    }
-    return result;
+  ByteBuffer takeCommBuffer() {
+    return MessageBufferPool.acquire(this.socketBufferSize);
   }
 
-  private void releaseCommBuffer(ByteBuffer bb) {
-    if (bb == null) { // fix for bug 37107
-      return;
-    }
-    if (isRunning()) {
-      this.commBufferQueue.offer(bb);
-    }
+  void releaseCommBuffer(ByteBuffer bb) {
+    MessageBufferPool.release(bb);
   }
 
   public void incClientServerCnxCount() {
@@ -1427,7 +1096,7 @@ public class AcceptorImpl implements Acceptor, Runnable, CommBufferPool {
     // for processing.
     final CommunicationMode communicationMode;
     try {
-      if (isSelector()) {
+      if (isSelector() && !(socket instanceof MultiplexedSocket)) {
         communicationMode = getCommunicationModeForSelector(socket);
       } else {
         communicationMode = getCommunicationModeForNonSelector(socket);
@@ -1447,6 +1116,11 @@ public class AcceptorImpl implements Acceptor, Runnable, CommBufferPool {
       return;
     }
 
+    if (communicationMode == CommunicationMode.MultiplexedClientToServer) {
+      acceptMultiplexedConnection(socket, serverConnectionFactory);
+      return;
+    }
+
     logger.debug("Bridge server: Initializing {} communication socket: {}", communicationMode,
         socket);
     boolean notForQueue = (communicationMode != ClientToServerForQueue);
@@ -1485,7 +1159,9 @@ public class AcceptorImpl implements Acceptor, Runnable, CommBufferPool {
     if (notForQueue) {
       incClientServerCnxCount();
     }
-    if (isSelector()) {
+    if (serverConn.isMultiplexed()) {
+      serverConn.registerWithMultiplexer();
+    } else if (isSelector()) {
       serverConn.registerWithSelector();
     } else {
       try {
@@ -1511,6 +1187,37 @@ public class AcceptorImpl implements Acceptor, Runnable, CommBufferPool {
     }
   }
 
+  /**
+   * Acknowledges a client's request to multiplex its connections over the given socket. Each
+   * stream the client then opens on it is accepted like a new socket, so it is counted against
+   * the max connections and goes through the usual handshake.
+   */
+  private void acceptMultiplexedConnection(Socket socket,
+      ServerConnectionFactory serverConnectionFactory) throws IOException {
+    if (socket instanceof MultiplexedSocket) {
+      logger.warn("Rejected request to multiplex a multiplexed stream {}", socket);
+      throw new EOFException();
+    }
+    OutputStream out = socket.getOutputStream();
+    out.write(CommunicationMode.SuccessfulServerToClient.getModeNumber());
+    out.flush();
+    SocketMultiplexer multiplexer = SocketMultiplexer.forServer(socket, this.socketBufferSize,
+        stream -> handOffNewClientConnection(stream, serverConnectionFactory));
+    this.multiplexers.removeIf(SocketMultiplexer::isClosed);
+    this.multiplexers.add(multiplexer);
+    if (!isRunning()) {
+      multiplexer.close();
+    }
+  }
+
+  /**
+   * Runs the given connection, which must be multiplexed, on the pool that processes client
+   * messages.
+   */
+  void executeServerConnection(ServerConnection serverConn) {
+    this.pool.execute(serverConn);
+  }
+
   static final byte REPLY_REFUSED = (byte) 60;
   static final byte REPLY_INVALID = (byte) 61;
 
@@ -1626,6 +1333,7 @@ public class AcceptorImpl implements Acceptor, Runnable, CommBufferPool {
         shutdownSelectorIfIsSelector();
         ClientHealthMonitor.shutdownInstance();
         shutdownSCs();
+        shutdownMultiplexers();
         this.clientNotifier.shutdown(this.acceptorId);
         shutdownPools();
         this.stats.close();
@@ -1667,21 +1375,9 @@ public class AcceptorImpl implements Acceptor, Runnable, CommBufferPool {
   private void shutdownSelectorIfIsSelector() {
     if (isSelector()) {
       this.hsTimer.cancel();
-      if (this.tmpSel != null) {
-        try {
-          this.tmpSel.close();
-        } catch (IOException ignore) {
-        }
-      }
-      try {
-        wakeupSelector();
-        this.selector.close();
-      } catch (IOException ignore) {
-      }
-      if (this.selectorThread != null) {
-        this.selectorThread.interrupt();
+      for (ServerConnectionSelector selector : this.selectors) {
+        selector.close();
       }
-      this.commBufferQueue.clear();
     }
   }
 
@@ -1701,6 +1397,13 @@ public class AcceptorImpl implements Acceptor, Runnable, CommBufferPool {
     this.hsPool.shutdown();
   }
 
+  private void shutdownMultiplexers() {
+    for (SocketMultiplexer multiplexer : this.multiplexers) {
+      multiplexer.close();
+    }
+    this.multiplexers.clear();
+  }
+
   private void shutdownSCs() {
     // added to fix part 2 of bug 37351.
     synchronized (this.allSCsLock) {
@@ -1712,11 +1415,16 @@ public class AcceptorImpl implements Acceptor, Runnable, CommBufferPool {
   }
 
   public boolean isShutdownProperly() {
-    return !isRunning() && !thread.isAlive()
-        && (selectorThread == null || !selectorThread.isAlive())
-        && (pool == null || pool.isShutdown()) && (hsPool == null || hsPool.isShutdown())
-        && (clientQueueInitPool == null || clientQueueInitPool.isShutdown())
-        && (selector == null || !selector.isOpen()) && (tmpSel == null || !tmpSel.isOpen());
+    if (selectors != null) {
+      for (ServerConnectionSelector selector : selectors) {
+        if (!selector.isShutdownProperly()) {
+          return false;
+        }
+      }
+    }
+    return !isRunning() && !thread.isAlive() && (pool == null || pool.isShutdown())
+        && (hsPool == null || hsPool.isShutdown())
+        && (clientQueueInitPool == null || clientQueueInitPool.isShutdown());
   }
 
   /**
@@ -875,6 +875,8 @@ public class CacheClientNotifier {
       }
     }
 
+    clientMessage.dropValueIfOnlyInvalidating();
+
     Conflatable conflatable = null;
 
     if (clientMessage instanceof ClientTombstoneMessage) {
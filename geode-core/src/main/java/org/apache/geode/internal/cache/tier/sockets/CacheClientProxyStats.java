@@ -382,4 +382,12 @@ public class CacheClientProxyStats implements MessageStats {
   public void decMessagesBeingReceived(int bytes) {
     // noop since we never receive
   }
+
+  public void incSentCompressedBytes(long uncompressedBytes, long compressedBytes) {
+    // noop since subscription messages are not compressed
+  }
+
+  public void incReceivedCompressedBytes(long uncompressedBytes, long compressedBytes) {
+    // noop since we never receive
+  }
 }
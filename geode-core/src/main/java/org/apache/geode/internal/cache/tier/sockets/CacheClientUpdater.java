@@ -1904,6 +1904,16 @@ public class CacheClientUpdater extends Thread implements ClientUpdater, Disconn
       }
     }
 
+    @Override
+    public void incSentCompressedBytes(long uncompressedBytes, long compressedBytes) {
+      // noop since we never send messages
+    }
+
+    @Override
+    public void incReceivedCompressedBytes(long uncompressedBytes, long compressedBytes) {
+      // noop since subscription messages are not compressed
+    }
+
     /**
      * Returns the current time (ns).
      *
@@ -18,9 +18,11 @@ import org.apache.geode.StatisticDescriptor;
 import org.apache.geode.Statistics;
 import org.apache.geode.StatisticsFactory;
 import org.apache.geode.StatisticsType;
+import org.apache.geode.StatisticsTypeFactory;
 import org.apache.geode.cache.server.ServerLoad;
 import org.apache.geode.distributed.internal.InternalDistributedSystem;
 import org.apache.geode.distributed.internal.PoolStatHelper;
+import org.apache.geode.internal.statistics.StatisticsTypeFactoryImpl;
 
 /**
  * Cache Server statistic definitions
@@ -201,6 +203,10 @@ public class CacheServerStats implements MessageStats {
 
   int receivedBytesId;
   int sentBytesId;
+  int sentUncompressedBytesId;
+  int sentCompressedBytesId;
+  int receivedUncompressedBytesId;
+  int receivedCompressedBytesId;
 
   int outOfOrderBatchIdsId;
   int abandonedWriteRequestsId;
@@ -224,6 +230,8 @@ public class CacheServerStats implements MessageStats {
 
   protected StatisticsType statType;
 
+  private StatisticsFactory statisticsFactory;
+
   public CacheServerStats(String ownerName) {
     this(InternalDistributedSystem.getAnyInstance(), ownerName, typeName, null);
   }
@@ -239,6 +247,7 @@ public class CacheServerStats implements MessageStats {
       // Create statistics later when needed
       return;
     }
+    this.statisticsFactory = statisticsFactory;
     StatisticDescriptor[] serverStatDescriptors = new StatisticDescriptor[] {
         statisticsFactory.createIntCounter("getRequests", "Number of cache client get requests.",
             "operations"),
@@ -445,6 +454,18 @@ public class CacheServerStats implements MessageStats {
             "Total number of bytes received from clients.", "bytes"),
         statisticsFactory.createLongCounter("sentBytes", "Total number of bytes sent to clients.",
             "bytes"),
+        statisticsFactory.createLongCounter("sentUncompressedBytes",
+            "Total number of bytes of the message parts sent compressed to clients, before they were compressed.",
+            "bytes"),
+        statisticsFactory.createLongCounter("sentCompressedBytes",
+            "Total number of bytes of the message parts sent compressed to clients, after they were compressed.",
+            "bytes"),
+        statisticsFactory.createLongCounter("receivedUncompressedBytes",
+            "Total number of bytes of the message parts received compressed from clients, after they were decompressed.",
+            "bytes"),
+        statisticsFactory.createLongCounter("receivedCompressedBytes",
+            "Total number of bytes of the message parts received compressed from clients, before they were decompressed.",
+            "bytes"),
         statisticsFactory.createIntGauge("messagesBeingReceived",
             "Current number of message being received off the network or being processed after reception.",
             "messages"),
@@ -587,6 +608,10 @@ public class CacheServerStats implements MessageStats {
 
     receivedBytesId = this.stats.nameToId("receivedBytes");
     sentBytesId = this.stats.nameToId("sentBytes");
+    sentUncompressedBytesId = this.stats.nameToId("sentUncompressedBytes");
+    sentCompressedBytesId = this.stats.nameToId("sentCompressedBytes");
+    receivedUncompressedBytesId = this.stats.nameToId("receivedUncompressedBytes");
+    receivedCompressedBytesId = this.stats.nameToId("receivedCompressedBytes");
 
     messagesBeingReceivedId = this.stats.nameToId("messagesBeingReceived");
     messageBytesBeingReceivedId = this.stats.nameToId("messageBytesBeingReceived");
@@ -683,6 +708,10 @@ public class CacheServerStats implements MessageStats {
     this.stats.incInt(threadQueueSizeId, -1);
   }
 
+  public int getThreadQueueSize() {
+    return this.stats.getInt(threadQueueSizeId);
+  }
+
   public void incReadGetRequestTime(long delta) {
     this.stats.incLong(readGetRequestTimeId, delta);
     this.stats.incInt(getRequestsId, 1);
@@ -938,6 +967,16 @@ public class CacheServerStats implements MessageStats {
     this.stats.incLong(sentBytesId, v);
   }
 
+  public void incSentCompressedBytes(long uncompressedBytes, long compressedBytes) {
+    this.stats.incLong(sentUncompressedBytesId, uncompressedBytes);
+    this.stats.incLong(sentCompressedBytesId, compressedBytes);
+  }
+
+  public void incReceivedCompressedBytes(long uncompressedBytes, long compressedBytes) {
+    this.stats.incLong(receivedUncompressedBytesId, uncompressedBytes);
+    this.stats.incLong(receivedCompressedBytesId, compressedBytes);
+  }
+
   public void incMessagesBeingReceived(int bytes) {
     stats.incInt(messagesBeingReceivedId, 1);
     if (bytes > 0) {
@@ -1012,4 +1051,110 @@ public class CacheServerStats implements MessageStats {
   public Statistics getStats() {
     return stats;
   }
+
+  /**
+   * Creates the statistics of one of the selector threads of a cache server that uses a selector.
+   */
+  public SelectorStats createSelectorStats(String selectorName) {
+    StatisticsFactory factory = this.statisticsFactory;
+    if (factory == null) {
+      factory = InternalDistributedSystem.getAnyInstance();
+    }
+    return new SelectorStats(factory, selectorName);
+  }
+
+  /**
+   * Statistics of one selector thread of a cache server. A selector thread waits for requests on
+   * the idle connections registered with it and hands each request to the server connection thread
+   * pool once it has been read.
+   */
+  public static class SelectorStats {
+
+    private static final StatisticsType type;
+
+    private static final int connectionsId;
+    private static final int queueSizeId;
+    private static final int dispatchesId;
+    private static final int dispatchTimeId;
+    private static final int prefetchedBytesId;
+
+    static {
+      StatisticsTypeFactory f = StatisticsTypeFactoryImpl.singleton();
+      type = f.createType("CacheServerSelectorStats",
+          "Statistics about a selector thread of a cache server", new StatisticDescriptor[] {
+              f.createIntGauge("connections",
+                  "Current number of idle client connections registered with this selector.",
+                  "connections"),
+              f.createIntGauge("queueSize",
+                  "Current number of requests detected by this selector that are waiting for a thread to start processing them.",
+                  "requests"),
+              f.createLongCounter("dispatches",
+                  "Total number of requests this selector has handed to the server connection thread pool.",
+                  "requests"),
+              f.createLongCounter("dispatchTime",
+                  "Total time requests detected by this selector waited for a thread to start processing them.",
+                  "nanoseconds"),
+              f.createLongCounter("prefetchedBytes",
+                  "Total number of request bytes read by this selector before handing the request to a thread.",
+                  "bytes")});
+      connectionsId = type.nameToId("connections");
+      queueSizeId = type.nameToId("queueSize");
+      dispatchesId = type.nameToId("dispatches");
+      dispatchTimeId = type.nameToId("dispatchTime");
+      prefetchedBytesId = type.nameToId("prefetchedBytes");
+    }
+
+    private final Statistics stats;
+
+    SelectorStats(StatisticsFactory factory, String name) {
+      this.stats = factory.createAtomicStatistics(type, name);
+    }
+
+    public void incConnections() {
+      this.stats.incInt(connectionsId, 1);
+    }
+
+    public void decConnections() {
+      this.stats.incInt(connectionsId, -1);
+    }
+
+    public int getConnections() {
+      return this.stats.getInt(connectionsId);
+    }
+
+    public void incQueueSize() {
+      this.stats.incInt(queueSizeId, 1);
+    }
+
+    public void decQueueSize() {
+      this.stats.incInt(queueSizeId, -1);
+    }
+
+    /**
+     * Records that a thread has started processing a request this selector dispatched.
+     *
+     * @param dispatchTime the time, from {@link System#nanoTime()}, the request was dispatched
+     */
+    public void endDispatch(long dispatchTime) {
+      this.stats.incInt(queueSizeId, -1);
+      this.stats.incLong(dispatchesId, 1);
+      this.stats.incLong(dispatchTimeId, System.nanoTime() - dispatchTime);
+    }
+
+    public int getQueueSize() {
+      return this.stats.getInt(queueSizeId);
+    }
+
+    public long getDispatches() {
+      return this.stats.getLong(dispatchesId);
+    }
+
+    public void incPrefetchedBytes(long bytes) {
+      this.stats.incLong(prefetchedBytesId, bytes);
+    }
+
+    public void close() {
+      this.stats.close();
+    }
+  }
 }
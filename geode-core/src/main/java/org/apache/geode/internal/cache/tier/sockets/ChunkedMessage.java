@@ -194,7 +194,7 @@ public class ChunkedMessage extends Message {
   public void readHeader() throws IOException {
     if (this.socket != null) {
       final ByteBuffer cb = getCommBuffer();
-      synchronized (cb) {
+      withCommBufferLocked(cb, () -> {
         fetchHeader();
         final int type = cb.getInt();
         final int numParts = cb.getInt();
@@ -212,7 +212,7 @@ public class ChunkedMessage extends Message {
         this.messageType = type;
         this.numberOfParts = numParts; // Already set in setPayloadFields via setNumberOfParts
         this.transactionId = txid;
-      }
+      });
     } else {
       throw new IOException(LocalizedStrings.ChunkedMessage_DEAD_CONNECTION.toLocalizedString());
     }
@@ -223,9 +223,7 @@ public class ChunkedMessage extends Message {
    */
   public void receiveChunk() throws IOException {
     if (this.socket != null) {
-      synchronized (getCommBuffer()) {
-        readChunk();
-      }
+      withCommBufferLocked(getCommBuffer(), this::readChunk);
     } else {
       throw new IOException(LocalizedStrings.ChunkedMessage_DEAD_CONNECTION.toLocalizedString());
     }
@@ -281,13 +279,13 @@ public class ChunkedMessage extends Message {
    */
   public void sendHeader() throws IOException {
     if (this.socket != null) {
-      synchronized (getCommBuffer()) {
+      withCommBufferLocked(getCommBuffer(), () -> {
         getDSCODEsForWrite();
         flushBuffer();
         // Darrel says: I see no need for the following os.flush() call
         // so I've deadcoded it for performance.
         // this.os.flush();
-      }
+      });
       this.currentPart = 0;
       this.headerSent = true;
     } else {
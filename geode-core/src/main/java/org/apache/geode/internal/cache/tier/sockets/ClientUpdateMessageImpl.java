@@ -145,6 +145,14 @@ public class ClientUpdateMessageImpl implements ClientUpdateMessage, Sizeable, N
 
   private VersionTag versionTag;
 
+  /**
+   * True if the value of this create or update was dropped because every client it was routed to
+   * only receives invalidations.
+   *
+   * @since Geode 1.8
+   */
+  private boolean valueDropped;
+
   /* added up all constants and form single value */
   private static final int CONSTANT_MEMORY_OVERHEAD;
 
@@ -390,7 +398,7 @@ public class ClientUpdateMessageImpl implements ClientUpdateMessage, Sizeable, N
 
     if (isCreate() || isUpdate()) {
       // Create or update event
-      if (this._clientInterestListInv != null && this._clientInterestListInv.contains(proxyId)) {
+      if (isSentAsInvalidation(proxyId)) {
         // Notify all - do not send the value
         message = new Message(6, clientVersion);
         message.setMessageType(MessageType.LOCAL_INVALIDATE);
@@ -500,7 +508,7 @@ public class ClientUpdateMessageImpl implements ClientUpdateMessage, Sizeable, N
 
     if (isCreate() || isUpdate()) {
       // Create or update event
-      if (this._clientInterestListInv != null && this._clientInterestListInv.contains(proxyId)) {
+      if (isSentAsInvalidation(proxyId)) {
         // Notify all - do not send the value
         message = new Message(6, clientVersion);
         message.setMessageType(MessageType.LOCAL_INVALIDATE);
@@ -665,7 +673,7 @@ public class ClientUpdateMessageImpl implements ClientUpdateMessage, Sizeable, N
 
     if (isCreate() || isUpdate()) {
       // Create or update event
-      if (this._clientInterestListInv != null && this._clientInterestListInv.contains(proxyId)) {
+      if (isSentAsInvalidation(proxyId)) {
         // Client is registered for invalidates.
         if (cqMsgParts > 0) {
           cqMsgParts++; // To store base operation type for CQ.
@@ -825,7 +833,7 @@ public class ClientUpdateMessageImpl implements ClientUpdateMessage, Sizeable, N
 
     if (isCreate() || isUpdate()) {
       // Create or update event
-      if (this._clientInterestListInv != null && this._clientInterestListInv.contains(proxyId)) {
+      if (isSentAsInvalidation(proxyId)) {
         // Client is registered for invalidates.
         if (cqMsgParts > 0) {
           cqMsgParts++; // To store base operation type for CQ.
@@ -1174,6 +1182,45 @@ public class ClientUpdateMessageImpl implements ClientUpdateMessage, Sizeable, N
     }
   }
 
+  /**
+   * Drops the value of a create or update that is only routed to clients that receive
+   * invalidations, so that it is not kept in their subscription queues. Must be called once the
+   * message's routing is complete.
+   *
+   * @since Geode 1.8
+   */
+  public void dropValueIfOnlyInvalidating() {
+    if ((isCreate() || isUpdate()) && !this._hasCqs
+        && (this._clientInterestList == null || this._clientInterestList.isEmpty())
+        && this._clientInterestListInv != null && !this._clientInterestListInv.isEmpty()) {
+      this._value = null;
+      this.deltaBytes = null;
+      this.valueDropped = true;
+    }
+  }
+
+  /**
+   * Takes the value back from another message for the same event if this message dropped its value
+   * but the other did not. Called when routing from the other message is merged into this one.
+   *
+   * @since Geode 1.8
+   */
+  public void restoreDroppedValue(ClientUpdateMessageImpl other) {
+    if (this.valueDropped && !other.valueDropped) {
+      this._value = other._value;
+      this.deltaBytes = other.deltaBytes;
+      this.valueDropped = false;
+    }
+  }
+
+  /**
+   * Returns true if a create or update is sent to the given client as an invalidation. That is the
+   * case for clients that asked for invalidations, and for every client once the value was dropped.
+   */
+  private boolean isSentAsInvalidation(ClientProxyMembershipID proxyId) {
+    return this.valueDropped || isClientInterestedInInvalidates(proxyId);
+  }
+
   public boolean isClientInterested(ClientProxyMembershipID clientId) {
     return (this._clientInterestList != null && this._clientInterestList.contains(clientId))
         || (this._clientInterestListInv != null && this._clientInterestListInv.contains(clientId));
@@ -1226,7 +1273,9 @@ public class ClientUpdateMessageImpl implements ClientUpdateMessage, Sizeable, N
     out.writeByte(_operation.getEventCode());
     DataSerializer.writeString(_regionName, out);
     DataSerializer.writeObject(_keyOfInterest, out);
-    if (_value instanceof byte[]) {
+    if (this.valueDropped) {
+      DataSerializer.writeByteArray(null, out);
+    } else if (_value instanceof byte[]) {
       DataSerializer.writeByteArray((byte[]) _value, out);
     } else {
       DataSerializer.writeByteArray(CacheServerHelper.serialize(_value), out);
@@ -1245,6 +1294,9 @@ public class ClientUpdateMessageImpl implements ClientUpdateMessage, Sizeable, N
     DataSerializer.writeHashSet((HashSet) this._clientInterestList, out);
     DataSerializer.writeHashSet((HashSet) this._clientInterestListInv, out);
     DataSerializer.writeObject(this.versionTag, out);
+    if (InternalDataSerializer.getVersionForDataStream(out).compareTo(Version.GEODE_180) >= 0) {
+      out.writeBoolean(this.valueDropped);
+    }
   }
 
   public void fromData(DataInput in) throws IOException, ClassNotFoundException {
@@ -1281,6 +1333,9 @@ public class ClientUpdateMessageImpl implements ClientUpdateMessage, Sizeable, N
     this._clientInterestListInv = ids;
 
     this.versionTag = (VersionTag) DataSerializer.readObject(in);
+    if (InternalDataSerializer.getVersionForDataStream(in).compareTo(Version.GEODE_180) >= 0) {
+      this.valueDropped = in.readBoolean();
+    }
   }
 
   private Object getOriginalCallbackArgument() {
@@ -49,4 +49,11 @@ public interface ConnectionListener {
    * Indicates that a queue was removed from this Acceptor.
    */
   void queueRemoved();
+
+  /**
+   * Indicates that a client operation was processed by this acceptor.
+   *
+   * @param elapsedNanos how long the operation took to process
+   */
+  void operationCompleted(long elapsedNanos);
 }
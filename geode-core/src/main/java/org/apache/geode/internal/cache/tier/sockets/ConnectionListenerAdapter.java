@@ -31,4 +31,6 @@ public class ConnectionListenerAdapter implements ConnectionListener {
   public void queueAdded(ClientProxyMembershipID id) {}
 
   public void queueRemoved() {}
+
+  public void operationCompleted(long elapsedNanos) {}
 }
@@ -32,6 +32,7 @@ import org.apache.geode.cache.client.ServerRefusedConnectionException;
 import org.apache.geode.cache.client.internal.ClientSideHandshakeImpl;
 import org.apache.geode.distributed.DistributedMember;
 import org.apache.geode.distributed.DistributedSystem;
+import org.apache.geode.distributed.internal.DistributionConfig;
 import org.apache.geode.internal.ClassLoadUtil;
 import org.apache.geode.internal.HeapDataOutputStream;
 import org.apache.geode.internal.Version;
@@ -68,6 +69,15 @@ public abstract class Handshake {
   protected static final byte REPLY_AUTH_NOT_REQUIRED = (byte) 66;
 
   public static final byte REPLY_SERVER_IS_LOCATOR = (byte) 67;
+
+  /**
+   * Sent instead of {@link #REPLY_OK} by a server that agreed to the compression asked for by the
+   * client. Servers that do not know about compression always reply with REPLY_OK.
+   *
+   * @since Geode 1.8
+   */
+  protected static final byte REPLY_OK_COMPRESSED = (byte) 68;
+
   /**
    * Test hook for client version support
    *
@@ -122,6 +132,28 @@ public abstract class Handshake {
   /** @since GemFire 5.7 */
   protected byte clientConflation = CONFLATION_DEFAULT;
 
+  /**
+   * Set in the overrides byte by a client that wants the messages on its connection compressed.
+   * Older servers only look at the conflation bits, so they ignore it.
+   *
+   * @since Geode 1.8
+   */
+  protected static final byte COMPRESSION_REQUESTED = 0x04;
+
+  /**
+   * Parts of client messages at least this long are compressed. If zero, the default, clients do
+   * not ask servers for compression.
+   */
+  protected static final int CLIENT_COMPRESSION_THRESHOLD =
+      Integer.getInteger(DistributionConfig.GEMFIRE_PREFIX + "client.compression-threshold", 0);
+
+  /**
+   * Parts of server messages at least this long are compressed for the clients that ask for it. If
+   * zero, servers do not agree to compression.
+   */
+  protected static final int SERVER_COMPRESSION_THRESHOLD = Integer
+      .getInteger(DistributionConfig.GEMFIRE_PREFIX + "CacheServer.COMPRESSION_THRESHOLD", 8192);
+
   /**
    * @since GemFire 6.0.3 List of per client property override bits.
    */
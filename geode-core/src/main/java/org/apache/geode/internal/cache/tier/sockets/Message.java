@@ -25,10 +25,14 @@ import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
 
 import org.apache.logging.log4j.Logger;
 
 import org.apache.geode.SerializationException;
+import org.apache.geode.compression.CompressionException;
+import org.apache.geode.compression.Compressor;
+import org.apache.geode.compression.SnappyCompressor;
 import org.apache.geode.distributed.internal.DistributionConfig;
 import org.apache.geode.internal.Assert;
 import org.apache.geode.internal.HeapDataOutputStream;
@@ -92,7 +96,7 @@ public class Message {
 
   private static final int PART_HEADER_SIZE = 5; // 4 bytes for length, 1 byte for isObject
 
-  private static final int FIXED_LENGTH = 17;
+  static final int FIXED_LENGTH = 17;
 
   private static final ThreadLocal<ByteBuffer> tlCommBuffer = new ThreadLocal<>();
 
@@ -111,6 +115,8 @@ public class Message {
 
   private static final int NO_HEADER_READ_TIMEOUT = 0;
 
+  private static final Compressor compressor = new SnappyCompressor();
+
   private static byte[] defineTrue() {
     try (HeapDataOutputStream hdos = new HeapDataOutputStream(10, null)) {
       BlobHelper.serializeTo(Boolean.TRUE, hdos);
@@ -141,6 +147,7 @@ public class Message {
   int currentPart = 0;
   private Part[] partsList = null;
   private ByteBuffer cachedCommBuffer;
+  private Lock commBufferLock;
   protected Socket socket = null;
   private SocketChannel socketChannel = null;
   private OutputStream outputStream = null;
@@ -164,6 +171,9 @@ public class Message {
 
   private Version version;
 
+  /** parts at least this long are compressed when sent; zero if the receiver did not agree to it */
+  private int compressionThreshold;
+
   /**
    * Creates a new message with the given number of parts
    */
@@ -200,6 +210,16 @@ public class Message {
     this.version = clientVersion;
   }
 
+  /**
+   * Sets the length at or above which parts are compressed when this message is sent. Only set this
+   * to something other than zero if the receiver agreed to compression during its handshake.
+   *
+   * @since Geode 1.8
+   */
+  public void setCompressionThreshold(int compressionThreshold) {
+    this.compressionThreshold = compressionThreshold;
+  }
+
   public void setMessageHasSecurePartFlag() {
     this.flags |= MESSAGE_HAS_SECURE_PART;
   }
@@ -559,80 +579,151 @@ public class Message {
       if (commBuffer == null) {
         throw new IOException("No buffer");
       }
-      synchronized (commBuffer) {
-        long totalPartLen = 0;
-        long headerLen = 0;
-        int partsToTransmit = this.numberOfParts;
-
-        for (int i = 0; i < this.numberOfParts; i++) {
-          Part part = this.partsList[i];
-          headerLen += PART_HEADER_SIZE;
-          totalPartLen += part.getLength();
-        }
+      withCommBufferLocked(commBuffer, () -> writeParts(commBuffer));
+    } finally {
+      if (clearMessage) {
+        clearParts();
+      }
+    }
+  }
 
-        Part securityPart = this.getSecurityPart();
-        if (securityPart == null) {
-          securityPart = this.securePart;
-        }
-        if (securityPart != null) {
-          headerLen += PART_HEADER_SIZE;
-          totalPartLen += securityPart.getLength();
-          partsToTransmit++;
-        }
+  /**
+   * Writes the header and parts of this message to its socket through the comm buffer, which must
+   * be locked.
+   */
+  private void writeParts(ByteBuffer commBuffer) throws IOException {
+    long totalPartLen = 0;
+    long headerLen = 0;
+    int partsToTransmit = this.numberOfParts;
+    Part[] parts = this.partsList;
+    if (this.compressionThreshold > 0) {
+      parts = compressParts();
+    }
 
-        if (headerLen + totalPartLen > Integer.MAX_VALUE) {
-          throw new MessageTooLargeException(
-              "Message size (" + (headerLen + totalPartLen) + ") exceeds maximum integer value");
-        }
+    for (int i = 0; i < this.numberOfParts; i++) {
+      Part part = parts[i];
+      headerLen += PART_HEADER_SIZE;
+      totalPartLen += part.getLength();
+    }
 
-        int msgLen = (int) (headerLen + totalPartLen);
+    Part securityPart = this.getSecurityPart();
+    if (securityPart == null) {
+      securityPart = this.securePart;
+    }
+    if (securityPart != null) {
+      headerLen += PART_HEADER_SIZE;
+      totalPartLen += securityPart.getLength();
+      partsToTransmit++;
+    }
 
-        if (msgLen > this.maxMessageSize) {
-          throw new MessageTooLargeException("Message size (" + msgLen
-              + ") exceeds gemfire.client.max-message-size setting (" + this.maxMessageSize + ")");
-        }
+    if (headerLen + totalPartLen > Integer.MAX_VALUE) {
+      throw new MessageTooLargeException(
+          "Message size (" + (headerLen + totalPartLen) + ") exceeds maximum integer value");
+    }
 
-        commBuffer.clear();
-        packHeaderInfoForSending(msgLen, securityPart != null);
-        for (int i = 0; i < partsToTransmit; i++) {
-          Part part = i == this.numberOfParts ? securityPart : this.partsList[i];
+    int msgLen = (int) (headerLen + totalPartLen);
 
-          if (commBuffer.remaining() < PART_HEADER_SIZE) {
-            flushBuffer();
-          }
+    if (msgLen > this.maxMessageSize) {
+      throw new MessageTooLargeException("Message size (" + msgLen
+          + ") exceeds gemfire.client.max-message-size setting (" + this.maxMessageSize + ")");
+    }
 
-          int partLen = part.getLength();
-          commBuffer.putInt(partLen);
-          commBuffer.put(part.getTypeCode());
-          if (partLen <= commBuffer.remaining()) {
-            part.writeTo(commBuffer);
-          } else {
-            flushBuffer();
-            if (this.socketChannel != null) {
-              part.writeTo(this.socketChannel, commBuffer);
-            } else {
-              part.writeTo(this.outputStream, commBuffer);
-            }
-            if (this.messageStats != null) {
-              this.messageStats.incSentBytes(partLen);
-            }
-          }
-        }
-        if (commBuffer.position() != 0) {
-          flushBuffer();
+    commBuffer.clear();
+    packHeaderInfoForSending(msgLen, securityPart != null);
+    for (int i = 0; i < partsToTransmit; i++) {
+      Part part = i == this.numberOfParts ? securityPart : parts[i];
+
+      if (commBuffer.remaining() < PART_HEADER_SIZE) {
+        flushBuffer();
+      }
+
+      int partLen = part.getLength();
+      commBuffer.putInt(partLen);
+      commBuffer.put(part.getTypeCode());
+      if (partLen <= commBuffer.remaining()) {
+        part.writeTo(commBuffer);
+      } else if (this.socketChannel != null) {
+        // the part is gathered into the same write as what is in the buffer
+        int bufferedBytes = commBuffer.position();
+        part.writeTo(this.socketChannel, commBuffer);
+        if (this.messageStats != null) {
+          this.messageStats.incSentBytes(bufferedBytes + partLen);
         }
-        this.messageModified = false;
-        if (this.socketChannel == null) {
-          this.outputStream.flush();
+      } else {
+        flushBuffer();
+        part.writeTo(this.outputStream, commBuffer);
+        if (this.messageStats != null) {
+          this.messageStats.incSentBytes(partLen);
         }
       }
-    } finally {
-      if (clearMessage) {
-        clearParts();
+    }
+    if (commBuffer.position() != 0) {
+      flushBuffer();
+    }
+    this.messageModified = false;
+    if (this.socketChannel == null) {
+      this.outputStream.flush();
+    }
+  }
+
+  /**
+   * Work done while holding the lock of a comm buffer.
+   */
+  interface CommBufferTask {
+    void run() throws IOException;
+  }
+
+  /**
+   * Runs the task while holding the lock of the comm buffer. That is the monitor of the buffer,
+   * unless the server connection of this message has given it a lock: a virtual thread that blocks
+   * in socket IO while holding a monitor pins the platform thread carrying it.
+   */
+  void withCommBufferLocked(ByteBuffer commBuffer, CommBufferTask task) throws IOException {
+    Lock lock = this.commBufferLock;
+    if (lock == null) {
+      synchronized (commBuffer) {
+        task.run();
+      }
+    } else {
+      lock.lock();
+      try {
+        task.run();
+      } finally {
+        lock.unlock();
       }
     }
   }
 
+  /**
+   * Returns the parts to send, with those at least as long as the compression threshold replaced by
+   * compressed copies. The parts of this message are left as they are so that it can be sent again
+   * to a receiver that does not compress.
+   */
+  private Part[] compressParts() {
+    Part[] parts = this.partsList;
+    long uncompressedBytes = 0;
+    long compressedBytes = 0;
+    for (int i = 0; i < this.numberOfParts; i++) {
+      Part part = this.partsList[i];
+      if (part.getLength() < this.compressionThreshold) {
+        continue;
+      }
+      Part compressed = part.compress(compressor);
+      if (compressed != null) {
+        if (parts == this.partsList) {
+          parts = this.partsList.clone();
+        }
+        parts[i] = compressed;
+        uncompressedBytes += part.getLength();
+        compressedBytes += compressed.getLength();
+      }
+    }
+    if (compressedBytes > 0 && this.messageStats != null) {
+      this.messageStats.incSentCompressedBytes(uncompressedBytes, compressedBytes);
+    }
+    return parts;
+  }
+
   void flushBuffer() throws IOException {
     final ByteBuffer cb = getCommBuffer();
     if (this.socketChannel != null) {
@@ -776,6 +867,20 @@ public class Message {
     }
   }
 
+  /**
+   * Reads bytes into the given buffer, first taking any that the selector of a server connection
+   * has already read off the channel.
+   */
+  private int readFromChannel(ByteBuffer dst) throws IOException {
+    if (this.serverConnection != null) {
+      int bytesRead = this.serverConnection.readPrefetched(dst);
+      if (bytesRead > 0) {
+        return bytesRead;
+      }
+    }
+    return this.socketChannel.read(dst);
+  }
+
   /**
    * Read the actual bytes of the header off the socket
    */
@@ -791,7 +896,7 @@ public class Message {
     if (this.socketChannel != null) {
       cb.limit(headerLength);
       do {
-        int bytesRead = this.socketChannel.read(cb);
+        int bytesRead = readFromChannel(cb);
         if (bytesRead == -1) {
           throw new EOFException(
               LocalizedStrings.Message_THE_CONNECTION_HAS_BEEN_RESET_WHILE_READING_THE_HEADER
@@ -892,50 +997,79 @@ public class Message {
         // now we need to read partLen - alreadyReadBytes off the wire
         int off = alreadyReadBytes;
         int remaining = partLen - off;
-        while (remaining > 0) {
-          if (this.socketChannel != null) {
-            int bytesThisTime = remaining;
-            cb.clear();
-            if (bytesThisTime > cb.capacity()) {
-              bytesThisTime = cb.capacity();
-            }
-            cb.limit(bytesThisTime);
-            int res = this.socketChannel.read(cb);
-            if (res != -1) {
-              cb.flip();
-              bytesRemaining -= res;
-              remaining -= res;
-              cb.get(partBytes, off, res);
-              off += res;
-              if (this.messageStats != null) {
-                this.messageStats.incReceivedBytes(res);
+        ByteBuffer readBuffer = cb;
+        if (this.socketChannel != null && remaining > cb.capacity()) {
+          // read the rest of a large part with fewer reads
+          readBuffer =
+              MessageBufferPool.acquire(Math.min(remaining, MessageBufferPool.CHUNK_SIZE));
+        }
+        try {
+          while (remaining > 0) {
+            if (this.socketChannel != null) {
+              int bytesThisTime = remaining;
+              readBuffer.clear();
+              if (bytesThisTime > readBuffer.capacity()) {
+                bytesThisTime = readBuffer.capacity();
               }
-            } else {
-              throw new EOFException(
-                  LocalizedStrings.Message_THE_CONNECTION_HAS_BEEN_RESET_WHILE_READING_A_PART
-                      .toLocalizedString());
-            }
-          } else {
-            int res = this.inputStream.read(partBytes, off, remaining);
-            if (res != -1) {
-              bytesRemaining -= res;
-              remaining -= res;
-              off += res;
-              if (this.messageStats != null) {
-                this.messageStats.incReceivedBytes(res);
+              readBuffer.limit(bytesThisTime);
+              int res = readFromChannel(readBuffer);
+              if (res != -1) {
+                readBuffer.flip();
+                bytesRemaining -= res;
+                remaining -= res;
+                readBuffer.get(partBytes, off, res);
+                off += res;
+                if (this.messageStats != null) {
+                  this.messageStats.incReceivedBytes(res);
+                }
+              } else {
+                throw new EOFException(
+                    LocalizedStrings.Message_THE_CONNECTION_HAS_BEEN_RESET_WHILE_READING_A_PART
+                        .toLocalizedString());
               }
             } else {
-              throw new EOFException(
-                  LocalizedStrings.Message_THE_CONNECTION_HAS_BEEN_RESET_WHILE_READING_A_PART
-                      .toLocalizedString());
+              int res = this.inputStream.read(partBytes, off, remaining);
+              if (res != -1) {
+                bytesRemaining -= res;
+                remaining -= res;
+                off += res;
+                if (this.messageStats != null) {
+                  this.messageStats.incReceivedBytes(res);
+                }
+              } else {
+                throw new EOFException(
+                    LocalizedStrings.Message_THE_CONNECTION_HAS_BEEN_RESET_WHILE_READING_A_PART
+                        .toLocalizedString());
+              }
             }
           }
+        } finally {
+          if (readBuffer != cb) {
+            MessageBufferPool.release(readBuffer);
+          }
         }
       }
+      if ((partType & Part.COMPRESSED_BIT) != 0 && partBytes != null) {
+        partType &= ~Part.COMPRESSED_BIT;
+        partBytes = decompress(partBytes);
+      }
       part.init(partBytes, partType);
     }
   }
 
+  private byte[] decompress(byte[] compressed) throws IOException {
+    byte[] result;
+    try {
+      result = compressor.decompress(compressed);
+    } catch (CompressionException e) {
+      throw new IOException("Unable to decompress a message part", e);
+    }
+    if (this.messageStats != null) {
+      this.messageStats.incReceivedCompressedBytes(result.length, compressed.length);
+    }
+    return result;
+  }
+
   protected int checkAndSetSecurityPart() {
     if ((this.flags | MESSAGE_HAS_SECURE_PART) == this.flags) {
       this.securePart = new Part();
@@ -977,7 +1111,7 @@ public class Message {
         commBuffer.limit(commBuffer.position() + bytesRemaining);
       }
       while (remaining > 0) {
-        int res = this.socketChannel.read(commBuffer);
+        int res = readFromChannel(commBuffer);
         if (res != -1) {
           remaining -= res;
           bytesRead += res;
@@ -1053,6 +1187,7 @@ public class Message {
   void setComms(ServerConnection sc, Socket socket, ByteBuffer bb, MessageStats msgStats)
       throws IOException {
     this.serverConnection = sc;
+    this.commBufferLock = sc.getCommBufferLock();
     setComms(socket, bb, msgStats);
   }
 
@@ -1089,7 +1224,9 @@ public class Message {
     this.inputStream = null;
     this.outputStream = null;
     this.cachedCommBuffer = null;
+    this.commBufferLock = null;
     this.messageStats = null;
+    this.compressionThreshold = 0;
   }
 
   /**
@@ -1120,9 +1257,7 @@ public class Message {
    */
   public void receiveWithHeaderReadTimeout(int timeoutMillis) throws IOException {
     if (this.socket != null) {
-      synchronized (getCommBuffer()) {
-        readHeaderAndBody(timeoutMillis);
-      }
+      withCommBufferLocked(getCommBuffer(), () -> readHeaderAndBody(timeoutMillis));
     } else {
       throw new IOException(LocalizedStrings.Message_DEAD_CONNECTION.toLocalizedString());
     }
@@ -0,0 +1,199 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache.tier.sockets;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.geode.StatisticDescriptor;
+import org.apache.geode.Statistics;
+import org.apache.geode.StatisticsFactory;
+import org.apache.geode.StatisticsType;
+import org.apache.geode.StatisticsTypeFactory;
+import org.apache.geode.distributed.internal.DistributionConfig;
+import org.apache.geode.internal.statistics.StatisticsTypeFactoryImpl;
+
+/**
+ * The direct byte buffers that {@link Message}s are read into and written from. Buffers are kept
+ * in size classes of powers of two, so a buffer released by one connection can be reused by any
+ * other that needs one of the same class.
+ * <p>
+ * At most {@link #MAX_POOLED_BYTES} are kept in the pool. Buffers bigger than the largest class
+ * are allocated when needed and left to the garbage collector once released.
+ * <p>
+ * There is one pool per JVM, not per cache. Every client and server connection in the JVM shares
+ * it and its one {@link #MAX_POOLED_BYTES} limit, and the statistics created by
+ * {@link #createStats(StatisticsFactory)} report the whole pool.
+ *
+ * @since Geode 1.8
+ */
+public class MessageBufferPool {
+
+  private static final int MIN_CLASS_SHIFT = 10;
+
+  private static final int MAX_CLASS_SHIFT = 23;
+
+  /**
+   * The most bytes of a large part that are copied through one pooled buffer while it is read or
+   * written.
+   */
+  static final int CHUNK_SIZE = 1 << 20;
+
+  /**
+   * The most bytes of released buffers that are kept for reuse, across the whole JVM.
+   */
+  static final long MAX_POOLED_BYTES = Long.getLong(
+      DistributionConfig.GEMFIRE_PREFIX + "MessageBufferPool.MAX_POOLED_BYTES", 64L << 20);
+
+  /** the released buffers of each size class, smallest first */
+  private static final List<Queue<ByteBuffer>> pool = createPool();
+
+  private static final AtomicLong hits = new AtomicLong();
+  private static final AtomicLong misses = new AtomicLong();
+  private static final AtomicLong bytesInUse = new AtomicLong();
+  private static final AtomicLong pooledBytes = new AtomicLong();
+
+  private MessageBufferPool() {
+    // no instances
+  }
+
+  private static List<Queue<ByteBuffer>> createPool() {
+    List<Queue<ByteBuffer>> queues = new ArrayList<>(MAX_CLASS_SHIFT - MIN_CLASS_SHIFT + 1);
+    for (int shift = MIN_CLASS_SHIFT; shift <= MAX_CLASS_SHIFT; shift++) {
+      queues.add(new ConcurrentLinkedQueue<>());
+    }
+    return Collections.unmodifiableList(queues);
+  }
+
+  /**
+   * Returns a cleared direct buffer with at least the given capacity. The buffer should be given
+   * back with {@link #release(ByteBuffer)} once it is no longer used.
+   */
+  public static ByteBuffer acquire(int size) {
+    int index = classIndex(size);
+    ByteBuffer result = null;
+    if (index < pool.size()) {
+      result = pool.get(index).poll();
+    }
+    if (result == null) {
+      misses.incrementAndGet();
+      result = ByteBuffer.allocateDirect(index < pool.size() ? classSize(index) : size);
+    } else {
+      hits.incrementAndGet();
+      pooledBytes.addAndGet(-result.capacity());
+      result.clear();
+    }
+    bytesInUse.addAndGet(result.capacity());
+    return result;
+  }
+
+  /**
+   * Gives back a buffer returned by {@link #acquire(int)}. Heap buffers are ignored.
+   */
+  public static void release(ByteBuffer buffer) {
+    if (buffer == null || !buffer.isDirect()) {
+      return;
+    }
+    int capacity = buffer.capacity();
+    bytesInUse.addAndGet(-capacity);
+    int index = classIndex(capacity);
+    if (index >= pool.size() || classSize(index) != capacity) {
+      return;
+    }
+    if (pooledBytes.addAndGet(capacity) > MAX_POOLED_BYTES) {
+      pooledBytes.addAndGet(-capacity);
+      return;
+    }
+    pool.get(index).offer(buffer);
+  }
+
+  /**
+   * Drops every pooled buffer.
+   */
+  public static void clear() {
+    for (Queue<ByteBuffer> queue : pool) {
+      ByteBuffer buffer;
+      while ((buffer = queue.poll()) != null) {
+        pooledBytes.addAndGet(-buffer.capacity());
+      }
+    }
+  }
+
+  private static int classIndex(int size) {
+    if (size <= 1 << MIN_CLASS_SHIFT) {
+      return 0;
+    }
+    return 32 - Integer.numberOfLeadingZeros(size - 1) - MIN_CLASS_SHIFT;
+  }
+
+  private static int classSize(int index) {
+    return 1 << (index + MIN_CLASS_SHIFT);
+  }
+
+  static long getHits() {
+    return hits.get();
+  }
+
+  static long getMisses() {
+    return misses.get();
+  }
+
+  static long getBytesInUse() {
+    return bytesInUse.get();
+  }
+
+  static long getPooledBytes() {
+    return pooledBytes.get();
+  }
+
+  private static final StatisticsType type;
+
+  static {
+    StatisticsTypeFactory f = StatisticsTypeFactoryImpl.singleton();
+    type = f.createType("MessageBufferPoolStats",
+        "Statistics about the direct buffers client and server messages are read into and written from",
+        new StatisticDescriptor[] {
+            f.createLongCounter("hits",
+                "Total number of buffers that were taken from the pool instead of being allocated.",
+                "operations"),
+            f.createLongCounter("misses",
+                "Total number of buffers that were allocated because the pool had none of the size needed.",
+                "operations"),
+            f.createLongGauge("bytesInUse",
+                "Current number of bytes of the buffers handed out by the pool that have not been released.",
+                "bytes"),
+            f.createLongGauge("pooledBytes",
+                "Current number of bytes of the released buffers kept in the pool for reuse.",
+                "bytes")});
+  }
+
+  /**
+   * Creates statistics sampled from the pool. Since the pool is shared by the whole JVM they report
+   * the buffers of every connection in it, whichever cache created them.
+   */
+  public static Statistics createStats(StatisticsFactory factory) {
+    Statistics stats = factory.createAtomicStatistics(type, "messageBufferPool");
+    stats.setLongSupplier("hits", MessageBufferPool::getHits);
+    stats.setLongSupplier("misses", MessageBufferPool::getMisses);
+    stats.setLongSupplier("bytesInUse", MessageBufferPool::getBytesInUse);
+    stats.setLongSupplier("pooledBytes", MessageBufferPool::getPooledBytes);
+    return stats;
+  }
+}
@@ -28,4 +28,22 @@ public interface MessageStats {
   void incMessagesBeingReceived(int bytes);
 
   void decMessagesBeingReceived(int bytes);
+
+  /**
+   * Records parts that were compressed before being sent.
+   *
+   * @param uncompressedBytes the length of the parts before compression
+   * @param compressedBytes the length of the parts as sent
+   * @since Geode 1.8
+   */
+  void incSentCompressedBytes(long uncompressedBytes, long compressedBytes);
+
+  /**
+   * Records parts that were received compressed.
+   *
+   * @param uncompressedBytes the length of the parts once decompressed
+   * @param compressedBytes the length of the parts as received
+   * @since Geode 1.8
+   */
+  void incReceivedCompressedBytes(long uncompressedBytes, long compressedBytes);
 }
@@ -0,0 +1,475 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache.tier.sockets;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+import org.apache.geode.distributed.internal.DistributionConfig;
+
+/**
+ * One stream of a {@link SocketMultiplexer}. It looks like a connected, blocking socket without a
+ * channel so that the client and server connection code can use it unchanged.
+ * <p>
+ * Everything written to its output stream is buffered until the stream is flushed, and then sent
+ * in frames. Frames received for it are queued until they are read from its input stream. Once
+ * {@link #MAX_QUEUED_BYTES} are queued the multiplexer stops reading the shared socket until some
+ * of them are read, so a stream whose reader falls behind holds up the other streams rather than
+ * using up the heap.
+ */
+public class MultiplexedSocket extends Socket {
+
+  /**
+   * The number of received bytes a stream queues before the multiplexer waits for them to be read.
+   */
+  static final int MAX_QUEUED_BYTES = Math.max(SocketMultiplexer.MAX_FRAME_SIZE, Integer.getInteger(
+      DistributionConfig.GEMFIRE_PREFIX + "MULTIPLEXED_STREAM_QUEUE_BYTES", 1024 * 1024));
+
+  private final SocketMultiplexer multiplexer;
+  private final int streamId;
+
+  private final Object lock = new Object();
+  private final ArrayDeque<byte[]> frames = new ArrayDeque<>();
+  private int queuedBytes;
+  private byte[] currentFrame;
+  private int currentOffset;
+  private boolean remoteClosed;
+  private IOException failure;
+  private Runnable readableCallback;
+  private int soTimeout;
+  private boolean closed;
+  private boolean outputShutdown;
+
+  private final InputStream inputStream = new StreamInput();
+  private final OutputStream outputStream = new StreamOutput();
+
+  MultiplexedSocket(SocketMultiplexer multiplexer, int streamId) {
+    this.multiplexer = multiplexer;
+    this.streamId = streamId;
+  }
+
+  int getStreamId() {
+    return this.streamId;
+  }
+
+  public SocketMultiplexer getMultiplexer() {
+    return this.multiplexer;
+  }
+
+  /**
+   * Queues a frame received for this stream. Waits while {@link #MAX_QUEUED_BYTES} are already
+   * queued, until enough of them are read or the stream is closed.
+   */
+  void deliver(byte[] frame) throws IOException {
+    Runnable callback;
+    synchronized (this.lock) {
+      while (this.queuedBytes > 0 && this.queuedBytes + frame.length > MAX_QUEUED_BYTES
+          && !isDiscardingFrames()) {
+        try {
+          this.lock.wait();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new InterruptedIOException("Interrupted while delivering to " + this);
+        }
+      }
+      if (isDiscardingFrames()) {
+        return;
+      }
+      this.frames.add(frame);
+      this.queuedBytes += frame.length;
+      this.lock.notifyAll();
+      callback = takeReadableCallback();
+    }
+    if (callback != null) {
+      callback.run();
+    }
+  }
+
+  /**
+   * Returns true once frames can no longer be read, because this stream was closed, its input was
+   * shut down or its socket failed. Must be called while holding the lock.
+   */
+  private boolean isDiscardingFrames() {
+    return this.closed || this.remoteClosed || this.failure != null;
+  }
+
+  /**
+   * Called when the other side closed this stream. Reads return end of stream once the frames
+   * already received have been read.
+   */
+  void remoteClosed() {
+    Runnable callback;
+    synchronized (this.lock) {
+      this.remoteClosed = true;
+      this.lock.notifyAll();
+      callback = takeReadableCallback();
+    }
+    if (callback != null) {
+      callback.run();
+    }
+  }
+
+  /**
+   * Called when the socket all streams are multiplexed over fails.
+   */
+  void failed(IOException cause) {
+    Runnable callback;
+    synchronized (this.lock) {
+      if (this.failure == null) {
+        this.failure = cause;
+      }
+      this.lock.notifyAll();
+      callback = takeReadableCallback();
+    }
+    if (callback != null) {
+      callback.run();
+    }
+  }
+
+  /**
+   * Runs the given callback once this stream has data to read, has reached its end, or has failed.
+   * It is run right away, by the calling thread, if that is already the case. Only one callback can
+   * be waiting at a time.
+   */
+  public void whenReadable(Runnable callback) {
+    synchronized (this.lock) {
+      if (!isReadable()) {
+        this.readableCallback = callback;
+        return;
+      }
+    }
+    callback.run();
+  }
+
+  private boolean isReadable() {
+    return this.currentFrame != null || !this.frames.isEmpty() || this.remoteClosed
+        || this.failure != null || this.closed;
+  }
+
+  private Runnable takeReadableCallback() {
+    Runnable callback = this.readableCallback;
+    this.readableCallback = null;
+    return callback;
+  }
+
+  private class StreamInput extends InputStream {
+    @Override
+    public int read() throws IOException {
+      byte[] b = new byte[1];
+      int result = read(b, 0, 1);
+      return result == -1 ? -1 : b[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+      synchronized (lock) {
+        if (!waitForFrame()) {
+          return -1;
+        }
+        int count = Math.min(len, currentFrame.length - currentOffset);
+        System.arraycopy(currentFrame, currentOffset, b, off, count);
+        currentOffset += count;
+        if (currentOffset == currentFrame.length) {
+          currentFrame = null;
+        }
+        return count;
+      }
+    }
+
+    @Override
+    public int available() {
+      synchronized (lock) {
+        int result = currentFrame == null ? 0 : currentFrame.length - currentOffset;
+        for (byte[] frame : frames) {
+          result += frame.length;
+        }
+        return result;
+      }
+    }
+
+    /**
+     * Returns false at end of stream. Must be called while holding the lock.
+     */
+    private boolean waitForFrame() throws IOException {
+      long timeout = soTimeout;
+      long end = timeout > 0 ? System.currentTimeMillis() + timeout : 0;
+      while (currentFrame == null) {
+        if (closed) {
+          throw new SocketException("Socket is closed");
+        }
+        byte[] frame = frames.poll();
+        if (frame != null) {
+          // let the multiplexer deliver more if it is waiting for room
+          queuedBytes -= frame.length;
+          lock.notifyAll();
+          if (frame.length > 0) {
+            currentFrame = frame;
+            currentOffset = 0;
+          }
+          continue;
+        }
+        if (failure != null) {
+          throw new SocketException("Multiplexed connection failed: " + failure);
+        }
+        if (remoteClosed) {
+          return false;
+        }
+        try {
+          if (timeout > 0) {
+            long remaining = end - System.currentTimeMillis();
+            if (remaining <= 0) {
+              throw new SocketTimeoutException("Read timed out");
+            }
+            lock.wait(remaining);
+          } else {
+            lock.wait();
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new SocketException("Interrupted while reading from " + MultiplexedSocket.this);
+        }
+      }
+      return true;
+    }
+  }
+
+  private class StreamOutput extends OutputStream {
+    private byte[] buffer = new byte[256];
+    private int count;
+
+    @Override
+    public synchronized void write(int b) throws IOException {
+      ensureCapacity(1);
+      buffer[count++] = (byte) b;
+    }
+
+    @Override
+    public synchronized void write(byte[] b, int off, int len) throws IOException {
+      ensureCapacity(len);
+      System.arraycopy(b, off, buffer, count, len);
+      count += len;
+    }
+
+    private void ensureCapacity(int len) throws IOException {
+      if (isOutputShutdown()) {
+        throw new SocketException("Socket output is shutdown");
+      }
+      if (count + len > buffer.length) {
+        buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, count + len));
+      }
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+      if (count > 0) {
+        multiplexer.writeFrames(streamId, buffer, count);
+        count = 0;
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      flush();
+    }
+  }
+
+  @Override
+  public InputStream getInputStream() throws IOException {
+    return this.inputStream;
+  }
+
+  @Override
+  public OutputStream getOutputStream() throws IOException {
+    return this.outputStream;
+  }
+
+  @Override
+  public void setSoTimeout(int timeout) throws SocketException {
+    if (timeout < 0) {
+      throw new IllegalArgumentException("timeout can't be negative");
+    }
+    this.soTimeout = timeout;
+  }
+
+  @Override
+  public int getSoTimeout() {
+    return this.soTimeout;
+  }
+
+  @Override
+  public void shutdownOutput() throws IOException {
+    synchronized (this.lock) {
+      if (this.outputShutdown) {
+        return;
+      }
+      this.outputShutdown = true;
+    }
+    this.multiplexer.closeStream(this);
+  }
+
+  @Override
+  public boolean isOutputShutdown() {
+    synchronized (this.lock) {
+      return this.outputShutdown;
+    }
+  }
+
+  @Override
+  public void shutdownInput() {
+    synchronized (this.lock) {
+      this.remoteClosed = true;
+      this.frames.clear();
+      this.queuedBytes = 0;
+      this.currentFrame = null;
+      this.lock.notifyAll();
+    }
+  }
+
+  @Override
+  public boolean isInputShutdown() {
+    synchronized (this.lock) {
+      return this.remoteClosed && !isReadable();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    Runnable callback;
+    synchronized (this.lock) {
+      if (this.closed) {
+        return;
+      }
+      this.closed = true;
+      this.frames.clear();
+      this.queuedBytes = 0;
+      this.currentFrame = null;
+      this.lock.notifyAll();
+      callback = takeReadableCallback();
+    }
+    try {
+      shutdownOutput();
+    } finally {
+      this.multiplexer.removeStream(this);
+      if (callback != null) {
+        callback.run();
+      }
+    }
+  }
+
+  @Override
+  public boolean isClosed() {
+    synchronized (this.lock) {
+      return this.closed;
+    }
+  }
+
+  @Override
+  public boolean isConnected() {
+    return true;
+  }
+
+  @Override
+  public boolean isBound() {
+    return true;
+  }
+
+  @Override
+  public InetAddress getInetAddress() {
+    return this.multiplexer.getSocket().getInetAddress();
+  }
+
+  @Override
+  public int getPort() {
+    return this.multiplexer.getSocket().getPort();
+  }
+
+  @Override
+  public InetAddress getLocalAddress() {
+    return this.multiplexer.getSocket().getLocalAddress();
+  }
+
+  @Override
+  public int getLocalPort() {
+    return this.multiplexer.getSocket().getLocalPort();
+  }
+
+  @Override
+  public SocketAddress getRemoteSocketAddress() {
+    return this.multiplexer.getSocket().getRemoteSocketAddress();
+  }
+
+  @Override
+  public SocketAddress getLocalSocketAddress() {
+    return this.multiplexer.getSocket().getLocalSocketAddress();
+  }
+
+  @Override
+  public int getReceiveBufferSize() throws SocketException {
+    return this.multiplexer.getSocket().getReceiveBufferSize();
+  }
+
+  @Override
+  public int getSendBufferSize() throws SocketException {
+    return this.multiplexer.getSocket().getSendBufferSize();
+  }
+
+  @Override
+  public void setReceiveBufferSize(int size) {
+    // the buffers belong to the socket all streams share
+  }
+
+  @Override
+  public void setSendBufferSize(int size) {
+    // the buffers belong to the socket all streams share
+  }
+
+  @Override
+  public void setTcpNoDelay(boolean on) {
+    // the multiplexer flushes each frame as it is written
+  }
+
+  @Override
+  public boolean getTcpNoDelay() {
+    return true;
+  }
+
+  @Override
+  public void setKeepAlive(boolean on) {
+    // keep alive is a property of the socket all streams share
+  }
+
+  @Override
+  public void setSoLinger(boolean on, int linger) {
+    // closing a stream never waits for unsent data
+  }
+
+  @Override
+  public String toString() {
+    return "MultiplexedSocket[stream=" + this.streamId + " over " + this.multiplexer.getSocket()
+        + "]";
+  }
+}
@@ -68,6 +68,11 @@ public class OriginalServerConnection extends ServerConnection {
     return true;
   }
 
+  @Override
+  protected boolean canPrefetch() {
+    return !this.doHandshake;
+  }
+
   protected void doOneMessage() {
     if (this.doHandshake) {
       doHandshake();
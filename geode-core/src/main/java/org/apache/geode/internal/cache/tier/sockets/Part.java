@@ -21,6 +21,7 @@ import java.nio.channels.SocketChannel;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
+import org.apache.geode.compression.Compressor;
 import org.apache.geode.internal.Assert;
 import org.apache.geode.internal.DSCODE;
 import org.apache.geode.internal.HeapDataOutputStream;
@@ -51,6 +52,15 @@ public class Part {
   private static final byte EMPTY_BYTEARRAY_CODE = 2;
   private static final byte[] EMPTY_BYTE_ARRAY = new byte[0];
 
+  /**
+   * Set in the type code sent with a part whose bytes were compressed by the sender. Only peers
+   * that
+   * agreed on compression during their handshake send it.
+   *
+   * @since Geode 1.8
+   */
+  static final byte COMPRESSED_BIT = 0x40;
+
   /**
    * The payload of this part. Could be null, a byte[] or a HeapDataOutputStream on the send side.
    * Could be null, or a byte[] on the receiver side.
@@ -146,6 +156,30 @@ public class Part {
     return this.typeCode;
   }
 
+  /**
+   * Returns a part to send in place of this one that holds this part's bytes compressed, or null if
+   * compressing them does not make them any smaller. This part is left unchanged.
+   */
+  Part compress(Compressor compressor) {
+    int length = getLength();
+    byte[] bytes;
+    if (this.part instanceof byte[]) {
+      bytes = (byte[]) this.part;
+    } else {
+      ByteBuffer buf = ByteBuffer.allocate(length);
+      writeTo(buf);
+      bytes = buf.array();
+    }
+    byte[] compressed = compressor.compress(bytes);
+    if (compressed.length >= length) {
+      return null;
+    }
+    Part result = new Part();
+    result.part = compressed;
+    result.typeCode = (byte) (this.typeCode | COMPRESSED_BIT);
+    return result;
+  }
+
   /**
    * Return the length of the part. The length is the number of bytes needed for its serialized
    * form.
@@ -353,29 +387,37 @@ public class Part {
   /**
    * Write the contents of this part to the specified socket channel using the specified byte
    * buffer. This is only called for parts that will not fit into the commBuffer so they need to be
-   * written directly to the socket. Precondition: buf contains nothing that needs to be sent
+   * written directly to the socket. Anything already put in buf is sent ahead of the part, in the
+   * same write where possible, and buf is left cleared.
    */
   public void writeTo(SocketChannel sc, ByteBuffer buf) throws IOException {
+    if (getLength() > 0 && this.part instanceof HeapDataOutputStream) {
+      // the stream gathers its direct chunks, such as off-heap values, with what is in buf
+      HeapDataOutputStream hdos = (HeapDataOutputStream) this.part;
+      hdos.sendTo(sc, buf);
+      hdos.rewind();
+      return;
+    }
+    buf.flip();
     if (getLength() > 0) {
-      final int BUF_MAX = buf.capacity();
       if (this.part instanceof byte[]) {
         final byte[] bytes = (byte[]) this.part;
-        int off = 0;
-        int len = bytes.length;
-        buf.clear();
-        while (len > 0) {
-          int bytesThisTime = len;
-          if (bytesThisTime > BUF_MAX) {
-            bytesThisTime = BUF_MAX;
-          }
-          buf.put(bytes, off, bytesThisTime);
-          len -= bytesThisTime;
-          off += bytesThisTime;
-          buf.flip();
-          while (buf.remaining() > 0) {
-            sc.write(buf);
+        ByteBuffer chunk =
+            MessageBufferPool.acquire(Math.min(bytes.length, MessageBufferPool.CHUNK_SIZE));
+        try {
+          int off = 0;
+          int len = bytes.length;
+          while (len > 0) {
+            int bytesThisTime = Math.min(len, chunk.capacity());
+            chunk.clear();
+            chunk.put(bytes, off, bytesThisTime);
+            chunk.flip();
+            write(sc, buf, chunk);
+            len -= bytesThisTime;
+            off += bytesThisTime;
           }
-          buf.clear();
+        } finally {
+          MessageBufferPool.release(chunk);
         }
       } else if (this.part instanceof StoredObject) {
         // instead of copying the StoredObject to buf try to create a direct ByteBuffer and
@@ -383,10 +425,10 @@ public class Part {
         StoredObject c = (StoredObject) this.part;
         ByteBuffer bb = c.createDirectByteBuffer();
         if (bb != null) {
-          while (bb.remaining() > 0) {
-            sc.write(bb);
-          }
+          write(sc, buf, bb);
         } else {
+          write(sc, buf);
+          final int BUF_MAX = buf.capacity();
           int len = c.getDataSize();
           long addr = c.getAddressForReadingData(0, len);
           buf.clear();
@@ -402,17 +444,24 @@ public class Part {
               bytesThisTime--;
             }
             buf.flip();
-            while (buf.remaining() > 0) {
-              sc.write(buf);
-            }
+            write(sc, buf);
             buf.clear();
           }
         }
-      } else {
-        HeapDataOutputStream hdos = (HeapDataOutputStream) this.part;
-        hdos.sendTo(sc, buf);
-        hdos.rewind();
       }
+    } else {
+      write(sc, buf);
+    }
+    buf.clear();
+  }
+
+  /**
+   * Writes all of the given buffers with gathering writes.
+   */
+  private static void write(SocketChannel sc, ByteBuffer... buffers) throws IOException {
+    ByteBuffer last = buffers[buffers.length - 1];
+    while (last.remaining() > 0) {
+      sc.write(buffers);
     }
   }
 
@@ -424,6 +473,10 @@ public class Part {
         return "OBJECT_CODE";
       case EMPTY_BYTEARRAY_CODE:
         return "EMPTY_BYTEARRAY_CODE";
+      case BYTE_CODE | COMPRESSED_BIT:
+        return "COMPRESSED_BYTE_CODE";
+      case OBJECT_CODE | COMPRESSED_BIT:
+        return "COMPRESSED_OBJECT_CODE";
       default:
         return "unknown code " + c;
     }
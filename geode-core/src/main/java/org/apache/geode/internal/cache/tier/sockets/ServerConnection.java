@@ -35,7 +35,9 @@ import java.util.Map;
 import java.util.Properties;
 import java.util.Random;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.commons.lang.mutable.MutableInt;
 import org.apache.logging.log4j.Logger;
@@ -70,6 +72,7 @@ import org.apache.geode.internal.security.AuthorizeRequest;
 import org.apache.geode.internal.security.AuthorizeRequestPP;
 import org.apache.geode.internal.security.SecurityService;
 import org.apache.geode.internal.util.Breadcrumbs;
+import org.apache.geode.internal.util.concurrent.VirtualThreads;
 import org.apache.geode.security.AuthenticationFailedException;
 import org.apache.geode.security.AuthenticationRequiredException;
 import org.apache.geode.security.GemFireSecurityException;
@@ -109,56 +112,46 @@ public abstract class ServerConnection implements Runnable {
 
   private final ServerSideHandshakeFactory handshakeFactory = new ServerSideHandshakeFactory();
 
-  // The key is the size of each ByteBuffer. The value is a queue of byte buffers all of that size.
-  private static final ConcurrentHashMap<Integer, LinkedBlockingQueue<ByteBuffer>> commBufferMap =
-      new ConcurrentHashMap<>(4, 0.75f, 1);
   private ServerConnectionCollection serverConnectionCollection;
 
   public static ByteBuffer allocateCommBuffer(int size, Socket sock) {
-    // I expect that size will almost always be the same value
     if (sock.getChannel() == null) {
       // The socket this commBuffer will be used for is old IO (it has no channel).
       // So the commBuffer should be heap based.
       return ByteBuffer.allocate(size);
     }
-    LinkedBlockingQueue<ByteBuffer> q = commBufferMap.get(size);
-    ByteBuffer result = null;
-    if (q != null) {
-      result = q.poll();
-    }
-    if (result == null) {
-      result = ByteBuffer.allocateDirect(size);
-    } else {
-      result.position(0);
-      result.limit(result.capacity());
-    }
-    return result;
+    return MessageBufferPool.acquire(size);
   }
 
   public static void releaseCommBuffer(ByteBuffer bb) {
-    if (bb != null && bb.isDirect()) {
-      LinkedBlockingQueue<ByteBuffer> q = commBufferMap.get(bb.capacity());
-      if (q == null) {
-        q = new LinkedBlockingQueue<>();
-        LinkedBlockingQueue<ByteBuffer> oldQ = commBufferMap.putIfAbsent(bb.capacity(), q);
-        if (oldQ != null) {
-          q = oldQ;
-        }
-      }
-      q.offer(bb);
-    }
+    MessageBufferPool.release(bb);
   }
 
   public static void emptyCommBufferPool() {
-    for (LinkedBlockingQueue<ByteBuffer> q : commBufferMap.values()) {
-      q.clear();
-    }
+    MessageBufferPool.clear();
   }
 
   protected Socket theSocket;
   // private InputStream in = null;
   // private OutputStream out = null;
   private ByteBuffer commBuffer;
+
+  /**
+   * The selector this connection registers with while it is idle; null if not yet registered.
+   */
+  private ServerConnectionSelector connectionSelector;
+
+  /**
+   * Bytes of the next request read by the selector, if any. Bytes are added while the connection is
+   * registered with the selector and are taken by {@link #readPrefetched(ByteBuffer)} while it is
+   * processed.
+   */
+  private ByteBuffer prefetchBuffer;
+
+  /**
+   * When the selector handed this connection to the thread pool, from {@link System#nanoTime()}.
+   */
+  private long dispatchTime;
   protected final CachedRegionHelper crHelper;
   protected String name = null;
 
@@ -187,7 +180,17 @@ public abstract class ServerConnection implements Runnable {
    */
   protected ServerSideHandshake handshake;
   private int handshakeTimeout;
-  private final Object handshakeMonitor = new Object();
+  /**
+   * A lock rather than a monitor, as it is held while the handshake is read, which would pin the
+   * carrier of a virtual thread
+   */
+  private final Lock handshakeLock = new ReentrantLock();
+
+  /**
+   * The lock of the comm buffer of this connection's messages when it is run by virtual threads,
+   * see {@link Message#withCommBufferLocked}
+   */
+  private final Lock commBufferLock = VirtualThreads.ENABLED ? new ReentrantLock() : null;
 
   /*
    * This timeout is request specific which come with message itself Otherwise, timeout which comes
@@ -328,87 +331,94 @@ public abstract class ServerConnection implements Runnable {
   }
 
   private boolean verifyClientConnection() {
-    synchronized (this.handshakeMonitor) {
+    this.handshakeLock.lock();
+    try {
       if (this.handshake == null) {
-        ServerSideHandshake readHandshake;
-        try {
+        return readClientHandshake();
+      }
+    } finally {
+      this.handshakeLock.unlock();
+    }
+    return true;
+  }
 
-          readHandshake = handshakeFactory.readHandshake(getSocket(), getHandShakeTimeout(),
-              getCommunicationMode(), getDistributedSystem(), getSecurityService());
+  private boolean readClientHandshake() {
+    ServerSideHandshake readHandshake;
+    try {
 
-        } catch (SocketTimeoutException timeout) {
-          logger.warn(LocalizedMessage.create(
-              LocalizedStrings.ServerHandShakeProcessor_0_HANDSHAKE_REPLY_CODE_TIMEOUT_NOT_RECEIVED_WITH_IN_1_MS,
-              new Object[] {getName(), Integer.valueOf(handshakeTimeout)}));
-          failConnectionAttempt();
-          return false;
-        } catch (EOFException | SocketException e) {
-          // no need to warn client just gave up on this server before we could
-          // handshake
-          logger.info("{} {}", getName(), e);
-          failConnectionAttempt();
-          return false;
-        } catch (IOException e) {
-          logger.warn(LocalizedMessage.create(
-              LocalizedStrings.ServerHandShakeProcessor_0_RECEIVED_NO_HANDSHAKE_REPLY_CODE,
-              getName()), e);
-          failConnectionAttempt();
-          return false;
-        } catch (AuthenticationRequiredException | AuthenticationFailedException ex) {
-          handleHandshakeAuthenticationException(ex);
-          return false;
-        } catch (UnsupportedVersionException uve) {
-          // Server logging
-          logger.warn("{} {}", getName(), uve.getMessage(), uve);
-          handleHandshakeException(uve);
-          return false;
-        } catch (Exception ex) {
-          logger.warn("{} {}", getName(), ex.getLocalizedMessage());
-          handleHandshakeException(ex);
-          return false;
-        }
+      readHandshake = handshakeFactory.readHandshake(getSocket(), getHandShakeTimeout(),
+          getCommunicationMode(), getDistributedSystem(), getSecurityService());
 
-        setHandshake(readHandshake);
-        setProxyId(readHandshake.getMembershipId());
-        if (readHandshake.getVersion().compareTo(Version.GFE_65) < 0
-            || getCommunicationMode().isWAN()) {
-          try {
-            setAuthAttributes();
-
-          } catch (AuthenticationRequiredException | AuthenticationFailedException ex) {
-            handleHandshakeAuthenticationException(ex);
-            return false;
-          } catch (Exception ex) {
-            logger.warn("{} {}", getName(), ex.getLocalizedMessage());
-            handleHandshakeException(ex);
-            return false;
-          }
-        }
+    } catch (SocketTimeoutException timeout) {
+      logger.warn(LocalizedMessage.create(
+          LocalizedStrings.ServerHandShakeProcessor_0_HANDSHAKE_REPLY_CODE_TIMEOUT_NOT_RECEIVED_WITH_IN_1_MS,
+          new Object[] {getName(), Integer.valueOf(handshakeTimeout)}));
+      failConnectionAttempt();
+      return false;
+    } catch (EOFException | SocketException e) {
+      // no need to warn client just gave up on this server before we could
+      // handshake
+      logger.info("{} {}", getName(), e);
+      failConnectionAttempt();
+      return false;
+    } catch (IOException e) {
+      logger.warn(LocalizedMessage.create(
+          LocalizedStrings.ServerHandShakeProcessor_0_RECEIVED_NO_HANDSHAKE_REPLY_CODE,
+          getName()), e);
+      failConnectionAttempt();
+      return false;
+    } catch (AuthenticationRequiredException | AuthenticationFailedException ex) {
+      handleHandshakeAuthenticationException(ex);
+      return false;
+    } catch (UnsupportedVersionException uve) {
+      // Server logging
+      logger.warn("{} {}", getName(), uve.getMessage(), uve);
+      handleHandshakeException(uve);
+      return false;
+    } catch (Exception ex) {
+      logger.warn("{} {}", getName(), ex.getLocalizedMessage());
+      handleHandshakeException(ex);
+      return false;
+    }
 
-        // readHandshake will establish a handshake object in this ServerConnection
-        if (this.handshake.isOK()) {
-          try {
-            return processHandShake();
-          } catch (CancelException e) {
-            if (!crHelper.isShutdown()) {
-              logger.warn(LocalizedMessage.create(
-                  LocalizedStrings.ServerConnection_0_UNEXPECTED_CANCELLATION, getName()), e);
-            }
-            cleanup();
-            return false;
-          }
-        } else {
-          // is this branch ever taken?
-          this.crHelper.checkCancelInProgress(null); // bug 37113?
-          logger.warn(LocalizedMessage
-              .create(LocalizedStrings.ServerConnection_RECEIVED_UNKNOWN_HANDSHAKE_REPLY_CODE));
-          refuseHandshake(LocalizedStrings.ServerConnection_RECEIVED_UNKNOWN_HANDSHAKE_REPLY_CODE
-              .toLocalizedString(), AcceptorImpl.REPLY_INVALID);
-          return false;
+    setHandshake(readHandshake);
+    setProxyId(readHandshake.getMembershipId());
+    if (readHandshake.getVersion().compareTo(Version.GFE_65) < 0
+        || getCommunicationMode().isWAN()) {
+      try {
+        setAuthAttributes();
+
+      } catch (AuthenticationRequiredException | AuthenticationFailedException ex) {
+        handleHandshakeAuthenticationException(ex);
+        return false;
+      } catch (Exception ex) {
+        logger.warn("{} {}", getName(), ex.getLocalizedMessage());
+        handleHandshakeException(ex);
+        return false;
+      }
+    }
+
+    // readHandshake will establish a handshake object in this ServerConnection
+    if (this.handshake.isOK()) {
+      try {
+        return processHandShake();
+      } catch (CancelException e) {
+        if (!crHelper.isShutdown()) {
+          logger.warn(LocalizedMessage.create(
+              LocalizedStrings.ServerConnection_0_UNEXPECTED_CANCELLATION, getName()), e);
         }
+        cleanup();
+        return false;
       }
+    } else {
+      // is this branch ever taken?
+      this.crHelper.checkCancelInProgress(null); // bug 37113?
+      logger.warn(LocalizedMessage
+          .create(LocalizedStrings.ServerConnection_RECEIVED_UNKNOWN_HANDSHAKE_REPLY_CODE));
+      refuseHandshake(LocalizedStrings.ServerConnection_RECEIVED_UNKNOWN_HANDSHAKE_REPLY_CODE
+          .toLocalizedString(), AcceptorImpl.REPLY_INVALID);
+      return false;
     }
-    return true;
   }
 
   private void failConnectionAttempt() {
@@ -493,6 +503,16 @@ public abstract class ServerConnection implements Runnable {
     this.executeFunctionResponseMsg.setVersion(v);
     this.registerInterestResponseMsg.setVersion(v);
     this.keySetResponseMsg.setVersion(v);
+
+    int compressionThreshold = handshake.getCompressionThreshold();
+    this.replyMsg.setCompressionThreshold(compressionThreshold);
+    this.responseMsg.setCompressionThreshold(compressionThreshold);
+    this.errorMsg.setCompressionThreshold(compressionThreshold);
+    this.queryResponseMsg.setCompressionThreshold(compressionThreshold);
+    this.chunkedResponseMsg.setCompressionThreshold(compressionThreshold);
+    this.executeFunctionResponseMsg.setCompressionThreshold(compressionThreshold);
+    this.registerInterestResponseMsg.setCompressionThreshold(compressionThreshold);
+    this.keySetResponseMsg.setCompressionThreshold(compressionThreshold);
   }
 
   public void setRequestMsg(Message requestMsg) {
@@ -866,7 +886,11 @@ public abstract class ServerConnection implements Runnable {
           }
         }
 
+        long start = System.nanoTime();
         command.execute(msg, this, this.securityService);
+        if (msg.getMessageType() != MessageType.PING) {
+          acceptor.getConnectionListener().operationCompleted(System.nanoTime() - start);
+        }
       }
     } finally {
       // Keep track of the fact that a message is no longer being
@@ -1208,13 +1232,23 @@ public abstract class ServerConnection implements Runnable {
   public void run() {
     setOwner();
 
-    if (getAcceptor().isSelector()) {
+    if (isMultiplexed()) {
+      runMultiplexed();
+    } else if (getAcceptor().isSelector()) {
       boolean finishedMsg = false;
       try {
         this.stats.decThreadQueueSize();
+        if (this.connectionSelector != null) {
+          this.connectionSelector.endDispatch(this.dispatchTime);
+        }
         if (!isTerminated()) {
           getAcceptor().setTLCommBuffer();
           doOneMessage();
+          while (this.processMessages && !(this.crHelper.isShutdown())
+              && hasPrefetchedMessage()) {
+            // the selector read the next request along with the last one
+            doOneMessage();
+          }
           if (this.processMessages && !(this.crHelper.isShutdown())) {
             registerWithSelector(); // finished msg so reregister
             finishedMsg = true;
@@ -1265,6 +1299,61 @@ public abstract class ServerConnection implements Runnable {
     }
   }
 
+  /**
+   * Processes one message, or the handshake, and then waits in the background for the next one so
+   * that the thread can go back to the pool while this connection is idle.
+   */
+  private void runMultiplexed() {
+    boolean finishedMsg = false;
+    try {
+      if (!isTerminated()) {
+        doOneMessage();
+        if (this.processMessages && !(this.crHelper.isShutdown())) {
+          registerWithMultiplexer();
+          finishedMsg = true;
+        }
+      }
+    } catch (CancelException ignore) {
+      // ok shutting down
+    } finally {
+      unsetOwner();
+      setNotProcessingMessage();
+      this.unsetRequestSpecificTimeout();
+      Breadcrumbs.clearBreadcrumb();
+      if (!finishedMsg) {
+        try {
+          handleTermination();
+        } catch (CancelException e) {
+          // ignore
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns true if this connection is one of the streams of a socket that a client multiplexes
+   * many connections over.
+   */
+  public boolean isMultiplexed() {
+    return this.theSocket instanceof MultiplexedSocket;
+  }
+
+  /**
+   * Has this connection run in the acceptor's thread pool once its client sends it something.
+   */
+  void registerWithMultiplexer() {
+    ((MultiplexedSocket) this.theSocket).whenReadable(() -> {
+      try {
+        getAcceptor().executeServerConnection(this);
+      } catch (RejectedExecutionException e) {
+        if (!isTerminated()) {
+          logger.warn("{} rejected by the server connection thread pool", getName());
+          handleTermination();
+        }
+      }
+    });
+  }
+
   /**
    * If registered with a selector then this will be the key we are registered with.
    */
@@ -1276,10 +1365,76 @@ public abstract class ServerConnection implements Runnable {
    */
   public void registerWithSelector() throws IOException {
     // logger.info("DEBUG: registerWithSelector " + this);
+    if (this.prefetchBuffer != null) {
+      // keep the start of the next request for the selector to add to
+      this.prefetchBuffer.compact();
+    }
     getSelectableChannel().configureBlocking(false);
     getAcceptor().registerSC(this);
   }
 
+  ServerConnectionSelector getConnectionSelector() {
+    return this.connectionSelector;
+  }
+
+  void setConnectionSelector(ServerConnectionSelector connectionSelector) {
+    this.connectionSelector = connectionSelector;
+  }
+
+  /**
+   * Returns true if the selector may read the requests of this connection ahead of the thread that
+   * processes them. Only connections that read their requests as {@link Message}s can be read
+   * ahead.
+   */
+  protected boolean canPrefetch() {
+    return false;
+  }
+
+  ByteBuffer getPrefetchBuffer() {
+    return this.prefetchBuffer;
+  }
+
+  void setPrefetchBuffer(ByteBuffer prefetchBuffer) {
+    this.prefetchBuffer = prefetchBuffer;
+  }
+
+  void setDispatchTime(long dispatchTime) {
+    this.dispatchTime = dispatchTime;
+  }
+
+  /**
+   * Moves bytes the selector read ahead into the given buffer. The prefetch buffer is returned to
+   * the acceptor once all of its bytes have been taken.
+   *
+   * @return the number of bytes moved, which is 0 if there are none left
+   */
+  int readPrefetched(ByteBuffer dst) {
+    ByteBuffer src = this.prefetchBuffer;
+    if (src == null) {
+      return 0;
+    }
+    int length = Math.min(src.remaining(), dst.remaining());
+    if (length == src.remaining()) {
+      dst.put(src);
+    } else {
+      ByteBuffer slice = src.duplicate();
+      slice.limit(slice.position() + length);
+      dst.put(slice);
+      src.position(slice.position());
+    }
+    if (!src.hasRemaining()) {
+      this.prefetchBuffer = null;
+      getAcceptor().releaseCommBuffer(src);
+    }
+    return length;
+  }
+
+  private boolean hasPrefetchedMessage() {
+    ByteBuffer buffer = this.prefetchBuffer;
+    return buffer != null
+        && ServerConnectionSelector.containsMessage(buffer, buffer.position(), buffer.remaining());
+  }
+
   public SelectableChannel getSelectableChannel() {
     return this.theSocket.getChannel();
   }
@@ -1481,9 +1636,17 @@ public abstract class ServerConnection implements Runnable {
     }
   }
 
+  /**
+   * Returns the lock of the comm buffer of this connection's messages, or null if they lock it with
+   * its monitor.
+   */
+  Lock getCommBufferLock() {
+    return this.commBufferLock;
+  }
+
   protected void initStreams(Socket s, int socketBufferSize, MessageStats msgStats) {
     try {
-      if (getAcceptor().isSelector()) {
+      if (getAcceptor().isSelector() && !isMultiplexed()) {
         // set it on the message to null. This causes Message
         // to fetch it from a thread local. That way we only need
         // one per thread in our selector thread pool instead of
@@ -0,0 +1,527 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache.tier.sockets;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.logging.log4j.Logger;
+
+import org.apache.geode.CancelException;
+import org.apache.geode.SystemFailure;
+import org.apache.geode.internal.cache.InternalCache;
+import org.apache.geode.internal.i18n.LocalizedStrings;
+import org.apache.geode.internal.logging.LogService;
+import org.apache.geode.internal.logging.log4j.LocalizedMessage;
+
+/**
+ * One of the selector threads of an {@link AcceptorImpl} that uses a selector. Idle client
+ * connections are registered with a selector thread, which reads the next request of a connection
+ * into a pooled buffer as it arrives and hands the connection to the server connection thread pool
+ * once the whole request has been read, or the buffer is full. A connection always registers with
+ * the same selector thread.
+ *
+ * @see ServerConnection#readPrefetched(ByteBuffer)
+ */
+class ServerConnectionSelector implements Runnable {
+  private static final Logger logger = LogService.getLogger();
+
+  private static final boolean WORKAROUND_SELECTOR_BUG =
+      Boolean.getBoolean("CacheServer.NIO_SELECTOR_WORKAROUND");
+
+  /**
+   * The offset of the payload length in a message header.
+   */
+  private static final int PAYLOAD_LENGTH_OFFSET = 4;
+
+  private final AcceptorImpl acceptor;
+
+  private final InternalCache cache;
+
+  private final Selector selector;
+
+  /**
+   * A queue used to feed register requests to the selector.
+   */
+  private final LinkedBlockingQueue<ServerConnection> selectorQueue = new LinkedBlockingQueue<>();
+
+  /**
+   * All the objects currently registered with selector.
+   */
+  private final HashSet<ServerConnection> selectorRegistrations = new HashSet<>(512);
+
+  private final CacheServerStats.SelectorStats stats;
+
+  private Selector tmpSel;
+
+  private int registeredKeys = 0;
+
+  private Thread thread;
+
+  ServerConnectionSelector(AcceptorImpl acceptor, InternalCache cache,
+      CacheServerStats.SelectorStats stats) throws IOException {
+    this.acceptor = acceptor;
+    this.cache = cache;
+    this.stats = stats;
+    this.selector = Selector.open();
+  }
+
+  /**
+   * Returns true if the given bytes of a buffer hold the header of a message and all of its
+   * payload, or a header with a payload length that can not be valid.
+   */
+  static boolean containsMessage(ByteBuffer buffer, int offset, int length) {
+    if (length < Message.FIXED_LENGTH) {
+      return false;
+    }
+    int payloadLength = buffer.getInt(offset + PAYLOAD_LENGTH_OFFSET);
+    return payloadLength < 0 || length - Message.FIXED_LENGTH >= payloadLength;
+  }
+
+  void start(ThreadGroup group, String name) {
+    this.thread = new Thread(group, this, name);
+    this.thread.start();
+  }
+
+  /**
+   * Registers the given connection, which has finished processing its last request, to be
+   * dispatched once its next request has been read.
+   */
+  void register(ServerConnection sc) {
+    this.selectorQueue.offer(sc);
+    wakeup();
+  }
+
+  void wakeup() {
+    if (this.selector.isOpen()) {
+      this.selector.wakeup();
+    }
+  }
+
+  /**
+   * Records that a thread has started processing a request dispatched by this selector.
+   */
+  void endDispatch(long dispatchTime) {
+    this.stats.endDispatch(dispatchTime);
+  }
+
+  void close() {
+    if (this.tmpSel != null) {
+      try {
+        this.tmpSel.close();
+      } catch (IOException ignore) {
+      }
+    }
+    try {
+      wakeup();
+      this.selector.close();
+    } catch (IOException ignore) {
+    }
+    if (this.thread != null) {
+      this.thread.interrupt();
+    }
+    this.stats.close();
+  }
+
+  boolean isShutdownProperly() {
+    return (this.thread == null || !this.thread.isAlive()) && !this.selector.isOpen()
+        && (this.tmpSel == null || !this.tmpSel.isOpen());
+  }
+
+  private void finishCon(ServerConnection sc) {
+    if (sc != null) {
+      releasePrefetchBuffer(sc);
+      sc.handleTermination();
+    }
+  }
+
+  private void releasePrefetchBuffer(ServerConnection sc) {
+    ByteBuffer buffer = sc.getPrefetchBuffer();
+    if (buffer != null) {
+      sc.setPrefetchBuffer(null);
+      this.acceptor.releaseCommBuffer(buffer);
+    }
+  }
+
+  private void addRegistration(ServerConnection sc) {
+    this.selectorRegistrations.add(sc);
+    this.registeredKeys++;
+    this.stats.incConnections();
+  }
+
+  private void removeRegistration(ServerConnection sc) {
+    if (this.selectorRegistrations.remove(sc)) {
+      this.stats.decConnections();
+    }
+    this.registeredKeys--;
+  }
+
+  private void drainSelectorQueue() {
+    ServerConnection sc = this.selectorQueue.poll();
+    CancelException cce = null;
+    while (sc != null) {
+      try {
+        finishCon(sc);
+      } catch (CancelException e) {
+        if (cce == null) {
+          cce = e;
+        }
+      }
+      sc = this.selectorQueue.poll();
+    }
+    Iterator<ServerConnection> it = this.selectorRegistrations.iterator();
+    while (it.hasNext()) {
+      try {
+        finishCon(it.next());
+      } catch (CancelException e) {
+        if (cce == null) {
+          cce = e;
+        }
+      }
+    } // while
+    if (cce != null) {
+      throw cce;
+    }
+  }
+
+  private int checkRegisteredKeys(int count) {
+    int result = count;
+    CancelException cce = null;
+    if (count > 0) {
+      Iterator<ServerConnection> it = this.selectorRegistrations.iterator();
+      while (it.hasNext()) {
+        ServerConnection sc = it.next();
+        if (sc.isClosed()) {
+          result--;
+          it.remove();
+          this.stats.decConnections();
+          try {
+            finishCon(sc);
+          } catch (CancelException e) {
+            if (cce == null) {
+              cce = e;
+            }
+          }
+        }
+      } // while
+    }
+    if (cce != null) {
+      throw cce;
+    }
+    return result;
+  }
+
+  /**
+   * Reads what has arrived of the next request of a connection without blocking.
+   *
+   * @return true if the connection should now be dispatched to a thread
+   */
+  private boolean readAhead(ServerConnection sc) throws IOException {
+    if (!sc.canPrefetch()) {
+      return true;
+    }
+    ByteBuffer buffer = sc.getPrefetchBuffer();
+    if (buffer == null) {
+      buffer = this.acceptor.takeCommBuffer();
+      buffer.clear();
+      sc.setPrefetchBuffer(buffer);
+    }
+    int bytesRead = ((SocketChannel) sc.getSelectableChannel()).read(buffer);
+    if (bytesRead < 0) {
+      // let the thread processing the connection see the end of the stream
+      return true;
+    }
+    this.stats.incPrefetchedBytes(bytesRead);
+    if (buffer.position() == 0) {
+      releasePrefetchBuffer(sc);
+      return false;
+    }
+    return !buffer.hasRemaining() || containsMessage(buffer, 0, buffer.position());
+  }
+
+  /**
+   * Hands the given connection, whose key has been cancelled, to the server connection thread pool.
+   *
+   * @return false if the pool rejected the connection because the acceptor is closing
+   */
+  private boolean dispatch(ServerConnection sc) {
+    try {
+      sc.makeBlocking();
+      // we need to say we are processing a message
+      // so that that client health monitor will not
+      // kill us while we wait for a thread in the thread pool.
+      // This is also be used to determine how long we are
+      // in the thread pool queue and to cancel operations that
+      // have waited too long in the queue.
+      sc.setProcessingMessage();
+    } catch (ClosedChannelException ignore) {
+      finishCon(sc);
+      return true;
+    } catch (IOException ex) {
+      finishCon(sc);
+      if (this.acceptor.isRunning()) {
+        logger.warn(LocalizedMessage.create(LocalizedStrings.AcceptorImpl_UNEXPECTED, ex));
+      }
+      return true;
+    }
+    ByteBuffer buffer = sc.getPrefetchBuffer();
+    if (buffer != null) {
+      buffer.flip();
+    }
+    try {
+      this.acceptor.getStats().incThreadQueueSize();
+      this.stats.incQueueSize();
+      sc.setDispatchTime(System.nanoTime());
+      this.acceptor.executeServerConnection(sc);
+    } catch (RejectedExecutionException rejected) {
+      finishCon(sc);
+      this.acceptor.getStats().decThreadQueueSize();
+      this.stats.decQueueSize();
+      if (!this.acceptor.isRunning()) {
+        return false;
+      }
+      logger.warn(LocalizedMessage.create(LocalizedStrings.AcceptorImpl_UNEXPECTED, rejected));
+    }
+    return true;
+  }
+
+  private void checkForStuckKeys() {
+    if (!WORKAROUND_SELECTOR_BUG) {
+      return;
+    }
+    if (tmpSel == null) {
+      try {
+        tmpSel = Selector.open();
+      } catch (IOException ignore) {
+        logger.warn(LocalizedMessage
+            .create(LocalizedStrings.AcceptorImpl_COULD_NOT_CHECK_FOR_STUCK_KEYS, ignore));
+        return;
+      }
+
+    }
+    Iterator<SelectionKey> it = new ArrayList<>(this.selector.keys()).iterator();
+    while (it.hasNext()) {
+      SelectionKey sk = it.next();
+      ServerConnection sc = (ServerConnection) sk.attachment();
+      if (sc == null) {
+        continue;
+      }
+      try {
+        sk.cancel();
+        this.selector.selectNow(); // clear the cancelled key
+        SelectionKey tmpsk = sc.getSelectableChannel().register(this.tmpSel,
+            SelectionKey.OP_WRITE | SelectionKey.OP_READ);
+        try {
+          // it should always be writable
+          int events = this.tmpSel.selectNow();
+          if (events == 0) {
+            logger.info(LocalizedMessage
+                .create(LocalizedStrings.AcceptorImpl_STUCK_SELECTION_KEY_DETECTED_ON_0, sc));
+            tmpsk.cancel();
+            tmpSel.selectNow(); // clear canceled key
+            sc.registerWithSelector2(this.selector);
+          } else {
+            if (tmpsk.isValid() && tmpsk.isReadable()) {
+              tmpsk.cancel();
+              this.tmpSel.selectNow(); // clear canceled key
+              removeRegistration(sc);
+              if (!dispatch(sc)) {
+                break;
+              }
+            } else if (tmpsk.isValid() && tmpsk.isWritable()) {
+              // this is expected
+              tmpsk.cancel();
+              this.tmpSel.selectNow(); // clear canceled key
+              sc.registerWithSelector2(this.selector);
+            } else if (!tmpsk.isValid()) {
+              tmpsk.cancel();
+              this.tmpSel.selectNow(); // clear canceled key
+              sc.registerWithSelector2(this.selector);
+            }
+          }
+        } catch (IOException ex) {
+          if (isCheckingStuckKeys()) {
+            logger.warn(
+                LocalizedMessage.create(LocalizedStrings.AcceptorImpl_UNEXPECTED_EXCEPTION, ex));
+            try {
+              tmpsk.cancel();
+              tmpSel.selectNow(); // clear canceled key
+            } catch (IOException ex2) {
+              if (isCheckingStuckKeys()) {
+                logger.warn(LocalizedMessage
+                    .create(LocalizedStrings.AcceptorImpl_UNEXPECTED_EXCEPTION, ex2));
+              }
+            }
+          }
+        }
+      } catch (ClosedChannelException ignore) { // fix for bug 39650
+        // just ignore this channel and try the next one
+        finishCon(sc);
+        continue;
+      } catch (IOException ex) {
+        if (isCheckingStuckKeys()) {
+          logger.warn(
+              LocalizedMessage.create(LocalizedStrings.AcceptorImpl_UNEXPECTED_EXCEPTION, ex));
+        }
+      } catch (NullPointerException npe) { // fix bug 39644
+        if (isCheckingStuckKeys()) {
+          logger.warn(
+              LocalizedMessage.create(LocalizedStrings.AcceptorImpl_UNEXPECTED_EXCEPTION, npe));
+        }
+      }
+    }
+  }
+
+  private boolean isCheckingStuckKeys() {
+    return this.acceptor.isRunning() && this.selector.isOpen() && this.tmpSel.isOpen();
+  }
+
+  @Override
+  public void run() {
+    try {
+      logger.info(LocalizedMessage.create(LocalizedStrings.AcceptorImpl_SELECTOR_ENABLED));
+      while (this.selector.isOpen() && !Thread.currentThread().isInterrupted()) {
+        {
+          SystemFailure.checkFailure();
+          if (this.cache.isClosed()) { // bug 38834
+            break; // TODO should just ask cache's CancelCriterion
+          }
+          if (this.cache.getCancelCriterion().isCancelInProgress()) {
+            break;
+          }
+          ServerConnection sc;
+          registeredKeys = checkRegisteredKeys(registeredKeys);
+          if (registeredKeys == 0) {
+            // do blocking wait on queue until we get some guys registered
+            // with the selector
+            sc = this.selectorQueue.take();
+          } else {
+            // we already have some guys registered so just do a poll on queue
+            sc = this.selectorQueue.poll();
+          }
+          while (sc != null) {
+            try {
+              sc.registerWithSelector2(this.selector);
+              addRegistration(sc);
+            } catch (ClosedChannelException cce) {
+              // for bug bug 38474
+              finishCon(sc);
+            } catch (IOException ex) {
+              finishCon(sc);
+              logger.warn(LocalizedMessage.create(LocalizedStrings.AcceptorImpl_IGNORING, ex));
+            } catch (RuntimeException ex) {
+              finishCon(sc);
+              logger.warn(LocalizedMessage.create(LocalizedStrings.AcceptorImpl_IGNORING, ex));
+            }
+            sc = this.selectorQueue.poll();
+          }
+        }
+        if (registeredKeys == 0) {
+          continue;
+        }
+        int events = this.selector.select();
+        // select() could have returned due to wakeup() during close of cache
+        if (this.cache.getCancelCriterion().isCancelInProgress()) {
+          break;
+        }
+        if (events == 0) {
+          checkForStuckKeys();
+        }
+        while (events > 0) {
+          int cancelCount = 0;
+          Set<SelectionKey> sk = this.selector.selectedKeys();
+          if (sk == null) {
+            // something really bad has happened I'm not even sure this is possible
+            // but lhughes so an NPE during close one time so perhaps it can happen
+            // during selector close.
+            events = 0;
+            break;
+          }
+          Iterator<SelectionKey> keysIterator = sk.iterator();
+          while (keysIterator.hasNext()) {
+            SelectionKey key = keysIterator.next();
+            // Remove the key from the selector's selectedKeys
+            keysIterator.remove();
+            final ServerConnection sc = (ServerConnection) key.attachment();
+            try {
+              if (key.isValid() && key.isReadable()) {
+                // this is the only event we currently register for
+                boolean complete;
+                try {
+                  complete = readAhead(sc);
+                } catch (IOException ex) {
+                  // the thread processing the connection will run into this again
+                  complete = true;
+                }
+                if (!complete) {
+                  continue;
+                }
+                key.cancel();
+                removeRegistration(sc);
+                cancelCount++;
+                if (!dispatch(sc)) {
+                  break;
+                }
+              } else {
+                removeRegistration(sc);
+                finishCon(sc);
+                if (key.isValid()) {
+                  logger.warn(LocalizedMessage.create(
+                      LocalizedStrings.AcceptorImpl_IGNORING_EVENT_ON_SELECTOR_KEY__0, key));
+                }
+              }
+            } catch (CancelledKeyException ex) { // fix for bug 37739
+              finishCon(sc);
+            }
+          }
+          if (cancelCount > 0 && this.selector.isOpen()) {
+            // we need to do a select to cause the cancel to be unregisters.
+            events = this.selector.selectNow();
+          } else {
+            events = 0;
+          }
+        }
+      }
+    } catch (InterruptedException ex) {
+      // allow this thread to die
+      Thread.currentThread().interrupt();
+    } catch (ClosedSelectorException ex) {
+      // allow this thread to exit
+    } catch (IOException ex) {
+      logger.warn(LocalizedMessage.create(LocalizedStrings.AcceptorImpl_UNEXPECTED, ex));
+    } finally {
+      try {
+        drainSelectorQueue();
+      } finally {
+        // note that if this method was called by close then the
+        // following call is a noop since the first thing it does
+        // is call isRunning.
+        this.acceptor.close(); // make sure this is called to fix bug 37749
+      }
+    }
+  }
+}
@@ -38,6 +38,8 @@ public class ServerQueueStatus {
   private DistributedMember memberId = null;
   /** size of the PDX registry on the server. Currently only set for gateways */
   private int pdxSize = 0;
+  /** length at or above which parts sent to the server are compressed, zero if they are not */
+  private int compressionThreshold = 0;
 
   /**
    * Constructor Called when connectionsPerServer is nto equal to 0
@@ -129,6 +131,18 @@ public class ServerQueueStatus {
     this.pdxSize = pdxSize;
   }
 
+  /**
+   * returns the length at or above which parts of the messages sent to the server are compressed,
+   * or zero if the server did not agree to compression
+   */
+  public int getCompressionThreshold() {
+    return compressionThreshold;
+  }
+
+  public void setCompressionThreshold(int compressionThreshold) {
+    this.compressionThreshold = compressionThreshold;
+  }
+
   /**
    * The member id of the server we connected to.
    *
@@ -46,6 +46,9 @@ public class ServerSideHandshakeImpl extends Handshake implements ServerSideHand
       ServerSideHandshakeFactory.currentServerVersion;
   private Version clientVersion;
 
+  /** parts at least this long are compressed when sent to the client; zero if none are */
+  private int compressionThreshold;
+
   private final byte replyCode;
 
   @Override
@@ -94,7 +97,12 @@ public class ServerSideHandshakeImpl extends Handshake implements ServerSideHand
         // Note: credentials should always be the last piece in handshake for
         // Diffie-Hellman key exchange to work
         if (clientVersion.compareTo(Version.GFE_603) >= 0) {
-          setOverrides(new byte[] {dataInputStream.readByte()});
+          byte override = dataInputStream.readByte();
+          setOverrides(new byte[] {override});
+          if ((override & COMPRESSION_REQUESTED) != 0 && SERVER_COMPRESSION_THRESHOLD > 0
+              && clientVersion.compareTo(Version.GEODE_180) >= 0 && !communicationMode.isWAN()) {
+            this.compressionThreshold = SERVER_COMPRESSION_THRESHOLD;
+          }
         } else {
           setClientConflation(dataInputStream.readByte());
         }
@@ -127,6 +135,11 @@ public class ServerSideHandshakeImpl extends Handshake implements ServerSideHand
     return this.clientVersion;
   }
 
+  @Override
+  public int getCompressionThreshold() {
+    return this.compressionThreshold;
+  }
+
   @Override
   public void handshakeWithClient(OutputStream out, InputStream in, byte endpointType,
       int queueSize, CommunicationMode communicationMode, Principal principal) throws IOException {
@@ -141,6 +154,8 @@ public class ServerSideHandshakeImpl extends Handshake implements ServerSideHand
     // Write ok reply
     if (communicationMode.isWAN() && principal != null) {
       dos.writeByte(REPLY_WAN_CREDENTIALS);
+    } else if (this.compressionThreshold > 0) {
+      dos.writeByte(REPLY_OK_COMPRESSED);
     } else {
       dos.writeByte(REPLY_OK);// byte 59
     }
@@ -0,0 +1,382 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache.tier.sockets;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.apache.logging.log4j.Logger;
+
+import org.apache.geode.internal.logging.LogService;
+import org.apache.geode.internal.logging.LoggingThreadGroup;
+
+/**
+ * Carries many independent {@link MultiplexedSocket streams} over one socket between a client and
+ * a cache server, so that a client can have many operations in progress on a server without
+ * having a socket, and a server thread, for each of them.
+ * <p>
+ * Each frame on the socket starts with the id of its stream and its length. A frame with a
+ * negative length opens or closes a stream instead of carrying data. What is flushed to a stream is
+ * sent in frames of at most {@link #MAX_FRAME_SIZE} bytes, so that a large message on one stream
+ * does not hold up the others for long, and frames claiming to be larger are rejected before
+ * anything is allocated for them. Streams are only ever opened
+ * by the client, and the server hands each stream it is asked to open to a listener that treats it
+ * like a newly accepted socket. Since the frames of different streams are interleaved, the
+ * responses to the operations in progress can arrive in any order.
+ */
+public class SocketMultiplexer {
+  private static final Logger logger = LogService.getLogger();
+
+  /**
+   * The largest number of bytes carried by one frame.
+   */
+  static final int MAX_FRAME_SIZE = 32 * 1024;
+
+  private static final int OPEN_FRAME = -1;
+  private static final int CLOSE_FRAME = -2;
+
+  private final Socket socket;
+  private final DataOutputStream out;
+  private final DataInputStream in;
+  private final ConcurrentHashMap<Integer, MultiplexedSocket> streams = new ConcurrentHashMap<>();
+  private final AtomicInteger lastStreamId = new AtomicInteger();
+  private final Consumer<MultiplexedSocket> streamListener;
+  private final BlockingQueue<MultiplexedSocket> openedStreams;
+  private final Consumer<SocketMultiplexer> closeListener;
+  private volatile boolean closed;
+
+  /**
+   * Creates the client side of a multiplexed socket, on which streams are opened with
+   * {@link #openStream()}.
+   *
+   * @param closeListener told once the socket has been closed or has failed
+   */
+  public static SocketMultiplexer forClient(Socket socket, int bufferSize,
+      Consumer<SocketMultiplexer> closeListener) throws IOException {
+    SocketMultiplexer result = new SocketMultiplexer(socket, bufferSize, null, closeListener);
+    result.start("Multiplexed connection to " + socket.getRemoteSocketAddress());
+    return result;
+  }
+
+  /**
+   * Creates the server side of a multiplexed socket. Each stream the client opens is given to the
+   * listener, which is always called by a thread of this multiplexer so it may block.
+   */
+  public static SocketMultiplexer forServer(Socket socket, int bufferSize,
+      Consumer<MultiplexedSocket> streamListener) throws IOException {
+    SocketMultiplexer result = new SocketMultiplexer(socket, bufferSize, streamListener, null);
+    result.start("Multiplexed connection from " + socket.getRemoteSocketAddress());
+    return result;
+  }
+
+  private SocketMultiplexer(Socket socket, int bufferSize,
+      Consumer<MultiplexedSocket> streamListener, Consumer<SocketMultiplexer> closeListener)
+      throws IOException {
+    this.socket = socket;
+    SocketChannel channel = socket.getChannel();
+    if (channel == null) {
+      this.out =
+          new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), bufferSize));
+      this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), bufferSize));
+    } else {
+      // the streams of a socket with a channel hold the channel's blocking lock while they read or
+      // write, so a write would wait for the reader thread to receive something
+      this.out = new DataOutputStream(
+          new BufferedOutputStream(new ChannelOutputStream(channel), bufferSize));
+      this.in = new DataInputStream(
+          new BufferedInputStream(new ChannelInputStream(channel), bufferSize));
+    }
+    this.streamListener = streamListener;
+    this.openedStreams = streamListener == null ? null : new LinkedBlockingQueue<>();
+    this.closeListener = closeListener;
+  }
+
+  private void start(String name) {
+    ThreadGroup group = LoggingThreadGroup.createThreadGroup("Multiplexed Connection Threads",
+        logger);
+    Thread reader = new Thread(group, this::readFrames, name + " reader");
+    reader.setDaemon(true);
+    reader.start();
+    if (this.streamListener != null) {
+      // the listener may block, for example while a new stream is being handshaked, and must not
+      // hold up the frames of the other streams
+      Thread opener = new Thread(group, this::handOffOpenedStreams, name + " stream opener");
+      opener.setDaemon(true);
+      opener.start();
+    }
+  }
+
+  public Socket getSocket() {
+    return this.socket;
+  }
+
+  public boolean isClosed() {
+    return this.closed;
+  }
+
+  /**
+   * Returns the number of streams currently open on this socket.
+   */
+  public int getStreamCount() {
+    return this.streams.size();
+  }
+
+  /**
+   * Opens a new stream to the server.
+   */
+  public MultiplexedSocket openStream() throws IOException {
+    MultiplexedSocket stream = new MultiplexedSocket(this, this.lastStreamId.incrementAndGet());
+    this.streams.put(stream.getStreamId(), stream);
+    try {
+      writeFrame(stream.getStreamId(), OPEN_FRAME, null, 0, 0);
+    } catch (IOException e) {
+      this.streams.remove(stream.getStreamId());
+      throw e;
+    }
+    return stream;
+  }
+
+  /**
+   * Sends the given bytes to the other side of a stream, in as many frames as needed.
+   */
+  void writeFrames(int streamId, byte[] bytes, int length) throws IOException {
+    int offset = 0;
+    while (offset < length) {
+      int frameLength = Math.min(length - offset, MAX_FRAME_SIZE);
+      writeFrame(streamId, frameLength, bytes, offset, frameLength);
+      offset += frameLength;
+    }
+  }
+
+  private void writeFrame(int streamId, int header, byte[] bytes, int offset, int length)
+      throws IOException {
+    if (this.closed) {
+      throw new SocketException("Multiplexed connection " + this.socket + " is closed");
+    }
+    try {
+      synchronized (this.out) {
+        this.out.writeInt(streamId);
+        this.out.writeInt(header);
+        if (length > 0) {
+          this.out.write(bytes, offset, length);
+        }
+        this.out.flush();
+      }
+    } catch (IOException e) {
+      close(e);
+      throw e;
+    }
+  }
+
+  void closeStream(MultiplexedSocket stream) throws IOException {
+    if (!this.closed && this.streams.containsKey(stream.getStreamId())) {
+      writeFrame(stream.getStreamId(), CLOSE_FRAME, null, 0, 0);
+    }
+  }
+
+  void removeStream(MultiplexedSocket stream) {
+    this.streams.remove(stream.getStreamId(), stream);
+  }
+
+  private void readFrames() {
+    IOException failure = null;
+    try {
+      while (!this.closed) {
+        int streamId = this.in.readInt();
+        int header = this.in.readInt();
+        if (header == OPEN_FRAME) {
+          openedByClient(streamId);
+        } else if (header == CLOSE_FRAME) {
+          MultiplexedSocket stream = this.streams.get(streamId);
+          if (stream != null) {
+            stream.remoteClosed();
+          }
+        } else if (header < 0 || header > MAX_FRAME_SIZE) {
+          throw new IOException("Unexpected frame header " + header + " for stream " + streamId);
+        } else {
+          byte[] bytes = new byte[header];
+          this.in.readFully(bytes);
+          MultiplexedSocket stream = this.streams.get(streamId);
+          // the stream may already have been closed on this side. Delivering waits while the
+          // stream has too much unread data, which stops the other side from sending more
+          if (stream != null) {
+            stream.deliver(bytes);
+          }
+        }
+      }
+    } catch (EOFException e) {
+      failure = e;
+    } catch (IOException e) {
+      failure = e;
+      if (!this.closed && logger.isDebugEnabled()) {
+        logger.debug("Multiplexed connection {} failed", this.socket, e);
+      }
+    } finally {
+      close(failure == null ? new EOFException() : failure);
+    }
+  }
+
+  private void openedByClient(int streamId) throws IOException {
+    if (this.streamListener == null) {
+      throw new IOException("Unexpected request to open stream " + streamId);
+    }
+    MultiplexedSocket stream = new MultiplexedSocket(this, streamId);
+    this.streams.put(streamId, stream);
+    this.openedStreams.add(stream);
+  }
+
+  private void handOffOpenedStreams() {
+    try {
+      while (!this.closed) {
+        MultiplexedSocket stream = this.openedStreams.take();
+        if (this.closed || stream.isClosed()) {
+          continue;
+        }
+        try {
+          this.streamListener.accept(stream);
+        } catch (RuntimeException e) {
+          logger.warn("Unable to accept stream {}", stream, e);
+          closeQuietly(stream);
+        }
+      }
+    } catch (InterruptedException e) {
+      // closed
+    }
+  }
+
+  /**
+   * Closes the socket and every stream on it.
+   */
+  public void close() {
+    close(new SocketException("Multiplexed connection closed"));
+  }
+
+  private void close(IOException cause) {
+    synchronized (this) {
+      if (this.closed) {
+        return;
+      }
+      this.closed = true;
+    }
+    try {
+      this.socket.close();
+    } catch (IOException ignore) {
+      // nothing more to do
+    }
+    for (MultiplexedSocket stream : new ArrayList<>(this.streams.values())) {
+      stream.failed(cause);
+    }
+    this.streams.clear();
+    if (this.openedStreams != null) {
+      MultiplexedSocket stream;
+      while ((stream = this.openedStreams.poll()) != null) {
+        closeQuietly(stream);
+      }
+      // wake up the stream opener so that it can exit
+      this.openedStreams.add(new MultiplexedSocket(this, 0));
+    }
+    if (this.closeListener != null) {
+      this.closeListener.accept(this);
+    }
+  }
+
+  private static void closeQuietly(Socket socket) {
+    try {
+      socket.close();
+    } catch (IOException ignore) {
+      // nothing more to do
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "SocketMultiplexer[" + this.socket + "; streams=" + this.streams.size() + "]";
+  }
+
+  /**
+   * Reads from a blocking channel without holding its blocking lock.
+   */
+  private static class ChannelInputStream extends InputStream {
+    private final SocketChannel channel;
+
+    ChannelInputStream(SocketChannel channel) {
+      this.channel = channel;
+    }
+
+    @Override
+    public int read() throws IOException {
+      byte[] b = new byte[1];
+      return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+      return this.channel.read(ByteBuffer.wrap(b, off, len));
+    }
+
+    @Override
+    public void close() throws IOException {
+      this.channel.close();
+    }
+  }
+
+  /**
+   * Writes to a blocking channel without holding its blocking lock.
+   */
+  private static class ChannelOutputStream extends OutputStream {
+    private final SocketChannel channel;
+
+    ChannelOutputStream(SocketChannel channel) {
+      this.channel = channel;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+      while (buffer.hasRemaining()) {
+        this.channel.write(buffer);
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      this.channel.close();
+    }
+  }
+}
@@ -1263,6 +1263,13 @@ public class CacheXmlGenerator extends CacheXml implements XMLReader {
           atts.addAttribute("", "", MULTIUSER_SECURE_MODE_ENABLED, "",
               String.valueOf(cp.getMultiuserAuthentication()));
       }
+
+      if (this.version.compareTo(CacheXmlVersion.GEODE_1_0) >= 0) {
+        if (generateDefaults()
+            || cp.getMultiplexedConnections() != PoolFactory.DEFAULT_MULTIPLEXED_CONNECTIONS)
+          atts.addAttribute("", "", MULTIPLEXED_CONNECTIONS, "",
+              String.valueOf(cp.getMultiplexedConnections()));
+      }
     } finally {
       handler.startElement("", CONNECTION_POOL, CONNECTION_POOL, atts);
       {
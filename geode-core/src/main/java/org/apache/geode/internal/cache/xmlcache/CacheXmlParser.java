@@ -479,6 +479,10 @@ public class CacheXmlParser extends CacheXml implements ContentHandler {
     if (v != null) {
       f.setMultiuserAuthentication(parseBoolean(v));
     }
+    v = atts.getValue(MULTIPLEXED_CONNECTIONS);
+    if (v != null) {
+      f.setMultiplexedConnections(parseBoolean(v));
+    }
   }
 
   /**
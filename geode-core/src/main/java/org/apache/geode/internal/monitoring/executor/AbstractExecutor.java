@@ -57,8 +57,16 @@ public abstract class AbstractExecutor {
         .append(dateFormat.format(this.getStartTime())).append("> has been stuck for <")
         .append((float) stuckTime / 1000)
         .append(" seconds> and number of thread monitor iteration <")
-        .append(this.numIterationsStuck).append("> ").append(System.lineSeparator())
-        .append("Thread Name <").append(thread.getThreadName()).append(">")
+        .append(this.numIterationsStuck).append("> ").append(System.lineSeparator());
+
+    if (thread == null) {
+      // virtual threads, and threads that have ended, have no thread info
+      strb.append("Executor Group <").append(groupName).append(">")
+          .append(System.lineSeparator());
+      return strb.toString();
+    }
+
+    strb.append("Thread Name <").append(thread.getThreadName()).append(">")
         .append(System.lineSeparator()).append("Thread state <").append(thread.getThreadState())
         .append(">").append(System.lineSeparator());
 
@@ -21,11 +21,13 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.apache.logging.log4j.Logger;
 
@@ -53,6 +55,26 @@ public class FreeListManager {
   private final ConcurrentSkipListSet<OffHeapStoredObject> hugeChunkSet =
       new ConcurrentSkipListSet<OffHeapStoredObject>();
   private final AtomicLong allocatedSize = new AtomicLong(0L);
+  /**
+   * The amount of free memory held by the tiny and huge free lists and the thread caches. A
+   * LongAdder so that frees and allocations from different threads do not contend on it.
+   */
+  private final LongAdder freeListMemory = new LongAdder();
+
+  /**
+   * Every thread cache that was created by this manager and not dropped yet. A cache is added when
+   * a thread does its first tiny allocation or free and dropped once its thread has died.
+   */
+  private final ConcurrentLinkedQueue<ThreadChunkCache> threadCaches =
+      new ConcurrentLinkedQueue<ThreadChunkCache>();
+  /**
+   * The number of chunks the thread caches may still reserve room for. See
+   * {@link #THREAD_CACHE_MAX_CHUNKS}.
+   */
+  private final AtomicInteger threadCacheChunksAvailable =
+      new AtomicInteger(THREAD_CACHE_MAX_CHUNKS);
+  private final ThreadLocal<ThreadChunkCache> threadCache =
+      ThreadLocal.withInitial(this::createThreadCache);
 
   private int getNearestTinyMultiple(int size) {
     return (size - 1) / TINY_MULTIPLE;
@@ -116,7 +138,7 @@ public class FreeListManager {
   }
 
   long getFreeTinyMemory() {
-    long tinyFree = 0;
+    long tinyFree = getThreadCachedMemory();
     for (int i = 0; i < this.tinyFreeLists.length(); i++) {
       OffHeapStoredObjectAddressStack cl = this.tinyFreeLists.get(i);
       if (cl != null) {
@@ -126,6 +148,25 @@ public class FreeListManager {
     return tinyFree;
   }
 
+  /**
+   * Returns the amount of free memory that can only be reused by allocations of about the same size
+   * until a defragmentation merges it back into fragments.
+   */
+  long getFreeListMemory() {
+    return this.freeListMemory.sum();
+  }
+
+  /**
+   * Returns the amount of free memory held by the caches of individual threads.
+   */
+  long getThreadCachedMemory() {
+    long result = 0;
+    for (ThreadChunkCache cache : this.threadCaches) {
+      result += cache.getCachedMemory();
+    }
+    return result;
+  }
+
   long getFreeHugeMemory() {
     long hugeFree = 0;
     for (OffHeapStoredObject c : this.hugeChunkSet) {
@@ -322,6 +363,35 @@ public class FreeListManager {
     verifyHugeMultiple(HUGE_MULTIPLE);
   }
   public static final int MAX_TINY = TINY_MULTIPLE * TINY_FREE_LIST_COUNT;
+  /**
+   * The number of free chunks of each size class that a thread may keep for itself. Zero disables
+   * the thread caches.
+   */
+  public static final int THREAD_CACHE_SIZE =
+      Integer.getInteger(DistributionConfig.GEMFIRE_PREFIX + "OFF_HEAP_THREAD_CACHE_SIZE", 32);
+  static {
+    verifyThreadCacheSize(THREAD_CACHE_SIZE);
+  }
+  /**
+   * Chunks up to this size, including their header, are cached by threads. Larger ones always go
+   * through the shared free lists since they are less frequent and would make the caches hold on to
+   * too much memory.
+   */
+  public static final int THREAD_CACHE_MAX_CHUNK_SIZE = Integer
+      .getInteger(DistributionConfig.GEMFIRE_PREFIX + "OFF_HEAP_THREAD_CACHE_MAX_CHUNK_SIZE", 256);
+  /**
+   * The number of tiny size classes, starting with the smallest, that are cached by threads.
+   */
+  static final int THREAD_CACHE_SIZE_CLASSES = THREAD_CACHE_SIZE == 0 ? 0
+      : Math.min(TINY_FREE_LIST_COUNT, Math.max(0, THREAD_CACHE_MAX_CHUNK_SIZE / TINY_MULTIPLE));
+  /**
+   * The most chunks the thread caches of a manager may hold together. A thread reserves room for
+   * {@link #THREAD_CACHE_SIZE} chunks the first time it caches a size class, and a size class it
+   * can not reserve room for goes through the shared free list.
+   */
+  public static final int THREAD_CACHE_MAX_CHUNKS = Integer
+      .getInteger(DistributionConfig.GEMFIRE_PREFIX + "OFF_HEAP_THREAD_CACHE_MAX_CHUNKS",
+          64 * 1024);
 
   /**
    * Return true if the two chunks have been combined into one. If low and high are adjacent to each
@@ -367,7 +437,9 @@ public class FreeListManager {
     final int countPreSync = this.defragmentationCount.get();
     afterDefragmentationCountFetched();
     try {
+      final long waitStart = this.ma.getStats().startDefragmentationWait();
       synchronized (this) {
+        this.ma.getStats().endDefragmentationWait(waitStart);
         if (this.defragmentationCount.get() != countPreSync) {
           // someone else did a defragmentation while we waited on the sync.
           // So just return true causing the caller to retry the allocation.
@@ -385,6 +457,235 @@ public class FreeListManager {
     }
   }
 
+  /**
+   * Merges adjacent chunks of the free lists, and the free ends of fragments they touch, into new
+   * fragments. Unlike defragment the memory of the fragments is not taken away while this is done,
+   * so allocations continue to be served by them and by chunks freed in the meantime. Only an
+   * allocation that runs out of memory has to wait for this to finish. At most
+   * {@link #MAX_INCREMENTAL_CHUNKS} chunks are looked at. Chunks cached by live threads are left
+   * alone, but the caches of threads that have died are given back to the free lists first. Returns
+   * true if any memory was merged.
+   */
+  boolean defragmentIncrementally() {
+    final long start = this.ma.getStats().startIncrementalDefragmentation();
+    try {
+      synchronized (this) {
+        boolean result = doDefragmentIncrementally();
+        if (result) {
+          // Allocations waiting to defragment can retry instead of doing it again.
+          this.defragmentationCount.incrementAndGet();
+        }
+        return result;
+      }
+    } finally {
+      this.ma.getStats().endIncrementalDefragmentation(start);
+    }
+  }
+
+  /**
+   * Merged runs of chunks smaller than this are given back to the free lists instead of becoming
+   * fragments, so that the fragment list, which allocations search linearly, stays short.
+   */
+  static final int MIN_INCREMENTAL_FRAGMENT_SIZE = 64 * 1024;
+
+  /**
+   * The most chunks one call of defragmentIncrementally takes off the free lists. The free lists
+   * are visited in turn, so the chunks one call leaves are looked at by the following ones.
+   */
+  static final int MAX_INCREMENTAL_CHUNKS = Integer.getInteger(
+      DistributionConfig.GEMFIRE_PREFIX + "OFF_HEAP_DEFRAGMENTATION_MAX_CHUNKS", 16 * 1024);
+
+  /**
+   * The free list the next call of defragmentIncrementally starts taking chunks from. The index
+   * after the last tiny free list stands for the huge chunks. Guarded by this manager's monitor.
+   */
+  private int nextIncrementalFreeList;
+
+  /**
+   * Does the work of defragmentIncrementally. It should only be called by defragmentIncrementally
+   * and unit tests.
+   */
+  boolean doDefragmentIncrementally() {
+    return doDefragmentIncrementally(MAX_INCREMENTAL_CHUNKS);
+  }
+
+  boolean doDefragmentIncrementally(int maxChunks) {
+    dropDeadThreadCaches();
+    long[] chunks = collectFreeListChunks(maxChunks);
+    if (chunks.length == 0) {
+      return false;
+    }
+    Arrays.sort(chunks);
+    long[] tails = claimAdjacentFragmentTails(chunks);
+
+    boolean result = false;
+    int largestFragment = 0;
+    ArrayList<Fragment> newFragments = new ArrayList<Fragment>();
+    int chunkIdx = 0;
+    int tailIdx = 0;
+    while (chunkIdx < chunks.length || tailIdx < tails.length) {
+      long runAddr;
+      boolean containsTail;
+      if (tailIdx == tails.length
+          || (chunkIdx < chunks.length && chunks[chunkIdx] < tails[tailIdx])) {
+        runAddr = chunks[chunkIdx++];
+        containsTail = false;
+      } else {
+        runAddr = tails[tailIdx++];
+        containsTail = true;
+      }
+      boolean merged = false;
+      while (true) {
+        if (chunkIdx < chunks.length
+            && combineIfAdjacentAndSmallEnough(runAddr, chunks[chunkIdx])) {
+          chunkIdx++;
+          merged = true;
+        } else if (tailIdx < tails.length
+            && combineIfAdjacentAndSmallEnough(runAddr, tails[tailIdx])) {
+          tailIdx++;
+          merged = true;
+          containsTail = true;
+        } else {
+          break;
+        }
+      }
+      int runSize = OffHeapStoredObject.getSize(runAddr);
+      if (containsTail || (merged && runSize >= MIN_INCREMENTAL_FRAGMENT_SIZE)) {
+        Fragment f = createFragment(runAddr, runSize);
+        if (this.validateMemoryWithFill) {
+          f.fill();
+        }
+        newFragments.add(f);
+        if (runSize > largestFragment) {
+          largestFragment = runSize;
+        }
+        result |= merged;
+      } else {
+        if (merged) {
+          result = true;
+          if (this.validateMemoryWithFill) {
+            OffHeapStoredObject.fill(runAddr);
+          }
+        }
+        returnToFreeList(runAddr, runSize);
+      }
+    }
+    this.fragmentList.addAll(newFragments);
+
+    for (Fragment f : this.fragmentList) {
+      if (f.freeSpace() > largestFragment) {
+        largestFragment = f.freeSpace();
+      }
+    }
+    this.ma.getStats().setLargestFragment(largestFragment);
+    this.ma.getStats().setFragments(this.fragmentList.size());
+    this.ma.getStats().setFragmentation(getFragmentation());
+    return result;
+  }
+
+  /**
+   * Takes up to max chunks off the tiny and huge free lists, starting with the list after the last
+   * one the previous call took chunks from, and returns their addresses.
+   */
+  private long[] collectFreeListChunks(int max) {
+    long[] chunks = new long[max];
+    long[] polled = new long[max];
+    int count = 0;
+    long collectedSize = 0;
+    int listCount = this.tinyFreeLists.length() + 1;
+    int list = this.nextIncrementalFreeList % listCount;
+    for (int visited = 0; visited < listCount && count < max; visited++) {
+      if (list < this.tinyFreeLists.length()) {
+        OffHeapStoredObjectAddressStack cl = this.tinyFreeLists.get(list);
+        if (cl != null) {
+          int polledCount = cl.poll(polled, max - count);
+          for (int i = 0; i < polledCount; i++) {
+            chunks[count++] = polled[i];
+            collectedSize += OffHeapStoredObject.getSize(polled[i]);
+          }
+        }
+      } else {
+        OffHeapStoredObject c;
+        while (count < max && (c = this.hugeChunkSet.pollFirst()) != null) {
+          chunks[count++] = c.getAddress();
+          collectedSize += c.getSize();
+        }
+      }
+      list = (list + 1) % listCount;
+    }
+    this.nextIncrementalFreeList = list;
+    this.freeListMemory.add(-collectedSize);
+    return Arrays.copyOf(chunks, count);
+  }
+
+  /**
+   * Claims the free memory at the end of each fragment that is adjacent to one of the given sorted
+   * chunks, turning it into a chunk. Fragments that do not touch a free chunk keep serving
+   * allocations. Fragments left without free memory, including the claimed ones, are removed from
+   * the fragment list.
+   *
+   * @return the sorted addresses of the claimed chunks
+   */
+  private long[] claimAdjacentFragmentTails(long[] sortedChunks) {
+    ResizableLongArray tails = new ResizableLongArray();
+    for (Fragment f : this.fragmentList) {
+      long fragmentEnd = f.getAddress() + f.getSize();
+      boolean endIsAdjacent = Arrays.binarySearch(sortedChunks, fragmentEnd) >= 0;
+      int offset;
+      int diff;
+      boolean claimed = false;
+      do {
+        offset = f.getFreeIndex();
+        diff = f.getSize() - offset;
+        if (diff < OffHeapStoredObject.MIN_CHUNK_SIZE) {
+          break;
+        }
+        if (!endIsAdjacent && !isPrecededByChunk(sortedChunks, f.getAddress() + offset)) {
+          break;
+        }
+        claimed = f.allocate(offset, offset + diff);
+      } while (!claimed);
+      if (claimed) {
+        long tailAddr = f.getAddress() + offset;
+        OffHeapStoredObject.setSize(tailAddr, diff);
+        tails.add(tailAddr);
+      }
+    }
+    // Fragments are equal if their addresses are, and a fragment created by an earlier pass can
+    // start at the same address as an older one that still has free memory, so do not remove by
+    // equality.
+    this.fragmentList.removeIf(f -> f.freeSpace() == 0);
+    long[] result = Arrays.copyOf(tails.data, tails.size());
+    Arrays.sort(result);
+    return result;
+  }
+
+  /**
+   * Returns true if one of the given sorted chunks ends right before addr.
+   */
+  private static boolean isPrecededByChunk(long[] sortedChunks, long addr) {
+    int idx = Arrays.binarySearch(sortedChunks, addr);
+    if (idx >= 0) {
+      // addr is a chunk itself so it can not be the end of another one
+      return false;
+    }
+    int before = -idx - 2;
+    return before >= 0
+        && sortedChunks[before] + OffHeapStoredObject.getSize(sortedChunks[before]) == addr;
+  }
+
+  /**
+   * Puts a chunk taken by defragmentIncrementally back on the free list for its size.
+   */
+  private void returnToFreeList(long addr, int size) {
+    this.freeListMemory.add(size);
+    if (size <= MAX_TINY) {
+      basicFree(addr, getNearestTinyMultiple(size), this.tinyFreeLists);
+    } else {
+      freeHuge(addr, size);
+    }
+  }
+
   /**
    * Simple interface the represents a "stack" of primitive longs. Currently this interface only
    * allows supports poll but more could be added if needed in the future. This interface was
@@ -453,6 +754,7 @@ public class FreeListManager {
    */
   boolean doDefragment(int chunkSize) {
     boolean result = false;
+    drainThreadCaches();
     ArrayList<LongStack> freeChunks = new ArrayList<LongStack>();
     collectFreeChunks(freeChunks);
     ResizableLongArray sorted = new ResizableLongArray();
@@ -546,6 +848,13 @@ public class FreeListManager {
     }
   }
 
+  static void verifyThreadCacheSize(int threadCacheSize) {
+    if (threadCacheSize < 0) {
+      throw new IllegalStateException(
+          DistributionConfig.GEMFIRE_PREFIX + "OFF_HEAP_THREAD_CACHE_SIZE must be >= 0.");
+    }
+  }
+
   static void verifyHugeMultiple(int hugeMultiple) {
     if (hugeMultiple > 256 || hugeMultiple < 0) {
       // this restriction exists because of the dataSize field in the object header.
@@ -628,7 +937,9 @@ public class FreeListManager {
       if (cl != null) {
         long head = cl.clear();
         if (head != 0L) {
-          l.add(new OffHeapStoredObjectAddressStack(head));
+          OffHeapStoredObjectAddressStack collected = new OffHeapStoredObjectAddressStack(head);
+          this.freeListMemory.add(-collected.computeTotalSize());
+          l.add(collected);
         }
       }
     }
@@ -643,6 +954,7 @@ public class FreeListManager {
         l.add(result);
       }
       result.offer(c.getAddress());
+      this.freeListMemory.add(-c.getSize());
       c = this.hugeChunkSet.pollFirst();
     }
   }
@@ -699,8 +1011,29 @@ public class FreeListManager {
   }
 
   private OffHeapStoredObject allocateTiny(int size, boolean useFragments) {
-    return basicAllocate(getNearestTinyMultiple(size), TINY_MULTIPLE, 0, this.tinyFreeLists,
-        useFragments);
+    int idx = getNearestTinyMultiple(size);
+    if (idx < THREAD_CACHE_SIZE_CLASSES) {
+      long memAddr = this.threadCache.get().poll(this, idx);
+      if (memAddr != ThreadChunkCache.NOT_CACHED) {
+        if (memAddr != 0) {
+          return reuseFreeChunk(memAddr);
+        }
+        if (useFragments) {
+          return allocateFromFragments((idx + 1) * TINY_MULTIPLE);
+        } else {
+          return null;
+        }
+      }
+    }
+    return basicAllocate(idx, TINY_MULTIPLE, 0, this.tinyFreeLists, useFragments);
+  }
+
+  private OffHeapStoredObject reuseFreeChunk(long memAddr) {
+    OffHeapStoredObject result = new OffHeapStoredObject(memAddr);
+    checkDataIntegrity(result);
+    result.readyForAllocation();
+    this.freeListMemory.add(-result.getSize());
+    return result;
   }
 
   private OffHeapStoredObject basicAllocate(int idx, int multiple, int offset,
@@ -709,10 +1042,7 @@ public class FreeListManager {
     if (clq != null) {
       long memAddr = clq.poll();
       if (memAddr != 0) {
-        OffHeapStoredObject result = new OffHeapStoredObject(memAddr);
-        checkDataIntegrity(result);
-        result.readyForAllocation();
-        return result;
+        return reuseFreeChunk(memAddr);
       }
     }
     if (useFragments) {
@@ -732,6 +1062,7 @@ public class FreeListManager {
         // close enough to the requested size; just return it.
         checkDataIntegrity(result);
         result.readyForAllocation();
+        this.freeListMemory.add(-result.getSize());
         return result;
       } else {
         this.hugeChunkSet.add(result);
@@ -789,6 +1120,7 @@ public class FreeListManager {
       stats.incFreeMemory(cSize);
       this.ma.notifyListeners();
     }
+    this.freeListMemory.add(cSize);
     if (cSize <= MAX_TINY) {
       freeTiny(addr, cSize);
     } else {
@@ -797,7 +1129,95 @@ public class FreeListManager {
   }
 
   private void freeTiny(long addr, int cSize) {
-    basicFree(addr, getNearestTinyMultiple(cSize), this.tinyFreeLists);
+    int idx = getNearestTinyMultiple(cSize);
+    if (idx >= THREAD_CACHE_SIZE_CLASSES || !this.threadCache.get().offer(this, idx, addr)) {
+      basicFree(addr, idx, this.tinyFreeLists);
+    }
+  }
+
+  private ThreadChunkCache createThreadCache() {
+    // threads come and go with thread pools, so this is where the caches of dead ones are dropped
+    dropDeadThreadCaches();
+    ThreadChunkCache result =
+        new ThreadChunkCache(Thread.currentThread(), THREAD_CACHE_SIZE_CLASSES, THREAD_CACHE_SIZE);
+    this.threadCaches.add(result);
+    return result;
+  }
+
+  /**
+   * Gives the chunks cached by threads that have died back to the shared free lists, along with the
+   * room reserved for them, and drops their caches.
+   */
+  void dropDeadThreadCaches() {
+    for (ThreadChunkCache cache : this.threadCaches) {
+      // only the thread that removes a cache closes it
+      if (!cache.isOwnerAlive() && this.threadCaches.remove(cache)) {
+        cache.close(this);
+      }
+    }
+  }
+
+  /**
+   * Reserves room for the given number of chunks in a thread cache.
+   *
+   * @return false if the thread caches already hold {@link #THREAD_CACHE_MAX_CHUNKS}
+   */
+  boolean reserveThreadCacheChunks(int count) {
+    int available;
+    do {
+      available = this.threadCacheChunksAvailable.get();
+      if (available < count) {
+        return false;
+      }
+    } while (!this.threadCacheChunksAvailable.compareAndSet(available, available - count));
+    return true;
+  }
+
+  /**
+   * Gives back room reserved by {@link #reserveThreadCacheChunks(int)}.
+   */
+  void releaseThreadCacheChunks(int count) {
+    this.threadCacheChunksAvailable.addAndGet(count);
+  }
+
+  /**
+   * Moves up to max chunks from the shared free list of the given tiny size class into the given
+   * array. Used by thread caches to refill themselves.
+   *
+   * @return the number of chunks moved
+   */
+  int pollTinyFreeList(int idx, long[] addrs, int max) {
+    OffHeapStoredObjectAddressStack clq = this.tinyFreeLists.get(idx);
+    if (clq == null) {
+      return 0;
+    }
+    return clq.poll(addrs, max);
+  }
+
+  /**
+   * Moves the first count chunks of the given array to the shared free list of the given tiny size
+   * class. Used by thread caches to give back chunks they do not need.
+   */
+  void offerTinyFreeList(int idx, long[] addrs, int count) {
+    OffHeapStoredObjectAddressStack clq = this.tinyFreeLists.get(idx);
+    if (clq == null) {
+      clq = createFreeListForEmptySlot(this.tinyFreeLists, idx);
+      if (!this.tinyFreeLists.compareAndSet(idx, null, clq)) {
+        clq = this.tinyFreeLists.get(idx);
+      }
+    }
+    clq.offer(addrs, count);
+  }
+
+  /**
+   * Gives the chunks cached by every thread back to the shared free lists so that they can be
+   * defragmented. The caches of threads that have died are dropped.
+   */
+  private void drainThreadCaches() {
+    dropDeadThreadCaches();
+    for (ThreadChunkCache cache : this.threadCaches) {
+      cache.drain(this);
+    }
   }
 
   private void basicFree(long addr, int idx,
@@ -872,6 +1292,9 @@ public class FreeListManager {
         addr = OffHeapStoredObject.getNext(addr);
       }
     }
+    for (ThreadChunkCache cache : this.threadCaches) {
+      cache.addFreeBlocks(value);
+    }
     return value;
   }
 
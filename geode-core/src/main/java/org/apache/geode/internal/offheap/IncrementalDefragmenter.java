@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.offheap;
+
+import org.apache.logging.log4j.Logger;
+
+import org.apache.geode.distributed.internal.DistributionConfig;
+import org.apache.geode.internal.logging.LogService;
+import org.apache.geode.internal.logging.LoggingThreadGroup;
+
+/**
+ * Periodically merges the chunks of the free lists of a {@link FreeListManager} back into fragments
+ * in the background, so that an allocation is less likely to find no memory it can use and have to
+ * wait for a full defragmentation.
+ * <p>
+ * A pass is only done when at least {@link #FREE_LIST_PERCENTAGE} percent of the free memory is on
+ * the shared free lists. If a pass merges nothing, the next one waits until the free lists have
+ * grown. It is disabled unless {@link #INTERVAL} is set.
+ */
+class IncrementalDefragmenter implements Runnable {
+  private static final Logger logger = LogService.getLogger();
+
+  /**
+   * The number of milliseconds between checks for memory to merge. Zero, the default, disables
+   * background defragmentation.
+   */
+  static final long INTERVAL =
+      Long.getLong(DistributionConfig.GEMFIRE_PREFIX + "OFF_HEAP_DEFRAGMENTATION_INTERVAL", 0);
+
+  static final int FREE_LIST_PERCENTAGE = Integer.getInteger(
+      DistributionConfig.GEMFIRE_PREFIX + "OFF_HEAP_DEFRAGMENTATION_FREE_LIST_PERCENTAGE", 50);
+
+  private final FreeListManager freeList;
+  private volatile boolean stopped;
+  private Thread thread;
+  /**
+   * The amount of free list memory left by the last pass that merged nothing.
+   */
+  private long unmergeableFreeListMemory = -1;
+
+  IncrementalDefragmenter(FreeListManager freeList) {
+    this.freeList = freeList;
+  }
+
+  synchronized void start() {
+    if (INTERVAL <= 0 || this.thread != null) {
+      return;
+    }
+    ThreadGroup group =
+        LoggingThreadGroup.createThreadGroup("OffHeapDefragmenter Threads", logger);
+    Thread t = new Thread(group, this, "OffHeapDefragmenter");
+    t.setDaemon(true);
+    t.start();
+    this.thread = t;
+  }
+
+  /**
+   * Stops the background thread and waits for a pass in progress to finish, so that the memory can
+   * be freed once this returns.
+   */
+  void stop() {
+    Thread t;
+    synchronized (this) {
+      this.stopped = true;
+      t = this.thread;
+      this.thread = null;
+    }
+    if (t == null || t == Thread.currentThread()) {
+      return;
+    }
+    t.interrupt();
+    boolean interrupted = false;
+    while (t.isAlive()) {
+      try {
+        t.join();
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Override
+  public void run() {
+    while (!this.stopped) {
+      try {
+        Thread.sleep(INTERVAL);
+      } catch (InterruptedException e) {
+        return;
+      }
+      if (!this.stopped) {
+        try {
+          defragmentIfNeeded();
+        } catch (RuntimeException e) {
+          logger.warn("Background defragmentation of off-heap memory failed", e);
+        }
+      }
+    }
+  }
+
+  void defragmentIfNeeded() {
+    if (isDefragmentationNeeded() && !this.freeList.defragmentIncrementally()) {
+      this.unmergeableFreeListMemory = getSharedFreeListMemory();
+    }
+  }
+
+  /**
+   * Returns the free list memory a pass can merge, which does not include the chunks cached by
+   * threads.
+   */
+  private long getSharedFreeListMemory() {
+    return this.freeList.getFreeListMemory() - this.freeList.getThreadCachedMemory();
+  }
+
+  boolean isDefragmentationNeeded() {
+    long freeListMemory = getSharedFreeListMemory();
+    if (freeListMemory <= this.unmergeableFreeListMemory) {
+      return false;
+    }
+    this.unmergeableFreeListMemory = -1;
+    long freeMemory = this.freeList.getFreeMemory();
+    return freeMemory > 0 && freeListMemory * 100 >= freeMemory * FREE_LIST_PERCENTAGE;
+  }
+}
@@ -35,6 +35,7 @@ import org.apache.geode.internal.cache.InternalRegion;
 import org.apache.geode.internal.cache.PartitionedRegion;
 import org.apache.geode.internal.cache.PartitionedRegionDataStore;
 import org.apache.geode.internal.cache.RegionEntry;
+import org.apache.geode.internal.cache.entries.OffHeapKeyRegionEntry;
 import org.apache.geode.internal.logging.LogService;
 import org.apache.geode.internal.offheap.annotations.OffHeapIdentifier;
 import org.apache.geode.internal.offheap.annotations.Unretained;
@@ -68,6 +69,8 @@ public class MemoryAllocatorImpl implements MemoryAllocator {
 
   private MemoryInspector memoryInspector;
 
+  private final IncrementalDefragmenter defragmenter;
+
   private volatile MemoryUsageListener[] memoryUsageListeners = new MemoryUsageListener[0];
 
   private static MemoryAllocatorImpl singleton = null;
@@ -202,6 +205,7 @@ public class MemoryAllocatorImpl implements MemoryAllocator {
     this.ooohml = oooml;
     newStats.initialize(this.stats);
     this.stats = newStats;
+    setStatSuppliers();
   }
 
   private MemoryAllocatorImpl(final OutOfOffHeapMemoryListener oooml,
@@ -218,9 +222,17 @@ public class MemoryAllocatorImpl implements MemoryAllocator {
 
     this.freeList = new FreeListManager(this, slabs);
     this.memoryInspector = new MemoryInspectorImpl(this.freeList);
+    this.defragmenter = new IncrementalDefragmenter(this.freeList);
 
     this.stats.incMaxMemory(this.freeList.getTotalMemory());
     this.stats.incFreeMemory(this.freeList.getTotalMemory());
+    setStatSuppliers();
+    this.defragmenter.start();
+  }
+
+  private void setStatSuppliers() {
+    this.stats.setFreeListMemorySupplier(this.freeList::getFreeListMemory);
+    this.stats.setThreadCachedMemorySupplier(this.freeList::getThreadCachedMemory);
   }
 
   public List<OffHeapStoredObject> getLostChunks(InternalCache cache) {
@@ -287,6 +299,13 @@ public class MemoryAllocatorImpl implements MemoryAllocator {
         if (value instanceof OffHeapStoredObject) {
           result.add((OffHeapStoredObject) value);
         }
+        if (re instanceof OffHeapKeyRegionEntry) {
+          @Unretained
+          OffHeapStoredObject keyChunk = OffHeapKeyHelper.getKeyChunk((OffHeapKeyRegionEntry) re);
+          if (keyChunk != null) {
+            result.add(keyChunk);
+          }
+        }
       }
     }
   }
@@ -385,6 +404,7 @@ public class MemoryAllocatorImpl implements MemoryAllocator {
   private void realClose() {
     // Removing this memory immediately can lead to a SEGV. See 47885.
     if (setClosed()) {
+      this.defragmenter.stop();
       this.freeList.freeSlabs();
       this.stats.close();
       singleton = null;
@@ -0,0 +1,264 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.offheap;
+
+import org.apache.geode.distributed.internal.DistributionConfig;
+import org.apache.geode.internal.cache.entries.OffHeapKeyRegionEntry;
+import org.apache.geode.internal.offheap.annotations.Released;
+import org.apache.geode.internal.offheap.annotations.Retained;
+import org.apache.geode.internal.offheap.annotations.Unretained;
+
+/**
+ * The class just has static methods that operate on instances of {@link OffHeapKeyRegionEntry}.
+ * <p>
+ * Such an entry keeps its key off heap only while its value is stored in an off heap chunk. When
+ * it is given such a value its key is copied into a chunk of its own and the heap key is dropped,
+ * so that a region with many entries does not keep a key object per entry on the Java heap. When
+ * the value is replaced by a token, for example because the entry was invalidated, destroyed or
+ * removed from its region, the key is copied back to the heap and its chunk is released. This keeps
+ * tombstones and removed entries, which may still be read by threads that looked them up earlier,
+ * from holding on to off heap memory.
+ * <p>
+ * The key of an entry never changes so any chunk whose address is the key address of an entry holds
+ * that key, even if it was released and allocated again in between. A reader that retained the
+ * chunk and then still finds its address in the entry can therefore safely read the key from it.
+ * <p>
+ * The hash code of the key is cached in the entry like it is for other entries so only equality
+ * checks need to look at the off heap bytes.
+ */
+public class OffHeapKeyHelper {
+
+  public static boolean OFF_HEAP_REGION_KEYS =
+      Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "OFF_HEAP_REGION_KEYS");
+
+  /** The key address of an entry whose key is stored on heap */
+  public static final long HEAP_KEY_ADDRESS = 0L;
+
+  /** The first data byte of a key chunk when each character was stored in one byte */
+  private static final byte LATIN1_ENCODING = 1;
+
+  /** The first data byte of a key chunk when each character was stored in two bytes */
+  private static final byte UTF16_ENCODING = 2;
+
+  private OffHeapKeyHelper() {
+    // no instances
+  }
+
+  /**
+   * Returns true if entries for the given key, which could not be stored inline, should store it
+   * off heap.
+   */
+  public static boolean canStoreKeyOffHeap(Object key) {
+    return OFF_HEAP_REGION_KEYS && key.getClass() == String.class;
+  }
+
+  /**
+   * Must be called by the entry each time its value address has changed.
+   */
+  public static void valueAddressChanged(@Unretained OffHeapKeyRegionEntry re, long newAddress) {
+    if (OffHeapRegionEntryHelper.isOffHeap(newAddress)) {
+      if (re.getKeyAddress() == HEAP_KEY_ADDRESS) {
+        storeKey(re);
+      }
+    } else {
+      releaseKey(re);
+    }
+  }
+
+  private static void storeKey(@Unretained OffHeapKeyRegionEntry re) {
+    Object key = re.getKeyField();
+    if (key == null) {
+      // the entry is being constructed and will call us again once its key is set
+      return;
+    }
+    @Retained
+    long addr = allocateKey((String) key);
+    if (re.setKeyAddress(HEAP_KEY_ADDRESS, addr)) {
+      // Fails if the key was already copied back to the heap which leaves that copy in place
+      re.compareAndSetKeyField(key, null);
+    } else {
+      OffHeapStoredObject.release(addr);
+    }
+  }
+
+  @Retained
+  private static long allocateKey(String key) {
+    boolean latin1 = true;
+    for (int i = 0; i < key.length(); i++) {
+      if (key.charAt(i) > 0xff) {
+        latin1 = false;
+        break;
+      }
+    }
+    byte[] bytes = new byte[1 + key.length() * (latin1 ? 1 : 2)];
+    if (latin1) {
+      bytes[0] = LATIN1_ENCODING;
+      for (int i = 0; i < key.length(); i++) {
+        bytes[1 + i] = (byte) key.charAt(i);
+      }
+    } else {
+      bytes[0] = UTF16_ENCODING;
+      for (int i = 0; i < key.length(); i++) {
+        char c = key.charAt(i);
+        bytes[1 + i * 2] = (byte) (c >> 8);
+        bytes[2 + i * 2] = (byte) c;
+      }
+    }
+    OffHeapStoredObject chunk =
+        (OffHeapStoredObject) MemoryAllocatorImpl.getAllocator().allocate(bytes.length);
+    chunk.writeDataBytes(0, bytes);
+    chunk.setSerialized(false);
+    return chunk.getAddress();
+  }
+
+  /**
+   * Copies the key of the given entry back to the heap and releases its off heap chunk.
+   */
+  public static void releaseKey(@Unretained OffHeapKeyRegionEntry re) {
+    while (true) {
+      @Released
+      long addr = re.getKeyAddress();
+      if (addr == HEAP_KEY_ADDRESS) {
+        return;
+      }
+      if (!retainKey(re, addr)) {
+        continue;
+      }
+      try {
+        // the heap key must be set before the address changes so readers always find one of them
+        re.setKeyField(decodeKey(addr));
+      } finally {
+        OffHeapStoredObject.release(addr);
+      }
+      if (re.setKeyAddress(addr, HEAP_KEY_ADDRESS)) {
+        OffHeapStoredObject.release(addr);
+        return;
+      }
+    }
+  }
+
+  /**
+   * Retains the chunk at the given address if it is still the key chunk of the given entry.
+   */
+  private static boolean retainKey(@Unretained OffHeapKeyRegionEntry re, long addr) {
+    if (!OffHeapStoredObject.retain(addr)) {
+      // it was released by someone else so the key is on heap again
+      return false;
+    }
+    if (re.getKeyAddress() != addr) {
+      // the chunk was released and may have been allocated again for something else
+      OffHeapStoredObject.release(addr);
+      return false;
+    }
+    return true;
+  }
+
+  public static Object getKey(@Unretained OffHeapKeyRegionEntry re) {
+    while (true) {
+      Object key = re.getKeyField();
+      if (key != null) {
+        return key;
+      }
+      long addr = re.getKeyAddress();
+      if (addr != HEAP_KEY_ADDRESS && retainKey(re, addr)) {
+        try {
+          return decodeKey(addr);
+        } finally {
+          OffHeapStoredObject.release(addr);
+        }
+      }
+    }
+  }
+
+  /**
+   * Compares the given key to the key of the entry without creating a heap copy of the latter.
+   */
+  public static boolean isKeyEqual(@Unretained OffHeapKeyRegionEntry re, Object k) {
+    while (true) {
+      Object key = re.getKeyField();
+      if (key != null) {
+        return k.equals(key);
+      }
+      long addr = re.getKeyAddress();
+      if (addr != HEAP_KEY_ADDRESS && retainKey(re, addr)) {
+        try {
+          return k instanceof String && keyEquals(addr, (String) k);
+        } finally {
+          OffHeapStoredObject.release(addr);
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the chunk that holds the key of the given entry or null if its key is on heap.
+   */
+  @Unretained
+  public static OffHeapStoredObject getKeyChunk(@Unretained OffHeapKeyRegionEntry re) {
+    long addr = re.getKeyAddress();
+    if (addr != HEAP_KEY_ADDRESS) {
+      return new OffHeapStoredObject(addr);
+    }
+    return null;
+  }
+
+  private static String decodeKey(long addr) {
+    long dataAddr = addr + OffHeapStoredObject.HEADER_SIZE;
+    int dataSize = OffHeapStoredObject.getDataSize(addr);
+    char[] chars;
+    if (AddressableMemoryManager.readByte(dataAddr) == LATIN1_ENCODING) {
+      chars = new char[dataSize - 1];
+      for (int i = 0; i < chars.length; i++) {
+        chars[i] = (char) (AddressableMemoryManager.readByte(dataAddr + 1 + i) & 0xff);
+      }
+    } else {
+      chars = new char[(dataSize - 1) / 2];
+      for (int i = 0; i < chars.length; i++) {
+        chars[i] = readChar(dataAddr + 1 + i * 2);
+      }
+    }
+    return new String(chars);
+  }
+
+  private static boolean keyEquals(long addr, String k) {
+    long dataAddr = addr + OffHeapStoredObject.HEADER_SIZE;
+    int dataSize = OffHeapStoredObject.getDataSize(addr);
+    if (AddressableMemoryManager.readByte(dataAddr) == LATIN1_ENCODING) {
+      if (k.length() != dataSize - 1) {
+        return false;
+      }
+      for (int i = 0; i < k.length(); i++) {
+        if (k.charAt(i) != (char) (AddressableMemoryManager.readByte(dataAddr + 1 + i) & 0xff)) {
+          return false;
+        }
+      }
+    } else {
+      if (k.length() != (dataSize - 1) / 2) {
+        return false;
+      }
+      for (int i = 0; i < k.length(); i++) {
+        if (k.charAt(i) != readChar(dataAddr + 1 + i * 2)) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  private static char readChar(long addr) {
+    return (char) ((AddressableMemoryManager.readByte(addr) & 0xff) << 8
+        | AddressableMemoryManager.readByte(addr + 1) & 0xff);
+  }
+}
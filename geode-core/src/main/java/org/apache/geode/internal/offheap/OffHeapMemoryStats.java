@@ -14,6 +14,8 @@
  */
 package org.apache.geode.internal.offheap;
 
+import java.util.function.LongSupplier;
+
 import org.apache.geode.Statistics;
 
 /**
@@ -41,8 +43,20 @@ public interface OffHeapMemoryStats {
 
   void endDefragmentation(long start);
 
+  long startIncrementalDefragmentation();
+
+  void endIncrementalDefragmentation(long start);
+
+  long startDefragmentationWait();
+
+  void endDefragmentationWait(long start);
+
   void setFragmentation(int value);
 
+  void setFreeListMemorySupplier(LongSupplier supplier);
+
+  void setThreadCachedMemorySupplier(LongSupplier supplier);
+
   long getFreeMemory();
 
   long getMaxMemory();
@@ -65,6 +79,16 @@ public interface OffHeapMemoryStats {
 
   long getDefragmentationTime();
 
+  int getIncrementalDefragmentations();
+
+  long getIncrementalDefragmentationTime();
+
+  long getDefragmentationWaitTime();
+
+  long getFreeListMemory();
+
+  long getThreadCachedMemory();
+
   Statistics getStats();
 
   void close();
@@ -15,6 +15,7 @@
 package org.apache.geode.internal.offheap;
 
 import java.lang.reflect.Method;
+import java.util.function.LongSupplier;
 
 import org.apache.geode.StatisticDescriptor;
 import org.apache.geode.Statistics;
@@ -60,6 +61,11 @@ public class OffHeapStorage implements OffHeapMemoryStats {
   private static final int defragmentationTimeId;
   private static final int fragmentationId;
   private static final int defragmentationsInProgressId;
+  private static final int freeListMemoryId;
+  private static final int threadCachedMemoryId;
+  private static final int incrementalDefragmentationsId;
+  private static final int incrementalDefragmentationTimeId;
+  private static final int defragmentationWaitTimeId;
   // NOTE!!!! When adding new stats make sure and update the initialize method on this class
 
   // creates and registers the statistics type
@@ -84,6 +90,16 @@ public class OffHeapStorage implements OffHeapMemoryStats {
     final String objectsDesc = "The number of objects stored in off-heap memory.";
     final String readsDesc =
         "The total number of reads of off-heap memory. Only reads of a full object increment this statistic. If only a part of the object is read this statistic is not incremented.";
+    final String freeListMemoryDesc =
+        "The amount of free off-heap memory, in bytes, held in the free lists of previously allocated chunks, including the thread caches. This memory can only be reused for objects of about the same size until a defragmentation merges it into fragments.";
+    final String threadCachedMemoryDesc =
+        "The amount of free off-heap memory, in bytes, held in the caches that threads keep of small chunks they freed.";
+    final String incrementalDefragmentationsDesc =
+        "The total number of times the chunks of the off-heap free lists have been merged in the background while allocations continued.";
+    final String incrementalDefragmentationTimeDesc =
+        "The total time spent merging the chunks of the off-heap free lists in the background.";
+    final String defragmentationWaitTimeDesc =
+        "The total time that allocations of off-heap memory were blocked waiting for a defragmentation done by another thread to finish.";
     final String maxMemoryDesc =
         "The maximum amount of off-heap memory, in bytes. This is the amount of memory allocated at startup and does not change.";
 
@@ -98,6 +114,11 @@ public class OffHeapStorage implements OffHeapMemoryStats {
     final String objects = "objects";
     final String reads = "reads";
     final String maxMemory = "maxMemory";
+    final String freeListMemory = "freeListMemory";
+    final String threadCachedMemory = "threadCachedMemory";
+    final String incrementalDefragmentations = "incrementalDefragmentations";
+    final String incrementalDefragmentationTime = "incrementalDefragmentationTime";
+    final String defragmentationWaitTime = "defragmentationWaitTime";
 
     statsType = f.createType(statsTypeName, statsTypeDescription,
         new StatisticDescriptor[] {f.createLongGauge(usedMemory, usedMemoryDesc, "bytes"),
@@ -111,7 +132,15 @@ public class OffHeapStorage implements OffHeapMemoryStats {
             f.createIntGauge(largestFragment, largestFragmentDesc, "bytes"),
             f.createIntGauge(objects, objectsDesc, "objects"),
             f.createLongCounter(reads, readsDesc, "operations"),
-            f.createLongGauge(maxMemory, maxMemoryDesc, "bytes"),});
+            f.createLongGauge(maxMemory, maxMemoryDesc, "bytes"),
+            f.createLongGauge(freeListMemory, freeListMemoryDesc, "bytes"),
+            f.createLongGauge(threadCachedMemory, threadCachedMemoryDesc, "bytes"),
+            f.createIntCounter(incrementalDefragmentations, incrementalDefragmentationsDesc,
+                "operations"),
+            f.createLongCounter(incrementalDefragmentationTime,
+                incrementalDefragmentationTimeDesc, "nanoseconds", false),
+            f.createLongCounter(defragmentationWaitTime, defragmentationWaitTimeDesc,
+                "nanoseconds", false),});
 
     usedMemoryId = statsType.nameToId(usedMemory);
     defragmentationId = statsType.nameToId(defragmentations);
@@ -124,6 +153,11 @@ public class OffHeapStorage implements OffHeapMemoryStats {
     objectsId = statsType.nameToId(objects);
     readsId = statsType.nameToId(reads);
     maxMemoryId = statsType.nameToId(maxMemory);
+    freeListMemoryId = statsType.nameToId(freeListMemory);
+    threadCachedMemoryId = statsType.nameToId(threadCachedMemory);
+    incrementalDefragmentationsId = statsType.nameToId(incrementalDefragmentations);
+    incrementalDefragmentationTimeId = statsType.nameToId(incrementalDefragmentationTime);
+    defragmentationWaitTimeId = statsType.nameToId(defragmentationWaitTime);
   }
 
   public static long parseOffHeapMemorySize(String value) {
@@ -364,6 +398,46 @@ public class OffHeapStorage implements OffHeapMemoryStats {
     return stats.getLong(defragmentationTimeId);
   }
 
+  @Override
+  public long startIncrementalDefragmentation() {
+    return DistributionStats.getStatTime();
+  }
+
+  @Override
+  public void endIncrementalDefragmentation(long start) {
+    this.stats.incInt(incrementalDefragmentationsId, 1);
+    if (DistributionStats.enableClockStats) {
+      this.stats.incLong(incrementalDefragmentationTimeId, DistributionStats.getStatTime() - start);
+    }
+  }
+
+  @Override
+  public int getIncrementalDefragmentations() {
+    return this.stats.getInt(incrementalDefragmentationsId);
+  }
+
+  @Override
+  public long getIncrementalDefragmentationTime() {
+    return this.stats.getLong(incrementalDefragmentationTimeId);
+  }
+
+  @Override
+  public long startDefragmentationWait() {
+    return DistributionStats.getStatTime();
+  }
+
+  @Override
+  public void endDefragmentationWait(long start) {
+    if (DistributionStats.enableClockStats) {
+      this.stats.incLong(defragmentationWaitTimeId, DistributionStats.getStatTime() - start);
+    }
+  }
+
+  @Override
+  public long getDefragmentationWaitTime() {
+    return this.stats.getLong(defragmentationWaitTimeId);
+  }
+
   @Override
   public void setFragmentation(int value) {
     this.stats.setInt(fragmentationId, value);
@@ -374,6 +448,26 @@ public class OffHeapStorage implements OffHeapMemoryStats {
     return this.stats.getInt(fragmentationId);
   }
 
+  @Override
+  public void setFreeListMemorySupplier(LongSupplier supplier) {
+    this.stats.setLongSupplier(freeListMemoryId, supplier);
+  }
+
+  @Override
+  public long getFreeListMemory() {
+    return this.stats.getLong(freeListMemoryId);
+  }
+
+  @Override
+  public void setThreadCachedMemorySupplier(LongSupplier supplier) {
+    this.stats.setLongSupplier(threadCachedMemoryId, supplier);
+  }
+
+  @Override
+  public long getThreadCachedMemory() {
+    return this.stats.getLong(threadCachedMemoryId);
+  }
+
   public Statistics getStats() {
     return this.stats;
   }
@@ -396,6 +490,9 @@ public class OffHeapStorage implements OffHeapMemoryStats {
     setLargestFragment(oldStats.getLargestFragment());
     setDefragmentationTime(oldStats.getDefragmentationTime());
     setFragmentation(oldStats.getFragmentation());
+    setIncrementalDefragmentations(oldStats.getIncrementalDefragmentations());
+    setIncrementalDefragmentationTime(oldStats.getIncrementalDefragmentationTime());
+    setDefragmentationWaitTime(oldStats.getDefragmentationWaitTime());
 
     oldStats.close();
   }
@@ -404,6 +501,18 @@ public class OffHeapStorage implements OffHeapMemoryStats {
     stats.setLong(defragmentationTimeId, value);
   }
 
+  private void setIncrementalDefragmentations(int value) {
+    this.stats.setInt(incrementalDefragmentationsId, value);
+  }
+
+  private void setIncrementalDefragmentationTime(long value) {
+    this.stats.setLong(incrementalDefragmentationTimeId, value);
+  }
+
+  private void setDefragmentationWaitTime(long value) {
+    this.stats.setLong(defragmentationWaitTimeId, value);
+  }
+
   private void setDefragmentations(int value) {
     this.stats.setInt(defragmentationId, value);
   }
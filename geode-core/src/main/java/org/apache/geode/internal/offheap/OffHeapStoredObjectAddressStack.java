@@ -62,6 +62,51 @@ public class OffHeapStoredObjectAddressStack implements LongStack {
     return result;
   }
 
+  /**
+   * Pushes the first count addresses of the given array on to this stack. The last address in the
+   * array will be the top of the stack. The addresses are linked together before the lock is taken
+   * so the cost of holding it does not depend on count.
+   */
+  public void offer(long[] addrs, int count) {
+    if (count == 0) {
+      return;
+    }
+    MemoryAllocatorImpl.validateAddress(addrs[0]);
+    for (int i = 1; i < count; i++) {
+      MemoryAllocatorImpl.validateAddress(addrs[i]);
+      OffHeapStoredObject.setNext(addrs[i], addrs[i - 1]);
+    }
+    synchronized (this) {
+      OffHeapStoredObject.setNext(addrs[0], this.topAddr);
+      this.topAddr = addrs[count - 1];
+    }
+  }
+
+  /**
+   * Removes up to max addresses from the top of this stack and stores them in the given array. The
+   * addresses keep their order so the address that was on top is stored last, making the array
+   * usable as a stack itself.
+   *
+   * @return the number of addresses stored in the array
+   */
+  public int poll(long[] addrs, int max) {
+    int count = 0;
+    synchronized (this) {
+      long addr = this.topAddr;
+      while (addr != 0L && count < max) {
+        addrs[count++] = addr;
+        addr = OffHeapStoredObject.getNext(addr);
+      }
+      this.topAddr = addr;
+    }
+    for (int i = 0, j = count - 1; i < j; i++, j--) {
+      long tmp = addrs[i];
+      addrs[i] = addrs[j];
+      addrs[j] = tmp;
+    }
+    return count;
+  }
+
   /**
    * Returns the address of the "top" item in this stack.
    */
@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.offheap;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Caches free tiny chunks for a single thread so that most allocations and frees of small chunks
+ * done by that thread do not touch the shared free lists of the {@link FreeListManager}.
+ * <p>
+ * Each size class caches at most {@code capacity} chunks. When a size class is empty it is refilled
+ * with half that many chunks from the shared free list in one operation, and when it is full half
+ * of its chunks are handed back the same way. A size class is only cached once the room for it
+ * has been reserved from the {@link FreeListManager}, which bounds the number of chunks all the
+ * caches of a manager hold together; a size class that gets no room is not cached.
+ * <p>
+ * Only the owning thread allocates from and frees into a cache. Other threads only drain it, when
+ * memory is defragmented, so the lock of a cache is almost never contended. A cache does not refer
+ * to its FreeListManager so that an unused manager is not kept alive by the threads that used it.
+ */
+class ThreadChunkCache {
+  private final WeakReference<Thread> owner;
+  private final int capacity;
+  private final int batchSize;
+  /** One stack of chunk addresses per size class, created when first used */
+  private final long[][] chunks;
+  /**
+   * The number of chunks cached for each size class. Only changed while synchronized but read
+   * without it by statistics, which can live with a stale value.
+   */
+  private final int[] counts;
+  /** The number of chunks room was reserved for. Only changed while synchronized. */
+  private int reservedChunks;
+
+  /**
+   * Returned by {@link #poll(FreeListManager, int)} for a size class this cache has no room for.
+   */
+  static final long NOT_CACHED = -1L;
+
+  ThreadChunkCache(Thread owner, int sizeClasses, int capacity) {
+    this.owner = new WeakReference<>(owner);
+    this.capacity = capacity;
+    this.batchSize = Math.max(1, capacity / 2);
+    this.chunks = new long[sizeClasses][];
+    this.counts = new int[sizeClasses];
+  }
+
+  /**
+   * Returns the address of a free chunk of the given size class or 0 if neither this cache nor the
+   * shared free list of that class has one, or {@link #NOT_CACHED} if this cache does not cache
+   * that size class.
+   */
+  synchronized long poll(FreeListManager freeListManager, int idx) {
+    long[] stack = getChunks(freeListManager, idx);
+    if (stack == null) {
+      return NOT_CACHED;
+    }
+    int count = this.counts[idx];
+    if (count == 0) {
+      count = freeListManager.pollTinyFreeList(idx, stack, this.batchSize);
+      if (count == 0) {
+        return 0L;
+      }
+    }
+    count--;
+    this.counts[idx] = count;
+    return stack[count];
+  }
+
+  /**
+   * Caches the free chunk at the given address.
+   *
+   * @return false if this cache does not cache the size class of the chunk
+   */
+  synchronized boolean offer(FreeListManager freeListManager, int idx, long addr) {
+    long[] stack = getChunks(freeListManager, idx);
+    if (stack == null) {
+      return false;
+    }
+    int count = this.counts[idx];
+    if (count == stack.length) {
+      // hand back the chunks at the bottom so the most recently freed ones stay cached
+      freeListManager.offerTinyFreeList(idx, stack, this.batchSize);
+      count -= this.batchSize;
+      System.arraycopy(stack, this.batchSize, stack, 0, count);
+    }
+    stack[count] = addr;
+    this.counts[idx] = count + 1;
+    return true;
+  }
+
+  /**
+   * Hands all the cached chunks back to the shared free lists.
+   */
+  synchronized void drain(FreeListManager freeListManager) {
+    for (int idx = 0; idx < this.counts.length; idx++) {
+      int count = this.counts[idx];
+      if (count > 0) {
+        freeListManager.offerTinyFreeList(idx, this.chunks[idx], count);
+        this.counts[idx] = 0;
+      }
+    }
+  }
+
+  synchronized void addFreeBlocks(List<MemoryBlock> blocks) {
+    for (int idx = 0; idx < this.counts.length; idx++) {
+      for (int i = 0; i < this.counts[idx]; i++) {
+        blocks.add(new FreeListManager.TinyMemoryBlock(this.chunks[idx][i], idx));
+      }
+    }
+  }
+
+  /**
+   * Returns the sum of the sizes of the cached chunks. Every chunk on the free list of a tiny size
+   * class has the same size so it is computed from the counts.
+   */
+  long getCachedMemory() {
+    long result = 0;
+    for (int idx = 0; idx < this.counts.length; idx++) {
+      result += (long) this.counts[idx] * (idx + 1) * FreeListManager.TINY_MULTIPLE;
+    }
+    return result;
+  }
+
+  /**
+   * Hands all the cached chunks back to the shared free lists and gives back the room reserved for
+   * them. Only called once the owner has died, so the cache is never used again.
+   */
+  synchronized void close(FreeListManager freeListManager) {
+    drain(freeListManager);
+    freeListManager.releaseThreadCacheChunks(this.reservedChunks);
+    this.reservedChunks = 0;
+    Arrays.fill(this.chunks, null);
+  }
+
+  boolean isOwnerAlive() {
+    Thread thread = this.owner.get();
+    return thread != null && thread.isAlive();
+  }
+
+  /**
+   * Returns the stack of the given size class, reserving room for it if this is its first use, or
+   * null if the room could not be reserved.
+   */
+  private long[] getChunks(FreeListManager freeListManager, int idx) {
+    long[] result = this.chunks[idx];
+    if (result == null && freeListManager.reserveThreadCacheChunks(this.capacity)) {
+      this.reservedChunks += this.capacity;
+      result = new long[this.capacity];
+      this.chunks[idx] = result;
+    }
+    return result;
+  }
+}
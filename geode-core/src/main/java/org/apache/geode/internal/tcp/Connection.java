@@ -44,6 +44,7 @@ import java.util.Map;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
 
 import org.apache.logging.log4j.Logger;
 
@@ -165,6 +166,52 @@ public class Connection implements Runnable {
     }
   }
 
+  private static final ThreadLocal<Boolean> isSelectorReaderThread = new ThreadLocal<>();
+
+  static void makeSelectorReaderThread() {
+    makeReaderThread(true);
+    isSelectorReaderThread.set(Boolean.TRUE);
+  }
+
+  /**
+   * Returns true if this thread is a {@link SelectorReaders} thread, which reads many connections
+   * and so must not process their messages inline.
+   */
+  public static boolean isSelectorReaderThread() {
+    return isSelectorReaderThread.get() == Boolean.TRUE;
+  }
+
+  /**
+   * What the last read of a selector reader thread ran into instead of waiting on a throttled queue
+   */
+  private static final ThreadLocal<BooleanSupplier> selectorReaderThrottle = new ThreadLocal<>();
+
+  /**
+   * Called by a throttled queue in place of making a {@link SelectorReaders} thread wait, since it
+   * must never block. The thread stops reading the connection it is reading until the given
+   * condition, which must not block either, returns false.
+   */
+  public static void throttleSelectorReader(BooleanSupplier throttled) {
+    BooleanSupplier previous = selectorReaderThrottle.get();
+    if (previous == null) {
+      selectorReaderThrottle.set(throttled);
+    } else {
+      selectorReaderThrottle.set(() -> previous.getAsBoolean() || throttled.getAsBoolean());
+    }
+  }
+
+  /**
+   * Returns, and forgets, what the calling {@link SelectorReaders} thread was throttled by since
+   * the last call, or null if it was not.
+   */
+  static BooleanSupplier takeSelectorReaderThrottle() {
+    BooleanSupplier result = selectorReaderThrottle.get();
+    if (result != null) {
+      selectorReaderThrottle.remove();
+    }
+    return result;
+  }
+
   private int getP2PConnectTimeout() {
     if (IS_P2P_CONNECT_TIMEOUT_INITIALIZED)
       return P2P_CONNECT_TIMEOUT;
@@ -320,6 +367,9 @@ public class Connection implements Runnable {
   /** message reader thread */
   private volatile Thread readerThread;
 
+  /** true once the reader thread has handed this connection over to a selector thread */
+  private volatile boolean readBySelector;
+
   /** whether the reader thread is, or should be, running */
   volatile boolean stopped = true;
 
@@ -1296,10 +1346,11 @@ public class Connection implements Runnable {
   }
 
   /**
-   * Batch sends currently should not be turned on because: 1. They will be used for all sends
-   * (instead of just no-ack) and thus will break messages that wait for a response (or kill perf).
-   * 2. The buffer is not properly flushed and closed on shutdown. The code attempts to do this but
-   * must not be doing it correctly.
+   * Batch sends coalesce the messages sent on an ordered connection into one socket write every
+   * p2p.batchFlushTime milliseconds, or once half of the batch buffer is filled. The receiver reads
+   * them like any other run of messages. A message whose sender waits for a reply is flushed right
+   * away, together with the messages batched before it. When the connection is closed the messages
+   * still in the batch are written before the socket is closed.
    */
   private static final boolean BATCH_SENDS = Boolean.getBoolean("p2p.batchSends");
   private static final int BATCH_BUFFER_SIZE =
@@ -1309,8 +1360,12 @@ public class Connection implements Runnable {
   private ByteBuffer fillBatchBuffer;
   private ByteBuffer sendBatchBuffer;
   private BatchBufferFlusher batchFlusher;
+  /** the number of messages in fillBatchBuffer, guarded by batchLock */
+  private int fillBatchMessages;
+  /** the sum of the stat times at which they were added to it, guarded by batchLock */
+  private long fillBatchTimes;
 
-  private void createBatchSendBuffer() {
+  void createBatchSendBuffer() {
     // batch send buffer isn't needed if old-io is being used
     if (!this.useNIO) {
       return;
@@ -1338,6 +1393,8 @@ public class Connection implements Runnable {
   private class BatchBufferFlusher extends Thread {
     private volatile boolean flushNeeded = false;
     private volatile boolean timeToStop = false;
+    /** true once the last batch has been taken, guarded by batchLock */
+    private boolean stopped = false;
     private DMStats stats;
 
 
@@ -1384,12 +1441,34 @@ public class Connection implements Runnable {
       }
     }
 
+    /**
+     * Throws if the last batch has already been written. Must be called with batchLock held.
+     */
+    private void checkNotStopped() {
+      if (this.stopped) {
+        throw new ConnectionException(
+            LocalizedStrings.Connection_NOT_CONNECTED_TO_0.toLocalizedString(remoteAddr));
+      }
+    }
+
+    /**
+     * Tells this thread to write the last batch and stop, and waits a while for it to do so unless
+     * called by this thread.
+     */
     public void close() {
       synchronized (this) {
         this.timeToStop = true;
         this.flushNeeded = true;
         this.notify();
       }
+      if (Thread.currentThread() != this) {
+        try {
+          // the socket is closed once this returns, so give the last batch a chance to be written
+          join(2000);
+        } catch (InterruptedException ignore) {
+          Thread.currentThread().interrupt();
+        }
+      }
     }
 
     @Override
@@ -1400,49 +1479,68 @@ public class Connection implements Runnable {
             if (!this.flushNeeded && fillBatchBuffer.position() <= (BATCH_BUFFER_SIZE / 2)) {
               wait(BATCH_FLUSH_MS); // spurious wakeup ok
             }
-            if (this.flushNeeded || fillBatchBuffer.position() > (BATCH_BUFFER_SIZE / 2)) {
-              final long start = DistributionStats.getStatTime();
-              synchronized (batchLock) {
-                // This is the only block of code that will swap
-                // the buffer references
-                this.flushNeeded = false;
-                ByteBuffer tmp = fillBatchBuffer;
-                fillBatchBuffer = sendBatchBuffer;
-                sendBatchBuffer = tmp;
-                batchLock.notifyAll();
-              }
-              // We now own the sendBatchBuffer
-              if (sendBatchBuffer.position() > 0) {
-                final boolean origSocketInUse = socketInUse;
-                socketInUse = true;
-                try {
-                  sendBatchBuffer.flip();
-                  SocketChannel channel = getSocket().getChannel();
-                  nioWriteFully(channel, sendBatchBuffer, false, null);
-                  sendBatchBuffer.clear();
-                } catch (IOException | ConnectionException ex) {
-                  logger.fatal(LocalizedMessage.create(
-                      LocalizedStrings.Connection_EXCEPTION_FLUSHING_BATCH_SEND_BUFFER_0, ex));
-                  readerShuttingDown = true;
-                  requestClose(LocalizedStrings.Connection_EXCEPTION_FLUSHING_BATCH_SEND_BUFFER_0
-                      .toLocalizedString(ex));
-                } finally {
-                  accessed();
-                  socketInUse = origSocketInUse;
-                }
-              }
-              this.stats.incBatchFlushTime(start);
+            // write what has been batched since the last flush, even if nobody is waiting for it
+            if (this.flushNeeded || fillBatchBuffer.position() > 0) {
+              flushBatch(false);
             }
           }
         }
       } catch (InterruptedException ex) {
         // time for this thread to shutdown
         // Thread.currentThread().interrupt();
+      } finally {
+        // write whatever was batched before the close and refuse any more
+        flushBatch(true);
+      }
+    }
+
+    private void flushBatch(boolean last) {
+      final long start = DistributionStats.getStatTime();
+      final int messages;
+      final long times;
+      synchronized (batchLock) {
+        if (this.stopped) {
+          return;
+        }
+        // This is the only block of code that will swap
+        // the buffer references
+        this.flushNeeded = false;
+        this.stopped = last;
+        ByteBuffer tmp = fillBatchBuffer;
+        fillBatchBuffer = sendBatchBuffer;
+        sendBatchBuffer = tmp;
+        messages = fillBatchMessages;
+        times = fillBatchTimes;
+        fillBatchMessages = 0;
+        fillBatchTimes = 0;
+        batchLock.notifyAll();
+      }
+      // We now own the sendBatchBuffer
+      if (sendBatchBuffer.position() > 0) {
+        final boolean origSocketInUse = socketInUse;
+        socketInUse = true;
+        try {
+          sendBatchBuffer.flip();
+          SocketChannel channel = getSocket().getChannel();
+          nioWriteFully(channel, sendBatchBuffer, false, null);
+          sendBatchBuffer.clear();
+          this.stats.incBatchesFlushed(messages, messages * start - times);
+        } catch (IOException | ConnectionException ex) {
+          logger.fatal(LocalizedMessage.create(
+              LocalizedStrings.Connection_EXCEPTION_FLUSHING_BATCH_SEND_BUFFER_0, ex));
+          readerShuttingDown = true;
+          requestClose(LocalizedStrings.Connection_EXCEPTION_FLUSHING_BATCH_SEND_BUFFER_0
+              .toLocalizedString(ex));
+        } finally {
+          accessed();
+          socketInUse = origSocketInUse;
+        }
       }
+      this.stats.incBatchFlushTime(start);
     }
   }
 
-  private void closeBatchBuffer() {
+  void closeBatchBuffer() {
     if (this.batchFlusher != null) {
       this.batchFlusher.close();
     }
@@ -1454,7 +1552,11 @@ public class Connection implements Runnable {
    */
   private static final boolean SOCKET_WRITE_DISABLED = Boolean.getBoolean("p2p.disableSocketWrite");
 
-  private void batchSend(ByteBuffer src) throws IOException {
+  /**
+   * Adds src to the batch. If flush is true the batch is handed to the flusher thread right away
+   * instead of when it is due.
+   */
+  private void batchSend(ByteBuffer src, boolean flush) throws IOException {
     if (SOCKET_WRITE_DISABLED) {
       return;
     }
@@ -1463,20 +1565,28 @@ public class Connection implements Runnable {
       ByteBuffer dst = null;
       Assert.assertTrue(src.remaining() <= BATCH_BUFFER_SIZE, "Message size(" + src.remaining()
           + ") exceeded BATCH_BUFFER_SIZE(" + BATCH_BUFFER_SIZE + ")");
+      boolean added = false;
       do {
         synchronized (this.batchLock) {
+          this.batchFlusher.checkNotStopped();
           dst = this.fillBatchBuffer;
           if (src.remaining() <= dst.remaining()) {
             final long copyStart = DistributionStats.getStatTime();
             dst.put(src);
+            this.fillBatchMessages++;
+            this.fillBatchTimes += copyStart;
             this.owner.getConduit().getStats().incBatchCopyTime(copyStart);
-            return;
+            if (!flush) {
+              return;
+            }
+            added = true;
           }
         }
-        // If we got this far then we do not have room in the current
-        // buffer and need the flusher thread to flush before we can fill it
+        // If we got this far then either we must not wait for the batch to be due, or we do not
+        // have room in the current buffer and need the flusher thread to flush before we can fill
+        // it
         this.batchFlusher.flushBuffer(dst);
-      } while (true);
+      } while (!added);
     } finally {
       this.owner.getConduit().getStats().incBatchSendTime(start);
     }
@@ -1521,6 +1631,8 @@ public class Connection implements Runnable {
       return;
     }
     if (!onlyCleanup) {
+      // write what is still batched while the socket is open
+      closeBatchBuffer();
       synchronized (this) {
         this.stopped = true;
         if (this.connected) {
@@ -1614,7 +1726,6 @@ public class Connection implements Runnable {
         }
       }
 
-      closeBatchBuffer();
       closeAllMsgDestreamers();
     }
     if (cleanupEndpoint) {
@@ -1691,35 +1802,64 @@ public class Connection implements Runnable {
       }
     } finally {
       // bug36060: do the socket close within a finally block
-      if (logger.isDebugEnabled()) {
-        logger.debug("Stopping {} for {}", p2pReaderName(), remoteAddr);
+      if (!this.readBySelector) {
+        readerStopped();
       }
-      initiateSuspicionIfSharedUnordered();
-      if (this.isReceiver) {
-        if (!this.sharedResource) {
-          this.conduit.getStats().incThreadOwnedReceivers(-1L, dominoCount.get());
-        }
-        asyncClose(false);
-        this.owner.removeAndCloseThreadOwnedSockets();
-      }
-      ByteBuffer tmp = this.nioInputBuffer;
-      if (tmp != null) {
-        this.nioInputBuffer = null;
-        final DMStats stats = this.owner.getConduit().getStats();
-        Buffers.releaseReceiveBuffer(tmp, stats);
-      }
-      // make sure that if the reader thread exits we notify a thread waiting
-      // for the handshake.
-      // see bug 37524 for an example of listeners hung in waitForHandshake
-      notifyHandshakeWaiter(false);
       this.readerThread.setName("unused p2p reader");
       synchronized (this.stateLock) {
-        this.isRunning = false;
+        if (!this.readBySelector) {
+          this.isRunning = false;
+        }
         this.readerThread = null;
       }
     } // finally
   }
 
+  /**
+   * Called by a {@link SelectorReaders} thread when the channel of this connection has bytes to
+   * read. Returns false if the connection can no longer be read.
+   */
+  boolean readSelected(SocketChannel channel) {
+    if (this.stopped || this.owner.getConduit().getCancelCriterion().isCancelInProgress()) {
+      return false;
+    }
+    return readNIOBuffer(channel);
+  }
+
+  /**
+   * Called by a {@link SelectorReaders} thread once it no longer reads this connection.
+   */
+  void selectorReadingStopped() {
+    readerStopped();
+    synchronized (this.stateLock) {
+      this.isRunning = false;
+    }
+  }
+
+  private void readerStopped() {
+    if (logger.isDebugEnabled()) {
+      logger.debug("Stopping {} for {}", p2pReaderName(), remoteAddr);
+    }
+    initiateSuspicionIfSharedUnordered();
+    if (this.isReceiver) {
+      if (!this.sharedResource) {
+        this.conduit.getStats().incThreadOwnedReceivers(-1L, dominoCount.get());
+      }
+      asyncClose(false);
+      this.owner.removeAndCloseThreadOwnedSockets();
+    }
+    ByteBuffer tmp = this.nioInputBuffer;
+    if (tmp != null) {
+      this.nioInputBuffer = null;
+      final DMStats stats = this.owner.getConduit().getStats();
+      Buffers.releaseReceiveBuffer(tmp, stats);
+    }
+    // make sure that if the reader thread exits we notify a thread waiting
+    // for the handshake.
+    // see bug 37524 for an example of listeners hung in waitForHandshake
+    notifyHandshakeWaiter(false);
+  }
+
   private String p2pReaderName() {
     StringBuilder sb = new StringBuilder(64);
     if (this.isReceiver) {
@@ -1800,98 +1940,26 @@ public class Connection implements Runnable {
           break;
         }
 
-        try {
-          ByteBuffer buff = getNIOBuffer();
-          synchronized (stateLock) {
-            connectionState = STATE_READING;
-          }
-          int amt = channel.read(buff);
-          synchronized (stateLock) {
-            connectionState = STATE_IDLE;
-          }
-          if (amt == 0) {
-            continue;
-          }
-          if (amt < 0) {
-            this.readerShuttingDown = true;
-            try {
-              requestClose("SocketChannel.read returned EOF");
-              requestClose(
-                  LocalizedStrings.Connection_SOCKETCHANNEL_READ_RETURNED_EOF.toLocalizedString());
-            } catch (Exception e) {
-              // ignore - shutting down
-            }
-            return;
-          }
-
-          processNIOBuffer();
-          if (!this.isReceiver && (this.handshakeRead || this.handshakeCancelled)) {
-            if (logger.isDebugEnabled()) {
-              if (this.handshakeRead) {
-                logger.debug("{} handshake has been read {}", p2pReaderName(), this);
-              } else {
-                logger.debug("{} handshake has been cancelled {}", p2pReaderName(), this);
-              }
-            }
-            isHandShakeReader = true;
-            // Once we have read the handshake the reader can go away
-            break;
-          }
-        } catch (CancelException e) {
-          if (logger.isDebugEnabled()) {
-            logger.debug("{} Terminated <{}> due to cancellation", p2pReaderName(), this, e);
-          }
-          this.readerShuttingDown = true;
-          try {
-            requestClose(
-                LocalizedStrings.Connection_CACHECLOSED_IN_CHANNEL_READ_0.toLocalizedString(e));
-          } catch (Exception ex) {
-          }
-          return;
-        } catch (ClosedChannelException e) {
-          this.readerShuttingDown = true;
-          try {
-            requestClose(LocalizedStrings.Connection_CLOSEDCHANNELEXCEPTION_IN_CHANNEL_READ_0
-                .toLocalizedString(e));
-          } catch (Exception ex) {
-          }
+        if (!readNIOBuffer(channel)) {
           return;
-        } catch (IOException e) {
-          if (!isSocketClosed() && !"Socket closed".equalsIgnoreCase(e.getMessage()) // needed for
-                                                                                     // Solaris jdk
-                                                                                     // 1.4.2_08
-          ) {
-            if (logger.isDebugEnabled() && !isIgnorableIOException(e)) {
-              logger.debug("{} io exception for {}", p2pReaderName(), this, e);
-            }
-            if (e.getMessage().contains("interrupted by a call to WSACancelBlockingCall")) {
-              if (logger.isDebugEnabled()) {
-                logger.debug(
-                    "{} received unexpected WSACancelBlockingCall exception, which may result in a hang",
-                    p2pReaderName());
-              }
+        }
+        if (!this.isReceiver && (this.handshakeRead || this.handshakeCancelled)) {
+          if (logger.isDebugEnabled()) {
+            if (this.handshakeRead) {
+              logger.debug("{} handshake has been read {}", p2pReaderName(), this);
+            } else {
+              logger.debug("{} handshake has been cancelled {}", p2pReaderName(), this);
             }
           }
-          this.readerShuttingDown = true;
-          try {
-            requestClose(
-                LocalizedStrings.Connection_IOEXCEPTION_IN_CHANNEL_READ_0.toLocalizedString(e));
-          } catch (Exception ex) {
-          }
-          return;
-
-        } catch (Exception e) {
-          this.owner.getConduit().getCancelCriterion().checkCancelInProgress(null); // bug 37101
-          if (!stopped && !isSocketClosed()) {
-            logger.fatal(LocalizedMessage.create(
-                LocalizedStrings.Connection_0_EXCEPTION_IN_CHANNEL_READ, p2pReaderName()), e);
-          }
-          this.readerShuttingDown = true;
-          try {
-            requestClose(
-                LocalizedStrings.Connection_0_EXCEPTION_IN_CHANNEL_READ.toLocalizedString(e));
-          } catch (Exception ex) {
-          }
+          isHandShakeReader = true;
+          // Once we have read the handshake the reader can go away
+          break;
+        }
+        if (this.isReceiver && this.handshakeRead && this.sharedResource
+            && this.owner.hasSelectorReaders()) {
+          // from now on a selector thread reads this connection along with other shared receivers
+          this.readBySelector = true;
+          this.owner.readWithSelector(this);
           return;
         }
       } // for
@@ -1908,6 +1976,96 @@ public class Connection implements Runnable {
     }
   }
 
+  /**
+   * Reads the bytes available on the channel and processes the messages they complete. Returns
+   * false, after requesting that this connection be closed, if the channel can no longer be read.
+   */
+  private boolean readNIOBuffer(SocketChannel channel) {
+    try {
+      ByteBuffer buff = getNIOBuffer();
+      synchronized (stateLock) {
+        connectionState = STATE_READING;
+      }
+      int amt = channel.read(buff);
+      synchronized (stateLock) {
+        connectionState = STATE_IDLE;
+      }
+      if (amt == 0) {
+        return true;
+      }
+      if (amt < 0) {
+        this.readerShuttingDown = true;
+        try {
+          requestClose("SocketChannel.read returned EOF");
+          requestClose(
+              LocalizedStrings.Connection_SOCKETCHANNEL_READ_RETURNED_EOF.toLocalizedString());
+        } catch (Exception e) {
+          // ignore - shutting down
+        }
+        return false;
+      }
+
+      processNIOBuffer();
+      return true;
+    } catch (CancelException e) {
+      if (logger.isDebugEnabled()) {
+        logger.debug("{} Terminated <{}> due to cancellation", p2pReaderName(), this, e);
+      }
+      this.readerShuttingDown = true;
+      try {
+        requestClose(
+            LocalizedStrings.Connection_CACHECLOSED_IN_CHANNEL_READ_0.toLocalizedString(e));
+      } catch (Exception ex) {
+      }
+      return false;
+    } catch (ClosedChannelException e) {
+      this.readerShuttingDown = true;
+      try {
+        requestClose(LocalizedStrings.Connection_CLOSEDCHANNELEXCEPTION_IN_CHANNEL_READ_0
+            .toLocalizedString(e));
+      } catch (Exception ex) {
+      }
+      return false;
+    } catch (IOException e) {
+      if (!isSocketClosed() && !"Socket closed".equalsIgnoreCase(e.getMessage()) // needed for
+                                                                                 // Solaris jdk
+                                                                                 // 1.4.2_08
+      ) {
+        if (logger.isDebugEnabled() && !isIgnorableIOException(e)) {
+          logger.debug("{} io exception for {}", p2pReaderName(), this, e);
+        }
+        if (e.getMessage().contains("interrupted by a call to WSACancelBlockingCall")) {
+          if (logger.isDebugEnabled()) {
+            logger.debug(
+                "{} received unexpected WSACancelBlockingCall exception, which may result in a hang",
+                p2pReaderName());
+          }
+        }
+      }
+      this.readerShuttingDown = true;
+      try {
+        requestClose(
+            LocalizedStrings.Connection_IOEXCEPTION_IN_CHANNEL_READ_0.toLocalizedString(e));
+      } catch (Exception ex) {
+      }
+      return false;
+
+    } catch (Exception e) {
+      this.owner.getConduit().getCancelCriterion().checkCancelInProgress(null); // bug 37101
+      if (!stopped && !isSocketClosed()) {
+        logger.fatal(LocalizedMessage.create(
+            LocalizedStrings.Connection_0_EXCEPTION_IN_CHANNEL_READ, p2pReaderName()), e);
+      }
+      this.readerShuttingDown = true;
+      try {
+        requestClose(
+            LocalizedStrings.Connection_0_EXCEPTION_IN_CHANNEL_READ.toLocalizedString(e));
+      } catch (Exception ex) {
+      }
+      return false;
+    }
+  }
+
   /**
    * initiate suspect processing if a shared/ordered connection is lost and we're not shutting down
    */
@@ -2524,16 +2682,18 @@ public class Connection implements Runnable {
    * sends a serialized message to the other end of this connection. This is used by the
    * DirectChannel in GemFire when the message is going to be sent to multiple recipients.
    *
+   * @param flushBatch true if the sender is going to wait for a reply, so that the message must not
+   *        wait in a batch for other messages
    * @throws ConnectionException if the conduit has stopped
    */
   public void sendPreserialized(ByteBuffer buffer, boolean cacheContentChanges,
-      DistributionMessage msg) throws IOException, ConnectionException {
+      DistributionMessage msg, boolean flushBatch) throws IOException, ConnectionException {
     if (!connected) {
       throw new ConnectionException(
           LocalizedStrings.Connection_NOT_CONNECTED_TO_0.toLocalizedString(this.remoteAddr));
     }
     if (this.batchFlusher != null) {
-      batchSend(buffer);
+      batchSend(buffer, flushBatch);
       return;
     }
     final boolean origSocketInUse = this.socketInUse;
@@ -2571,6 +2731,67 @@ public class Connection implements Runnable {
     }
   }
 
+  /**
+   * Returns true if this connection writes its socket channel directly, so that it can send a
+   * message chunk held in several buffers without copying them into one.
+   */
+  boolean canWriteGathered() {
+    return this.batchFlusher == null && useNIO();
+  }
+
+  /**
+   * Like {@link #sendPreserialized(ByteBuffer, boolean, DistributionMessage, boolean)}, but the
+   * chunk to send is made of the bytes remaining in all of the buffers, in order. They go out in
+   * one gathering write unless this connection cannot write gathered buffers or is queuing its
+   * writes, in which case they are copied into one buffer first.
+   */
+  public void sendPreserialized(ByteBuffer[] buffers, boolean cacheContentChanges,
+      DistributionMessage msg, boolean flushBatch) throws IOException, ConnectionException {
+    if (!canWriteGathered()) {
+      sendPreserialized(combine(buffers), cacheContentChanges, msg, flushBatch);
+      return;
+    }
+    if (!connected) {
+      throw new ConnectionException(
+          LocalizedStrings.Connection_NOT_CONNECTED_TO_0.toLocalizedString(this.remoteAddr));
+    }
+    final boolean origSocketInUse = this.socketInUse;
+    byte originalState = -1;
+    synchronized (stateLock) {
+      originalState = this.connectionState;
+      this.connectionState = STATE_SENDING;
+    }
+    this.socketInUse = true;
+    try {
+      nioWriteFully(getSocket().getChannel(), buffers, msg);
+      if (cacheContentChanges) {
+        messagesSent++;
+      }
+    } finally {
+      accessed();
+      this.socketInUse = origSocketInUse;
+      synchronized (stateLock) {
+        this.connectionState = originalState;
+      }
+    }
+  }
+
+  /**
+   * Returns a copy of the bytes remaining in all of the buffers, leaving the buffers as they are.
+   */
+  private static ByteBuffer combine(ByteBuffer[] buffers) {
+    int size = 0;
+    for (ByteBuffer buffer : buffers) {
+      size += buffer.remaining();
+    }
+    ByteBuffer combined = ByteBuffer.allocate(size);
+    for (ByteBuffer buffer : buffers) {
+      combined.put(buffer.duplicate());
+    }
+    combined.flip();
+    return combined;
+  }
+
   /**
    * If <code>use</code> is true then "claim" the connection for our use. If <code>use</code> is
    * false then "release" the connection. Fixes bug 37657.
@@ -3329,6 +3550,46 @@ public class Connection implements Runnable {
     }
   }
 
+  /**
+   * Writes the bytes remaining in all of the buffers with gathering writes, or queues a copy of
+   * them if this connection writes asynchronously.
+   */
+  private void nioWriteFully(SocketChannel channel, ByteBuffer[] buffers, DistributionMessage msg)
+      throws IOException, ConnectionException {
+    if (!useSyncWrites(false) || this.asyncQueuingInProgress) {
+      nioWriteFully(channel, combine(buffers), false, msg);
+      return;
+    }
+    final DMStats stats = this.owner.getConduit().getStats();
+    if (!this.sharedResource) {
+      stats.incTOSentMsg();
+    }
+    long remaining = 0;
+    for (ByteBuffer buffer : buffers) {
+      remaining += buffer.remaining();
+    }
+    long startLock = stats.startSocketLock();
+    synchronized (this.outLock) {
+      stats.endSocketLock(startLock);
+      if (this.asyncQueuingInProgress) {
+        if (addToQueue(combine(buffers), msg, false)) {
+          return;
+        }
+        // fall through
+      }
+      do {
+        long amtWritten = 0;
+        long start = stats.startSocketWrite(true);
+        try {
+          amtWritten = channel.write(buffers);
+        } finally {
+          stats.endSocketWrite(true, start, (int) amtWritten, 0);
+        }
+        remaining -= amtWritten;
+      } while (remaining > 0);
+    } // synchronized
+  }
+
   /** gets the buffer for receiving message length bytes */
   protected ByteBuffer getNIOBuffer() {
     final DMStats stats = this.owner.getConduit().getStats();
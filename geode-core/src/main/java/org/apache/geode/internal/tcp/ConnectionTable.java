@@ -144,6 +144,12 @@ public class ConnectionTable {
   private static final long READER_POOL_KEEP_ALIVE_TIME =
       Long.getLong("p2p.READER_POOL_KEEP_ALIVE_TIME", 120).longValue();
 
+  /**
+   * Selector threads that read the shared receivers once their handshake has been read, or null if
+   * every receiver has its own reader thread.
+   */
+  private final SelectorReaders selectorReaders;
+
   private final SocketCloser socketCloser;
 
   /**
@@ -210,6 +216,7 @@ public class ConnectionTable {
     this.threadConnMaps = new ArrayList();
     this.threadConnectionMap = new ConcurrentHashMap();
     this.p2pReaderThreadPool = createThreadPoolForIO(conduit.getDM().getSystem().isShareSockets());
+    this.selectorReaders = SelectorReaders.ENABLED ? new SelectorReaders() : null;
     this.socketCloser = new SocketCloser();
   }
 
@@ -742,6 +749,9 @@ public class ConnectionTable {
       }
     }
     closeReceivers(false);
+    if (this.selectorReaders != null) {
+      this.selectorReaders.close();
+    }
 
     Map m = (Map) this.threadOrderedConnMap.get();
     if (m != null) {
@@ -752,6 +762,18 @@ public class ConnectionTable {
     this.socketCloser.close();
   }
 
+  boolean hasSelectorReaders() {
+    return this.selectorReaders != null;
+  }
+
+  /**
+   * Reads the given shared receiver, whose handshake has been read, with a selector thread instead
+   * of its reader thread.
+   */
+  void readWithSelector(Connection conn) {
+    this.selectorReaders.add(conn);
+  }
+
   public void executeCommand(Runnable runnable) {
     Executor local = this.p2pReaderThreadPool;
     if (local != null) {
@@ -19,6 +19,7 @@ import java.io.OutputStream;
 import java.io.UTFDataFormatException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 
@@ -54,6 +55,14 @@ public class MsgStreamer extends OutputStream
 
   private static final Logger logger = LogService.getLogger();
 
+  /**
+   * Direct buffers written to a streamer with at least this many bytes, such as the memory of
+   * off-heap values, are gathered into the socket writes of the chunks they belong to instead of
+   * being copied into the chunk buffer.
+   */
+  private static final int MIN_GATHERED_BYTES =
+      Integer.getInteger("p2p.MIN_GATHERED_BYTES", 4096).intValue();
+
   /**
    * List of connections to send this msg to.
    */
@@ -91,6 +100,24 @@ public class MsgStreamer extends OutputStream
   private long serStartTime;
   private final boolean directReply;
 
+  /**
+   * True if all of the connections can write a chunk held in several buffers.
+   */
+  private final boolean gatherWrites;
+
+  /**
+   * The parts of direct buffers that belong to the current chunk but have not been copied into
+   * the chunk buffer. Their bytes take up room in the chunk buffer, whose limit is lowered by them.
+   */
+  private ArrayList<ByteBuffer> gathered;
+
+  /**
+   * For each gathered buffer, the position in the chunk buffer it is sent before.
+   */
+  private int[] gatheredAt;
+
+  private int gatheredBytes;
+
   /**
    * Called to free up resources used by this streamer after the streamer has produced its message.
    */
@@ -98,6 +125,7 @@ public class MsgStreamer extends OutputStream
     MsgIdGenerator.release(this.msgId);
     this.buffer.clear();
     this.overflowBuf = null;
+    clearGathered();
     Buffers.releaseSenderBuffer(this.buffer, this.stats);
   }
 
@@ -133,6 +161,7 @@ public class MsgStreamer extends OutputStream
     this.buffer.position(Connection.MSG_HEADER_BYTES);
     this.msgId = MsgIdGenerator.NO_MSG_ID;
     this.directReply = directReply;
+    this.gatherWrites = canWriteGathered(cons);
     startSerialization();
   }
 
@@ -220,6 +249,15 @@ public class MsgStreamer extends OutputStream
     }
   }
 
+  private static boolean canWriteGathered(List<?> cons) {
+    for (Object con : cons) {
+      if (!((Connection) con).canWriteGathered()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   private void startSerialization() {
     this.serStartTime = stats.startMsgSerialization();
   }
@@ -262,7 +300,7 @@ public class MsgStreamer extends OutputStream
     if (this.overflowBuf != null) {
       return;
     }
-    int remainingSpace = this.buffer.capacity() - this.buffer.position();
+    int remainingSpace = this.buffer.remaining();
     if (amount > remainingSpace) {
       realFlush(false);
     }
@@ -302,19 +340,29 @@ public class MsgStreamer extends OutputStream
     }
     this.buffer.flip();
     setMessageHeader();
-    final int serializedBytes = this.buffer.limit();
+    final int serializedBytes = this.buffer.limit() + this.gatheredBytes;
     this.flushedBytes += serializedBytes;
     DistributionMessage conflationMsg = null;
     if (this.normalMsg) {
       // we can't conflate chunked messages; this fixes bug 36633
       conflationMsg = this.msg;
     }
+    // don't leave a message in a batch while its sender waits for the reply
+    final boolean flushBatch =
+        lastFlushForMessage && (this.directReply || this.msg.getProcessorId() != 0);
     this.stats.endMsgSerialization(this.serStartTime);
     for (Iterator it = this.cons.iterator(); it.hasNext();) {
       Connection con = (Connection) it.next();
       try {
-        con.sendPreserialized(this.buffer,
-            lastFlushForMessage && this.msg.containsRegionContentChange(), conflationMsg);
+        if (this.gatheredBytes == 0) {
+          con.sendPreserialized(this.buffer,
+              lastFlushForMessage && this.msg.containsRegionContentChange(), conflationMsg,
+              flushBatch);
+        } else {
+          con.sendPreserialized(getGatheredChunk(),
+              lastFlushForMessage && this.msg.containsRegionContentChange(), conflationMsg,
+              flushBatch);
+        }
       } catch (IOException ex) {
         it.remove();
         if (this.ce == null)
@@ -332,6 +380,7 @@ public class MsgStreamer extends OutputStream
       }
       this.buffer.rewind();
     }
+    clearGathered();
     startSerialization();
     this.buffer.clear();
     this.buffer.position(Connection.MSG_HEADER_BYTES);
@@ -366,7 +415,7 @@ public class MsgStreamer extends OutputStream
       return;
     }
     while (len > 0) {
-      int remainingSpace = this.buffer.capacity() - this.buffer.position();
+      int remainingSpace = this.buffer.remaining();
       if (remainingSpace == 0) {
         realFlush(false);
         if (this.overflowBuf != null) {
@@ -394,9 +443,14 @@ public class MsgStreamer extends OutputStream
       this.overflowBuf.write(bb);
       return;
     }
+    if (this.gatherWrites && bb.isDirect() && bb.remaining() >= MIN_GATHERED_BYTES
+        && !isOverflowMode()) {
+      gather(bb);
+      return;
+    }
     int len = bb.remaining();
     while (len > 0) {
-      int remainingSpace = this.buffer.capacity() - this.buffer.position();
+      int remainingSpace = this.buffer.remaining();
       if (remainingSpace == 0) {
         realFlush(false);
         if (this.overflowBuf != null) {
@@ -417,6 +471,64 @@ public class MsgStreamer extends OutputStream
     }
   }
 
+  /**
+   * Adds the bytes remaining in the direct buffer to the chunks of this message without copying
+   * them, so that they are written to the sockets straight from the buffer. The chunks are split
+   * just as if the bytes had been copied. The buffer is read before {@link #writeMessage} returns.
+   */
+  private void gather(ByteBuffer bb) {
+    while (bb.hasRemaining()) {
+      if (!this.buffer.hasRemaining()) {
+        realFlush(false);
+      }
+      int chunkSize = Math.min(bb.remaining(), this.buffer.remaining());
+      ByteBuffer part = bb.duplicate();
+      part.limit(part.position() + chunkSize);
+      bb.position(bb.position() + chunkSize);
+      if (this.gathered == null) {
+        this.gathered = new ArrayList<>(4);
+        this.gatheredAt = new int[4];
+      } else if (this.gathered.size() == this.gatheredAt.length) {
+        this.gatheredAt = Arrays.copyOf(this.gatheredAt, this.gatheredAt.length * 2);
+      }
+      this.gatheredAt[this.gathered.size()] = this.buffer.position();
+      this.gathered.add(part);
+      this.gatheredBytes += chunkSize;
+      this.buffer.limit(this.buffer.limit() - chunkSize);
+    }
+  }
+
+  /**
+   * Returns the current chunk, whose header has been set, as the parts of the chunk buffer with the
+   * gathered buffers in between them.
+   */
+  private ByteBuffer[] getGatheredChunk() {
+    int count = this.gathered.size();
+    ByteBuffer[] chunk = new ByteBuffer[2 * count + 1];
+    int start = 0;
+    for (int i = 0; i < count; i++) {
+      chunk[2 * i] = getBufferPart(start, this.gatheredAt[i]);
+      chunk[2 * i + 1] = this.gathered.get(i).duplicate();
+      start = this.gatheredAt[i];
+    }
+    chunk[2 * count] = getBufferPart(start, this.buffer.limit());
+    return chunk;
+  }
+
+  private ByteBuffer getBufferPart(int start, int end) {
+    ByteBuffer part = this.buffer.duplicate();
+    part.limit(end);
+    part.position(start);
+    return part;
+  }
+
+  private void clearGathered() {
+    if (this.gathered != null) {
+      this.gathered.clear();
+    }
+    this.gatheredBytes = 0;
+  }
+
   /**
    * write the header after the message has been written to the stream
    */
@@ -444,7 +556,8 @@ public class MsgStreamer extends OutputStream
     }
 
     this.buffer.putInt(Connection.MSG_HEADER_SIZE_OFFSET,
-        Connection.calcHdrSize(this.buffer.limit() - Connection.MSG_HEADER_BYTES));
+        Connection.calcHdrSize(
+            this.buffer.limit() - Connection.MSG_HEADER_BYTES + this.gatheredBytes));
     this.buffer.put(Connection.MSG_HEADER_TYPE_OFFSET, (byte) (msgType & 0xff));
     this.buffer.putShort(Connection.MSG_HEADER_ID_OFFSET, this.msgId);
     this.buffer.position(0);
@@ -689,7 +802,7 @@ public class MsgStreamer extends OutputStream
     int len = s.length();
     int offset = 0;
     while (len > 0) {
-      int remainingCharSpace = (this.buffer.capacity() - this.buffer.position()) / 2;
+      int remainingCharSpace = this.buffer.remaining() / 2;
       if (remainingCharSpace == 0) {
         realFlush(false);
         if (this.overflowBuf != null) {
@@ -790,7 +903,7 @@ public class MsgStreamer extends OutputStream
     writeShort(len);
     int offset = 0;
     while (len > 0) {
-      int remainingSpace = this.buffer.capacity() - this.buffer.position();
+      int remainingSpace = this.buffer.remaining();
       if (remainingSpace == 0) {
         realFlush(false);
         if (this.overflowBuf != null) {
@@ -817,7 +930,7 @@ public class MsgStreamer extends OutputStream
       throw new UTFDataFormatException();
     }
     {
-      int remainingSpace = this.buffer.capacity() - this.buffer.position();
+      int remainingSpace = this.buffer.remaining();
       if (remainingSpace >= ((strlen * 3) + 2)) {
         // we have plenty of room to do this with one pass directly into the buffer
         writeQuickFullUTF(str, strlen);
@@ -905,7 +1018,7 @@ public class MsgStreamer extends OutputStream
     }
     if (isOverflowMode()) {
       // we must have recursed which is now allowed to fix bug 38194
-      int remainingSpace = this.buffer.capacity() - this.buffer.position();
+      int remainingSpace = this.buffer.remaining();
       if (remainingSpace < 5) {
         // we don't even have room to write the length field so just create
         // the overflowBuf
@@ -0,0 +1,281 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.tcp;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.apache.logging.log4j.Logger;
+
+import org.apache.geode.CancelException;
+import org.apache.geode.SystemFailure;
+import org.apache.geode.internal.logging.LogService;
+import org.apache.geode.internal.logging.LoggingThreadGroup;
+
+/**
+ * A small set of selector threads that read the shared receivers of a {@link ConnectionTable}, so
+ * that a member does not need a reader thread for every peer that connects to it.
+ *
+ * A receiver is handed over once its reader thread has read the handshake. From then on it is read
+ * by one selector thread only, which frames its messages in the order they arrive and dispatches
+ * them just like a reader thread does. Messages are not processed inline on a selector thread, see
+ * {@link Connection#isSelectorReaderThread()}, so serial messages go to the serial executor of
+ * their sender, which keeps them in order, and a message that takes a while to process does not
+ * hold up the other connections of the selector.
+ *
+ * A selector thread never blocks. When a message it read goes to a serial executor queue that is
+ * throttled, the queue does not make it wait as it would a reader thread; instead the selector
+ * thread stops reading that one connection, by clearing {@link SelectionKey#OP_READ} from its key,
+ * until the queue is no longer throttled. The sender is then held back by TCP flow control while
+ * the other connections of the selector keep being read. A queue may exceed its limits by the
+ * messages of one read buffer, which a reader thread would have waited for room to add.
+ *
+ * Ordered and unordered receivers are read by different threads, so that the replies arriving on
+ * unordered receivers never wait behind a burst of ordered messages.
+ *
+ * Thread owned receivers keep their reader thread, as their messages are processed inline by it to
+ * avoid distributed deadlocks.
+ *
+ * @since Geode 1.8
+ */
+class SelectorReaders {
+  private static final Logger logger = LogService.getLogger();
+
+  /**
+   * True if shared receivers are read by selector threads instead of having their own reader
+   * thread.
+   */
+  static final boolean ENABLED = Boolean.getBoolean("p2p.useSelectorReaders");
+
+  /**
+   * The number of selector threads for ordered receivers, and again for unordered receivers.
+   */
+  private static final int THREADS = Integer.getInteger("p2p.SELECTOR_READER_THREADS",
+      Math.max(1, Runtime.getRuntime().availableProcessors() / 4)).intValue();
+
+  /**
+   * How often, in milliseconds, a selector thread looks for connections that have been closed by
+   * other threads.
+   */
+  private static final long SWEEP_INTERVAL = 1000;
+
+  /**
+   * How often, in milliseconds, a selector thread looks whether the connections it stopped reading
+   * because they were throttled can be read again.
+   */
+  private static final long THROTTLE_POLL_INTERVAL = 10;
+
+  static final String THREAD_NAME = "P2P selector reader";
+
+  private final SelectorReader[] orderedReaders;
+  private final SelectorReader[] unorderedReaders;
+  private final AtomicInteger nextReader = new AtomicInteger();
+
+  private volatile boolean closed;
+
+  SelectorReaders() throws IOException {
+    this(THREADS);
+  }
+
+  SelectorReaders(int threads) throws IOException {
+    ThreadGroup group = LoggingThreadGroup.createThreadGroup("P2P Reader Threads", logger);
+    this.orderedReaders = new SelectorReader[threads];
+    this.unorderedReaders = new SelectorReader[threads];
+    for (int i = 0; i < threads; i++) {
+      this.orderedReaders[i] =
+          new SelectorReader(group, THREAD_NAME + " for ordered receivers " + i);
+      this.unorderedReaders[i] =
+          new SelectorReader(group, THREAD_NAME + " for unordered receivers " + i);
+    }
+  }
+
+  /**
+   * Reads the given receiver, whose handshake has been read, with one of the selector threads
+   * until it is closed.
+   */
+  void add(Connection conn) {
+    SelectorReader[] readers =
+        conn.getPreserveOrder() ? this.orderedReaders : this.unorderedReaders;
+    int index = (this.nextReader.getAndIncrement() & Integer.MAX_VALUE) % readers.length;
+    readers[index].add(conn);
+  }
+
+  /**
+   * Stops the selector threads. The connections they were reading are closed.
+   */
+  void close() {
+    this.closed = true;
+    for (int i = 0; i < this.orderedReaders.length; i++) {
+      this.orderedReaders[i].selector.wakeup();
+      this.unorderedReaders[i].selector.wakeup();
+    }
+  }
+
+  private class SelectorReader implements Runnable {
+    private final Selector selector;
+
+    private final Thread thread;
+
+    /** connections waiting to be registered by the selector thread */
+    private final Queue<Connection> added = new ConcurrentLinkedQueue<>();
+
+    /** the keys of the connections being read; only accessed by the selector thread */
+    private final Set<SelectionKey> keys = new HashSet<>();
+
+    /**
+     * The keys of the connections not read until their throttle returns false; only accessed by the
+     * selector thread
+     */
+    private final Map<SelectionKey, BooleanSupplier> throttled = new HashMap<>();
+
+    SelectorReader(ThreadGroup group, String name) throws IOException {
+      this.selector = Selector.open();
+      this.thread = new Thread(group, this, name);
+      this.thread.setDaemon(true);
+      this.thread.start();
+    }
+
+    void add(Connection conn) {
+      this.added.add(conn);
+      this.selector.wakeup();
+      if (closed) {
+        // the selector thread may have already stopped
+        stopAdded();
+      }
+    }
+
+    @Override
+    public void run() {
+      Connection.makeSelectorReaderThread();
+      ConnectionTable.threadWantsSharedResources();
+      try {
+        long lastSweep = System.currentTimeMillis();
+        while (!closed) {
+          SystemFailure.checkFailure();
+          this.selector.select(this.throttled.isEmpty() ? SWEEP_INTERVAL : THROTTLE_POLL_INTERVAL);
+          registerAdded();
+          for (Iterator<SelectionKey> it = this.selector.selectedKeys().iterator(); it.hasNext();) {
+            SelectionKey key = it.next();
+            it.remove();
+            if (key.isValid() && !read(key)) {
+              stop(key);
+            }
+          }
+          resumeThrottled();
+          long now = System.currentTimeMillis();
+          if (now - lastSweep >= SWEEP_INTERVAL) {
+            lastSweep = now;
+            for (Iterator<SelectionKey> it = this.keys.iterator(); it.hasNext();) {
+              SelectionKey key = it.next();
+              if (!key.isValid() || !key.channel().isOpen()
+                  || ((Connection) key.attachment()).stopped) {
+                it.remove();
+                stop(key);
+              }
+            }
+          }
+        }
+      } catch (IOException e) {
+        if (!closed) {
+          logger.fatal("{} failed selecting", this.thread.getName(), e);
+        }
+      } finally {
+        for (SelectionKey key : new ArrayList<>(this.keys)) {
+          stop(key);
+        }
+        stopAdded();
+        try {
+          this.selector.close();
+        } catch (IOException ignore) {
+        }
+      }
+    }
+
+    private void registerAdded() {
+      Connection conn;
+      while ((conn = this.added.poll()) != null) {
+        try {
+          SocketChannel channel = conn.getSocket().getChannel();
+          channel.configureBlocking(false);
+          this.keys.add(channel.register(this.selector, SelectionKey.OP_READ, conn));
+        } catch (IOException e) {
+          // the channel was closed before it could be registered
+          conn.selectorReadingStopped();
+        }
+      }
+    }
+
+    private boolean read(SelectionKey key) {
+      Connection conn = (Connection) key.attachment();
+      try {
+        return conn.readSelected((SocketChannel) key.channel());
+      } catch (CancelException e) {
+        return false;
+      } finally {
+        BooleanSupplier throttle = Connection.takeSelectorReaderThrottle();
+        if (throttle != null && key.isValid()) {
+          key.interestOps(0);
+          this.throttled.put(key, throttle);
+        }
+      }
+    }
+
+    /**
+     * Reads the throttled connections again whose throttle has ended.
+     */
+    private void resumeThrottled() {
+      for (Iterator<Map.Entry<SelectionKey, BooleanSupplier>> it =
+          this.throttled.entrySet().iterator(); it.hasNext();) {
+        Map.Entry<SelectionKey, BooleanSupplier> entry = it.next();
+        SelectionKey key = entry.getKey();
+        if (!key.isValid()) {
+          it.remove();
+        } else if (!entry.getValue().getAsBoolean()) {
+          it.remove();
+          key.interestOps(SelectionKey.OP_READ);
+        }
+      }
+    }
+
+    private void stop(SelectionKey key) {
+      key.cancel();
+      this.keys.remove(key);
+      this.throttled.remove(key);
+      try {
+        ((Connection) key.attachment()).selectorReadingStopped();
+      } catch (CancelException ignore) {
+      }
+    }
+
+    private void stopAdded() {
+      Connection conn;
+      while ((conn = this.added.poll()) != null) {
+        conn.selectorReadingStopped();
+      }
+    }
+  }
+}
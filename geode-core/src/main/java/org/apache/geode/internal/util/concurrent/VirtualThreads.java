@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.util.concurrent;
+
+import java.util.concurrent.ThreadFactory;
+
+import org.apache.logging.log4j.Logger;
+
+import org.apache.geode.distributed.internal.DistributionConfig;
+import org.apache.geode.internal.logging.LogService;
+
+/**
+ * Creates the threads of the pools whose threads spend most of their time blocked, such as the
+ * distribution manager's message processors and the cache server's connection handlers. When
+ * enabled with the gemfire.useVirtualThreads system property on a JDK that has virtual threads
+ * (JDK 21 or later) they are virtual threads, otherwise they are platform threads just as before.
+ *
+ * Virtual threads are looked up by reflection since Geode is built for Java 8.
+ *
+ * A virtual thread always belongs to the same thread group, so the group passed in only handles
+ * its uncaught exceptions. Virtual threads are always daemon threads. A virtual thread that blocks
+ * while holding a monitor pins the platform thread carrying it, so code run by these threads should
+ * use {@link java.util.concurrent.locks.Lock}s, such as the Stoppable locks, around blocking calls.
+ *
+ * @since Geode 1.8
+ */
+public class VirtualThreads {
+  private static final Logger logger = LogService.getLogger();
+
+  public static final String USE_VIRTUAL_THREADS_PROPERTY =
+      DistributionConfig.GEMFIRE_PREFIX + "useVirtualThreads";
+
+  private static final ThreadFactory factory = createFactory();
+
+  /**
+   * True if the pools that use this class run on virtual threads.
+   */
+  public static final boolean ENABLED = factory != null;
+
+  private VirtualThreads() {
+    // no instances
+  }
+
+  private static ThreadFactory createFactory() {
+    if (!Boolean.getBoolean(USE_VIRTUAL_THREADS_PROPERTY)) {
+      return null;
+    }
+    try {
+      Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+      return (ThreadFactory) Class.forName("java.lang.Thread$Builder").getMethod("factory")
+          .invoke(builder);
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      logger.warn("{} is set but this JVM has no virtual threads, using platform threads instead",
+          USE_VIRTUAL_THREADS_PROPERTY);
+      return null;
+    }
+  }
+
+  /**
+   * Returns a new unstarted thread that runs the given task, a virtual thread if they are enabled
+   * or else a platform thread in the given group.
+   */
+  public static Thread newThread(ThreadGroup group, Runnable task, String name) {
+    if (factory == null) {
+      return new Thread(group, task, name);
+    }
+    Thread thread = factory.newThread(task);
+    thread.setName(name);
+    thread.setUncaughtExceptionHandler(group);
+    return thread;
+  }
+}
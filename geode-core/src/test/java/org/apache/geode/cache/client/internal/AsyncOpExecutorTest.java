@@ -0,0 +1,233 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.client.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.awaitility.Awaitility;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.CancelCriterion;
+import org.apache.geode.cache.client.ServerConnectivityException;
+import org.apache.geode.cache.client.ServerOperationException;
+import org.apache.geode.cache.client.internal.pooling.ConnectionManager;
+import org.apache.geode.internal.cache.tier.sockets.MultiplexedSocket;
+import org.apache.geode.test.junit.categories.ClientServerTest;
+
+@Category({ClientServerTest.class})
+public class AsyncOpExecutorTest {
+  private static final int TIMEOUT = 10000;
+
+  private ConnectionManager connectionManager;
+  private ScheduledExecutorService timer;
+  private Connection connection;
+  private MultiplexedSocket socket;
+  private AbstractOp op;
+  private Callable<Object> blockingExecution;
+  private AsyncOpExecutor executor;
+
+  @Before
+  @SuppressWarnings("unchecked")
+  public void setUp() throws Exception {
+    connectionManager = mock(ConnectionManager.class);
+    timer = Executors.newSingleThreadScheduledExecutor();
+    connection = mock(Connection.class);
+    socket = mock(MultiplexedSocket.class);
+    op = mock(AbstractOp.class);
+    blockingExecution = mock(Callable.class);
+    when(connectionManager.borrowConnection(anyLong())).thenReturn(connection);
+    when(connection.getSocket()).thenReturn(socket);
+    when(connection.getStats()).thenReturn(mock(ConnectionStats.class));
+    when(connection.getEndpoint()).thenReturn(mock(Endpoint.class));
+    when(blockingExecution.call()).thenReturn("blocking");
+  }
+
+  @After
+  public void tearDown() {
+    if (executor != null) {
+      executor.close();
+    }
+    timer.shutdownNow();
+  }
+
+  private CompletableFuture<Object> execute(boolean multiplexed, int timeout, boolean retryable) {
+    executor = new AsyncOpExecutor("pool", connectionManager, timer, mock(CancelCriterion.class),
+        TIMEOUT, multiplexed);
+    return executor.execute(null, op, timeout, retryable, blockingExecution);
+  }
+
+  private void respondWhenReadable() {
+    doAnswer(invocation -> {
+      ((Runnable) invocation.getArgument(0)).run();
+      return null;
+    }).when(socket).whenReadable(any());
+  }
+
+  @Test
+  public void runsBlockingExecutionWithoutMultiplexedConnections() throws Exception {
+    CompletableFuture<Object> result = execute(false, 0, true);
+
+    assertThat(result.get(TIMEOUT, TimeUnit.MILLISECONDS)).isEqualTo("blocking");
+    verify(connectionManager, never()).borrowConnection(anyLong());
+  }
+
+  @Test
+  public void runsBlockingExecutionWhenServerDoesNotMultiplex() throws Exception {
+    when(connection.getSocket()).thenReturn(mock(Socket.class));
+
+    CompletableFuture<Object> result = execute(true, 0, true);
+
+    assertThat(result.get(TIMEOUT, TimeUnit.MILLISECONDS)).isEqualTo("blocking");
+    verify(connectionManager).returnConnection(connection);
+    verify(op, never()).attemptSend(any());
+  }
+
+  @Test
+  public void completesWithResponseOnceReadable() throws Exception {
+    respondWhenReadable();
+    when(op.attemptReadResponse(connection)).thenReturn("value");
+
+    CompletableFuture<Object> result = execute(true, 0, true);
+
+    assertThat(result.get(TIMEOUT, TimeUnit.MILLISECONDS)).isEqualTo("value");
+    verify(op).attemptSend(connection);
+    verify(connectionManager).returnConnection(connection);
+    verify(connection, never()).destroy();
+    verify(blockingExecution, never()).call();
+  }
+
+  @Test
+  public void completesResultBeforeOpStopsBeingInProgress() throws Exception {
+    AtomicReference<Runnable> readable = new AtomicReference<>();
+    doAnswer(invocation -> {
+      readable.set(invocation.getArgument(0));
+      return null;
+    }).when(socket).whenReadable(any());
+    when(op.attemptReadResponse(connection)).thenReturn("value");
+    CompletableFuture<Object> result = execute(true, 0, true);
+    CompletableFuture<Integer> inProgressOnCompletion =
+        result.thenApply(value -> executor.getOpsInProgress());
+
+    readable.get().run();
+
+    assertThat(inProgressOnCompletion.get(TIMEOUT, TimeUnit.MILLISECONDS)).isEqualTo(1);
+    Awaitility.await().atMost(TIMEOUT, TimeUnit.MILLISECONDS)
+        .until(() -> executor.getOpsInProgress() == 0);
+  }
+
+  @Test
+  public void completesFailedResultBeforeOpStopsBeingInProgress() throws Exception {
+    AtomicReference<Runnable> readable = new AtomicReference<>();
+    doAnswer(invocation -> {
+      readable.set(invocation.getArgument(0));
+      return null;
+    }).when(socket).whenReadable(any());
+    when(op.attemptReadResponse(connection)).thenThrow(new IOException("broken"));
+    CompletableFuture<Object> result = execute(true, 0, false);
+    CompletableFuture<Integer> inProgressOnCompletion =
+        result.handle((value, failure) -> executor.getOpsInProgress());
+
+    readable.get().run();
+
+    assertThat(inProgressOnCompletion.get(TIMEOUT, TimeUnit.MILLISECONDS)).isEqualTo(1);
+    assertThat(result).isCompletedExceptionally();
+    Awaitility.await().atMost(TIMEOUT, TimeUnit.MILLISECONDS)
+        .until(() -> executor.getOpsInProgress() == 0);
+  }
+
+  @Test
+  public void retriesWithBlockingExecutionWhenSendFails() throws Exception {
+    doThrow(new SocketException("broken")).when(op).attemptSend(connection);
+
+    CompletableFuture<Object> result = execute(true, 0, false);
+
+    assertThat(result.get(TIMEOUT, TimeUnit.MILLISECONDS)).isEqualTo("blocking");
+    verify(connection).destroy();
+    verify(connectionManager).returnConnection(connection);
+  }
+
+  @Test
+  public void retriesRetryableOpWhenResponseFails() throws Exception {
+    respondWhenReadable();
+    when(op.attemptReadResponse(connection)).thenThrow(new IOException("broken"));
+
+    CompletableFuture<Object> result = execute(true, 0, true);
+
+    assertThat(result.get(TIMEOUT, TimeUnit.MILLISECONDS)).isEqualTo("blocking");
+    verify(connection).destroy();
+  }
+
+  @Test
+  public void doesNotRetryOtherOpsWhenResponseFails() throws Exception {
+    respondWhenReadable();
+    when(op.attemptReadResponse(connection)).thenThrow(new IOException("broken"));
+
+    CompletableFuture<Object> result = execute(true, 0, false);
+
+    assertThatThrownBy(() -> result.get(TIMEOUT, TimeUnit.MILLISECONDS))
+        .isInstanceOf(ExecutionException.class)
+        .hasCauseInstanceOf(ServerConnectivityException.class);
+    verify(connection).destroy();
+    verify(blockingExecution, never()).call();
+  }
+
+  @Test
+  public void doesNotRetryServerErrors() throws Exception {
+    respondWhenReadable();
+    ServerOperationException serverError = new ServerOperationException("failed on server");
+    when(op.attemptReadResponse(connection)).thenThrow(serverError);
+
+    CompletableFuture<Object> result = execute(true, 0, true);
+
+    assertThatThrownBy(() -> result.get(TIMEOUT, TimeUnit.MILLISECONDS))
+        .isInstanceOf(ExecutionException.class).hasCause(serverError);
+    verify(blockingExecution, never()).call();
+  }
+
+  @Test
+  public void timesOutWhenNoResponseArrives() throws Exception {
+    CompletableFuture<Object> result = execute(true, 50, false);
+
+    assertThatThrownBy(() -> result.get(TIMEOUT, TimeUnit.MILLISECONDS))
+        .isInstanceOf(ExecutionException.class)
+        .hasCauseInstanceOf(ServerConnectivityException.class).hasMessageContaining("Timed out");
+    verify(socket).close();
+    verify(connection).destroy();
+    verify(op, never()).attemptReadResponse(any());
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.client.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.client.ServerConnectivityException;
+import org.apache.geode.cache.client.ServerOperationException;
+import org.apache.geode.cache.client.internal.GetAllOp.GetAllOpImpl;
+import org.apache.geode.distributed.internal.ServerLocation;
+import org.apache.geode.internal.cache.LocalRegion;
+import org.apache.geode.internal.cache.tier.sockets.VersionedObjectList;
+import org.apache.geode.test.junit.categories.ClientServerTest;
+
+@Category({ClientServerTest.class})
+public class SingleHopClientExecutorTest {
+
+  private ClientMetadataService cms;
+  private LocalRegion region;
+  private Map<ServerLocation, RuntimeException> failedServers;
+
+  @Before
+  public void setUp() {
+    cms = mock(ClientMetadataService.class);
+    region = mock(LocalRegion.class);
+    failedServers = new HashMap<>();
+  }
+
+  private SingleHopOperationCallable getAllTask(ServerLocation server, List keys)
+      throws Exception {
+    SingleHopOperationCallable task = mock(SingleHopOperationCallable.class);
+    when(task.getServer()).thenReturn(server);
+    when(task.getOperation()).thenReturn(new GetAllOpImpl("/region", keys, null));
+    VersionedObjectList values = new VersionedObjectList(keys.size(), false, false);
+    for (Object key : keys) {
+      values.addObject(key, "value-" + key, null);
+    }
+    when(task.call()).thenReturn(values);
+    return task;
+  }
+
+  @Test
+  public void getAllMergesTheValuesOfAllServers() throws Exception {
+    ServerLocation server1 = new ServerLocation("host", 1);
+    ServerLocation server2 = new ServerLocation("host", 2);
+    List<SingleHopOperationCallable> tasks =
+        Arrays.asList(getAllTask(server1, new ArrayList(Arrays.asList("a", "b"))),
+            getAllTask(server2, new ArrayList(Arrays.asList("c"))));
+
+    VersionedObjectList result =
+        SingleHopClientExecutor.submitGetAll(tasks, cms, region, failedServers);
+
+    assertThat(result.getObjects()).containsExactly("value-a", "value-b", "value-c");
+    assertThat(failedServers).isEmpty();
+  }
+
+  @Test
+  public void getAllReportsTheServersThatCouldNotBeReached() throws Exception {
+    ServerLocation server1 = new ServerLocation("host", 1);
+    ServerLocation server2 = new ServerLocation("host", 2);
+    SingleHopOperationCallable failing = getAllTask(server2, new ArrayList(Arrays.asList("c")));
+    ServerConnectivityException failure = new ServerConnectivityException("down");
+    when(failing.call()).thenThrow(failure);
+    List<SingleHopOperationCallable> tasks =
+        Arrays.asList(getAllTask(server1, new ArrayList(Arrays.asList("a", "b"))), failing);
+
+    VersionedObjectList result =
+        SingleHopClientExecutor.submitGetAll(tasks, cms, region, failedServers);
+
+    assertThat(result.getObjects()).containsExactly("value-a", "value-b");
+    assertThat(failedServers).containsOnlyKeys(server2).containsValue(failure);
+    verify(cms).removeBucketServerLocation(server2);
+    verify(cms, never()).removeBucketServerLocation(server1);
+  }
+
+  @Test
+  public void getAllThrowsServerOperationFailures() throws Exception {
+    SingleHopOperationCallable failing =
+        getAllTask(new ServerLocation("host", 1), new ArrayList(Arrays.asList("a")));
+    when(failing.call()).thenThrow(new ServerOperationException("failed"));
+
+    assertThatThrownBy(() -> SingleHopClientExecutor.submitGetAll(Arrays.asList(failing), cms,
+        region, failedServers)).isInstanceOf(ServerOperationException.class);
+  }
+
+  @Test
+  public void firstTaskOfABulkOpIsRunByTheCallingThread() throws Exception {
+    AtomicReference<Thread> runner = new AtomicReference<>();
+    SingleHopOperationCallable task =
+        getAllTask(new ServerLocation("host", 1), new ArrayList(Arrays.asList("a")));
+    Object values = task.call();
+    when(task.call()).thenAnswer(invocation -> {
+      runner.set(Thread.currentThread());
+      return values;
+    });
+
+    SingleHopClientExecutor.submitGetAll(Arrays.asList(task), cms, region, failedServers);
+
+    assertThat(runner.get()).isSameAs(Thread.currentThread());
+  }
+}
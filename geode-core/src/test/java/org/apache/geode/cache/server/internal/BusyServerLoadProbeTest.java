@@ -0,0 +1,191 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.server.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.server.ServerLoad;
+import org.apache.geode.test.junit.categories.ClientServerTest;
+
+@Category({ClientServerTest.class})
+public class BusyServerLoadProbeTest {
+
+  private BusyServerLoadProbe probe;
+  private ServerMetricsImpl metrics;
+
+  @Before
+  public void setUp() {
+    probe = new BusyServerLoadProbe();
+    metrics = mock(ServerMetricsImpl.class);
+    when(metrics.getMaxConnections()).thenReturn(100);
+    when(metrics.getConnectionCount()).thenReturn(10);
+    when(metrics.getSubscriptionConnectionCount()).thenReturn(2);
+    when(metrics.getCpuLoad()).thenReturn(0.1);
+  }
+
+  @Test
+  public void reportsConnectionCountLoadWhileNotBusy() {
+    ServerLoad load = probe.getLoad(metrics);
+
+    assertThat(probe.isBusy()).isFalse();
+    assertThat(load.getConnectionLoad()).isEqualTo(0.1f);
+    assertThat(load.getSubscriptionConnectionLoad()).isEqualTo(2f);
+  }
+
+  @Test
+  public void deepRequestQueueMakesServerBusy() {
+    when(metrics.getRequestQueueSize()).thenReturn(BusyServerLoadProbe.DEFAULT_MAX_QUEUE_DEPTH);
+
+    ServerLoad load = probe.getLoad(metrics);
+
+    assertThat(probe.isBusy()).isTrue();
+    assertThat(load.getConnectionLoad()).isEqualTo(1.1f);
+    assertThat(load.getSubscriptionConnectionLoad()).isEqualTo(102f);
+  }
+
+  @Test
+  public void slowOperationsMakeServerBusy() {
+    when(metrics.pollOperationTime(0.99))
+        .thenReturn(BusyServerLoadProbe.DEFAULT_MAX_P99_LATENCY_MS * 1000);
+
+    probe.getLoad(metrics);
+
+    assertThat(probe.isBusy()).isTrue();
+  }
+
+  @Test
+  public void highCpuLoadMakesServerBusy() {
+    when(metrics.getCpuLoad()).thenReturn(0.95);
+
+    probe.getLoad(metrics);
+
+    assertThat(probe.isBusy()).isTrue();
+  }
+
+  @Test
+  public void unknownCpuLoadIsIgnored() {
+    when(metrics.getCpuLoad()).thenReturn(-1.0);
+
+    probe.getLoad(metrics);
+
+    assertThat(probe.isBusy()).isFalse();
+  }
+
+  @Test
+  public void serverStaysBusyUntilBelowRecoveryFraction() {
+    when(metrics.getRequestQueueSize()).thenReturn(100);
+    probe.getLoad(metrics);
+
+    when(metrics.getRequestQueueSize()).thenReturn(80);
+    ServerLoad load = probe.getLoad(metrics);
+    assertThat(probe.isBusy()).isTrue();
+    assertThat(load.getConnectionLoad()).isEqualTo(1.1f);
+
+    when(metrics.getRequestQueueSize()).thenReturn(60);
+    load = probe.getLoad(metrics);
+    assertThat(probe.isBusy()).isFalse();
+    assertThat(load.getConnectionLoad()).isEqualTo(0.1f);
+  }
+
+  @Test
+  public void limitsAreConfigurable() {
+    Properties props = new Properties();
+    props.setProperty(BusyServerLoadProbe.MAX_QUEUE_DEPTH, "10");
+    probe.init(props);
+    when(metrics.getRequestQueueSize()).thenReturn(10);
+
+    probe.getLoad(metrics);
+
+    assertThat(probe.isBusy()).isTrue();
+    assertThat(probe.getConfig().getProperty(BusyServerLoadProbe.MAX_QUEUE_DEPTH)).isEqualTo("10");
+  }
+
+  @Test
+  public void invalidLimitsAreRejected() {
+    Properties props = new Properties();
+    props.setProperty(BusyServerLoadProbe.RECOVERY_FRACTION, "1.5");
+
+    assertThatThrownBy(() -> probe.init(props)).isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  public void operationTimeIsPolledWithinAnEighth() {
+    ServerMetricsImpl metrics = new ServerMetricsImpl(800);
+    for (int i = 0; i < 99; i++) {
+      metrics.recordOperationTime(100_000);
+    }
+    metrics.recordOperationTime(10_000_000);
+
+    assertThat(metrics.pollOperationTime(0.99)).isBetween(100L, 112L);
+    assertThat(metrics.pollOperationTime(0.99)).isEqualTo(0);
+  }
+
+  @Test
+  public void operationTimeOfFewOperationsIsPolled() {
+    ServerMetricsImpl metrics = new ServerMetricsImpl(800);
+    metrics.recordOperationTime(3_000);
+
+    assertThat(metrics.pollOperationTime(0.99)).isEqualTo(4);
+  }
+
+  @Test
+  public void slowOperationsMakeServerBusyAtDefaultMaxP99Latency() {
+    ServerMetricsImpl metrics = spy(new ServerMetricsImpl(800));
+    doReturn(0.1).when(metrics).getCpuLoad();
+
+    recordOperationTimes(metrics, 90);
+    probe.getLoad(metrics);
+    assertThat(probe.isBusy()).isFalse();
+
+    recordOperationTimes(metrics, BusyServerLoadProbe.DEFAULT_MAX_P99_LATENCY_MS);
+    probe.getLoad(metrics);
+    assertThat(probe.isBusy()).isTrue();
+  }
+
+  @Test
+  public void slowOperationsMakeServerBusyAtConfiguredMaxP99Latency() {
+    Properties props = new Properties();
+    props.setProperty(BusyServerLoadProbe.MAX_P99_LATENCY_MS, "20");
+    probe.init(props);
+    ServerMetricsImpl metrics = spy(new ServerMetricsImpl(800));
+    doReturn(0.1).when(metrics).getCpuLoad();
+
+    recordOperationTimes(metrics, 18);
+    probe.getLoad(metrics);
+    assertThat(probe.isBusy()).isFalse();
+
+    recordOperationTimes(metrics, 20);
+    probe.getLoad(metrics);
+    assertThat(probe.isBusy()).isTrue();
+  }
+
+  private void recordOperationTimes(ServerMetricsImpl metrics, long millis) {
+    for (int i = 0; i < 100; i++) {
+      metrics.recordOperationTime(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.distributed.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.test.junit.categories.MembershipTest;
+
+@Category({MembershipTest.class})
+public class KeyOrderedSerialExecutorTest {
+  private final ExecutorService pool = Executors.newFixedThreadPool(4);
+  private final ExecutorService caller = Executors.newSingleThreadExecutor();
+  private final List<String> processed = Collections.synchronizedList(new ArrayList<>());
+
+  @After
+  public void tearDown() {
+    pool.shutdownNow();
+    caller.shutdownNow();
+  }
+
+  @Test
+  public void tasksWithEqualKeysRunInOrder() throws Exception {
+    KeyOrderedSerialExecutor executor = new KeyOrderedSerialExecutor(pool, 100);
+    List<List<Integer>> runs = new ArrayList<>();
+    for (int key = 0; key < 3; key++) {
+      runs.add(Collections.synchronizedList(new ArrayList<>()));
+    }
+    for (int i = 0; i < 3000; i++) {
+      int key = i % 3;
+      int value = i;
+      executor.execute(key, () -> runs.get(key).add(value));
+    }
+    CountDownLatch done = new CountDownLatch(1);
+    executor.execute(done::countDown);
+
+    assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+    for (int key = 0; key < 3; key++) {
+      assertThat(runs.get(key)).hasSize(1000).isSorted();
+    }
+    assertThat(executor.getTaskCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void tasksWithDifferentKeysRunConcurrently() throws Exception {
+    KeyOrderedSerialExecutor executor = new KeyOrderedSerialExecutor(pool, 100);
+    CountDownLatch secondStarted = new CountDownLatch(1);
+    CountDownLatch firstDone = new CountDownLatch(1);
+
+    executor.execute("a", () -> {
+      try {
+        if (secondStarted.await(10, TimeUnit.SECONDS)) {
+          firstDone.countDown();
+        }
+      } catch (InterruptedException ignore) {
+      }
+    });
+    executor.execute("b", secondStarted::countDown);
+
+    assertThat(firstDone.await(10, TimeUnit.SECONDS)).isTrue();
+  }
+
+  @Test
+  public void taskWithoutKeyRunsAfterEarlierTasksAndBeforeLaterOnes() throws Exception {
+    KeyOrderedSerialExecutor executor = new KeyOrderedSerialExecutor(pool, 100);
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch done = new CountDownLatch(1);
+
+    executor.execute("a", () -> {
+      try {
+        release.await(10, TimeUnit.SECONDS);
+      } catch (InterruptedException ignore) {
+      }
+      processed.add("a");
+    });
+    executor.execute(() -> processed.add("region"));
+    executor.execute("b", () -> {
+      processed.add("b");
+      done.countDown();
+    });
+
+    Thread.sleep(100);
+    assertThat(processed).isEmpty();
+    release.countDown();
+    assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+    assertThat(processed).containsExactly("a", "region", "b");
+  }
+
+  @Test
+  public void executeWaitsWhileTooManyTasksAreOutstanding() throws Exception {
+    KeyOrderedSerialExecutor executor = new KeyOrderedSerialExecutor(pool, 1);
+    CountDownLatch release = new CountDownLatch(1);
+    executor.execute("a", () -> {
+      try {
+        release.await(10, TimeUnit.SECONDS);
+      } catch (InterruptedException ignore) {
+      }
+    });
+
+    Future<?> second = caller.submit(() -> executor.execute("b", () -> processed.add("b")));
+
+    try {
+      second.get(100, TimeUnit.MILLISECONDS);
+      throw new AssertionError("execute did not wait");
+    } catch (TimeoutException expected) {
+    }
+    release.countDown();
+    second.get(10, TimeUnit.SECONDS);
+  }
+}
@@ -15,9 +15,16 @@
 package org.apache.geode.internal;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 
@@ -33,4 +40,60 @@ public class HeapDataOutputStreamTest {
     when(mockHeapDataOutputStream.getVersion()).thenReturn(mockVersion);
     assertThat(mockHeapDataOutputStream.getVersion()).isEqualTo(mockVersion);
   }
+
+  @Test
+  public void sendToChannelOfEmptyStreamSendsBufferedBytes() throws Exception {
+    ByteArrayOutputStream written = new ByteArrayOutputStream();
+    ByteBuffer out = ByteBuffer.allocateDirect(16);
+    out.put(new byte[] {1, 2, 3});
+    HeapDataOutputStream hdos = new HeapDataOutputStream(16, null, true);
+
+    hdos.sendTo(channelWritingTo(written), out);
+
+    assertThat(written.toByteArray()).containsExactly(1, 2, 3);
+    assertThat(out.position()).isZero();
+  }
+
+  @Test
+  public void sendToChannelSendsBufferedBytesAheadOfEmptyDirectChunk() throws Exception {
+    ByteBuffer value = ByteBuffer.allocateDirect(HeapDataOutputStream.MIN_TO_COPY + 1);
+    HeapDataOutputStream hdos = new HeapDataOutputStream(16, null, true);
+    hdos.write(value);
+    // sending without rewinding leaves the direct chunk empty
+    hdos.sendTo(channelWritingTo(new ByteArrayOutputStream()), ByteBuffer.allocateDirect(16));
+    ByteArrayOutputStream written = new ByteArrayOutputStream();
+    ByteBuffer out = ByteBuffer.allocateDirect(16);
+    out.put(new byte[] {1, 2, 3});
+
+    hdos.sendTo(channelWritingTo(written), out);
+
+    assertThat(written.toByteArray()).containsExactly(1, 2, 3);
+    assertThat(out.position()).isZero();
+  }
+
+  private static SocketChannel channelWritingTo(ByteArrayOutputStream out) throws Exception {
+    SocketChannel channel = mock(SocketChannel.class);
+    doAnswer(invocation -> {
+      ByteBuffer[] buffers = invocation.getArgument(0);
+      int offset = invocation.getArgument(1);
+      int length = invocation.getArgument(2);
+      long result = 0;
+      for (int i = offset; i < offset + length; i++) {
+        while (buffers[i].hasRemaining()) {
+          out.write(buffers[i].get());
+          result++;
+        }
+      }
+      return result;
+    }).when(channel).write(any(ByteBuffer[].class), anyInt(), anyInt());
+    doAnswer(invocation -> {
+      ByteBuffer buffer = invocation.getArgument(0);
+      int result = buffer.remaining();
+      while (buffer.hasRemaining()) {
+        out.write(buffer.get());
+      }
+      return result;
+    }).when(channel).write(any(ByteBuffer.class));
+    return channel;
+  }
 }
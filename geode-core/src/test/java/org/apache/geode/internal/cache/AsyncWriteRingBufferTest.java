@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class AsyncWriteRingBufferTest {
+
+  @Test
+  public void drainReturnsItemsInOrder() {
+    AsyncWriteRingBuffer<Integer> queue = new AsyncWriteRingBuffer<>(0);
+    queue.offer(1);
+    queue.offer(2);
+    queue.forcePut(3);
+
+    List<Integer> drained = new ArrayList<>();
+
+    assertThat(queue.drainTo(drained)).isEqualTo(3);
+    assertThat(drained).containsExactly(1, 2, 3);
+    assertThat(queue.isEmpty()).isTrue();
+  }
+
+  @Test
+  public void offerFailsOnceCapacityIsReached() {
+    AsyncWriteRingBuffer<Integer> queue = new AsyncWriteRingBuffer<>(2);
+
+    assertThat(queue.offer(1)).isTrue();
+    assertThat(queue.offer(2)).isTrue();
+    assertThat(queue.offer(3)).isFalse();
+    assertThat(queue.size()).isEqualTo(2);
+  }
+
+  @Test
+  public void forcePutExceedsCapacityAndKeepsOrder() {
+    AsyncWriteRingBuffer<Integer> queue = new AsyncWriteRingBuffer<>(2);
+    queue.offer(1);
+    queue.offer(2);
+    queue.forcePut(3);
+    queue.forcePut(4);
+
+    List<Integer> drained = new ArrayList<>();
+    queue.drainTo(drained);
+
+    assertThat(drained).containsExactly(1, 2, 3, 4);
+  }
+
+  @Test
+  public void itemsAddedWhileOverflowIsNotEmptyAreDrainedAfterIt() {
+    AsyncWriteRingBuffer<Integer> queue = new AsyncWriteRingBuffer<>(2);
+    queue.forcePut(1);
+    queue.forcePut(2);
+    queue.forcePut(3);
+    List<Integer> first = new ArrayList<>();
+    queue.drainTo(first);
+
+    queue.forcePut(4);
+    queue.forcePut(5);
+    queue.forcePut(6);
+    List<Integer> second = new ArrayList<>();
+    queue.drainTo(second);
+
+    assertThat(first).containsExactly(1, 2, 3);
+    assertThat(second).containsExactly(4, 5, 6);
+  }
+
+  @Test
+  public void ringSlotsAreReusedAfterDrain() {
+    AsyncWriteRingBuffer<Integer> queue = new AsyncWriteRingBuffer<>(4);
+    List<Integer> drained = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      assertThat(queue.offer(i)).isTrue();
+      queue.drainTo(drained);
+    }
+
+    assertThat(drained).hasSize(100);
+    assertThat(drained.get(99)).isEqualTo(99);
+  }
+
+  @Test
+  public void removedItemIsNotDrained() {
+    AsyncWriteRingBuffer<String> queue = new AsyncWriteRingBuffer<>(1);
+    String a = "a";
+    String b = "b";
+    queue.offer(a);
+    queue.forcePut(b);
+
+    assertThat(queue.remove(a)).isTrue();
+    assertThat(queue.remove(b)).isTrue();
+    assertThat(queue.remove(a)).isFalse();
+    List<String> drained = new ArrayList<>();
+
+    assertThat(queue.drainTo(drained)).isEqualTo(0);
+    assertThat(drained).isEmpty();
+    assertThat(queue.isEmpty()).isTrue();
+  }
+
+  @Test
+  public void iteratorSkipsRemovedItems() {
+    AsyncWriteRingBuffer<String> queue = new AsyncWriteRingBuffer<>(0);
+    queue.offer("a");
+    queue.offer("b");
+    queue.remove("a");
+
+    assertThat(queue).containsExactly("b");
+  }
+
+  @Test
+  public void concurrentProducersLoseNoItems() throws Exception {
+    int producers = 4;
+    int perProducer = 20000;
+    AsyncWriteRingBuffer<Integer> queue = new AsyncWriteRingBuffer<>(0);
+    ExecutorService executor = Executors.newFixedThreadPool(producers);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> futures = new ArrayList<>();
+    try {
+      for (int p = 0; p < producers; p++) {
+        futures.add(executor.submit(() -> {
+          start.await();
+          for (int i = 0; i < perProducer; i++) {
+            queue.forcePut(i);
+          }
+          return null;
+        }));
+      }
+      start.countDown();
+      List<Integer> drained = new ArrayList<>();
+      for (Future<?> future : futures) {
+        while (!future.isDone()) {
+          queue.drainTo(drained);
+        }
+        future.get(1, TimeUnit.MINUTES);
+      }
+      queue.drainTo(drained);
+
+      assertThat(drained).hasSize(producers * perProducer);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
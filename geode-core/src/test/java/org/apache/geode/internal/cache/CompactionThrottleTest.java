@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class CompactionThrottleTest {
+
+  private DiskStoreStats stats;
+
+  @Before
+  public void setup() {
+    stats = mock(DiskStoreStats.class);
+  }
+
+  @Test
+  public void throttleSleepsToStayWithinRate() {
+    CompactionThrottle throttle = new CompactionThrottle(1, 0, stats);
+    throttle.reset();
+    long start = System.nanoTime();
+
+    // half a megabyte at one megabyte per second
+    assertThat(throttle.copied(512 * 1024)).isTrue();
+    throttle.throttle(() -> true);
+
+    assertThat(System.nanoTime() - start)
+        .isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(400));
+    verify(stats, atLeastOnce()).incCompactionThrottleTime(anyLong());
+  }
+
+  @Test
+  public void throttleDoesNotSleepWithoutLimits() {
+    CompactionThrottle throttle = new CompactionThrottle(0, 0, stats);
+
+    assertThat(throttle.copied(Integer.MAX_VALUE)).isFalse();
+    throttle.throttle(() -> true);
+
+    verify(stats, never()).incCompactionThrottleTime(anyLong());
+  }
+
+  @Test
+  public void throttleDoesNotSleepOnceCompactorIsStopped() {
+    CompactionThrottle throttle = new CompactionThrottle(1, 0, stats);
+
+    throttle.copied(10 * 1024 * 1024);
+    throttle.throttle(() -> false);
+
+    verify(stats, never()).incCompactionThrottleTime(anyLong());
+  }
+
+  @Test
+  public void throttleStopsSleepingOnceCompactorIsStopped() {
+    CompactionThrottle throttle = new CompactionThrottle(1, 0, stats);
+    AtomicInteger checks = new AtomicInteger();
+    long start = System.nanoTime();
+
+    // ten seconds ahead of one megabyte per second
+    throttle.copied(10 * 1024 * 1024);
+    throttle.throttle(() -> checks.incrementAndGet() < 3);
+
+    assertThat(System.nanoTime() - start).isLessThan(TimeUnit.SECONDS.toNanos(1));
+    verify(stats, times(2)).incCompactionThrottleTime(anyLong());
+  }
+
+  @Test
+  public void slowForegroundWritesAreDetected() {
+    CompactionThrottle throttle = new CompactionThrottle(0, 100, stats);
+
+    for (int i = 0; i < 50; i++) {
+      throttle.recordForegroundWrite(TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    assertThat(throttle.isForegroundLatencyHigh()).isTrue();
+  }
+
+  @Test
+  public void fastForegroundWritesAreNotSlow() {
+    CompactionThrottle throttle = new CompactionThrottle(0, 100, stats);
+
+    for (int i = 0; i < 50; i++) {
+      throttle.recordForegroundWrite(TimeUnit.MICROSECONDS.toNanos(10));
+    }
+
+    assertThat(throttle.isForegroundLatencyHigh()).isFalse();
+  }
+
+  @Test
+  public void latencyIsIgnoredWhenPauseIsDisabled() {
+    CompactionThrottle throttle = new CompactionThrottle(0, 0, stats);
+
+    throttle.recordForegroundWrite(TimeUnit.SECONDS.toNanos(1));
+
+    assertThat(throttle.isForegroundLatencyHigh()).isFalse();
+  }
+
+  @Test
+  public void compactionPausesWhileForegroundWritesAreSlow() {
+    CompactionThrottle throttle = new CompactionThrottle(0, 100, stats);
+    for (int i = 0; i < 50; i++) {
+      throttle.recordForegroundWrite(TimeUnit.MILLISECONDS.toNanos(1));
+    }
+    long start = System.nanoTime();
+
+    assertThat(throttle.copied(1)).isTrue();
+    throttle.throttle(() -> true);
+
+    assertThat(System.nanoTime() - start)
+        .isGreaterThanOrEqualTo(CompactionThrottle.PAUSE_STEP_NANOS);
+    verify(stats).incCompactionPauses();
+  }
+
+  @Test
+  public void pauseEndsWhenCompactorIsStopped() {
+    CompactionThrottle throttle = new CompactionThrottle(0, 100, stats);
+    for (int i = 0; i < 50; i++) {
+      throttle.recordForegroundWrite(TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    throttle.copied(1);
+    throttle.throttle(() -> false);
+
+    verify(stats, never()).incCompactionThrottleTime(anyLong());
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MappedOplogFileTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private File file;
+  private MappedOplogFile mapped;
+
+  @Before
+  public void setup() throws IOException {
+    file = temporaryFolder.newFile("test.crf");
+    byte[] bytes = new byte[64];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = (byte) i;
+    }
+    Files.write(file.toPath(), bytes);
+  }
+
+  @After
+  public void tearDown() {
+    if (mapped != null) {
+      mapped.close();
+    }
+  }
+
+  @Test
+  public void readReturnsBytesAtOffset() throws IOException {
+    mapped = MappedOplogFile.map(file, 64);
+
+    assertThat(mapped.read(10, 3)).containsExactly(10, 11, 12);
+  }
+
+  @Test
+  public void onlyTheRequestedLengthIsMapped() throws IOException {
+    mapped = MappedOplogFile.map(file, 32);
+
+    assertThat(mapped.getLength()).isEqualTo(32);
+    assertThat(mapped.read(30, 2)).containsExactly(30, 31);
+    assertThat(mapped.read(30, 3)).isNull();
+  }
+
+  @Test
+  public void readReturnsNullForNegativeOffset() throws IOException {
+    mapped = MappedOplogFile.map(file, 64);
+
+    assertThat(mapped.read(-1, 3)).isNull();
+  }
+
+  @Test
+  public void readReturnsNullAfterClose() throws IOException {
+    mapped = MappedOplogFile.map(file, 64);
+
+    mapped.close();
+
+    assertThat(mapped.isClosed()).isTrue();
+    assertThat(mapped.read(0, 3)).isNull();
+  }
+
+  @Test
+  public void fileCanBeDeletedAfterClose() throws IOException {
+    mapped = MappedOplogFile.map(file, 64);
+    mapped.read(0, 3);
+
+    mapped.close();
+
+    assertThat(file.delete()).isTrue();
+  }
+}
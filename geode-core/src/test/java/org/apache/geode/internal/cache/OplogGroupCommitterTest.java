@@ -0,0 +1,202 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.apache.geode.cache.DiskAccessException;
+import org.apache.geode.internal.statistics.DummyStatisticsFactory;
+
+public class OplogGroupCommitterTest {
+
+  private DiskStoreStats stats;
+  private Oplog oplog;
+  private ExecutorService executor;
+
+  @Before
+  public void setup() {
+    stats = mock(DiskStoreStats.class);
+    oplog = mock(Oplog.class);
+    executor = Executors.newSingleThreadExecutor();
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void awaitCommitFlushesAppendedOplog() {
+    OplogGroupCommitter committer = new OplogGroupCommitter(0, stats);
+
+    committer.appended(oplog);
+    committer.awaitCommit(false);
+
+    verify(oplog).flushAll(false, true);
+    verify(stats).endGroupCommit(anyLong(), eq(1L));
+  }
+
+  @Test
+  public void awaitCommitWithoutAppendDoesNotFlush() {
+    OplogGroupCommitter committer = new OplogGroupCommitter(0, stats);
+
+    committer.awaitCommit(false);
+
+    verify(oplog, never()).flushAll(false, true);
+    verify(stats, never()).endGroupCommitWait(anyLong());
+  }
+
+  @Test
+  public void oneFlushCoversAllRecordsAppendedBeforeIt() {
+    OplogGroupCommitter committer = new OplogGroupCommitter(0, stats);
+    Oplog other = mock(Oplog.class);
+
+    committer.appended(oplog);
+    committer.appended(oplog);
+    committer.appended(other);
+    committer.awaitCommit(false);
+
+    verify(oplog, times(1)).flushAll(false, true);
+    verify(other, times(1)).flushAll(false, true);
+    verify(stats).endGroupCommit(anyLong(), eq(3L));
+  }
+
+  @Test
+  public void writerWaitsForFlushInProgressThenJoinsNextBatch() throws Exception {
+    OplogGroupCommitter committer = new OplogGroupCommitter(0, stats);
+    CountDownLatch flushing = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    doAnswer(invocation -> {
+      flushing.countDown();
+      release.await();
+      return null;
+    }).doNothing().when(oplog).flushAll(false, true);
+
+    Future<?> leader = executor.submit(() -> {
+      committer.appended(oplog);
+      committer.awaitCommit(false);
+    });
+    flushing.await(10, TimeUnit.SECONDS);
+
+    committer.appended(oplog);
+    release.countDown();
+    committer.awaitCommit(false);
+    leader.get(10, TimeUnit.SECONDS);
+
+    verify(oplog, times(2)).flushAll(false, true);
+    verify(stats, times(2)).endGroupCommit(anyLong(), eq(1L));
+  }
+
+  @Test
+  public void failedFlushIsThrownToWaiters() {
+    OplogGroupCommitter committer = new OplogGroupCommitter(0, stats);
+    DiskAccessException failure = new DiskAccessException("flush failed");
+    doThrow(failure).when(oplog).flushAll(false, true);
+
+    committer.appended(oplog);
+
+    assertThatThrownBy(() -> committer.awaitCommit(false)).isSameAs(failure);
+  }
+
+  @Test
+  public void recordsAppendedAfterAFailureAreFlushedAgain() {
+    OplogGroupCommitter committer = new OplogGroupCommitter(0, stats);
+    doThrow(new DiskAccessException("flush failed")).doNothing().when(oplog)
+        .flushAll(false, true);
+    committer.appended(oplog);
+    assertThatThrownBy(() -> committer.awaitCommit(false)).isInstanceOf(DiskAccessException.class);
+
+    committer.appended(oplog);
+    committer.awaitCommit(false);
+
+    verify(oplog, times(2)).flushAll(false, true);
+    verify(stats).endGroupCommit(anyLong(), eq(1L));
+  }
+
+  @Test
+  public void writerOfAFailedBatchFailsAfterLaterBatchesFailOrSucceed() throws Exception {
+    OplogGroupCommitter committer = new OplogGroupCommitter(0, stats);
+    DiskAccessException first = new DiskAccessException("first flush failed");
+    doThrow(first).doThrow(new DiskAccessException("second flush failed")).doNothing()
+        .when(oplog).flushAll(false, true);
+    // this writer is in the first batch but only waits for it after two more commits
+    executor.submit(() -> committer.appended(oplog)).get(10, TimeUnit.SECONDS);
+    committer.appended(oplog);
+    assertThatThrownBy(() -> committer.awaitCommit(false)).isSameAs(first);
+    committer.appended(oplog);
+    assertThatThrownBy(() -> committer.awaitCommit(false))
+        .isInstanceOf(DiskAccessException.class).isNotSameAs(first);
+    committer.appended(oplog);
+    committer.awaitCommit(false);
+
+    Future<?> late = executor.submit(() -> committer.awaitCommit(false));
+
+    assertThatThrownBy(() -> late.get(10, TimeUnit.SECONDS)).hasCause(first);
+  }
+
+  @Test
+  public void leaderThatMayNotLingerDoesNotWaitForMoreWriters() {
+    OplogGroupCommitter committer =
+        new OplogGroupCommitter(TimeUnit.SECONDS.toMicros(60), stats);
+
+    committer.appended(oplog);
+    long start = System.nanoTime();
+    committer.awaitCommit(false);
+
+    assertThat(System.nanoTime() - start).isLessThan(TimeUnit.SECONDS.toNanos(30));
+    verify(oplog).flushAll(false, true);
+  }
+
+  @Test
+  public void commitsAreCountedInBatchSizeAndTimeHistograms() {
+    DiskStoreStats realStats = new DiskStoreStats(new DummyStatisticsFactory(), "test");
+    OplogGroupCommitter committer = new OplogGroupCommitter(0, realStats);
+
+    committer.appended(oplog);
+    committer.awaitCommit(false);
+    for (int i = 0; i < 5; i++) {
+      committer.appended(oplog);
+    }
+    committer.awaitCommit(false);
+
+    assertThat(realStats.getGroupCommitsOfSize(0)).isEqualTo(1);
+    assertThat(realStats.getGroupCommitsOfSize(1)).isEqualTo(0);
+    assertThat(realStats.getGroupCommitsOfSize(2)).isEqualTo(1);
+    long timed = 0;
+    for (int i = 0; i < 5; i++) {
+      timed += realStats.getGroupCommitsOfTime(i);
+    }
+    assertThat(timed).isEqualTo(2);
+  }
+}
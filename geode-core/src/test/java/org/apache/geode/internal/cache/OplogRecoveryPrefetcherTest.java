@@ -0,0 +1,207 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class OplogRecoveryPrefetcherTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private DiskStoreStats stats;
+  private ExecutorService executor;
+  private OplogRecoveryPrefetcher prefetcher;
+
+  @Before
+  public void setup() {
+    stats = mock(DiskStoreStats.class);
+    executor = Executors.newFixedThreadPool(2);
+  }
+
+  @After
+  public void tearDown() {
+    if (prefetcher != null) {
+      prefetcher.close();
+    }
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void openReturnsPrefetchedContents() throws IOException {
+    File f = createFile("a.krf", 100);
+    prefetcher = new OplogRecoveryPrefetcher(executor, 2, 1024, 4096, stats);
+    prefetcher.prefetch(Arrays.asList(f));
+
+    try (InputStream in = prefetcher.open(f)) {
+      assertThat(in).isNotNull();
+      assertThat(IOUtils.toByteArray(in)).isEqualTo(Files.readAllBytes(f.toPath()));
+    }
+    verify(stats).endRecoveryPrefetch(anyLong(), eq(100L));
+  }
+
+  @Test
+  public void openReturnsNullForFileThatWasNotScheduled() throws IOException {
+    File f = createFile("a.krf", 100);
+    prefetcher = new OplogRecoveryPrefetcher(executor, 2, 1024, 4096, stats);
+
+    assertThat(prefetcher.open(f)).isNull();
+  }
+
+  @Test
+  public void openReturnsNullForFileLargerThanMaxFileSize() throws IOException {
+    File f = createFile("a.crf", 2048);
+    prefetcher = new OplogRecoveryPrefetcher(executor, 2, 1024, 4096, stats);
+    prefetcher.prefetch(Arrays.asList(f));
+
+    assertThat(prefetcher.open(f)).isNull();
+  }
+
+  @Test
+  public void openReturnsNullForMissingFile() {
+    File f = new File(temporaryFolder.getRoot(), "missing.drf");
+    prefetcher = new OplogRecoveryPrefetcher(executor, 2, 1024, 4096, stats);
+    prefetcher.prefetch(Arrays.asList(f));
+
+    assertThat(prefetcher.open(f)).isNull();
+  }
+
+  @Test
+  public void prefetchIgnoresNullFiles() throws IOException {
+    File f = createFile("a.drf", 10);
+    prefetcher = new OplogRecoveryPrefetcher(executor, 2, 1024, 4096, stats);
+    prefetcher.prefetch(Arrays.asList(null, f, null));
+
+    assertThat(prefetcher.getInFlightCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void noMoreThanWindowFilesAreInFlight() throws IOException {
+    File a = createFile("a.drf", 10);
+    File b = createFile("b.drf", 10);
+    File c = createFile("c.drf", 10);
+    prefetcher = new OplogRecoveryPrefetcher(executor, 2, 1024, 4096, stats);
+    prefetcher.prefetch(Arrays.asList(a, b, c));
+
+    assertThat(prefetcher.getInFlightCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void openingAFileSchedulesTheNextOne() throws IOException {
+    File a = createFile("a.drf", 10);
+    File b = createFile("b.drf", 20);
+    prefetcher = new OplogRecoveryPrefetcher(executor, 1, 1024, 4096, stats);
+    prefetcher.prefetch(Arrays.asList(a, b));
+
+    prefetcher.open(a).close();
+
+    assertThat(prefetcher.getInFlightCount()).isEqualTo(1);
+    verify(stats, timeout(10000)).endRecoveryPrefetch(anyLong(), eq(20L));
+    assertThat(prefetcher.open(b)).isNotNull();
+  }
+
+  @Test
+  public void doneReleasesTheSlotOfAFileThatWasNotOpened() throws IOException {
+    File a = createFile("a.drf", 10);
+    File b = createFile("b.drf", 20);
+    prefetcher = new OplogRecoveryPrefetcher(executor, 1, 1024, 4096, stats);
+    prefetcher.prefetch(Arrays.asList(a, b));
+
+    prefetcher.done(a);
+
+    assertThat(prefetcher.open(a)).isNull();
+    assertThat(prefetcher.open(b)).isNotNull();
+  }
+
+  @Test
+  public void closeStopsPrefetching() throws IOException {
+    File a = createFile("a.drf", 10);
+    prefetcher = new OplogRecoveryPrefetcher(executor, 1, 1024, 4096, stats);
+    prefetcher.prefetch(Arrays.asList(a));
+
+    prefetcher.close();
+
+    assertThat(prefetcher.getInFlightCount()).isEqualTo(0);
+    assertThat(prefetcher.open(a)).isNull();
+  }
+
+  @Test
+  public void noMoreThanMaxBytesAreReadAhead() throws IOException {
+    File a = createFile("a.crf", 600);
+    File b = createFile("b.crf", 600);
+    File c = createFile("c.crf", 600);
+    prefetcher = new OplogRecoveryPrefetcher(executor, 3, 1024, 1000, stats);
+    prefetcher.prefetch(Arrays.asList(a, b, c));
+
+    assertThat(prefetcher.getInFlightCount()).isEqualTo(1);
+    assertThat(prefetcher.getReservedBytes()).isEqualTo(600);
+  }
+
+  @Test
+  public void memoryOfOpenedFileIsReservedUntilDone() throws IOException {
+    File a = createFile("a.crf", 600);
+    File b = createFile("b.crf", 600);
+    prefetcher = new OplogRecoveryPrefetcher(executor, 2, 1024, 1000, stats);
+    prefetcher.prefetch(Arrays.asList(a, b));
+
+    prefetcher.open(a).close();
+    assertThat(prefetcher.getInFlightCount()).isEqualTo(0);
+
+    prefetcher.done(a);
+    assertThat(prefetcher.getInFlightCount()).isEqualTo(1);
+    assertThat(prefetcher.open(b)).isNotNull();
+  }
+
+  @Test
+  public void filesThatAreNotPrefetchedReserveNoMemory() throws IOException {
+    File a = createFile("a.crf", 2048);
+    File b = createFile("b.crf", 600);
+    prefetcher = new OplogRecoveryPrefetcher(executor, 2, 1024, 1000, stats);
+    prefetcher.prefetch(Arrays.asList(a, b));
+
+    assertThat(prefetcher.getInFlightCount()).isEqualTo(2);
+    assertThat(prefetcher.getReservedBytes()).isEqualTo(600);
+  }
+
+  private File createFile(String name, int size) throws IOException {
+    File f = temporaryFolder.newFile(name);
+    byte[] bytes = new byte[size];
+    for (int i = 0; i < size; i++) {
+      bytes[i] = (byte) i;
+    }
+    Files.write(f.toPath(), bytes);
+    return f;
+  }
+}
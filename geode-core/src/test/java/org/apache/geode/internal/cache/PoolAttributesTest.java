@@ -0,0 +1,54 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.internal.HeapDataOutputStream;
+import org.apache.geode.internal.Version;
+import org.apache.geode.internal.cache.PoolFactoryImpl.PoolAttributes;
+import org.apache.geode.test.junit.categories.ClientServerTest;
+
+@Category({ClientServerTest.class})
+public class PoolAttributesTest {
+
+  @Test
+  public void multiplexedConnectionsIsPartOfEquality() {
+    PoolAttributes multiplexed = new PoolAttributes();
+    multiplexed.multiplexedConnections = true;
+
+    assertThat(multiplexed).isNotEqualTo(new PoolAttributes());
+  }
+
+  @Test
+  public void multiplexedConnectionsIsSerialized() throws Exception {
+    PoolAttributes attributes = new PoolAttributes();
+    attributes.multiplexedConnections = true;
+
+    HeapDataOutputStream out = new HeapDataOutputStream(Version.CURRENT);
+    attributes.toData(out);
+    PoolAttributes copy = new PoolAttributes();
+    copy.fromData(new DataInputStream(new ByteArrayInputStream(out.toByteArray())));
+
+    assertThat(copy.getMultiplexedConnections()).isTrue();
+    assertThat(copy).isEqualTo(attributes);
+  }
+}
@@ -0,0 +1,227 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache.entries;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+import org.apache.geode.internal.cache.CachedDeserializable;
+import org.apache.geode.internal.cache.CachedDeserializableFactory;
+import org.apache.geode.internal.cache.InlineValueHelper;
+import org.apache.geode.internal.cache.LocalRegion;
+import org.apache.geode.internal.cache.Token;
+import org.apache.geode.internal.size.ObjectGraphSizer;
+import org.apache.geode.internal.size.ReflectionSingleObjectSizer;
+import org.apache.geode.internal.util.BlobHelper;
+
+public class PrimitiveValueRegionEntryTest {
+
+  private final LocalRegion region = mock(LocalRegion.class);
+
+  @Test
+  public void storesIntegerInline() {
+    VMThinRegionEntryHeapObjectKeyPrimitiveValue entry =
+        new VMThinRegionEntryHeapObjectKeyPrimitiveValue(region, "key", Integer.MIN_VALUE);
+
+    assertThat(entry.getValueField()).isEqualTo(Integer.MIN_VALUE);
+  }
+
+  @Test
+  public void storesEveryLongInline() {
+    VMThinRegionEntryHeapObjectKeyPrimitiveValue entry =
+        new VMThinRegionEntryHeapObjectKeyPrimitiveValue(region, "key", Long.MIN_VALUE);
+    assertThat(entry.getValueField()).isEqualTo(Long.MIN_VALUE);
+
+    entry.setValueField(Long.MAX_VALUE);
+    assertThat(entry.getValueField()).isEqualTo(Long.MAX_VALUE);
+
+    entry.setValueField(-1L);
+    assertThat(entry.getValueField()).isEqualTo(-1L);
+  }
+
+  @Test
+  public void storesEveryDoubleInline() {
+    double lowBitsSet = Double.longBitsToDouble(Double.doubleToLongBits(1.5d) | 3);
+    VMThinRegionEntryHeapObjectKeyPrimitiveValue entry =
+        new VMThinRegionEntryHeapObjectKeyPrimitiveValue(region, "key", lowBitsSet);
+    assertThat(entry.getValueField()).isEqualTo(lowBitsSet);
+
+    entry.setValueField(Double.NaN);
+    assertThat(entry.getValueField()).isEqualTo(Double.NaN);
+
+    entry.setValueField(-0.0d);
+    assertThat(entry.getValueField()).isEqualTo(-0.0d);
+  }
+
+  @Test
+  public void valueOfAnotherTypeThanTheFirstInlinedValueIsNotInlined() {
+    VMThinRegionEntryHeapObjectKeyPrimitiveValue entry =
+        new VMThinRegionEntryHeapObjectKeyPrimitiveValue(region, "key", 1);
+    Object value = 2L;
+
+    entry.setValueField(value);
+    assertThat(entry.getValueField()).isSameAs(value);
+
+    entry.setValueField("value");
+    assertThat(entry.getValueField()).isEqualTo("value");
+
+    entry.setValueField(3);
+    assertThat(entry.getValueField()).isEqualTo(3);
+    assertThat(entry.getInlinedValueType()).isEqualTo(InlineValueHelper.INT);
+
+    entry.setValueField(Token.DESTROYED);
+    assertThat(entry.getValueField()).isSameAs(Token.DESTROYED);
+  }
+
+  @Test
+  public void inlinedValueTypeIsKeptApartFromTheLastModifiedTime() {
+    VMThinRegionEntryHeapObjectKeyPrimitiveValue entry =
+        new VMThinRegionEntryHeapObjectKeyPrimitiveValue(region, "key", 4.5d);
+
+    entry.setLastModifiedAndAccessedTimes(1234L, 1234L);
+
+    assertThat(entry.getLastModified()).isEqualTo(1234L);
+    assertThat(entry.getInlinedValueType()).isEqualTo(InlineValueHelper.DOUBLE);
+    assertThat(entry.getValueField()).isEqualTo(4.5d);
+  }
+
+  @Test
+  public void otherValuesAreNotInlined() {
+    Object value = (short) 1;
+    VMThinRegionEntryHeapObjectKeyPrimitiveValue entry =
+        new VMThinRegionEntryHeapObjectKeyPrimitiveValue(region, "key", value);
+
+    assertThat(entry.getValueField()).isSameAs(value);
+    assertThat(entry.getInlinedValueType()).isEqualTo(InlineValueHelper.NOT_INLINED);
+  }
+
+  @Test
+  public void serializedValuesAreInlined() throws IOException {
+    VMThinRegionEntryHeapObjectKeyPrimitiveValue intEntry =
+        new VMThinRegionEntryHeapObjectKeyPrimitiveValue(region, "key", serialized(-7));
+    VMThinRegionEntryHeapObjectKeyPrimitiveValue longEntry =
+        new VMThinRegionEntryHeapObjectKeyPrimitiveValue(region, "key", serialized(Long.MIN_VALUE));
+    VMThinRegionEntryHeapObjectKeyPrimitiveValue doubleEntry =
+        new VMThinRegionEntryHeapObjectKeyPrimitiveValue(region, "key", serialized(-2.25d));
+
+    assertThat(intEntry.getValueField()).isEqualTo(-7);
+    assertThat(longEntry.getValueField()).isEqualTo(Long.MIN_VALUE);
+    assertThat(doubleEntry.getValueField()).isEqualTo(-2.25d);
+  }
+
+  @Test
+  public void otherSerializedValuesAreNotInlined() throws IOException {
+    Object value = serialized("value");
+    VMThinRegionEntryHeapObjectKeyPrimitiveValue entry =
+        new VMThinRegionEntryHeapObjectKeyPrimitiveValue(region, "key", null);
+
+    entry.setValueField(value);
+
+    assertThat(entry.getValueField()).isSameAs(value);
+  }
+
+  @Test
+  public void inlineKeyEntriesStoreValuesInline() {
+    VersionedStatsRegionEntryHeapLongKeyPrimitiveValue entry =
+        new VersionedStatsRegionEntryHeapLongKeyPrimitiveValue(region, 5L, 6L);
+
+    assertThat(entry.getKey()).isEqualTo(5L);
+    assertThat(entry.getValueField()).isEqualTo(6L);
+  }
+
+  @Test
+  public void inlinedValueIsNotAToken() {
+    VMThinRegionEntryHeapObjectKeyPrimitiveValue entry =
+        new VMThinRegionEntryHeapObjectKeyPrimitiveValue(region, "key", 1);
+
+    assertThat(entry.getValueAsToken()).isSameAs(Token.NOT_A_TOKEN);
+
+    entry.setValueField(Token.REMOVED_PHASE1);
+    assertThat(entry.getValueAsToken()).isSameAs(Token.REMOVED_PHASE1);
+  }
+
+  @Test
+  public void serializedLongCounterTakesLessMemoryInline() throws Exception {
+    String key = "key";
+    VMThinRegionEntryHeapObjectKey boxed =
+        new VMThinRegionEntryHeapObjectKey(region, key, serialized(123456789L));
+    VMThinRegionEntryHeapObjectKeyPrimitiveValue inlined =
+        new VMThinRegionEntryHeapObjectKeyPrimitiveValue(region, key, serialized(123456789L));
+
+    long boxedSize = sizeOfEntry(boxed, key);
+    long inlinedSize = sizeOfEntry(inlined, key);
+
+    // the inlined value costs the long field and nothing outside the entry
+    assertThat(inlinedSize)
+        .isEqualTo(ReflectionSingleObjectSizer.sizeof(inlined.getClass()))
+        .isLessThanOrEqualTo(ReflectionSingleObjectSizer.sizeof(boxed.getClass()) + 8);
+    // the serialized form is a CachedDeserializable and its byte array
+    assertThat(boxedSize - inlinedSize).isGreaterThanOrEqualTo(32);
+  }
+
+  @Test
+  public void valuesRoundTrip() {
+    for (Object value : new Object[] {0, -1, Integer.MAX_VALUE, Integer.MIN_VALUE, 0L, -1L,
+        Long.MAX_VALUE, Long.MIN_VALUE, 0.0d, -0.0d, 1.5d, Double.NaN, Double.NEGATIVE_INFINITY,
+        Double.longBitsToDouble(1)}) {
+      int type = InlineValueHelper.getType(value);
+
+      assertThat(type).isNotEqualTo(InlineValueHelper.NOT_INLINED);
+      assertThat(InlineValueHelper.decode(type, InlineValueHelper.toBits(value)))
+          .isEqualTo(value);
+    }
+  }
+
+  @Test
+  public void serializedValuesRoundTrip() throws IOException {
+    for (Object value : new Object[] {Integer.MIN_VALUE, -1, Long.MIN_VALUE, Long.MAX_VALUE,
+        -1.5d}) {
+      CachedDeserializable serialized = serialized(value);
+      int type = InlineValueHelper.getType(serialized);
+
+      assertThat(type).isEqualTo(InlineValueHelper.getType(value));
+      assertThat(InlineValueHelper.decode(type, InlineValueHelper.toBits(serialized)))
+          .isEqualTo(value);
+    }
+  }
+
+  @Test
+  public void otherValuesHaveNoInlinedType() throws IOException {
+    assertThat(InlineValueHelper.getType(null)).isEqualTo(InlineValueHelper.NOT_INLINED);
+    assertThat(InlineValueHelper.getType((short) 1)).isEqualTo(InlineValueHelper.NOT_INLINED);
+    assertThat(InlineValueHelper.getType(serialized(1.5f)))
+        .isEqualTo(InlineValueHelper.NOT_INLINED);
+  }
+
+  @Test
+  public void decodeRejectsTypeThatIsNotInlined() {
+    assertThatThrownBy(() -> InlineValueHelper.decode(InlineValueHelper.NOT_INLINED, 0L))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private static CachedDeserializable serialized(Object value) throws IOException {
+    return CachedDeserializableFactory.create(BlobHelper.serializeToBlob(value), null);
+  }
+
+  private static long sizeOfEntry(AbstractRegionEntry entry, Object key) throws Exception {
+    return ObjectGraphSizer.size(entry,
+        (parent, object) -> object != key && object != InlineValueHelper.INLINED, false);
+  }
+}
@@ -77,4 +77,33 @@ public class RegionEntryFactoryBuilderJUnitTest {
             .create(enableStats, enableLRU, enableDisk, enableVersioning, enableOffHeap).getClass()
             .getSimpleName());
   }
+
+  /**
+   * Entries only store values inline when they neither evict, write to disk nor store values off
+   * heap.
+   */
+  @Test
+  @Parameters({"VMThinRegionEntryHeapPrimitiveValueFactory,false,false,false,false,false",
+      "VMStatsRegionEntryHeapPrimitiveValueFactory,true,false,false,false,false",
+      "VersionedThinRegionEntryHeapPrimitiveValueFactory,false,false,false,true,false",
+      "VersionedStatsRegionEntryHeapPrimitiveValueFactory,true,false,false,true,false",
+      "VMThinLRURegionEntryHeapFactory,false,true,false,false,false",
+      "VMThinDiskRegionEntryHeapFactory,false,false,true,false,false",
+      "VMThinRegionEntryOffHeapFactory,false,false,false,false,true",
+      "VersionedStatsDiskLRURegionEntryOffHeapFactory,true,true,true,true,true"})
+  public void testRegionEntryFactoryWithInlinePrimitiveValues(String factoryName,
+      boolean enableStats, boolean enableLRU, boolean enableDisk, boolean enableVersioning,
+      boolean enableOffHeap) {
+    assertEquals(factoryName,
+        regionEntryFactoryBuilder
+            .create(enableStats, enableLRU, enableDisk, enableVersioning, enableOffHeap, true)
+            .getClass().getSimpleName());
+  }
+
+  @Test
+  public void testPrimitiveValueFactoriesStayInlineWhenMadeVersioned() {
+    assertEquals("VersionedThinRegionEntryHeapPrimitiveValueFactory",
+        regionEntryFactoryBuilder.create(false, false, false, false, false, true).makeVersioned()
+            .getClass().getSimpleName());
+  }
 }
@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache.tier.sockets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.distributed.internal.membership.InternalDistributedMember;
+import org.apache.geode.internal.HeapDataOutputStream;
+import org.apache.geode.internal.Version;
+import org.apache.geode.internal.cache.EnumListenerEvent;
+import org.apache.geode.internal.cache.EventID;
+import org.apache.geode.internal.cache.LocalRegion;
+import org.apache.geode.test.junit.categories.ClientSubscriptionTest;
+
+@Category({ClientSubscriptionTest.class})
+public class ClientUpdateMessageImplTest {
+
+  private LocalRegion region;
+  private ClientProxyMembershipID updatingClient;
+  private ClientProxyMembershipID invalidatingClient;
+  private final byte[] value = new byte[] {1, 2, 3};
+
+  @Before
+  public void setUp() {
+    region = mock(LocalRegion.class);
+    when(region.getFullPath()).thenReturn("/region");
+    updatingClient = mock(ClientProxyMembershipID.class);
+    invalidatingClient = mock(ClientProxyMembershipID.class);
+  }
+
+  private ClientUpdateMessageImpl createMessage(EnumListenerEvent operation) {
+    return new ClientUpdateMessageImpl(operation, region, "key", value, (byte) 0, null, null,
+        new EventID(new byte[] {1}, 1, 1));
+  }
+
+  @Test
+  public void valueIsDroppedIfOnlyInvalidationsAreSent() {
+    ClientUpdateMessageImpl message = createMessage(EnumListenerEvent.AFTER_UPDATE);
+    message.addClientInterestList(invalidatingClient, false);
+
+    message.dropValueIfOnlyInvalidating();
+
+    assertThat(message.getValue()).isNull();
+  }
+
+  @Test
+  public void valueIsKeptIfAClientReceivesValues() {
+    ClientUpdateMessageImpl message = createMessage(EnumListenerEvent.AFTER_CREATE);
+    message.addClientInterestList(invalidatingClient, false);
+    message.addClientInterestList(updatingClient, true);
+
+    message.dropValueIfOnlyInvalidating();
+
+    assertThat(message.getValue()).isSameAs(value);
+  }
+
+  @Test
+  public void valueIsKeptForOtherOperations() {
+    ClientUpdateMessageImpl message = createMessage(EnumListenerEvent.AFTER_INVALIDATE);
+    message.addClientInterestList(invalidatingClient, false);
+
+    message.dropValueIfOnlyInvalidating();
+
+    assertThat(message.getValue()).isSameAs(value);
+  }
+
+  @Test
+  public void droppedValueIsRestoredFromMessageThatKeptIt() {
+    ClientUpdateMessageImpl dropped = createMessage(EnumListenerEvent.AFTER_UPDATE);
+    dropped.addClientInterestList(invalidatingClient, false);
+    dropped.dropValueIfOnlyInvalidating();
+    ClientUpdateMessageImpl kept = createMessage(EnumListenerEvent.AFTER_UPDATE);
+    kept.addClientInterestList(updatingClient, true);
+    kept.dropValueIfOnlyInvalidating();
+
+    dropped.restoreDroppedValue(kept);
+
+    assertThat(dropped.getValue()).isSameAs(value);
+  }
+
+  @Test
+  public void droppedValueIsNotRestoredFromMessageThatDroppedIt() {
+    ClientUpdateMessageImpl dropped = createMessage(EnumListenerEvent.AFTER_UPDATE);
+    dropped.addClientInterestList(invalidatingClient, false);
+    dropped.dropValueIfOnlyInvalidating();
+    ClientUpdateMessageImpl other = createMessage(EnumListenerEvent.AFTER_UPDATE);
+    other.addClientInterestList(updatingClient, false);
+    other.dropValueIfOnlyInvalidating();
+
+    dropped.restoreDroppedValue(other);
+
+    assertThat(dropped.getValue()).isNull();
+  }
+
+  @Test
+  public void droppedValueIsStillDroppedAfterSerialization() throws Exception {
+    ClientUpdateMessageImpl dropped = createMessage(EnumListenerEvent.AFTER_UPDATE);
+    dropped.addClientInterestList(clientId(), false);
+    dropped.dropValueIfOnlyInvalidating();
+    ClientUpdateMessageImpl kept = createMessage(EnumListenerEvent.AFTER_UPDATE);
+
+    ClientUpdateMessageImpl copy = serializeAndDeserialize(dropped);
+    copy.restoreDroppedValue(kept);
+
+    assertThat(copy.getValue()).isSameAs(value);
+  }
+
+  @Test
+  public void keptValueIsNotTakenAsDroppedAfterSerialization() throws Exception {
+    ClientUpdateMessageImpl message = new ClientUpdateMessageImpl(EnumListenerEvent.AFTER_UPDATE,
+        region, "key", null, (byte) 0, null, null, new EventID(new byte[] {1}, 1, 1));
+    message.addClientInterestList(clientId(), true);
+    ClientUpdateMessageImpl other = createMessage(EnumListenerEvent.AFTER_UPDATE);
+
+    ClientUpdateMessageImpl copy = serializeAndDeserialize(message);
+    copy.restoreDroppedValue(other);
+
+    assertThat(copy.getValue()).isNotSameAs(value);
+  }
+
+  private static ClientProxyMembershipID clientId() throws Exception {
+    return new ClientProxyMembershipID(new InternalDistributedMember("localhost", 1));
+  }
+
+  private ClientUpdateMessageImpl serializeAndDeserialize(ClientUpdateMessageImpl message)
+      throws Exception {
+    HeapDataOutputStream out = new HeapDataOutputStream(Version.CURRENT);
+    message.toData(out);
+    ClientUpdateMessageImpl copy = new ClientUpdateMessageImpl();
+    copy.fromData(new DataInputStream(new ByteArrayInputStream(out.toByteArray())));
+    return copy;
+  }
+}
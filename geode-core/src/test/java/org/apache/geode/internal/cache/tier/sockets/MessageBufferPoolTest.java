@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache.tier.sockets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.ByteBuffer;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.test.junit.categories.ClientServerTest;
+
+@Category({ClientServerTest.class})
+public class MessageBufferPoolTest {
+
+  @After
+  public void tearDown() {
+    MessageBufferPool.clear();
+  }
+
+  @Test
+  public void acquireRoundsUpToPowerOfTwo() {
+    ByteBuffer buffer = MessageBufferPool.acquire(3000);
+
+    assertThat(buffer.isDirect()).isTrue();
+    assertThat(buffer.capacity()).isEqualTo(4096);
+    assertThat(buffer.position()).isZero();
+    assertThat(buffer.limit()).isEqualTo(4096);
+    MessageBufferPool.release(buffer);
+  }
+
+  @Test
+  public void releasedBufferIsReusedForSameSizeClass() {
+    ByteBuffer buffer = MessageBufferPool.acquire(32768);
+    buffer.putInt(7);
+    MessageBufferPool.release(buffer);
+    long hits = MessageBufferPool.getHits();
+
+    ByteBuffer reused = MessageBufferPool.acquire(20000);
+
+    assertThat(reused).isSameAs(buffer);
+    assertThat(reused.position()).isZero();
+    assertThat(MessageBufferPool.getHits()).isEqualTo(hits + 1);
+    MessageBufferPool.release(reused);
+  }
+
+  @Test
+  public void tracksBytesInUseAndPooled() {
+    long inUse = MessageBufferPool.getBytesInUse();
+    long pooled = MessageBufferPool.getPooledBytes();
+
+    ByteBuffer buffer = MessageBufferPool.acquire(2048);
+    assertThat(MessageBufferPool.getBytesInUse()).isEqualTo(inUse + 2048);
+
+    MessageBufferPool.release(buffer);
+    assertThat(MessageBufferPool.getBytesInUse()).isEqualTo(inUse);
+    assertThat(MessageBufferPool.getPooledBytes()).isEqualTo(pooled + 2048);
+  }
+
+  @Test
+  public void buffersLargerThanLargestClassAreNotPooled() {
+    int size = (16 << 20) + 1;
+    ByteBuffer buffer = MessageBufferPool.acquire(size);
+    assertThat(buffer.capacity()).isEqualTo(size);
+    long pooled = MessageBufferPool.getPooledBytes();
+    long misses = MessageBufferPool.getMisses();
+
+    MessageBufferPool.release(buffer);
+    ByteBuffer other = MessageBufferPool.acquire(size);
+
+    assertThat(MessageBufferPool.getPooledBytes()).isEqualTo(pooled);
+    assertThat(other).isNotSameAs(buffer);
+    assertThat(MessageBufferPool.getMisses()).isEqualTo(misses + 1);
+    MessageBufferPool.release(other);
+  }
+
+  @Test
+  public void heapBuffersAreIgnored() {
+    long inUse = MessageBufferPool.getBytesInUse();
+    long pooled = MessageBufferPool.getPooledBytes();
+
+    MessageBufferPool.release(ByteBuffer.allocate(1024));
+
+    assertThat(MessageBufferPool.getBytesInUse()).isEqualTo(inUse);
+    assertThat(MessageBufferPool.getPooledBytes()).isEqualTo(pooled);
+  }
+}
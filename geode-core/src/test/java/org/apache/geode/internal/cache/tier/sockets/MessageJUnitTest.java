@@ -14,15 +14,21 @@
  */
 package org.apache.geode.internal.cache.tier.sockets;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
@@ -30,12 +36,15 @@ import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketTimeoutException;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.locks.Lock;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 
 import org.apache.geode.internal.Version;
+import org.apache.geode.internal.cache.tier.MessageType;
 import org.apache.geode.test.junit.categories.ClientServerTest;
 
 @Category({ClientServerTest.class})
@@ -122,6 +131,74 @@ public class MessageJUnitTest {
     verify(mockPart1, times(2)).clear();
   }
 
+  @Test
+  public void compressedPartsAreDecompressedWhenReceived() throws Exception {
+    byte[] largeBytes = new byte[10000];
+    Arrays.fill(largeBytes, (byte) 3);
+    byte[] smallBytes = new byte[] {1, 2, 3};
+    MessageStats senderStats = mock(MessageStats.class);
+    Message sent = new Message(2, Version.CURRENT);
+    sent.setMessageType(MessageType.PUT);
+    sent.addBytesPart(largeBytes);
+    sent.addBytesPart(smallBytes);
+    ByteArrayOutputStream wire = new ByteArrayOutputStream();
+    sent.setComms(mock(Socket.class), null, wire, ByteBuffer.allocate(1000), senderStats);
+    sent.setCompressionThreshold(1024);
+
+    sent.send();
+
+    assertTrue(wire.size() < largeBytes.length);
+    verify(senderStats).incSentCompressedBytes(eq((long) largeBytes.length), anyLong());
+
+    MessageStats receiverStats = mock(MessageStats.class);
+    Message received = new Message(2, Version.CURRENT);
+    received.setComms(mock(Socket.class), new ByteArrayInputStream(wire.toByteArray()), null,
+        ByteBuffer.allocate(1000), receiverStats);
+
+    received.receive();
+
+    assertArrayEquals(largeBytes, received.getPart(0).getSerializedForm());
+    assertTrue(received.getPart(0).isBytes());
+    assertArrayEquals(smallBytes, received.getPart(1).getSerializedForm());
+    verify(receiverStats).incReceivedCompressedBytes(eq((long) largeBytes.length), anyLong());
+  }
+
+  @Test
+  public void partsAreNotCompressedWithoutThreshold() throws Exception {
+    byte[] largeBytes = new byte[10000];
+    MessageStats senderStats = mock(MessageStats.class);
+    Message sent = new Message(1, Version.CURRENT);
+    sent.setMessageType(MessageType.PUT);
+    sent.addBytesPart(largeBytes);
+    ByteArrayOutputStream wire = new ByteArrayOutputStream();
+    sent.setComms(mock(Socket.class), null, wire, ByteBuffer.allocate(1000), senderStats);
+
+    sent.send();
+
+    assertTrue(wire.size() > largeBytes.length);
+    verify(senderStats, never()).incSentCompressedBytes(anyLong(), anyLong());
+  }
+
+  @Test
+  public void serverConnectionLockIsHeldInsteadOfBufferMonitor() throws Exception {
+    Lock lock = mock(Lock.class);
+    ServerConnection serverConnection = mock(ServerConnection.class);
+    when(serverConnection.getCommBufferLock()).thenReturn(lock);
+    ByteArrayOutputStream wire = new ByteArrayOutputStream();
+    Socket socket = mock(Socket.class);
+    when(socket.getOutputStream()).thenReturn(wire);
+    Message sent = new Message(1, Version.CURRENT);
+    sent.setMessageType(MessageType.PUT);
+    sent.addBytesPart(new byte[] {1, 2, 3});
+    sent.setComms(serverConnection, socket, ByteBuffer.allocate(1000), mock(MessageStats.class));
+
+    sent.send();
+
+    assertTrue(wire.size() > 0);
+    verify(lock).lock();
+    verify(lock).unlock();
+  }
+
   /**
    * Client subscription threads establish a timeout when reading a message header in order to avoid
    * hanging should the server's machine fail, or should the network path to the server have
@@ -14,16 +14,28 @@
  */
 package org.apache.geode.internal.cache.tier.sockets;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
+import java.io.ByteArrayOutputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.Random;
 
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 
+import org.apache.geode.compression.SnappyCompressor;
+import org.apache.geode.internal.HeapDataOutputStream;
 import org.apache.geode.test.junit.categories.ClientServerTest;
 
 @Category({ClientServerTest.class})
@@ -39,4 +51,122 @@ public class PartTest {
 
     verify(mockPart, times(1)).writeTo(mockOutputStream, mockByteBuffer);
   }
+
+  @Test
+  public void compressKeepsTypeCodeAndLeavesPartUnchanged() throws Exception {
+    byte[] bytes = new byte[4096];
+    Arrays.fill(bytes, (byte) 7);
+    Part part = new Part();
+    part.setPartState(bytes, true);
+
+    Part compressed = part.compress(new SnappyCompressor());
+
+    assertThat(compressed.getLength()).isLessThan(bytes.length);
+    assertThat(compressed.getTypeCode()).isEqualTo((byte) (1 | Part.COMPRESSED_BIT));
+    assertThat(part.getSerializedForm()).isSameAs(bytes);
+    assertThat(part.isObject()).isTrue();
+  }
+
+  @Test
+  public void compressReturnsNullIfBytesDoNotShrink() throws Exception {
+    byte[] bytes = new byte[4096];
+    new Random(1).nextBytes(bytes);
+    Part part = new Part();
+    part.setPartState(bytes, false);
+
+    assertThat(part.compress(new SnappyCompressor())).isNull();
+  }
+
+  @Test
+  public void writeToChannelSendsBufferedBytesAheadOfPart() throws Exception {
+    ByteArrayOutputStream written = new ByteArrayOutputStream();
+    SocketChannel channel = channelWritingTo(written);
+    ByteBuffer buffer = ByteBuffer.allocateDirect(16);
+    buffer.put(new byte[] {1, 2, 3});
+    Part part = new Part();
+    part.setPartState(new byte[] {4, 5, 6, 7}, false);
+
+    part.writeTo(channel, buffer);
+
+    assertThat(written.toByteArray()).containsExactly(1, 2, 3, 4, 5, 6, 7);
+    assertThat(buffer.position()).isZero();
+    assertThat(buffer.limit()).isEqualTo(buffer.capacity());
+  }
+
+  @Test
+  public void writeToChannelSendsPartLargerThanChunk() throws Exception {
+    ByteArrayOutputStream written = new ByteArrayOutputStream();
+    SocketChannel channel = channelWritingTo(written);
+    byte[] bytes = new byte[MessageBufferPool.CHUNK_SIZE * 2 + 5];
+    Arrays.fill(bytes, (byte) 9);
+    bytes[bytes.length - 1] = 10;
+    Part part = new Part();
+    part.setPartState(bytes, false);
+
+    part.writeTo(channel, ByteBuffer.allocateDirect(16));
+
+    assertThat(written.toByteArray()).isEqualTo(bytes);
+  }
+
+  @Test
+  public void writeToChannelGathersDirectChunksOfStreamWithBufferedBytes() throws Exception {
+    ByteArrayOutputStream written = new ByteArrayOutputStream();
+    SocketChannel channel = channelWritingTo(written);
+    ByteBuffer buffer = ByteBuffer.allocateDirect(16);
+    buffer.put(new byte[] {1, 2, 3});
+    ByteBuffer value = ByteBuffer.allocateDirect(HeapDataOutputStream.MIN_TO_COPY + 1);
+    while (value.hasRemaining()) {
+      value.put((byte) 5);
+    }
+    value.flip();
+    HeapDataOutputStream hdos = new HeapDataOutputStream(16, null, true);
+    hdos.writeByte(4);
+    hdos.write(value);
+    hdos.writeByte(6);
+    Part part = new Part();
+    part.setPartState(hdos, true);
+
+    part.writeTo(channel, buffer);
+
+    byte[] expected = new byte[3 + 1 + HeapDataOutputStream.MIN_TO_COPY + 1 + 1];
+    Arrays.fill(expected, (byte) 5);
+    expected[0] = 1;
+    expected[1] = 2;
+    expected[2] = 3;
+    expected[3] = 4;
+    expected[expected.length - 1] = 6;
+    assertThat(written.toByteArray()).isEqualTo(expected);
+    assertThat(buffer.position()).isZero();
+    // the direct chunk is only sent in gathering writes, along with the bytes before it
+    verify(channel, never()).write(argThat((ByteBuffer b) -> b != buffer));
+  }
+
+  /**
+   * Returns a channel whose gathering writes only take some of the bytes at a time.
+   */
+  private static SocketChannel channelWritingTo(ByteArrayOutputStream out) throws Exception {
+    SocketChannel channel = mock(SocketChannel.class);
+    doAnswer(invocation -> {
+      ByteBuffer[] buffers = invocation.getArgument(0);
+      int offset = invocation.getArgument(1);
+      int length = invocation.getArgument(2);
+      long result = 0;
+      for (int i = offset; i < offset + length && result < 100000; i++) {
+        while (buffers[i].hasRemaining() && result < 100000) {
+          out.write(buffers[i].get());
+          result++;
+        }
+      }
+      return result;
+    }).when(channel).write(any(ByteBuffer[].class), anyInt(), anyInt());
+    doAnswer(invocation -> {
+      ByteBuffer buffer = invocation.getArgument(0);
+      int result = buffer.remaining();
+      while (buffer.hasRemaining()) {
+        out.write(buffer.get());
+      }
+      return result;
+    }).when(channel).write(any(ByteBuffer.class));
+    return channel;
+  }
 }
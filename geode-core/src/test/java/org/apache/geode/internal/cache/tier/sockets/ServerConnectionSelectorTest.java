@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache.tier.sockets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.test.junit.categories.ClientServerTest;
+
+@Category({ClientServerTest.class})
+public class ServerConnectionSelectorTest {
+
+  private static ByteBuffer header(int payloadLength) {
+    ByteBuffer buffer = ByteBuffer.allocate(64);
+    buffer.putInt(7).putInt(payloadLength).putInt(1).putInt(0).put((byte) 0);
+    return buffer;
+  }
+
+  @Test
+  public void partialHeaderIsNotAMessage() {
+    ByteBuffer buffer = header(10);
+
+    assertThat(ServerConnectionSelector.containsMessage(buffer, 0, Message.FIXED_LENGTH - 1))
+        .isFalse();
+  }
+
+  @Test
+  public void headerWithoutAllOfItsPayloadIsNotAMessage() {
+    ByteBuffer buffer = header(10);
+    buffer.put(new byte[9]);
+
+    assertThat(ServerConnectionSelector.containsMessage(buffer, 0, buffer.position())).isFalse();
+  }
+
+  @Test
+  public void headerWithAllOfItsPayloadIsAMessage() {
+    ByteBuffer buffer = header(10);
+    buffer.put(new byte[10]);
+
+    assertThat(ServerConnectionSelector.containsMessage(buffer, 0, buffer.position())).isTrue();
+  }
+
+  @Test
+  public void headerWithInvalidPayloadLengthIsDispatched() {
+    ByteBuffer buffer = header(-1);
+
+    assertThat(ServerConnectionSelector.containsMessage(buffer, 0, buffer.position())).isTrue();
+  }
+
+  @Test
+  public void messageIsFoundAtOffset() {
+    ByteBuffer buffer = ByteBuffer.allocate(64);
+    buffer.put(new byte[5]);
+    buffer.putInt(7).putInt(2).putInt(1).putInt(0).put((byte) 0).put(new byte[2]);
+    buffer.flip().position(5);
+
+    assertThat(ServerConnectionSelector.containsMessage(buffer, 5, buffer.remaining())).isTrue();
+    assertThat(ServerConnectionSelector.containsMessage(buffer, 5, buffer.remaining() - 1))
+        .isFalse();
+  }
+}
+
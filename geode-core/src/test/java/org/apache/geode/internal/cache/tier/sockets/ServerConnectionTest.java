@@ -23,11 +23,14 @@ import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyLong;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
 import java.net.InetAddress;
 import java.net.Socket;
+import java.nio.ByteBuffer;
 import java.util.Locale;
 
 import org.junit.Before;
@@ -149,4 +152,35 @@ public class ServerConnectionTest {
         .isExactlyInstanceOf(AuthenticationRequiredException.class)
         .hasMessage(HandShake_NO_SECURITY_CREDENTIALS_ARE_PROVIDED.getRawText());
   }
+
+  @Test
+  public void readPrefetchedWithoutPrefetchBufferReadsNothing() {
+    assertThat(serverConnection.readPrefetched(ByteBuffer.allocate(8))).isEqualTo(0);
+  }
+
+  @Test
+  public void readPrefetchedKeepsBytesThatDoNotFit() {
+    ByteBuffer prefetched = ByteBuffer.wrap(new byte[] {1, 2, 3, 4, 5});
+    serverConnection.setPrefetchBuffer(prefetched);
+    ByteBuffer dst = ByteBuffer.allocate(3);
+
+    assertThat(serverConnection.readPrefetched(dst)).isEqualTo(3);
+
+    assertThat(dst.array()).containsExactly(1, 2, 3);
+    assertThat(serverConnection.getPrefetchBuffer()).isSameAs(prefetched);
+    assertThat(prefetched.remaining()).isEqualTo(2);
+    verify(acceptor, never()).releaseCommBuffer(any());
+  }
+
+  @Test
+  public void readPrefetchedReleasesDrainedBuffer() {
+    ByteBuffer prefetched = ByteBuffer.wrap(new byte[] {1, 2});
+    serverConnection.setPrefetchBuffer(prefetched);
+    ByteBuffer dst = ByteBuffer.allocate(8);
+
+    assertThat(serverConnection.readPrefetched(dst)).isEqualTo(2);
+
+    assertThat(serverConnection.getPrefetchBuffer()).isNull();
+    verify(acceptor).releaseCommBuffer(prefetched);
+  }
 }
@@ -0,0 +1,218 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache.tier.sockets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.awaitility.Awaitility;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SocketMultiplexerTest {
+
+  private static final int TIMEOUT = 10000;
+
+  private SocketMultiplexer client;
+  private SocketMultiplexer server;
+  private BlockingQueue<MultiplexedSocket> accepted;
+  private AtomicReference<SocketMultiplexer> closedClient;
+
+  @Before
+  public void setUp() throws Exception {
+    accepted = new LinkedBlockingQueue<>();
+    closedClient = new AtomicReference<>();
+    try (ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+      Socket clientSocket =
+          new Socket(InetAddress.getLoopbackAddress(), serverSocket.getLocalPort());
+      Socket serverSide = serverSocket.accept();
+      client = SocketMultiplexer.forClient(clientSocket, 1024, closedClient::set);
+      server = SocketMultiplexer.forServer(serverSide, 1024, accepted::add);
+    }
+  }
+
+  @After
+  public void tearDown() {
+    client.close();
+    server.close();
+  }
+
+  private MultiplexedSocket accept() throws Exception {
+    MultiplexedSocket stream = accepted.poll(TIMEOUT, TimeUnit.MILLISECONDS);
+    assertThat(stream).isNotNull();
+    stream.setSoTimeout(TIMEOUT);
+    return stream;
+  }
+
+  private MultiplexedSocket open() throws IOException {
+    MultiplexedSocket stream = client.openStream();
+    stream.setSoTimeout(TIMEOUT);
+    return stream;
+  }
+
+  @Test
+  public void streamsCarryDataIndependently() throws Exception {
+    MultiplexedSocket clientStream1 = open();
+    MultiplexedSocket serverStream1 = accept();
+    MultiplexedSocket clientStream2 = open();
+    MultiplexedSocket serverStream2 = accept();
+
+    DataOutputStream out1 = new DataOutputStream(clientStream1.getOutputStream());
+    DataOutputStream out2 = new DataOutputStream(clientStream2.getOutputStream());
+    out1.writeInt(1);
+    out1.flush();
+    out2.writeInt(2);
+    out2.flush();
+
+    assertThat(new DataInputStream(serverStream2.getInputStream()).readInt()).isEqualTo(2);
+    assertThat(new DataInputStream(serverStream1.getInputStream()).readInt()).isEqualTo(1);
+
+    DataOutputStream reply = new DataOutputStream(serverStream2.getOutputStream());
+    reply.writeUTF("two");
+    reply.flush();
+    assertThat(new DataInputStream(clientStream2.getInputStream()).readUTF()).isEqualTo("two");
+    assertThat(client.getStreamCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void nothingIsSentUntilFlushed() throws Exception {
+    MultiplexedSocket clientStream = open();
+    MultiplexedSocket serverStream = accept();
+    serverStream.setSoTimeout(100);
+
+    clientStream.getOutputStream().write(new byte[] {1, 2, 3});
+    assertThatThrownBy(() -> serverStream.getInputStream().read())
+        .isInstanceOf(SocketTimeoutException.class);
+
+    clientStream.getOutputStream().flush();
+    byte[] bytes = new byte[3];
+    new DataInputStream(serverStream.getInputStream()).readFully(bytes);
+    assertThat(bytes).containsExactly(1, 2, 3);
+  }
+
+  @Test
+  public void closingStreamEndsRemoteInput() throws Exception {
+    MultiplexedSocket clientStream = open();
+    MultiplexedSocket serverStream = accept();
+
+    clientStream.getOutputStream().write(7);
+    clientStream.getOutputStream().flush();
+    clientStream.close();
+
+    assertThat(serverStream.getInputStream().read()).isEqualTo(7);
+    assertThat(serverStream.getInputStream().read()).isEqualTo(-1);
+    assertThat(client.getStreamCount()).isEqualTo(0);
+    assertThat(client.isClosed()).isFalse();
+  }
+
+  @Test
+  public void whenReadableRunsOnceDataArrives() throws Exception {
+    MultiplexedSocket clientStream = open();
+    MultiplexedSocket serverStream = accept();
+    CountDownLatch readable = new CountDownLatch(1);
+
+    serverStream.whenReadable(readable::countDown);
+    assertThat(readable.getCount()).isEqualTo(1);
+
+    clientStream.getOutputStream().write(1);
+    clientStream.getOutputStream().flush();
+    assertThat(readable.await(TIMEOUT, TimeUnit.MILLISECONDS)).isTrue();
+
+    CountDownLatch stillReadable = new CountDownLatch(1);
+    serverStream.whenReadable(stillReadable::countDown);
+    assertThat(stillReadable.getCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void closingMultiplexerFailsOpenStreams() throws Exception {
+    MultiplexedSocket clientStream = open();
+    MultiplexedSocket serverStream = accept();
+
+    server.close();
+
+    assertThatThrownBy(() -> clientStream.getInputStream().read())
+        .isInstanceOf(SocketException.class);
+    assertThatThrownBy(() -> serverStream.getInputStream().read())
+        .isInstanceOf(SocketException.class);
+    assertThatThrownBy(() -> client.openStream()).isInstanceOf(IOException.class);
+    assertThat(client.isClosed()).isTrue();
+    assertThat(closedClient.get()).isSameAs(client);
+  }
+
+  @Test
+  public void messagesLargerThanFramesAndQueuesArriveWhole() throws Exception {
+    MultiplexedSocket clientStream = open();
+    MultiplexedSocket serverStream = accept();
+    byte[] message = new byte[MultiplexedSocket.MAX_QUEUED_BYTES * 3 + 17];
+    new Random(1).nextBytes(message);
+
+    // the reader stops reading the socket while the stream's queue is full, so write concurrently
+    CompletableFuture<Void> written = CompletableFuture.runAsync(() -> {
+      try {
+        clientStream.getOutputStream().write(message);
+        clientStream.getOutputStream().flush();
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    });
+
+    byte[] received = new byte[message.length];
+    new DataInputStream(serverStream.getInputStream()).readFully(received);
+    written.get(TIMEOUT, TimeUnit.MILLISECONDS);
+    assertThat(received).isEqualTo(message);
+  }
+
+  @Test
+  public void frameLongerThanMaximumClosesMultiplexer() throws Exception {
+    try (ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+        Socket rawClient =
+            new Socket(InetAddress.getLoopbackAddress(), serverSocket.getLocalPort())) {
+      SocketMultiplexer multiplexer =
+          SocketMultiplexer.forServer(serverSocket.accept(), 1024, accepted::add);
+      try {
+        rawClient.setSoTimeout(TIMEOUT);
+        DataOutputStream out = new DataOutputStream(rawClient.getOutputStream());
+        out.writeInt(1);
+        out.writeInt(-1);
+        out.writeInt(1);
+        out.writeInt(Integer.MAX_VALUE);
+        out.flush();
+
+        Awaitility.await().atMost(TIMEOUT, TimeUnit.MILLISECONDS)
+            .until(multiplexer::isClosed);
+        assertThat(rawClient.getInputStream().read()).isEqualTo(-1);
+      } finally {
+        multiplexer.close();
+      }
+    }
+  }
+}
@@ -17,6 +17,7 @@ package org.apache.geode.internal.offheap;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.catchThrowable;
 import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
@@ -549,6 +550,290 @@ public class FreeListManagerTest {
     FreeListManager.verifyOffHeapFreeListCount(1);
   }
 
+  @Test
+  public void threadCacheSizeLessThanZeroIsIllegal() {
+    try {
+      FreeListManager.verifyThreadCacheSize(-1);
+      fail("expected IllegalStateException");
+    } catch (IllegalStateException expected) {
+      assertThat(expected.getMessage()).contains(
+          DistributionConfig.GEMFIRE_PREFIX + "OFF_HEAP_THREAD_CACHE_SIZE must be >= 0.");
+    }
+  }
+
+  @Test
+  public void threadCacheSizeOfZeroIsLegal() {
+    FreeListManager.verifyThreadCacheSize(0);
+  }
+
+  @Test
+  public void freedTinyChunkIsReusedFromThreadCache() {
+    assumeTrue(FreeListManager.THREAD_CACHE_SIZE_CLASSES > 0);
+    setUpSingleSlabManager();
+    OffHeapStoredObject c = this.freeListManager.allocate(10);
+    int chunkSize = c.getSize();
+
+    OffHeapStoredObject.release(c.getAddress(), this.freeListManager);
+
+    assertThat(this.freeListManager.getThreadCachedMemory()).isEqualTo(chunkSize);
+    assertThat(this.freeListManager.getFreeListMemory()).isEqualTo(chunkSize);
+    assertThat(this.freeListManager.getFreeTinyMemory()).isEqualTo(chunkSize);
+    assertThat(this.freeListManager.allocate(10).getAddress()).isEqualTo(c.getAddress());
+    assertThat(this.freeListManager.getThreadCachedMemory()).isZero();
+    assertThat(this.freeListManager.getFreeListMemory()).isZero();
+  }
+
+  @Test
+  public void fullThreadCacheGivesChunksBackToFreeList() {
+    assumeTrue(FreeListManager.THREAD_CACHE_SIZE_CLASSES > 0);
+    setUpSingleSlabManager();
+    List<OffHeapStoredObject> chunks = new ArrayList<>();
+    for (int i = 0; i <= FreeListManager.THREAD_CACHE_SIZE; i++) {
+      chunks.add(this.freeListManager.allocate(10));
+    }
+    int chunkSize = chunks.get(0).getSize();
+
+    for (OffHeapStoredObject c : chunks) {
+      OffHeapStoredObject.release(c.getAddress(), this.freeListManager);
+    }
+
+    int givenBack = Math.max(1, FreeListManager.THREAD_CACHE_SIZE / 2);
+    assertThat(this.freeListManager.getThreadCachedMemory())
+        .isEqualTo((long) (chunks.size() - givenBack) * chunkSize);
+    assertThat(this.freeListManager.getFreeTinyMemory())
+        .isEqualTo((long) chunks.size() * chunkSize);
+    assertThat(this.freeListManager.getFreeListMemory())
+        .isEqualTo((long) chunks.size() * chunkSize);
+  }
+
+  @Test
+  public void defragmentDrainsCacheOfDeadThread() throws Exception {
+    assumeTrue(FreeListManager.THREAD_CACHE_SIZE_CLASSES > 0);
+    setUpSingleSlabManager();
+    Thread thread = new Thread(() -> {
+      OffHeapStoredObject c = this.freeListManager.allocate(10);
+      OffHeapStoredObject.release(c.getAddress(), this.freeListManager);
+    });
+    thread.start();
+    thread.join();
+    assertThat(this.freeListManager.getThreadCachedMemory()).isGreaterThan(0);
+    this.freeListManager.firstDefragmentation = false;
+
+    assertThat(this.freeListManager.defragment(DEFAULT_SLAB_SIZE)).isTrue();
+
+    assertThat(this.freeListManager.getThreadCachedMemory()).isZero();
+    assertThat(this.freeListManager.getFreeListMemory()).isZero();
+    assertThat(this.freeListManager.getFragmentList()).hasSize(1);
+  }
+
+  @Test
+  public void newThreadCacheDropsCacheOfDeadThread() throws Exception {
+    assumeTrue(FreeListManager.THREAD_CACHE_SIZE_CLASSES > 0);
+    setUpSingleSlabManager();
+    OffHeapStoredObject c = allocateAndFreeInDeadThread();
+
+    // the first tiny allocation of this thread creates its cache
+    OffHeapStoredObject c2 = this.freeListManager.allocate(10);
+
+    assertThat(c2.getAddress()).isEqualTo(c.getAddress());
+    assertThat(this.freeListManager.getThreadCachedMemory()).isZero();
+    assertThat(this.freeListManager.reserveThreadCacheChunks(
+        FreeListManager.THREAD_CACHE_MAX_CHUNKS - FreeListManager.THREAD_CACHE_SIZE)).isTrue();
+  }
+
+  @Test
+  public void incrementalDefragmentationDropsCacheOfDeadThread() throws Exception {
+    assumeTrue(FreeListManager.THREAD_CACHE_SIZE_CLASSES > 0);
+    setUpSingleSlabManager();
+    OffHeapStoredObject c = allocateAndFreeInDeadThread();
+
+    // the chunk given back by the dead thread is merged with the free end of the slab
+    assertThat(this.freeListManager.doDefragmentIncrementally()).isTrue();
+
+    assertThat(this.freeListManager.getThreadCachedMemory()).isZero();
+    assertThat(this.freeListManager.getFreeListMemory()).isZero();
+    assertThat(this.freeListManager.getFragmentList().get(0).getAddress())
+        .isEqualTo(c.getAddress());
+    assertThat(this.freeListManager.reserveThreadCacheChunks(
+        FreeListManager.THREAD_CACHE_MAX_CHUNKS)).isTrue();
+  }
+
+  @Test
+  public void sizeClassIsNotCachedOnceThreadCachesAreFull() {
+    assumeTrue(FreeListManager.THREAD_CACHE_SIZE_CLASSES > 0);
+    setUpSingleSlabManager();
+    assertThat(this.freeListManager.reserveThreadCacheChunks(
+        FreeListManager.THREAD_CACHE_MAX_CHUNKS)).isTrue();
+    OffHeapStoredObject c = this.freeListManager.allocate(10);
+
+    OffHeapStoredObject.release(c.getAddress(), this.freeListManager);
+
+    assertThat(this.freeListManager.getThreadCachedMemory()).isZero();
+    assertThat(this.freeListManager.getFreeTinyMemory()).isEqualTo(c.getSize());
+    assertThat(this.freeListManager.allocate(10).getAddress()).isEqualTo(c.getAddress());
+    assertThat(this.freeListManager.getFreeTinyMemory()).isZero();
+  }
+
+  private OffHeapStoredObject allocateAndFreeInDeadThread() throws InterruptedException {
+    OffHeapStoredObject[] chunk = new OffHeapStoredObject[1];
+    Thread thread = new Thread(() -> {
+      chunk[0] = this.freeListManager.allocate(10);
+      OffHeapStoredObject.release(chunk[0].getAddress(), this.freeListManager);
+    });
+    thread.start();
+    thread.join();
+    assertThat(this.freeListManager.getThreadCachedMemory()).isEqualTo(chunk[0].getSize());
+    return chunk[0];
+  }
+
+  @Test
+  public void incrementalDefragmentationWithNoFreeChunksReturnsFalse() {
+    setUpSingleSlabManager();
+    Fragment fragment = this.freeListManager.getFragmentList().get(0);
+    this.freeListManager.allocate(64 - 8);
+
+    assertThat(this.freeListManager.defragmentIncrementally()).isFalse();
+
+    assertThat(this.freeListManager.getFragmentList()).containsExactly(fragment);
+    verify(this.stats).endIncrementalDefragmentation(0L);
+  }
+
+  /**
+   * A chunk size that is not cached by threads, so that freed chunks of it go to the free lists.
+   */
+  private static final int UNCACHED_CHUNK_SIZE =
+      (FreeListManager.THREAD_CACHE_MAX_CHUNK_SIZE / 64 + 1) * 64;
+
+  @Test
+  public void incrementalDefragmentationMergesFreeChunksWithFragmentTail() {
+    setUpSingleSlabManager();
+    this.freeListManager.allocate(UNCACHED_CHUNK_SIZE - 8);
+    OffHeapStoredObject c2 = this.freeListManager.allocate(UNCACHED_CHUNK_SIZE - 8);
+    OffHeapStoredObject c3 = this.freeListManager.allocate(UNCACHED_CHUNK_SIZE - 8);
+    OffHeapStoredObject.release(c3.getAddress(), this.freeListManager);
+    OffHeapStoredObject.release(c2.getAddress(), this.freeListManager);
+
+    assertThat(this.freeListManager.doDefragmentIncrementally()).isTrue();
+
+    assertThat(this.freeListManager.getFragmentList()).hasSize(1);
+    Fragment fragment = this.freeListManager.getFragmentList().get(0);
+    assertThat(fragment.getAddress()).isEqualTo(c2.getAddress());
+    assertThat(fragment.freeSpace()).isEqualTo(DEFAULT_SLAB_SIZE - UNCACHED_CHUNK_SIZE);
+    assertThat(this.freeListManager.getFreeListMemory()).isZero();
+  }
+
+  @Test
+  public void incrementalDefragmentationLeavesFragmentsThatDoNotTouchFreeChunks() {
+    setUpSingleSlabManager();
+    Fragment fragment = this.freeListManager.getFragmentList().get(0);
+    OffHeapStoredObject c1 = this.freeListManager.allocate(UNCACHED_CHUNK_SIZE - 8);
+    this.freeListManager.allocate(UNCACHED_CHUNK_SIZE - 8);
+    OffHeapStoredObject.release(c1.getAddress(), this.freeListManager);
+
+    assertThat(this.freeListManager.doDefragmentIncrementally()).isFalse();
+
+    assertThat(this.freeListManager.getFragmentList()).containsExactly(fragment);
+    assertThat(fragment.getFreeIndex()).isEqualTo(UNCACHED_CHUNK_SIZE * 2);
+    assertThat(this.freeListManager.getFreeListMemory()).isEqualTo(UNCACHED_CHUNK_SIZE);
+    assertThat(this.freeListManager.allocate(UNCACHED_CHUNK_SIZE - 8).getAddress())
+        .isEqualTo(c1.getAddress());
+  }
+
+  @Test
+  public void incrementalDefragmentationGivesSmallMergedChunksBackToFreeLists() {
+    setUpSingleSlabManager();
+    OffHeapStoredObject c1 = this.freeListManager.allocate(UNCACHED_CHUNK_SIZE - 8);
+    OffHeapStoredObject c2 = this.freeListManager.allocate(UNCACHED_CHUNK_SIZE - 8);
+    this.freeListManager.allocate(UNCACHED_CHUNK_SIZE - 8);
+    OffHeapStoredObject.release(c2.getAddress(), this.freeListManager);
+    OffHeapStoredObject.release(c1.getAddress(), this.freeListManager);
+
+    assertThat(this.freeListManager.doDefragmentIncrementally()).isTrue();
+
+    assertThat(this.freeListManager.getFragmentList()).hasSize(1);
+    assertThat(this.freeListManager.getFreeListMemory()).isEqualTo(UNCACHED_CHUNK_SIZE * 2);
+    assertThat(this.freeListManager.allocate(UNCACHED_CHUNK_SIZE * 2 - 8).getAddress())
+        .isEqualTo(c1.getAddress());
+  }
+
+  @Test
+  public void incrementalDefragmentationLeavesThreadCachesAlone() {
+    assumeTrue(FreeListManager.THREAD_CACHE_SIZE_CLASSES > 0);
+    setUpSingleSlabManager();
+    OffHeapStoredObject c1 = this.freeListManager.allocate(64 - 8);
+    OffHeapStoredObject c2 = this.freeListManager.allocate(64 - 8);
+    this.freeListManager.allocate(64 - 8);
+    OffHeapStoredObject.release(c1.getAddress(), this.freeListManager);
+    OffHeapStoredObject.release(c2.getAddress(), this.freeListManager);
+
+    assertThat(this.freeListManager.doDefragmentIncrementally()).isFalse();
+
+    assertThat(this.freeListManager.getThreadCachedMemory()).isEqualTo(128);
+    assertThat(this.freeListManager.allocate(64 - 8).getAddress()).isEqualTo(c2.getAddress());
+  }
+
+  @Test
+  public void incrementalDefragmentationTakesAtMostMaxChunks() {
+    setUpSingleSlabManager();
+    OffHeapStoredObject c1 = this.freeListManager.allocate(UNCACHED_CHUNK_SIZE - 8);
+    OffHeapStoredObject c2 = this.freeListManager.allocate(UNCACHED_CHUNK_SIZE - 8);
+    this.freeListManager.allocate(UNCACHED_CHUNK_SIZE - 8);
+    OffHeapStoredObject.release(c2.getAddress(), this.freeListManager);
+    OffHeapStoredObject.release(c1.getAddress(), this.freeListManager);
+
+    assertThat(this.freeListManager.doDefragmentIncrementally(1)).isFalse();
+    assertThat(this.freeListManager.getFreeListMemory()).isEqualTo(UNCACHED_CHUNK_SIZE * 2);
+
+    assertThat(this.freeListManager.doDefragmentIncrementally(2)).isTrue();
+    assertThat(this.freeListManager.allocate(UNCACHED_CHUNK_SIZE * 2 - 8).getAddress())
+        .isEqualTo(c1.getAddress());
+  }
+
+  @Test
+  public void incrementalDefragmentationTurnsLargeMergedChunksIntoFragments() {
+    setUpSingleSlabManager();
+    int chunkSize = FreeListManager.MIN_INCREMENTAL_FRAGMENT_SIZE / 2;
+    OffHeapStoredObject c1 = this.freeListManager.allocate(chunkSize - 8);
+    OffHeapStoredObject c2 = this.freeListManager.allocate(chunkSize - 8);
+    this.freeListManager.allocate(64 - 8);
+    OffHeapStoredObject.release(c1.getAddress(), this.freeListManager);
+    OffHeapStoredObject.release(c2.getAddress(), this.freeListManager);
+
+    assertThat(this.freeListManager.doDefragmentIncrementally()).isTrue();
+
+    assertThat(this.freeListManager.getFragmentList()).hasSize(2);
+    Fragment merged = this.freeListManager.getFragmentList().get(1);
+    assertThat(merged.getAddress()).isEqualTo(c1.getAddress());
+    assertThat(merged.freeSpace()).isEqualTo(chunkSize * 2);
+    assertThat(this.freeListManager.getFreeListMemory()).isZero();
+  }
+
+  @Test
+  public void incrementalDefragmentationKeepsOlderFragmentAtSameAddress() {
+    setUpSingleSlabManager();
+    Fragment original = this.freeListManager.getFragmentList().get(0);
+    int chunkSize = FreeListManager.MIN_INCREMENTAL_FRAGMENT_SIZE / 2;
+    OffHeapStoredObject c1 = this.freeListManager.allocate(chunkSize - 8);
+    OffHeapStoredObject c2 = this.freeListManager.allocate(chunkSize - 8);
+    this.freeListManager.allocate(64 - 8);
+    OffHeapStoredObject.release(c1.getAddress(), this.freeListManager);
+    OffHeapStoredObject.release(c2.getAddress(), this.freeListManager);
+    assertThat(this.freeListManager.doDefragmentIncrementally()).isTrue();
+    Fragment merged = this.freeListManager.getFragmentList().get(1);
+    assertThat(merged.getAddress()).isEqualTo(original.getAddress());
+    OffHeapStoredObject c3 = this.freeListManager.allocateFromFragment(1, chunkSize);
+    c3.initializeUseCount();
+    OffHeapStoredObject.release(c3.getAddress(), this.freeListManager);
+
+    assertThat(this.freeListManager.doDefragmentIncrementally()).isTrue();
+
+    assertThat(this.freeListManager.getFragmentList()).hasSize(2);
+    assertThat(this.freeListManager.getFragmentList().get(0)).isSameAs(original);
+    assertThat(original.freeSpace()).isEqualTo(DEFAULT_SLAB_SIZE - chunkSize * 2 - 64);
+    assertThat(this.freeListManager.getFragmentList().get(1).freeSpace())
+        .isEqualTo(chunkSize * 2);
+  }
+
   @Test
   public void offHeapAlignmentLessThanZeroIsIllegal() {
     try {
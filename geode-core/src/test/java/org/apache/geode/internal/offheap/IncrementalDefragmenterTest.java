@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.offheap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.Test;
+
+public class IncrementalDefragmenterTest {
+
+  private final FreeListManager freeList = mock(FreeListManager.class);
+  private final IncrementalDefragmenter defragmenter = new IncrementalDefragmenter(freeList);
+
+  @Test
+  public void notNeededWithoutFreeMemory() {
+    when(freeList.getFreeMemory()).thenReturn(0L);
+    when(freeList.getFreeListMemory()).thenReturn(0L);
+
+    assertThat(defragmenter.isDefragmentationNeeded()).isFalse();
+  }
+
+  @Test
+  public void notNeededWhenMostFreeMemoryIsInFragments() {
+    when(freeList.getFreeMemory()).thenReturn(1000L);
+    when(freeList.getFreeListMemory())
+        .thenReturn(1000L * IncrementalDefragmenter.FREE_LIST_PERCENTAGE / 100 - 1);
+
+    assertThat(defragmenter.isDefragmentationNeeded()).isFalse();
+  }
+
+  @Test
+  public void neededWhenEnoughFreeMemoryIsOnFreeLists() {
+    when(freeList.getFreeMemory()).thenReturn(1000L);
+    when(freeList.getFreeListMemory())
+        .thenReturn(1000L * IncrementalDefragmenter.FREE_LIST_PERCENTAGE / 100);
+
+    assertThat(defragmenter.isDefragmentationNeeded()).isTrue();
+  }
+
+  @Test
+  public void defragmentsWhenNeeded() {
+    when(freeList.getFreeMemory()).thenReturn(1000L);
+    when(freeList.getFreeListMemory()).thenReturn(1000L);
+    when(freeList.defragmentIncrementally()).thenReturn(true);
+
+    defragmenter.defragmentIfNeeded();
+
+    verify(freeList).defragmentIncrementally();
+    assertThat(defragmenter.isDefragmentationNeeded()).isTrue();
+  }
+
+  @Test
+  public void notNeededAgainUntilFreeListsGrowWhenNothingWasMerged() {
+    when(freeList.getFreeMemory()).thenReturn(1000L);
+    when(freeList.getFreeListMemory()).thenReturn(800L);
+    when(freeList.defragmentIncrementally()).thenReturn(false);
+
+    defragmenter.defragmentIfNeeded();
+    assertThat(defragmenter.isDefragmentationNeeded()).isFalse();
+
+    when(freeList.getFreeListMemory()).thenReturn(900L);
+    assertThat(defragmenter.isDefragmentationNeeded()).isTrue();
+  }
+
+  @Test
+  public void doesNotDefragmentWhenNotNeeded() {
+    when(freeList.getFreeMemory()).thenReturn(1000L);
+    when(freeList.getFreeListMemory()).thenReturn(0L);
+
+    defragmenter.defragmentIfNeeded();
+
+    verify(freeList, never()).defragmentIncrementally();
+  }
+
+  @Test
+  public void notNeededWhenFreeListMemoryIsCachedByThreads() {
+    when(freeList.getFreeMemory()).thenReturn(1000L);
+    when(freeList.getFreeListMemory()).thenReturn(1000L);
+    when(freeList.getThreadCachedMemory()).thenReturn(1000L);
+
+    assertThat(defragmenter.isDefragmentationNeeded()).isFalse();
+  }
+}
@@ -14,6 +14,8 @@
  */
 package org.apache.geode.internal.offheap;
 
+import java.util.function.LongSupplier;
+
 import org.apache.geode.Statistics;
 
 /**
@@ -95,6 +97,37 @@ public class NullOffHeapMemoryStats implements OffHeapMemoryStats {
   @Override
   public void endDefragmentation(long start) {}
 
+  @Override
+  public long startIncrementalDefragmentation() {
+    return 0;
+  }
+
+  @Override
+  public void endIncrementalDefragmentation(long start) {}
+
+  @Override
+  public int getIncrementalDefragmentations() {
+    return 0;
+  }
+
+  @Override
+  public long getIncrementalDefragmentationTime() {
+    return 0;
+  }
+
+  @Override
+  public long startDefragmentationWait() {
+    return 0;
+  }
+
+  @Override
+  public void endDefragmentationWait(long start) {}
+
+  @Override
+  public long getDefragmentationWaitTime() {
+    return 0;
+  }
+
   @Override
   public void setFragmentation(int value) {}
 
@@ -103,6 +136,22 @@ public class NullOffHeapMemoryStats implements OffHeapMemoryStats {
     return 0;
   }
 
+  @Override
+  public void setFreeListMemorySupplier(LongSupplier supplier) {}
+
+  @Override
+  public long getFreeListMemory() {
+    return 0;
+  }
+
+  @Override
+  public void setThreadCachedMemorySupplier(LongSupplier supplier) {}
+
+  @Override
+  public long getThreadCachedMemory() {
+    return 0;
+  }
+
   @Override
   public Statistics getStats() {
     return null;
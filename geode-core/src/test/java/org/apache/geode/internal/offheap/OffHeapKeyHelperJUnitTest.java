@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.offheap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.apache.geode.internal.cache.EntryEventImpl;
+import org.apache.geode.internal.cache.RegionEntryContext;
+import org.apache.geode.internal.cache.Token;
+import org.apache.geode.internal.cache.entries.OffHeapKeyRegionEntry;
+import org.apache.geode.internal.cache.entries.VMThinRegionEntryOffHeapOffHeapKey;
+
+public class OffHeapKeyHelperJUnitTest {
+
+  private static final String KEY = "a key that is too long to be inlined";
+
+  private MemoryAllocatorImpl ma;
+
+  private RegionEntryContext context;
+
+  @Before
+  public void setUp() {
+    OutOfOffHeapMemoryListener ooohml = mock(OutOfOffHeapMemoryListener.class);
+    OffHeapMemoryStats stats = mock(OffHeapMemoryStats.class);
+
+    ma = (MemoryAllocatorImpl) MemoryAllocatorImpl.create(ooohml, stats, 1,
+        OffHeapStorage.MIN_SLAB_SIZE, OffHeapStorage.MIN_SLAB_SIZE);
+    context = mock(RegionEntryContext.class);
+    when(context.getOffHeap()).thenReturn(true);
+  }
+
+  @After
+  public void tearDown() {
+    MemoryAllocatorImpl.freeOffHeapMemory();
+  }
+
+  private OffHeapKeyRegionEntry createEntry(String key) {
+    return new VMThinRegionEntryOffHeapOffHeapKey(context, key, Token.REMOVED_PHASE1);
+  }
+
+  private void setValue(OffHeapKeyRegionEntry re) {
+    byte[] v = EntryEventImpl.serialize("a value that is too long to be encoded in an address");
+    OffHeapStoredObject chunk = (OffHeapStoredObject) ma.allocateAndInitialize(v, true, false);
+    OffHeapRegionEntryHelper.setValue(re, chunk);
+  }
+
+  @Test
+  public void keyStaysOnHeapUntilEntryHasValue() {
+    OffHeapKeyRegionEntry re = createEntry(KEY);
+
+    assertThat(re.getKeyAddress()).isEqualTo(OffHeapKeyHelper.HEAP_KEY_ADDRESS);
+    assertThat(re.getKeyField()).isSameAs(KEY);
+    assertThat(OffHeapKeyHelper.getKeyChunk(re)).isNull();
+  }
+
+  @Test
+  public void keyIsMovedOffHeapWhenEntryIsGivenValue() {
+    OffHeapKeyRegionEntry re = createEntry(KEY);
+
+    setValue(re);
+
+    assertThat(re.getKeyField()).isNull();
+    assertThat(OffHeapKeyHelper.getKeyChunk(re)).isNotNull();
+    assertThat(re.getKey()).isEqualTo(KEY);
+    assertThat(OffHeapKeyHelper.isKeyEqual(re, new String(KEY))).isTrue();
+    assertThat(OffHeapKeyHelper.isKeyEqual(re, KEY + "x")).isFalse();
+    assertThat(OffHeapKeyHelper.isKeyEqual(re, KEY.replace('k', 'K'))).isFalse();
+    assertThat(OffHeapKeyHelper.isKeyEqual(re, 1)).isFalse();
+  }
+
+  @Test
+  public void keyWithWideCharactersIsStoredOffHeap() {
+    String key = "ключ that is too long to be inlined é";
+    OffHeapKeyRegionEntry re = createEntry(key);
+
+    setValue(re);
+
+    assertThat(re.getKeyField()).isNull();
+    assertThat(re.getKey()).isEqualTo(key);
+    assertThat(OffHeapKeyHelper.isKeyEqual(re, new String(key))).isTrue();
+    assertThat(OffHeapKeyHelper.isKeyEqual(re, key.substring(1))).isFalse();
+  }
+
+  @Test
+  public void keyIsCopiedBackToHeapAndReleasedWhenEntryIsRemoved() {
+    long usedBefore = ma.getUsedMemory();
+    OffHeapKeyRegionEntry re = createEntry(KEY);
+    setValue(re);
+
+    OffHeapRegionEntryHelper.setValue(re, Token.REMOVED_PHASE2);
+
+    assertThat(re.getKeyAddress()).isEqualTo(OffHeapKeyHelper.HEAP_KEY_ADDRESS);
+    assertThat(re.getKeyField()).isEqualTo(KEY);
+    assertThat(OffHeapKeyHelper.isKeyEqual(re, KEY)).isTrue();
+    assertThat(ma.getUsedMemory()).isEqualTo(usedBefore);
+  }
+
+  @Test
+  public void keyIsMovedBackToHeapWhileEntryIsInvalidOrTombstone() {
+    long usedBefore = ma.getUsedMemory();
+    OffHeapKeyRegionEntry re = createEntry(KEY);
+    setValue(re);
+
+    OffHeapRegionEntryHelper.setValue(re, Token.INVALID);
+
+    assertThat(re.getKeyField()).isEqualTo(KEY);
+    assertThat(ma.getUsedMemory()).isEqualTo(usedBefore);
+
+    setValue(re);
+
+    assertThat(re.getKeyField()).isNull();
+    assertThat(re.getKey()).isEqualTo(KEY);
+
+    OffHeapRegionEntryHelper.setValue(re, Token.TOMBSTONE);
+
+    assertThat(re.getKeyField()).isEqualTo(KEY);
+    assertThat(ma.getUsedMemory()).isEqualTo(usedBefore);
+  }
+
+  @Test
+  public void keyStaysOnHeapWhenValueIsEncodedInAddress() {
+    OffHeapKeyRegionEntry re = createEntry(KEY);
+
+    OffHeapRegionEntryHelper.setValue(re, ma.allocateAndInitialize(new byte[] {1}, false, false));
+
+    assertThat(re.getKeyAddress()).isEqualTo(OffHeapKeyHelper.HEAP_KEY_ADDRESS);
+    assertThat(re.getKeyField()).isSameAs(KEY);
+  }
+
+  @Test
+  public void entryCreatedWithValueMovesKeyOffHeap() {
+    OffHeapKeyRegionEntry re = new VMThinRegionEntryOffHeapOffHeapKey(context, KEY,
+        "a value that is too long to be encoded in an address");
+
+    assertThat(re.getKeyField()).isNull();
+    assertThat(re.getKey()).isEqualTo(KEY);
+  }
+}
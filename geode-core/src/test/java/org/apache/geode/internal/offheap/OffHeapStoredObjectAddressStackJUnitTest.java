@@ -94,6 +94,35 @@ public class OffHeapStoredObjectAddressStackJUnitTest {
     }
   }
 
+  @Test
+  public void batchOfferAndPollKeepStackOrder() {
+    SlabImpl slab = new SlabImpl(1024);
+    try {
+      MemoryAllocatorImpl ma =
+          MemoryAllocatorImpl.createForUnitTest(new NullOutOfOffHeapMemoryListener(),
+              new NullOffHeapMemoryStats(), new SlabImpl[] {slab});
+      long addr1 = ((OffHeapStoredObject) ma.allocate(64)).getAddress();
+      long addr2 = ((OffHeapStoredObject) ma.allocate(64)).getAddress();
+      long addr3 = ((OffHeapStoredObject) ma.allocate(64)).getAddress();
+
+      OffHeapStoredObjectAddressStack stack = new OffHeapStoredObjectAddressStack();
+      stack.offer(addr1);
+      stack.offer(new long[] {addr2, addr3, 0L}, 2);
+      assertEquals(addr3, stack.getTopAddress());
+
+      long[] polled = new long[2];
+      assertEquals(2, stack.poll(polled, 2));
+      assertEquals(addr2, polled[0]);
+      assertEquals(addr3, polled[1]);
+      assertEquals(1, stack.poll(polled, 2));
+      assertEquals(addr1, polled[0]);
+      assertEquals(true, stack.isEmpty());
+      assertEquals(0, stack.poll(polled, 2));
+    } finally {
+      MemoryAllocatorImpl.freeOffHeapMemory();
+    }
+  }
+
   @Test
   public void stackWithChunkIsNotEmpty() {
     SlabImpl slab = new SlabImpl(1024);
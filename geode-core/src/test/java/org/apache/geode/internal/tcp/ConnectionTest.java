@@ -14,17 +14,35 @@
  */
 package org.apache.geode.internal.tcp;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayOutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
 import java.nio.ByteBuffer;
 import java.nio.channels.SocketChannel;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
+import org.junit.After;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 
+import org.apache.geode.CancelCriterion;
 import org.apache.geode.distributed.internal.DistributionMessage;
+import org.apache.geode.distributed.internal.DistributionStats;
+import org.apache.geode.internal.statistics.LocalStatisticsFactory;
 import org.apache.geode.test.junit.categories.MembershipTest;
 
 @Category({MembershipTest.class})
@@ -43,4 +61,122 @@ public class ConnectionTest {
     verify(mockConnection, times(1)).nioWriteFully(channel, buffer, forceAsync,
         mockDistributionMessage);
   }
+
+  private final DistributionStats stats =
+      spy(new DistributionStats(new LocalStatisticsFactory(null), 1));
+  private final ByteArrayOutputStream wire = new ByteArrayOutputStream();
+  /** counted down when the flusher starts writing a batch */
+  private final CountDownLatch writing = new CountDownLatch(1);
+  /** the flusher does not finish writing a batch until this is counted down */
+  private final CountDownLatch written = new CountDownLatch(1);
+  private Connection connection;
+
+  @After
+  public void closeBatchBuffer() {
+    written.countDown();
+    if (connection != null) {
+      connection.closeBatchBuffer();
+    }
+  }
+
+  @Test
+  public void messageThatWaitsForReplyIsHandedToFlusherRightAway() throws Exception {
+    connection = batchingConnection();
+
+    connection.sendPreserialized(message(1), false, null, true);
+
+    assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+    written.countDown();
+    verify(stats, timeout(5000)).incBatchesFlushed(eq(1), anyLong());
+    assertThat(wire.toByteArray()).containsExactly(1);
+  }
+
+  @Test
+  public void noAckMessagesAreCoalesced() throws Exception {
+    connection = batchingConnection();
+    connection.sendPreserialized(message(1), false, null, true);
+    assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+
+    // the flusher is busy writing the first batch so these wait in the next one
+    connection.sendPreserialized(message(2), false, null, false);
+    connection.sendPreserialized(message(3), false, null, false);
+    written.countDown();
+
+    verify(stats, timeout(5000)).incBatchesFlushed(eq(2), anyLong());
+    verify(stats, times(1)).incBatchesFlushed(eq(1), anyLong());
+    assertThat(stats.getBatchesFlushed()).isEqualTo(2);
+    assertThat(stats.getBatchedMessages()).isEqualTo(3);
+    assertThat(wire.toByteArray()).containsExactly(1, 2, 3);
+  }
+
+  @Test
+  public void messageThatWaitsForReplyFlushesMessagesBatchedBeforeIt() throws Exception {
+    connection = batchingConnection();
+    connection.sendPreserialized(message(1), false, null, true);
+    assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+    connection.sendPreserialized(message(2), false, null, false);
+
+    CompletableFuture<Void> reply = CompletableFuture.runAsync(() -> {
+      try {
+        connection.sendPreserialized(message(3), false, null, true);
+      } catch (Exception e) {
+        throw new RuntimeException(e);
+      }
+    });
+    // it waits until the flusher has taken its batch
+    Thread.sleep(100);
+    assertThat(reply).isNotDone();
+    written.countDown();
+
+    reply.get(5, TimeUnit.SECONDS);
+    verify(stats, timeout(5000)).incBatchesFlushed(eq(2), anyLong());
+    verify(stats, times(1)).incBatchesFlushed(eq(1), anyLong());
+    assertThat(wire.toByteArray()).containsExactly(1, 2, 3);
+  }
+
+  @Test
+  public void batchedMessagesAreWrittenWhenBatchBufferIsClosed() throws Exception {
+    connection = batchingConnection();
+    written.countDown();
+    connection.sendPreserialized(message(1), false, null, false);
+
+    connection.closeBatchBuffer();
+
+    verify(stats).incBatchesFlushed(eq(1), anyLong());
+    assertThat(wire.toByteArray()).containsExactly(1);
+    assertThatThrownBy(() -> connection.sendPreserialized(message(2), false, null, false))
+        .isInstanceOf(ConnectionException.class);
+  }
+
+  private static ByteBuffer message(int b) {
+    return ByteBuffer.wrap(new byte[] {(byte) b});
+  }
+
+  private Connection batchingConnection() throws Exception {
+    ConnectionTable table = mock(ConnectionTable.class);
+    TCPConduit conduit = mock(TCPConduit.class);
+    when(table.getConduit()).thenReturn(conduit);
+    when(conduit.getSocketId()).thenReturn(new InetSocketAddress(0));
+    when(conduit.useNIO()).thenReturn(true);
+    when(conduit.getStats()).thenReturn(stats);
+    when(conduit.getCancelCriterion()).thenReturn(mock(CancelCriterion.class));
+
+    SocketChannel channel = mock(SocketChannel.class);
+    when(channel.write(any(ByteBuffer.class))).thenAnswer(invocation -> {
+      writing.countDown();
+      written.await(5, TimeUnit.SECONDS);
+      ByteBuffer buffer = invocation.getArgument(0);
+      int length = buffer.remaining();
+      while (buffer.hasRemaining()) {
+        wire.write(buffer.get());
+      }
+      return length;
+    });
+    Socket socket = mock(Socket.class);
+    when(socket.getChannel()).thenReturn(channel);
+
+    Connection connection = new Connection(table, socket);
+    connection.createBatchSendBuffer();
+    return connection;
+  }
 }
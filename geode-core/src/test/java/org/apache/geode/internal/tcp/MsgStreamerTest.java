@@ -0,0 +1,211 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.tcp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.distributed.internal.ClusterDistributionManager;
+import org.apache.geode.distributed.internal.DMStats;
+import org.apache.geode.distributed.internal.DistributionMessage;
+import org.apache.geode.internal.ByteBufferWriter;
+import org.apache.geode.test.junit.categories.MembershipTest;
+
+@Category({MembershipTest.class})
+public class MsgStreamerTest {
+  private static final int SEND_BUFFER_SIZE = 32 * 1024;
+
+  @Test
+  public void largeDirectBufferIsGatheredIntoTheSameChunksAsWhenCopied() throws Exception {
+    ByteBuffer blob = ByteBuffer.allocateDirect(100_000);
+    for (int i = 0; i < blob.capacity(); i++) {
+      blob.put(i, (byte) i);
+    }
+    ByteArrayOutputStream gatheredWire = new ByteArrayOutputStream();
+    ByteArrayOutputStream copiedWire = new ByteArrayOutputStream();
+    Connection gathering = connection(true, gatheredWire);
+    Connection copying = connection(false, copiedWire);
+
+    send(new BlobMessage(blob), gathering);
+    send(new BlobMessage(blob), copying);
+
+    verify(gathering, atLeastOnce()).sendPreserialized(any(ByteBuffer[].class), anyBoolean(),
+        any(), anyBoolean());
+    verify(copying, never()).sendPreserialized(any(ByteBuffer[].class), anyBoolean(), any(),
+        anyBoolean());
+    assertThat(copiedWire.size()).isGreaterThan(blob.capacity());
+    assertThat(withoutMsgIds(gatheredWire.toByteArray()))
+        .isEqualTo(withoutMsgIds(copiedWire.toByteArray()));
+  }
+
+  @Test
+  public void smallDirectBufferIsCopied() throws Exception {
+    ByteArrayOutputStream wire = new ByteArrayOutputStream();
+    Connection gathering = connection(true, wire);
+
+    send(new BlobMessage(ByteBuffer.allocateDirect(100)), gathering);
+
+    verify(gathering, never()).sendPreserialized(any(ByteBuffer[].class), anyBoolean(), any(),
+        anyBoolean());
+    assertThat(wire.size()).isGreaterThan(100);
+  }
+
+  @Test
+  public void messageWithReplyProcessorFlushesBatch() throws Exception {
+    Connection con = connection(false, new ByteArrayOutputStream());
+
+    send(new BlobMessage(ByteBuffer.allocate(100), 7), con);
+
+    verify(con).sendPreserialized(any(ByteBuffer.class), anyBoolean(), any(), eq(true));
+  }
+
+  @Test
+  public void messageWithDirectAckFlushesBatch() throws Exception {
+    Connection con = connection(false, new ByteArrayOutputStream());
+
+    send(new BlobMessage(ByteBuffer.allocate(100)), con, true);
+
+    verify(con).sendPreserialized(any(ByteBuffer.class), anyBoolean(), any(), eq(true));
+  }
+
+  @Test
+  public void noAckMessageDoesNotFlushBatch() throws Exception {
+    Connection con = connection(false, new ByteArrayOutputStream());
+
+    send(new BlobMessage(ByteBuffer.allocate(100)), con);
+
+    verify(con).sendPreserialized(any(ByteBuffer.class), anyBoolean(), any(), eq(false));
+  }
+
+  @Test
+  public void onlyLastChunkOfMessageWithReplyProcessorFlushesBatch() throws Exception {
+    Connection con = connection(false, new ByteArrayOutputStream());
+
+    send(new BlobMessage(ByteBuffer.allocate(3 * SEND_BUFFER_SIZE), 7), con);
+
+    verify(con, atLeastOnce()).sendPreserialized(any(ByteBuffer.class), anyBoolean(), any(),
+        eq(false));
+    verify(con).sendPreserialized(any(ByteBuffer.class), anyBoolean(), any(), eq(true));
+  }
+
+  private static void send(DistributionMessage msg, Connection con) throws IOException {
+    send(msg, con, false);
+  }
+
+  private static void send(DistributionMessage msg, Connection con, boolean directReply)
+      throws IOException {
+    MsgStreamer streamer = new MsgStreamer(new ArrayList<>(Collections.singletonList(con)), msg,
+        directReply, mock(DMStats.class), SEND_BUFFER_SIZE);
+    streamer.writeMessage();
+  }
+
+  private static Connection connection(boolean canWriteGathered, ByteArrayOutputStream wire)
+      throws Exception {
+    Connection con = mock(Connection.class);
+    when(con.canWriteGathered()).thenReturn(canWriteGathered);
+    doAnswer(invocation -> {
+      write(invocation.getArgument(0), wire);
+      return null;
+    }).when(con).sendPreserialized(any(ByteBuffer.class), anyBoolean(), any(), anyBoolean());
+    doAnswer(invocation -> {
+      for (ByteBuffer buffer : (ByteBuffer[]) invocation.getArgument(0)) {
+        write(buffer, wire);
+      }
+      return null;
+    }).when(con).sendPreserialized(any(ByteBuffer[].class), anyBoolean(), any(), anyBoolean());
+    return con;
+  }
+
+  /**
+   * Returns the chunks with their message ids, which differ from one message to the next, cleared.
+   */
+  private static byte[] withoutMsgIds(byte[] chunks) {
+    ByteBuffer buffer = ByteBuffer.wrap(chunks);
+    int start = 0;
+    while (start < chunks.length) {
+      buffer.putShort(start + Connection.MSG_HEADER_ID_OFFSET, (short) 0);
+      int size = buffer.getInt(start + Connection.MSG_HEADER_SIZE_OFFSET) & Connection.MAX_MSG_SIZE;
+      start += Connection.MSG_HEADER_BYTES + size;
+    }
+    return chunks;
+  }
+
+  private static void write(ByteBuffer buffer, ByteArrayOutputStream wire) {
+    while (buffer.hasRemaining()) {
+      wire.write(buffer.get());
+    }
+  }
+
+  private static class BlobMessage extends DistributionMessage {
+    private final ByteBuffer blob;
+    private final int processorId;
+
+    BlobMessage(ByteBuffer blob) {
+      this(blob, 0);
+    }
+
+    BlobMessage(ByteBuffer blob, int processorId) {
+      this.blob = blob;
+      this.processorId = processorId;
+    }
+
+    @Override
+    public int getProcessorId() {
+      return this.processorId;
+    }
+
+    @Override
+    public int getProcessorType() {
+      return ClusterDistributionManager.SERIAL_EXECUTOR;
+    }
+
+    @Override
+    protected void process(ClusterDistributionManager dm) {}
+
+    @Override
+    public int getDSFID() {
+      return NO_FIXED_ID;
+    }
+
+    @Override
+    public void toData(DataOutput out) throws IOException {
+      out.writeInt(1);
+      ((ByteBufferWriter) out).write(this.blob.duplicate());
+      out.writeInt(2);
+    }
+
+    @Override
+    public void fromData(DataInput in) {}
+  }
+}
@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.tcp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.test.junit.categories.MembershipTest;
+
+@Category({MembershipTest.class})
+public class SelectorReadersTest {
+  private SelectorReaders selectorReaders;
+  private SocketChannel sender;
+  private SocketChannel receiver;
+  private Connection connection;
+
+  @Before
+  public void setUp() throws Exception {
+    selectorReaders = new SelectorReaders(1);
+    try (ServerSocketChannel server = ServerSocketChannel.open()) {
+      server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+      sender = SocketChannel.open(server.getLocalAddress());
+      receiver = server.accept();
+    }
+    connection = mock(Connection.class);
+    when(connection.getSocket()).thenReturn(receiver.socket());
+    when(connection.getPreserveOrder()).thenReturn(true);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    selectorReaders.close();
+    sender.close();
+    receiver.close();
+  }
+
+  @Test
+  public void readsConnectionWhenBytesArrive() throws Exception {
+    ByteBuffer received = ByteBuffer.allocate(3);
+    when(connection.readSelected(any())).thenAnswer(invocation -> {
+      invocation.<SocketChannel>getArgument(0).read(received);
+      return true;
+    });
+    selectorReaders.add(connection);
+
+    sender.write(ByteBuffer.wrap(new byte[] {1, 2, 3}));
+
+    verify(connection, timeout(10000)).readSelected(receiver);
+    assertThat(receiver.isBlocking()).isFalse();
+    verify(connection, never()).selectorReadingStopped();
+  }
+
+  @Test
+  public void throttledConnectionIsNotReadWhileOthersAre() throws Exception {
+    SocketChannel otherSender;
+    SocketChannel otherReceiver;
+    try (ServerSocketChannel server = ServerSocketChannel.open()) {
+      server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+      otherSender = SocketChannel.open(server.getLocalAddress());
+      otherReceiver = server.accept();
+    }
+    try {
+      Connection other = mock(Connection.class);
+      when(other.getSocket()).thenReturn(otherReceiver.socket());
+      when(other.getPreserveOrder()).thenReturn(true);
+      when(other.readSelected(any())).thenAnswer(invocation -> {
+        invocation.<SocketChannel>getArgument(0).read(ByteBuffer.allocate(16));
+        return true;
+      });
+      AtomicBoolean throttled = new AtomicBoolean(true);
+      when(connection.readSelected(any())).thenAnswer(invocation -> {
+        invocation.<SocketChannel>getArgument(0).read(ByteBuffer.allocate(16));
+        // what a throttled serial queue does when a selector thread adds to it
+        Connection.throttleSelectorReader(throttled::get);
+        return true;
+      });
+      selectorReaders.add(connection);
+      selectorReaders.add(other);
+      sender.write(ByteBuffer.wrap(new byte[] {1}));
+      verify(connection, timeout(10000)).readSelected(receiver);
+
+      sender.write(ByteBuffer.wrap(new byte[] {2}));
+      for (int i = 1; i <= 3; i++) {
+        otherSender.write(ByteBuffer.wrap(new byte[] {3}));
+        verify(other, timeout(10000).times(i)).readSelected(otherReceiver);
+      }
+      verify(connection, times(1)).readSelected(receiver);
+
+      throttled.set(false);
+
+      verify(connection, timeout(10000).times(2)).readSelected(receiver);
+      verify(connection, never()).selectorReadingStopped();
+    } finally {
+      otherSender.close();
+      otherReceiver.close();
+    }
+  }
+
+  @Test
+  public void stopsReadingConnectionThatCanNoLongerBeRead() throws Exception {
+    when(connection.readSelected(any())).thenReturn(false);
+    selectorReaders.add(connection);
+
+    sender.close();
+
+    verify(connection, timeout(10000)).selectorReadingStopped();
+  }
+
+  @Test
+  public void stopsReadingConnectionClosedByAnotherThread() throws Exception {
+    selectorReaders.add(connection);
+
+    receiver.close();
+
+    verify(connection, timeout(10000)).selectorReadingStopped();
+    verify(connection, never()).readSelected(any());
+  }
+
+  @Test
+  public void closeStopsReadingConnections() throws Exception {
+    selectorReaders.add(connection);
+
+    selectorReaders.close();
+
+    verify(connection, timeout(10000)).selectorReadingStopped();
+  }
+
+  @Test
+  public void connectionAddedAfterCloseIsStopped() throws Exception {
+    selectorReaders.close();
+
+    selectorReaders.add(connection);
+
+    verify(connection, timeout(10000)).selectorReadingStopped();
+  }
+}